@@ -19,13 +19,13 @@ if errorlevel 1 (
     echo ERROR: Maven build failed!
     exit /b 1
 )
-echo       Done: target\%MAIN_JAR%
+echo       Done: launcher-ui\target\%MAIN_JAR%
 
 :: Step 2: Prepare staging directory (only fat JAR)
 echo [2/4] Preparing staging directory...
 if exist "target\staging" rmdir /s /q "target\staging"
 mkdir "target\staging"
-copy "target\%MAIN_JAR%" "target\staging\" >nul
+copy "launcher-ui\target\%MAIN_JAR%" "target\staging\" >nul
 
 :: Step 3: Clean previous build
 echo [3/4] Cleaning previous build...
@@ -43,7 +43,7 @@ jpackage ^
     --main-jar %MAIN_JAR% ^
     --main-class %MAIN_CLASS% ^
     --dest %DEST_DIR% ^
-    --icon src\main\resources\icons\app.ico ^
+    --icon launcher-ui\src\main\resources\icons\app.ico ^
     --java-options "--add-opens java.base/java.lang=ALL-UNNAMED" ^
     --java-options "--add-opens java.base/java.lang.reflect=ALL-UNNAMED" ^
     --java-options "--add-opens java.base/java.io=ALL-UNNAMED"
@@ -0,0 +1,88 @@
+package me.kitakeyos.j2me.bench;
+
+/**
+ * Display that only counts the calls it receives, so the forwarded call has
+ * a side effect the JIT cannot drop.
+ */
+public class CountingDisplayAccess implements DisplayAccessShape {
+
+    public int paints;
+    public int keys;
+
+    @Override
+    public void commandAction(Object command, Object displayable) {
+    }
+
+    @Override
+    public Object getDisplay() {
+        return null;
+    }
+
+    @Override
+    public void keyPressed(int keyCode) {
+        keys += keyCode;
+    }
+
+    @Override
+    public void keyRepeated(int keyCode) {
+        keys += keyCode;
+    }
+
+    @Override
+    public void keyReleased(int keyCode) {
+        keys += keyCode;
+    }
+
+    @Override
+    public void pointerPressed(int x, int y) {
+    }
+
+    @Override
+    public void pointerReleased(int x, int y) {
+    }
+
+    @Override
+    public void pointerDragged(int x, int y) {
+    }
+
+    @Override
+    public void paint(Object graphics) {
+        paints++;
+    }
+
+    @Override
+    public boolean isFullScreenMode() {
+        return false;
+    }
+
+    @Override
+    public void serviceRepaints() {
+    }
+
+    @Override
+    public Object getCurrent() {
+        return null;
+    }
+
+    @Override
+    public Object getCurrentUI() {
+        return null;
+    }
+
+    @Override
+    public void setCurrent(Object displayable) {
+    }
+
+    @Override
+    public void sizeChanged() {
+    }
+
+    @Override
+    public void repaint() {
+        paints++;
+    }
+
+    @Override
+    public void clean() {
+    }
+}
@@ -0,0 +1,89 @@
+package me.kitakeyos.j2me.bench;
+
+import me.kitakeyos.j2me.infrastructure.bytecode.DisplayAccessDelegateGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one paint and one key call through the wrapper installed between
+ * MicroEmulator and a MIDlet's display: the old {@link Proxy} with
+ * {@link ProxyToggleHandler} against the delegate generated by
+ * {@link DisplayAccessDelegateGenerator}.
+ * <p>
+ * With {@code graphics=false} paint calls are dropped by the wrapper, as
+ * when the user turns painting off for an instance.
+ * <p>
+ * Run with {@code java -jar launcher-bench/target/benchmarks-jar-with-dependencies.jar}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DisplayAccessBenchmark {
+
+    @Param({"true", "false"})
+    public boolean graphics;
+
+    private DisplayAccessShape proxy;
+    private DisplayAccessShape delegate;
+    private int keyCode;
+
+    @Setup
+    public void setUp() throws Exception {
+        ProxyToggleHandler handler = new ProxyToggleHandler(new CountingDisplayAccess(), graphics);
+        proxy = (DisplayAccessShape) Proxy.newProxyInstance(DisplayAccessShape.class.getClassLoader(),
+                new Class<?>[] { DisplayAccessShape.class }, handler);
+
+        // Defined next to the interface, as EmulatorClassLoader does
+        byte[] bytes = DisplayAccessDelegateGenerator.generateClass(DisplayAccessShape.class);
+        Class<?> delegateClass = new DelegateLoader(DisplayAccessShape.class.getClassLoader()).define(bytes);
+        delegate = (DisplayAccessShape) delegateClass.getConstructor(DisplayAccessShape.class)
+                .newInstance(new CountingDisplayAccess());
+        delegateClass.getField(DisplayAccessDelegateGenerator.PAINT_FIELD).setBoolean(delegate, graphics);
+    }
+
+    @Benchmark
+    public void proxyPaint() {
+        proxy.paint(null);
+    }
+
+    @Benchmark
+    public void delegatePaint() {
+        delegate.paint(null);
+    }
+
+    @Benchmark
+    public void proxyKeyPressed() {
+        proxy.keyPressed(++keyCode);
+    }
+
+    @Benchmark
+    public void delegateKeyPressed() {
+        delegate.keyPressed(++keyCode);
+    }
+
+    private static class DelegateLoader extends ClassLoader {
+
+        DelegateLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(byte[] bytes) {
+            return defineClass(DisplayAccessDelegateGenerator.BINARY_NAME, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package me.kitakeyos.j2me.bench;
+
+/**
+ * Same methods as {@code org.microemu.DisplayAccess}, with MIDP types
+ * replaced by Object so the benchmark compiles without MicroEmulator. The
+ * proxy handler and the generated delegate only look at method names and
+ * parameter kinds, so they do the same work on this interface.
+ */
+public interface DisplayAccessShape {
+
+    void commandAction(Object command, Object displayable);
+
+    Object getDisplay();
+
+    void keyPressed(int keyCode);
+
+    void keyRepeated(int keyCode);
+
+    void keyReleased(int keyCode);
+
+    void pointerPressed(int x, int y);
+
+    void pointerReleased(int x, int y);
+
+    void pointerDragged(int x, int y);
+
+    void paint(Object graphics);
+
+    boolean isFullScreenMode();
+
+    void serviceRepaints();
+
+    Object getCurrent();
+
+    Object getCurrentUI();
+
+    void setCurrent(Object displayable);
+
+    void sizeChanged();
+
+    void repaint();
+
+    void clean();
+}
@@ -0,0 +1,50 @@
+package me.kitakeyos.j2me.bench;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+/**
+ * The InvocationHandler GraphicsOptimizationService installed behind a
+ * {@link java.lang.reflect.Proxy} before the generated delegate replaced it,
+ * kept here as the baseline.
+ */
+public class ProxyToggleHandler implements InvocationHandler {
+
+    private final Object original;
+    private volatile boolean enabled;
+    private volatile boolean suspended;
+
+    public ProxyToggleHandler(Object original, boolean enabled) {
+        this.original = original;
+        this.enabled = enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setSuspended(boolean suspended) {
+        this.suspended = suspended;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        // Intercept painting methods when disabled or suspended
+        if (!enabled || suspended) {
+            if (name.equals("paint") || name.equals("repaint") || name.equals("serviceRepaints")) {
+                return null;
+            }
+        }
+
+        // Drop key, pointer and command input while suspended
+        if (suspended) {
+            if (name.startsWith("key") || name.startsWith("pointer") || name.equals("commandAction")) {
+                return null;
+            }
+        }
+
+        return method.invoke(original, args);
+    }
+}
@@ -0,0 +1,382 @@
+package me.kitakeyos.j2me.application.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs the instances of a farm on a cluster of {@link NodeAgent}s, talking
+ * the {@link WorkerMessage} protocol over TCP.
+ * <p>
+ * Each instance is placed on the least loaded live node: the highest of its
+ * heap use, its CPU use over all cores and, with {@code maxInstancesPerNode},
+ * its share of that limit. Nodes within 10% of each other are ranked by
+ * instances placed per core, so a burst of launches is spread before the
+ * nodes' own metrics catch up. The emulator and application JARs are
+ * uploaded once per node and cached there by checksum.
+ * <p>
+ * When a node is lost, its instances are placed again on the remaining
+ * nodes under the same IDs. RMS data lives on each node, so a migrated
+ * instance continues with the RMS its new node has for that ID.
+ */
+final class ClusterCoordinator implements FarmHost {
+
+    private static final Logger logger = Logger.getLogger(ClusterCoordinator.class.getName());
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final long CALL_TIMEOUT_MS = 10_000;
+    private static final long UPLOAD_TIMEOUT_MS = 120_000;
+    private static final long METRICS_MAX_AGE_MS = 2000;
+
+    private final FarmDefinition definition;
+    private final FarmDefinition.Cluster settings;
+    private final int admissionThresholdPercent;
+    private final List<HostConnection> nodes = new CopyOnWriteArrayList<>();
+    private final Map<Integer, Placement> placements = new ConcurrentHashMap<>();
+    private final Map<HostConnection, Map<String, String>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger unplaced = new AtomicInteger();
+    private final AtomicInteger migrated = new AtomicInteger();
+    private final AtomicInteger lost = new AtomicInteger();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final ExecutorService migrationExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cluster-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long metricsRefreshedMs;
+
+    /**
+     * Connect to every node of the definition. Unreachable nodes are
+     * reported and left out.
+     *
+     * @throws IOException If no node is reachable
+     */
+    ClusterCoordinator(FarmDefinition definition, int admissionThresholdPercent) throws IOException {
+        this.definition = definition;
+        this.settings = definition.getCluster();
+        this.admissionThresholdPercent = admissionThresholdPercent;
+        for (String address : settings.getNodes()) {
+            try {
+                nodes.add(connect(address));
+                System.out.println("Node " + address + " connected");
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Node " + address + " unavailable: " + e.getMessage());
+            }
+        }
+        if (nodes.isEmpty()) {
+            throw new IOException("No cluster node is reachable");
+        }
+    }
+
+    private HostConnection connect(String address) throws IOException {
+        int colon = address.lastIndexOf(':');
+        String host = colon > 0 ? address.substring(0, colon) : address;
+        int port = colon > 0 ? Integer.parseInt(address.substring(colon + 1)) : NodeAgent.DEFAULT_PORT;
+
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            HostConnection node = new HostConnection("Node " + address, socket);
+            node.startReader();
+
+            WorkerMessage hello = new WorkerMessage(WorkerMessage.HELLO);
+            hello.token = settings.getToken();
+            node.call(hello, CALL_TIMEOUT_MS);
+
+            WorkerMessage configure = new WorkerMessage(WorkerMessage.CONFIGURE);
+            configure.redirections = definition.getRedirectionRules();
+            configure.proxies = definition.getProxyRules();
+            configure.watchdog = definition.getWatchdog();
+            configure.maxConcurrentStarts = definition.getMaxConcurrentStarts();
+            configure.admissionThresholdPercent = admissionThresholdPercent;
+            node.call(configure, CALL_TIMEOUT_MS);
+
+            node.setOnLost(() -> onNodeLost(node));
+            return node;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> launch(int instanceId, String emulatorPath, String appPath,
+                                             FarmDefinition.Group group) {
+        Placement placement = new Placement(instanceId, emulatorPath, appPath, group);
+        placements.put(instanceId, placement);
+        CompletableFuture<Boolean> result = place(placement);
+        if (result == null) {
+            unplaced.incrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        }
+        return result;
+    }
+
+    /**
+     * Put an instance on the least loaded node, uploading its JARs there
+     * first if needed.
+     *
+     * @return Completes once the instance runs or failed, null if no node
+     *         could take it
+     */
+    private CompletableFuture<Boolean> place(Placement placement) {
+        while (!stopping.get()) {
+            HostConnection node = leastLoaded();
+            if (node == null) {
+                System.err.println("Instance #" + placement.instanceId + ": no cluster node has room");
+                return null;
+            }
+            WorkerMessage request = new WorkerMessage(WorkerMessage.CREATE);
+            try {
+                request.emulator = upload(node, placement.emulatorPath);
+                request.app = upload(node, placement.appPath);
+            } catch (IOException e) {
+                // The node may have died meanwhile; try the next one
+                System.err.println(node.getName() + ": upload failed: " + e.getMessage());
+                if (node.isAlive()) {
+                    return null;
+                }
+                continue;
+            }
+            request.instanceId = placement.instanceId;
+            request.group = placement.group;
+            placement.node = node;
+            node.getInstanceIds().add(placement.instanceId);
+            return node.request(request).handle((reply, error) -> reply != null && reply.isOk());
+        }
+        return null;
+    }
+
+    /**
+     * @return The live node with the lowest load that still has room, or
+     *         null if there is none
+     */
+    private synchronized HostConnection leastLoaded() {
+        if (System.currentTimeMillis() - metricsRefreshedMs > METRICS_MAX_AGE_MS) {
+            refreshMetrics();
+        }
+        HostConnection best = null;
+        double bestLoad = 0;
+        double bestPerCore = 0;
+        for (HostConnection node : nodes) {
+            if (!node.isAlive()) {
+                continue;
+            }
+            int placed = node.getInstanceIds().size();
+            if (settings.getMaxInstancesPerNode() > 0 && placed >= settings.getMaxInstancesPerNode()) {
+                continue;
+            }
+            HostMetrics metrics = node.getLastMetrics();
+            int cores = Math.max(1, metrics.getCores());
+            double load = metrics.getHeapMax() > 0 ? (double) metrics.getHeapUsed() / metrics.getHeapMax() : 0;
+            load = Math.max(load, metrics.getCpuPercent() / (cores * 100.0));
+            if (settings.getMaxInstancesPerNode() > 0) {
+                load = Math.max(load, (double) placed / settings.getMaxInstancesPerNode());
+            }
+            double perCore = (double) placed / cores;
+            if (best == null || load < bestLoad - 0.1
+                    || (load < bestLoad + 0.1 && perCore < bestPerCore)) {
+                best = node;
+                bestLoad = load;
+                bestPerCore = perCore;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Ask every live node for its metrics, in parallel.
+     */
+    private void refreshMetrics() {
+        List<HostConnection> asked = new ArrayList<>();
+        List<CompletableFuture<WorkerMessage>> replies = new ArrayList<>();
+        for (HostConnection node : nodes) {
+            if (node.isAlive()) {
+                asked.add(node);
+                replies.add(node.request(new WorkerMessage(WorkerMessage.METRICS)));
+            }
+        }
+        for (int i = 0; i < asked.size(); i++) {
+            try {
+                WorkerMessage reply = replies.get(i).get(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (reply.isOk() && reply.metrics != null) {
+                    asked.get(i).setLastMetrics(reply.metrics);
+                }
+            } catch (Exception e) {
+                logger.fine("No metrics from " + asked.get(i).getName() + ": " + e);
+            }
+        }
+        metricsRefreshedMs = System.currentTimeMillis();
+    }
+
+    /**
+     * @return Path of the file on the node, uploading it if the node does
+     *         not have it cached yet
+     */
+    private String upload(HostConnection node, String localPath) throws IOException {
+        Map<String, String> uploaded = uploads.computeIfAbsent(node, n -> new ConcurrentHashMap<>());
+        String remotePath = uploaded.get(localPath);
+        if (remotePath != null) {
+            return remotePath;
+        }
+        File file = new File(localPath);
+        byte[] data = Files.readAllBytes(file.toPath());
+        WorkerMessage request = new WorkerMessage(WorkerMessage.FILE);
+        request.name = file.getName();
+        request.sha256 = HostEndpoint.sha256(data);
+        WorkerMessage reply = node.request(request).handle((r, e) -> r).join();
+        if (reply == null || !reply.isOk()) {
+            request = new WorkerMessage(WorkerMessage.FILE);
+            request.name = file.getName();
+            request.sha256 = HostEndpoint.sha256(data);
+            request.data = Base64.getEncoder().encodeToString(data);
+            reply = node.call(request, UPLOAD_TIMEOUT_MS);
+        }
+        uploaded.put(localPath, reply.path);
+        return reply.path;
+    }
+
+    /**
+     * Move the instances of a lost node to the remaining ones. Called on the
+     * node's reader thread.
+     */
+    private void onNodeLost(HostConnection node) {
+        if (stopping.get()) {
+            return;
+        }
+        List<Placement> orphans = new ArrayList<>();
+        for (Integer instanceId : node.getInstanceIds()) {
+            Placement placement = placements.get(instanceId);
+            if (placement != null && placement.node == node) {
+                orphans.add(placement);
+            }
+        }
+        System.err.printf("%s lost, migrating %d instance(s)%n", node.getName(), orphans.size());
+        node.markLostReported();
+        migrationExecutor.execute(() -> {
+            for (Placement placement : orphans) {
+                if (stopping.get()) {
+                    return;
+                }
+                CompletableFuture<Boolean> result = place(placement);
+                if (result == null) {
+                    lost.incrementAndGet();
+                    continue;
+                }
+                migrated.incrementAndGet();
+                result.thenAccept(ok -> {
+                    if (!ok) {
+                        System.err.println("Migrated instance #" + placement.instanceId + " failed to start");
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Sum the metrics of all nodes. A lost node contributes its last
+     * reported counters.
+     */
+    @Override
+    public HostMetrics metrics() {
+        synchronized (this) {
+            refreshMetrics();
+        }
+        HostMetrics total = new HostMetrics();
+        int alive = 0;
+        for (HostConnection node : nodes) {
+            if (node.isAlive()) {
+                total.add(node.getLastMetrics());
+                alive++;
+            } else {
+                total.add(node.getLastMetrics().countersOnly());
+            }
+        }
+        total.addFailed(unplaced.get());
+        total.addLost(lost.get());
+        total.addMigrated(migrated.get());
+        total.setNodes(alive);
+        return total;
+    }
+
+    /**
+     * @return The node hosting an instance, for remote control
+     * @throws IOException If the instance is not placed on a live node
+     */
+    HostConnection hostOf(int instanceId) throws IOException {
+        Placement placement = placements.get(instanceId);
+        if (placement == null || placement.node == null || !placement.node.isAlive()) {
+            throw new IOException("Instance #" + instanceId + " is not placed on a live node");
+        }
+        return placement.node;
+    }
+
+    /**
+     * Ask every node to stop its instances, in parallel. The nodes keep
+     * running and wait for the next coordinator.
+     */
+    @Override
+    public boolean stop(long timeoutMs) {
+        stopping.set(true);
+        List<CompletableFuture<WorkerMessage>> replies = new ArrayList<>();
+        for (HostConnection node : nodes) {
+            if (node.isAlive()) {
+                replies.add(node.request(new WorkerMessage(WorkerMessage.SHUTDOWN)));
+            }
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        boolean clean = true;
+        for (CompletableFuture<WorkerMessage> reply : replies) {
+            try {
+                clean &= reply.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                        .isOk();
+            } catch (Exception e) {
+                clean = false;
+            }
+        }
+        return clean;
+    }
+
+    @Override
+    public void close() {
+        stopping.set(true);
+        migrationExecutor.shutdownNow();
+        for (HostConnection node : nodes) {
+            node.setOnLost(null);
+            node.close();
+        }
+    }
+
+    /**
+     * What is needed to start an instance again elsewhere.
+     */
+    private static final class Placement {
+        private final int instanceId;
+        private final String emulatorPath;
+        private final String appPath;
+        private final FarmDefinition.Group group;
+        private volatile HostConnection node;
+
+        private Placement(int instanceId, String emulatorPath, String appPath, FarmDefinition.Group group) {
+            this.instanceId = instanceId;
+            this.emulatorPath = emulatorPath;
+            this.appPath = appPath;
+            this.group = group;
+        }
+    }
+}
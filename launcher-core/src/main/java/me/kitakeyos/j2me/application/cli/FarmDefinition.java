@@ -0,0 +1,464 @@
+package me.kitakeyos.j2me.application.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import me.kitakeyos.j2me.domain.media.model.MediaPolicy;
+import me.kitakeyos.j2me.domain.network.model.ProxyRule;
+import me.kitakeyos.j2me.domain.network.model.RedirectionRule;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Declarative description of an instance farm, read from JSON by
+ * {@link FarmRunner}. Example:
+ *
+ * <pre>
+ * {
+ *   "emulator": "data/microemulator.jar",
+ *   "durationSeconds": 3600,
+ *   "summaryIntervalSeconds": 30,
+ *   "groups": [
+ *     {
+ *       "app": "games/bot.jar",
+ *       "instances": 20,
+ *       "width": 240, "height": 320,
+ *       "speed": 2.0,
+ *       "graphics": false,
+ *       "media": "stub",
+ *       "redirections": [
+ *         { "originalHost": "game.example.com", "originalPort": 8080,
+ *           "targetHost": "127.0.0.1", "targetPort": 9090 }
+ *       ]
+ *     }
+ *   ],
+ *   "proxies": [ { "type": "SOCKS", "host": "10.0.0.1", "port": 1080 } ],
+ *   "watchdog": { "enabled": true, "stallTimeoutSeconds": 180, "maxRestartsPerHour": 5 },
+ *   "workers": { "instancesPerWorker": 10, "heapMb": 512 }
+ * }
+ * </pre>
+ *
+ * Instead of {@code workers}, a {@code cluster} section spreads the
+ * instances over node agents on other machines:
+ * {@code "cluster": { "nodes": ["10.0.0.2:7700", "10.0.0.3:7700"] }}.
+ *
+ * Omitted fields keep the defaults below. Rules listed in a group are bound
+ * to each instance of that group; top-level rules use their
+ * {@code instanceId}, or apply to all instances without one.
+ */
+public class FarmDefinition {
+
+    /**
+     * MicroEmulator JAR, null for the one configured in the launcher
+     */
+    private String emulator;
+
+    /**
+     * Run time after the last launch, 0 to run until every instance stopped
+     */
+    private int durationSeconds;
+
+    private int summaryIntervalSeconds = 30;
+
+    /**
+     * Instances starting at once, 0 for one per core (at least two)
+     */
+    private int maxConcurrentStarts;
+
+    private List<Group> groups = new ArrayList<>();
+    private List<Redirection> redirections = new ArrayList<>();
+    private List<Proxy> proxies = new ArrayList<>();
+    private Watchdog watchdog = new Watchdog();
+
+    /**
+     * Worker process settings, null to run every instance in this JVM
+     */
+    private Workers workers;
+
+    /**
+     * Cluster nodes, null to run on this machine
+     */
+    private Cluster cluster;
+
+    /**
+     * Read and validate a farm definition
+     *
+     * @throws IOException              If the file cannot be read
+     * @throws IllegalArgumentException If the definition is malformed or
+     *                                  incomplete
+     */
+    public static FarmDefinition load(File file) throws IOException {
+        FarmDefinition definition;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            definition = new Gson().fromJson(reader, FarmDefinition.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Invalid farm definition: " + e.getMessage(), e);
+        }
+        if (definition == null) {
+            throw new IllegalArgumentException("Farm definition is empty");
+        }
+        definition.validate();
+        return definition;
+    }
+
+    private void validate() {
+        if (groups == null || groups.isEmpty()) {
+            throw new IllegalArgumentException("Farm definition has no groups");
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            Group group = groups.get(i);
+            if (group == null || group.app == null || group.app.trim().isEmpty()) {
+                throw new IllegalArgumentException("Group " + (i + 1) + " has no app");
+            }
+            if (group.instances < 0 || group.width <= 0 || group.height <= 0 || group.speed <= 0) {
+                throw new IllegalArgumentException("Group " + (i + 1) + " (" + group.app
+                        + ") has an invalid instance count, display size or speed");
+            }
+            group.getMediaPolicy();
+        }
+        if (durationSeconds < 0 || summaryIntervalSeconds < 0 || maxConcurrentStarts < 0) {
+            throw new IllegalArgumentException("Durations and limits must not be negative");
+        }
+        if (redirections == null) {
+            redirections = new ArrayList<>();
+        }
+        if (proxies == null) {
+            proxies = new ArrayList<>();
+        }
+        if (watchdog == null) {
+            watchdog = new Watchdog();
+        }
+        if (workers != null) {
+            if (workers.instancesPerWorker <= 0 || workers.heapMb < 0) {
+                throw new IllegalArgumentException("Workers need a positive instancesPerWorker and heapMb");
+            }
+            if (workers.jvmArgs == null) {
+                workers.jvmArgs = new ArrayList<>();
+            }
+        }
+        if (cluster != null) {
+            if (workers != null) {
+                throw new IllegalArgumentException("A farm uses either workers or a cluster, not both");
+            }
+            if (cluster.nodes == null || cluster.nodes.isEmpty() || cluster.maxInstancesPerNode < 0) {
+                throw new IllegalArgumentException("Cluster needs at least one node");
+            }
+            if (cluster.token == null || cluster.token.isEmpty()) {
+                cluster.token = System.getenv(NodeAgent.TOKEN_ENV);
+            }
+            if (cluster.token == null || cluster.token.isEmpty()) {
+                throw new IllegalArgumentException("Cluster needs a token, in the definition or "
+                        + NodeAgent.TOKEN_ENV);
+            }
+        }
+        // Build every rule once so malformed ones are reported before launch
+        getRedirectionRules();
+        getProxyRules();
+        for (Group group : groups) {
+            group.getRedirectionRules(RedirectionRule.ALL_INSTANCES);
+            group.getProxyRules(ProxyRule.ALL_INSTANCES);
+        }
+    }
+
+    public String getEmulator() {
+        return emulator;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getSummaryIntervalSeconds() {
+        return summaryIntervalSeconds;
+    }
+
+    public int getMaxConcurrentStarts() {
+        return maxConcurrentStarts;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * @return Top-level redirection rules as configured
+     */
+    public List<RedirectionRule> getRedirectionRules() {
+        List<RedirectionRule> rules = new ArrayList<>();
+        for (Redirection redirection : redirections) {
+            rules.add(redirection.toRule(redirection.instanceId));
+        }
+        return rules;
+    }
+
+    /**
+     * @return Top-level proxy rules as configured
+     */
+    public List<ProxyRule> getProxyRules() {
+        List<ProxyRule> rules = new ArrayList<>();
+        for (Proxy proxy : proxies) {
+            rules.add(proxy.toRule(proxy.instanceId));
+        }
+        return rules;
+    }
+
+    public Watchdog getWatchdog() {
+        return watchdog;
+    }
+
+    public Workers getWorkers() {
+        return workers;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * A number of identical instances of one application.
+     */
+    public static class Group {
+        /**
+         * ID or name of an installed application, or path to a JAR
+         */
+        private String app;
+        private int instances = 1;
+        private int width = 240;
+        private int height = 320;
+        private boolean fullDisplay;
+        private double speed = 1.0;
+        private boolean graphics = true;
+        /**
+         * Media policy: real, stub or shared. Farm instances are silent by
+         * default, with no audio line or sequencer each
+         */
+        private String media = MediaPolicy.STUB.name();
+        private List<Redirection> redirections = new ArrayList<>();
+        private List<Proxy> proxies = new ArrayList<>();
+
+        Group() {
+        }
+
+        /**
+         * A single instance, for hosts driven by the Swing launcher rather
+         * than by a definition file
+         */
+        Group(String app, int width, int height, boolean fullDisplay, double speed, boolean graphics,
+              MediaPolicy media) {
+            this.app = app;
+            this.width = width;
+            this.height = height;
+            this.fullDisplay = fullDisplay;
+            this.speed = speed;
+            this.graphics = graphics;
+            this.media = media.name();
+        }
+
+        public String getApp() {
+            return app;
+        }
+
+        public int getInstances() {
+            return instances;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public boolean isFullDisplay() {
+            return fullDisplay;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+
+        public boolean isGraphics() {
+            return graphics;
+        }
+
+        /**
+         * @throws IllegalArgumentException If the policy name is unknown
+         */
+        public MediaPolicy getMediaPolicy() {
+            return media != null ? MediaPolicy.fromName(media) : MediaPolicy.STUB;
+        }
+
+        /**
+         * @return The group's redirection rules, bound to the given instance
+         */
+        public List<RedirectionRule> getRedirectionRules(int instanceId) {
+            List<RedirectionRule> rules = new ArrayList<>();
+            if (redirections != null) {
+                for (Redirection redirection : redirections) {
+                    rules.add(redirection.toRule(instanceId));
+                }
+            }
+            return rules;
+        }
+
+        /**
+         * @return The group's proxy rules, bound to the given instance
+         */
+        public List<ProxyRule> getProxyRules(int instanceId) {
+            List<ProxyRule> rules = new ArrayList<>();
+            if (proxies != null) {
+                for (Proxy proxy : proxies) {
+                    rules.add(proxy.toRule(instanceId));
+                }
+            }
+            return rules;
+        }
+    }
+
+    private static class Redirection {
+        private String originalHost;
+        private int originalPort;
+        private String targetHost;
+        private int targetPort;
+        private int instanceId = RedirectionRule.ALL_INSTANCES;
+        private boolean enabled = true;
+
+        RedirectionRule toRule(int instanceId) {
+            if (originalHost == null || targetHost == null) {
+                throw new IllegalArgumentException("Redirection needs originalHost and targetHost");
+            }
+            RedirectionRule rule = new RedirectionRule(originalHost, originalPort, targetHost, targetPort,
+                    instanceId);
+            rule.setEnabled(enabled);
+            return rule;
+        }
+    }
+
+    private static class Proxy {
+        private String type = ProxyRule.ProxyType.SOCKS.name();
+        private String host;
+        private int port;
+        private String username;
+        private String password;
+        private int instanceId = ProxyRule.ALL_INSTANCES;
+        private boolean enabled = true;
+
+        ProxyRule toRule(int instanceId) {
+            if (host == null) {
+                throw new IllegalArgumentException("Proxy needs a host");
+            }
+            ProxyRule.ProxyType proxyType;
+            try {
+                proxyType = ProxyRule.ProxyType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown proxy type: " + type);
+            }
+            ProxyRule rule = username != null && !username.isEmpty()
+                    ? new ProxyRule(proxyType, host, port, instanceId, username, password)
+                    : new ProxyRule(proxyType, host, port, instanceId);
+            rule.setEnabled(enabled);
+            return rule;
+        }
+    }
+
+    /**
+     * Hung-instance watchdog settings, see InstanceWatchdog.
+     */
+    public static class Watchdog {
+        private boolean enabled;
+        private int stallTimeoutSeconds = 180;
+        private int maxRestartsPerHour = 5;
+
+        Watchdog() {
+        }
+
+        Watchdog(boolean enabled, int stallTimeoutSeconds, int maxRestartsPerHour) {
+            this.enabled = enabled;
+            this.stallTimeoutSeconds = stallTimeoutSeconds;
+            this.maxRestartsPerHour = maxRestartsPerHour;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getStallTimeoutSeconds() {
+            return stallTimeoutSeconds;
+        }
+
+        public int getMaxRestartsPerHour() {
+            return maxRestartsPerHour;
+        }
+    }
+
+    /**
+     * Worker processes, see WorkerPool. Start concurrency, admission control
+     * and the watchdog apply within each worker.
+     */
+    public static class Workers {
+        private int instancesPerWorker = 10;
+        /**
+         * Maximum heap of each worker, 0 for the JVM default
+         */
+        private int heapMb;
+        private List<String> jvmArgs = new ArrayList<>();
+
+        Workers() {
+        }
+
+        Workers(int instancesPerWorker, int heapMb) {
+            this.instancesPerWorker = instancesPerWorker;
+            this.heapMb = heapMb;
+        }
+
+        public int getInstancesPerWorker() {
+            return instancesPerWorker;
+        }
+
+        public int getHeapMb() {
+            return heapMb;
+        }
+
+        public List<String> getJvmArgs() {
+            return jvmArgs;
+        }
+    }
+
+    /**
+     * Cluster of node agents, see ClusterCoordinator. Start concurrency,
+     * admission control and the watchdog apply within each node.
+     */
+    public static class Cluster {
+        /**
+         * Node agents as host:port
+         */
+        private List<String> nodes = new ArrayList<>();
+        /**
+         * Shared secret of the node agents, defaults to the environment
+         */
+        private String token;
+        /**
+         * Instances per node, 0 for no limit other than load
+         */
+        private int maxInstancesPerNode;
+
+        public List<String> getNodes() {
+            return nodes;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public int getMaxInstancesPerNode() {
+            return maxInstancesPerNode;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package me.kitakeyos.j2me.application.cli;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where the instances of a farm run: this JVM ({@link HeadlessHost}) or a
+ * set of worker processes ({@link WorkerPool}).
+ */
+interface FarmHost {
+
+    /**
+     * Start a headless instance. Returns at once; the start itself is queued
+     * and limited by the host's concurrency and admission control.
+     *
+     * @param instanceId   ID chosen by the farm, unique across hosts
+     * @param emulatorPath MicroEmulator JAR
+     * @param appPath      Transformed application JAR
+     * @param group        Display size, speed, graphics mode, media policy
+     *                     and network rules of the instance
+     * @return Completes with true once the instance runs, false if it failed
+     */
+    CompletableFuture<Boolean> launch(int instanceId, String emulatorPath, String appPath,
+                                      FarmDefinition.Group group);
+
+    HostMetrics metrics();
+
+    /**
+     * Stop every instance, letting each MIDlet run destroyApp.
+     *
+     * @return false if some instances were still alive after the timeout
+     */
+    boolean stop(long timeoutMs);
+
+    /**
+     * Release threads, monitors and processes. Called after {@link #stop}.
+     */
+    void close();
+}
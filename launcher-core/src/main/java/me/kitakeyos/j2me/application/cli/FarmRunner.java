@@ -0,0 +1,380 @@
+package me.kitakeyos.j2me.application.cli;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.application.model.J2meApplication;
+import me.kitakeyos.j2me.domain.application.service.ApplicationService;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorConfig;
+import me.kitakeyos.j2me.infrastructure.bytecode.JarTransformer;
+import me.kitakeyos.j2me.infrastructure.persistence.application.ApplicationRepositoryImpl;
+import me.kitakeyos.j2me.infrastructure.persistence.emulator.EmulatorConfigRepositoryImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Command-line entry point that runs an instance farm without any window.
+ * <p>
+ * Usage: {@code java -cp J2MELauncher.jar me.kitakeyos.j2me.application.cli.FarmRunner
+ * [--verbose] farm.json}
+ * <p>
+ * The farm is described by a {@link FarmDefinition}. Every instance is
+ * started headless, through the same launcher, admission control, speed,
+ * graphics and network services as the Swing launcher, and shares its data
+ * directory (installed applications, emulators, RMS). Network rules of the
+ * definition replace the saved ones for the run and are not written back.
+ * Instances run in this JVM, spread over worker processes when the
+ * definition has a {@code workers} section, or placed on the
+ * {@link NodeAgent}s of a {@code cluster} section.
+ * <p>
+ * While running, a one-line summary (instances, frame rate, CPU, heap) is
+ * printed every {@code summaryIntervalSeconds}. The farm is stopped when its
+ * duration has elapsed, when every instance has stopped, or on SIGINT /
+ * SIGTERM; MIDlets are destroyed cleanly in each case.
+ * <p>
+ * Exit status: {@link #EXIT_OK}, {@link #EXIT_USAGE} for an unusable command
+ * line or definition, {@link #EXIT_FAILED} if instances failed to start,
+ * were lost with a worker or node or, with a duration set, stopped before it
+ * elapsed.
+ */
+public final class FarmRunner {
+
+    private static final Logger logger = Logger.getLogger(FarmRunner.class.getName());
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_USAGE = 1;
+    public static final int EXIT_FAILED = 2;
+
+    private static final long STOP_TIMEOUT_MS = 30_000;
+    private static final String WORKER_LOG_DIR = "workers";
+
+    private final FarmDefinition definition;
+    private final List<Path> temporaryJars = new ArrayList<>();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final ScheduledExecutorService monitor;
+    private FarmHost host;
+    private long startTimeMs;
+    private long lastSummaryMs;
+    private long lastSummaryFrames;
+
+    FarmRunner(FarmDefinition definition) {
+        this.definition = definition;
+        this.monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "farm-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) {
+        // No display is needed; respect an explicit setting
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        boolean verbose = false;
+        String definitionPath = null;
+        for (String arg : args) {
+            if ("--verbose".equals(arg) || "-v".equals(arg)) {
+                verbose = true;
+            } else if (definitionPath == null && !arg.startsWith("-")) {
+                definitionPath = arg;
+            } else {
+                definitionPath = null;
+                break;
+            }
+        }
+        if (definitionPath == null) {
+            System.err.println("Usage: FarmRunner [--verbose] <farm.json>");
+            System.exit(EXIT_USAGE);
+        }
+        if (!verbose) {
+            // Launcher and emulator log every class they instrument at INFO
+            Logger.getLogger("").setLevel(Level.WARNING);
+        }
+
+        FarmDefinition definition;
+        try {
+            definition = FarmDefinition.load(new File(definitionPath));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot load farm definition " + definitionPath + ": " + e.getMessage());
+            System.exit(EXIT_USAGE);
+            return;
+        }
+        System.exit(new FarmRunner(definition).run());
+    }
+
+    /**
+     * Launch the farm, monitor it until it ends and stop it.
+     *
+     * @return Exit status
+     */
+    int run() {
+        ApplicationConfig config = ApplicationConfig.getActive();
+        String emulatorPath;
+        List<String> appPaths = new ArrayList<>();
+        try {
+            emulatorPath = resolveEmulator(config);
+            ApplicationService applicationService = new ApplicationService(new ApplicationRepositoryImpl(config));
+            for (FarmDefinition.Group group : definition.getGroups()) {
+                appPaths.add(resolveApp(applicationService, group.getApp()));
+            }
+            host = createHost(config);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            deleteTemporaryJars();
+            return EXIT_USAGE;
+        }
+
+        Thread shutdownHook = new Thread(this::stop, "farm-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        startTimeMs = lastSummaryMs = System.currentTimeMillis();
+        int planned = 0;
+        for (FarmDefinition.Group group : definition.getGroups()) {
+            planned += group.getInstances();
+        }
+        System.out.printf("Starting farm: %d instance(s) in %d group(s), emulator %s%n", planned,
+                definition.getGroups().size(), emulatorPath);
+
+        launchAll(emulatorPath, appPaths);
+        HostMetrics launched = host.metrics();
+        System.out.printf("Launch finished: %d started, %d failed%n", launched.getStarted(), launched.getFailed());
+
+        if (definition.getSummaryIntervalSeconds() > 0) {
+            long interval = definition.getSummaryIntervalSeconds();
+            monitor.scheduleWithFixedDelay(this::printSummary, interval, interval, TimeUnit.SECONDS);
+        }
+        awaitEnd();
+
+        HostMetrics last = printSummary();
+        stop();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down
+        }
+
+        int earlyExits = definition.getDurationSeconds() > 0 ? last.getEarlyExits() : 0;
+        System.out.printf("Farm stopped after %s: %d started, %d failed, %d restart(s), %d stopped early, "
+                        + "%d lost%n", formatElapsed(System.currentTimeMillis() - startTimeMs), last.getStarted(),
+                last.getFailed(), last.getRestarts(), earlyExits, last.getLost());
+        if (last.getMigrated() > 0) {
+            System.out.printf("%d instance(s) migrated from lost nodes%n", last.getMigrated());
+        }
+        return last.getFailed() > 0 || last.getLost() > 0 || earlyExits > 0 ? EXIT_FAILED : EXIT_OK;
+    }
+
+    /**
+     * @return Cluster nodes or worker processes if the definition asks for
+     *         them, else this JVM
+     */
+    private FarmHost createHost(ApplicationConfig config) throws IOException {
+        if (definition.getCluster() != null) {
+            return new ClusterCoordinator(definition, config.getAdmissionThresholdPercent());
+        }
+        if (definition.getWorkers() != null) {
+            return new WorkerPool(definition, config.getAdmissionThresholdPercent(),
+                    new File(config.getDataDirectory(), WORKER_LOG_DIR));
+        }
+        HeadlessHost headlessHost = new HeadlessHost(definition.getMaxConcurrentStarts());
+        headlessHost.start(config.getAdmissionThresholdPercent(), definition.getRedirectionRules(),
+                definition.getProxyRules(), definition.getWatchdog());
+        return headlessHost;
+    }
+
+    /**
+     * @return The emulator JAR: the definition's (a path, or the name or ID of
+     *         a configured emulator), else the first configured one
+     */
+    private String resolveEmulator(ApplicationConfig config) throws IOException {
+        List<EmulatorConfig> emulators = new EmulatorConfigRepositoryImpl(config).getAll();
+        String wanted = definition.getEmulator();
+        if (wanted == null) {
+            for (EmulatorConfig emulator : emulators) {
+                if (emulator.isValid()) {
+                    return emulator.getJarPath();
+                }
+            }
+            throw new IOException("No emulator configured, set \"emulator\" in the farm definition");
+        }
+        for (EmulatorConfig emulator : emulators) {
+            if (wanted.equalsIgnoreCase(emulator.getName()) || wanted.equals(emulator.getId())) {
+                return emulator.getJarPath();
+            }
+        }
+        File file = new File(wanted);
+        if (!file.isFile()) {
+            throw new IOException("Emulator not found: " + wanted);
+        }
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * @return The application JAR: an installed application matched by ID or
+     *         name, else a JAR path, transformed into a temporary copy for the
+     *         run as installing would
+     */
+    private String resolveApp(ApplicationService applicationService, String app) throws IOException {
+        for (J2meApplication installed : applicationService.getApplications()) {
+            if (app.equals(installed.getId()) || app.equalsIgnoreCase(installed.getName())) {
+                return installed.getFilePath();
+            }
+        }
+        File file = new File(app);
+        if (!file.isFile() || !file.getName().toLowerCase().endsWith(".jar")) {
+            throw new IOException("Application not installed and not a JAR file: " + app);
+        }
+        Path directory = Files.createTempDirectory("j2me-farm");
+        Path copy = directory.resolve(file.getName());
+        Files.copy(file.toPath(), copy, StandardCopyOption.REPLACE_EXISTING);
+        temporaryJars.add(copy);
+        Path transformed = JarTransformer.transformJar(copy);
+        temporaryJars.add(transformed);
+        return transformed.toAbsolutePath().toString();
+    }
+
+    /**
+     * Hand every planned instance to the host under IDs numbered from 1 and
+     * wait until each has started or failed.
+     */
+    private void launchAll(String emulatorPath, List<String> appPaths) {
+        List<CompletableFuture<Boolean>> starts = new ArrayList<>();
+        List<FarmDefinition.Group> groups = definition.getGroups();
+        int instanceId = 0;
+        for (int i = 0; i < groups.size() && !stopping.get(); i++) {
+            FarmDefinition.Group group = groups.get(i);
+            for (int n = 0; n < group.getInstances() && !stopping.get(); n++) {
+                starts.add(host.launch(++instanceId, emulatorPath, appPaths.get(i), group));
+            }
+        }
+        for (CompletableFuture<Boolean> start : starts) {
+            try {
+                start.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Instance start failed", e);
+            }
+        }
+    }
+
+    /**
+     * Wait for the end of the run: the duration elapsed, every instance
+     * stopped, or the farm is being stopped by a signal.
+     */
+    private void awaitEnd() {
+        long durationMs = definition.getDurationSeconds() * 1000L;
+        long deadline = System.currentTimeMillis() + durationMs;
+        try {
+            while (!stopping.get()) {
+                if (durationMs > 0 && System.currentTimeMillis() >= deadline) {
+                    break;
+                }
+                if (host.metrics().getInstances() == 0) {
+                    break;
+                }
+                stopped.await(1, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop every instance and the host. Safe to call more than once, also
+     * from the shutdown hook.
+     */
+    private void stop() {
+        if (!stopping.compareAndSet(false, true)) {
+            awaitStopped();
+            return;
+        }
+        try {
+            if (host != null) {
+                System.out.println("Stopping farm...");
+                if (!host.stop(STOP_TIMEOUT_MS)) {
+                    System.err.println("Some instances did not stop in time");
+                }
+            }
+        } finally {
+            monitor.shutdownNow();
+            if (host != null) {
+                host.close();
+            }
+            deleteTemporaryJars();
+            stopped.countDown();
+        }
+    }
+
+    private void awaitStopped() {
+        try {
+            stopped.await(STOP_TIMEOUT_MS + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deleteTemporaryJars() {
+        for (Path jar : temporaryJars) {
+            JarTransformer.cleanupTransformedJar(jar);
+        }
+        for (Path jar : temporaryJars) {
+            try {
+                Files.deleteIfExists(jar.getParent());
+            } catch (IOException e) {
+                // Not empty or already gone
+            }
+        }
+        temporaryJars.clear();
+    }
+
+    /**
+     * Print one summary line: instance counts, frame rate since the previous
+     * summary, CPU over the monitor's window, heap.
+     *
+     * @return The metrics printed
+     */
+    private synchronized HostMetrics printSummary() {
+        HostMetrics metrics = host.metrics();
+        long now = System.currentTimeMillis();
+        double seconds = Math.max(0.001, (now - lastSummaryMs) / 1000.0);
+        long frames = Math.max(0, metrics.getFrames() - lastSummaryFrames);
+        lastSummaryMs = now;
+        lastSummaryFrames = metrics.getFrames();
+
+        System.out.printf("[%s] running %d, starting %d, failed %d, restarts %d%s | %.1f fps | CPU %.0f%% "
+                        + "(%d threads) | heap %d/%d MB%n",
+                formatElapsed(now - startTimeMs), metrics.getRunning(), metrics.getStarting(), metrics.getFailed(),
+                metrics.getRestarts(), hostCounts(metrics),
+                frames / seconds, metrics.getCpuPercent(), metrics.getThreads(), metrics.getHeapUsed() >> 20,
+                metrics.getHeapMax() >> 20);
+        return metrics;
+    }
+
+    private static String hostCounts(HostMetrics metrics) {
+        if (metrics.getNodes() > 0) {
+            return ", nodes " + metrics.getNodes();
+        }
+        return metrics.getWorkers() > 0 ? ", workers " + metrics.getWorkers() : "";
+    }
+
+    private static String formatElapsed(long ms) {
+        long seconds = ms / 1000;
+        return String.format("%02d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+}
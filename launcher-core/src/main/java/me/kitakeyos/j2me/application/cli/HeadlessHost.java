@@ -0,0 +1,331 @@
+package me.kitakeyos.j2me.application.cli;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.application.emulator.EmulatorLauncher;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.InstanceState;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceLifecycleManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceShutdownCoordinator;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceWatchdog;
+import me.kitakeyos.j2me.domain.graphics.service.GraphicsOptimizationService;
+import me.kitakeyos.j2me.domain.media.service.MediaService;
+import me.kitakeyos.j2me.domain.network.model.ProxyRule;
+import me.kitakeyos.j2me.domain.network.model.RedirectionRule;
+import me.kitakeyos.j2me.domain.network.service.NetworkService;
+import me.kitakeyos.j2me.infrastructure.console.ConsoleDrainer;
+import me.kitakeyos.j2me.infrastructure.headless.HeadlessDisplay;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuMonitor;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuUsage;
+import me.kitakeyos.j2me.infrastructure.monitoring.MemoryAdmissionController;
+import me.kitakeyos.j2me.infrastructure.thread.XThread;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the headless instances of a farm in this JVM, with the same launcher,
+ * admission control, speed, graphics, network and watchdog services as the
+ * Swing launcher. Used by {@link FarmRunner} directly and by each worker
+ * process.
+ * <p>
+ * At most {@code maxConcurrentStarts} instances start at once, each only
+ * when the memory model has room for it. Its manager becomes the active one,
+ * so there is one host per JVM.
+ */
+final class HeadlessHost implements FarmHost {
+
+    private static final Logger logger = Logger.getLogger(HeadlessHost.class.getName());
+
+    private static final long ADMISSION_RETRY_MS = 2000;
+
+    private final InstanceManager manager = new InstanceManager();
+    private final Map<Integer, FarmDefinition.Group> groupById = new ConcurrentHashMap<>();
+    private final Set<Integer> startedIds = ConcurrentHashMap.newKeySet();
+    // Guarded by this, see metrics()
+    private final Map<Integer, Long> lastFrameCounts = new HashMap<>();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final ExecutorService launcherPool;
+    private long frames;
+
+    /**
+     * @param maxConcurrentStarts Instances starting at once, 0 for one per
+     *                            core (at least two)
+     */
+    HeadlessHost(int maxConcurrentStarts) {
+        int slots = maxConcurrentStarts > 0
+                ? maxConcurrentStarts
+                : Math.max(2, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.launcherPool = Executors.newFixedThreadPool(slots, r -> {
+            Thread thread = new Thread(r, "farm-launcher-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Make this host's manager the active one and start monitoring, admission
+     * control, the farm's network rules and, if enabled, the watchdog. Rules
+     * replace the saved ones for the run and are not written back. Virtual
+     * MIDlet threads and MIDlet console output follow the configuration of
+     * the machine the host runs on.
+     */
+    void start(int admissionThresholdPercent, List<RedirectionRule> redirectionRules,
+               List<ProxyRule> proxyRules, FarmDefinition.Watchdog watchdogSettings) {
+        InstanceManager.setActive(manager);
+        XThread.setVirtualThreadsEnabled(ApplicationConfig.getActive().isVirtualThreadsEnabled());
+        ConsoleDrainer.getInstance().configure(ApplicationConfig.getActive());
+        InstanceCpuMonitor.getInstance().start();
+
+        MemoryAdmissionController admission = MemoryAdmissionController.getInstance();
+        admission.setThresholdPercent(admissionThresholdPercent);
+        admission.start();
+
+        NetworkService networkService = NetworkService.getInstance();
+        networkService.setPersistRules(false);
+        networkService.clearRedirectionRules();
+        networkService.clearProxyRules();
+        for (RedirectionRule rule : redirectionRules) {
+            networkService.addRedirectionRule(rule);
+        }
+        for (ProxyRule rule : proxyRules) {
+            networkService.addProxyRule(rule);
+        }
+
+        if (watchdogSettings != null && watchdogSettings.isEnabled()) {
+            InstanceWatchdog watchdog = InstanceWatchdog.getInstance();
+            watchdog.setStallTimeoutSeconds(watchdogSettings.getStallTimeoutSeconds());
+            watchdog.setMaxRestartsPerHour(watchdogSettings.getMaxRestartsPerHour());
+            watchdog.setRecoveryHandler(new InstanceWatchdog.RecoveryHandler() {
+                @Override
+                public void restart(EmulatorInstance instance, InstanceWatchdog.Reason reason, int attempt) {
+                    restartInstance(instance);
+                }
+
+                @Override
+                public void givenUp(EmulatorInstance instance, InstanceWatchdog.Reason reason) {
+                    System.out.printf("Instance #%d is hung (%s), restart budget spent%n",
+                            instance.getInstanceId(), reason);
+                }
+            });
+            watchdog.setEnabled(true);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> launch(int instanceId, String emulatorPath, String appPath,
+                                             FarmDefinition.Group group) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!manager.reserveInstanceId(instanceId)) {
+            failed.incrementAndGet();
+            System.err.println("Instance #" + instanceId + " failed to start: ID already in use");
+            result.complete(false);
+            return result;
+        }
+        try {
+            launcherPool.execute(() -> result.complete(startNew(instanceId, emulatorPath, appPath, group)));
+        } catch (RejectedExecutionException e) {
+            manager.releaseInstanceId(instanceId);
+            result.complete(false);
+        }
+        return result;
+    }
+
+    private boolean startNew(int instanceId, String emulatorPath, String appPath, FarmDefinition.Group group) {
+        try {
+            awaitAdmission();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (stopping.get() || Thread.currentThread().isInterrupted()) {
+            manager.releaseInstanceId(instanceId);
+            return false;
+        }
+
+        EmulatorInstance instance = new EmulatorInstance(instanceId, emulatorPath, appPath,
+                group.getWidth(), group.getHeight(), group.isFullDisplay(), true);
+        groupById.put(instanceId, group);
+        NetworkService networkService = NetworkService.getInstance();
+        for (RedirectionRule rule : group.getRedirectionRules(instanceId)) {
+            networkService.addRedirectionRule(rule);
+        }
+        for (ProxyRule rule : group.getProxyRules(instanceId)) {
+            networkService.addProxyRule(rule);
+        }
+        manager.addInstance(instance);
+        return startInstance(instance, group);
+    }
+
+    private void awaitAdmission() throws InterruptedException {
+        MemoryAdmissionController admission = MemoryAdmissionController.getInstance();
+        boolean reported = false;
+        while (!stopping.get() && !admission.check(1).isFullyAdmitted()) {
+            if (!reported) {
+                System.out.println("Waiting for memory: " + admission.check(1));
+                reported = true;
+            }
+            Thread.sleep(ADMISSION_RETRY_MS);
+        }
+    }
+
+    /**
+     * Start one registered instance and apply its group's media policy,
+     * speed and graphics mode. A failed instance is released right away.
+     */
+    private boolean startInstance(EmulatorInstance instance, FarmDefinition.Group group) {
+        try {
+            MediaService.getInstance().setPolicy(instance.getInstanceId(), group.getMediaPolicy());
+            EmulatorLauncher.startEmulatorInstance(instance, null, null);
+            instance.setSpeedMultiplier(group.getSpeed());
+            if (!group.isGraphics()) {
+                GraphicsOptimizationService.getInstance().setGraphicsEnabled(instance, false);
+            }
+            startedIds.add(instance.getInstanceId());
+            return true;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            System.err.println("Instance #" + instance.getInstanceId() + " failed to start: " + e.getMessage());
+            logger.log(Level.FINE, "Start of instance #" + instance.getInstanceId() + " failed", e);
+            InstanceLifecycleManager.forceShutdown(instance);
+            manager.removeInstance(instance);
+            return false;
+        }
+    }
+
+    /**
+     * Restart a hung instance under the same ID. Runs on the watchdog thread.
+     */
+    private void restartInstance(EmulatorInstance instance) {
+        if (stopping.get()) {
+            return;
+        }
+        FarmDefinition.Group group = groupById.get(instance.getInstanceId());
+        EmulatorInstance replacement = InstanceLifecycleManager.restart(instance);
+        if (replacement != null && group != null) {
+            restarts.incrementAndGet();
+            try {
+                launcherPool.execute(() -> startInstance(replacement, group));
+            } catch (RejectedExecutionException e) {
+                // Host is closing
+            }
+        }
+    }
+
+    /**
+     * @return The running instance with this ID, or null
+     */
+    EmulatorInstance findInstance(int instanceId) {
+        EmulatorInstance instance = manager.findInstance(instanceId);
+        return instance != null && instance.getState() == InstanceState.RUNNING ? instance : null;
+    }
+
+    /**
+     * @return The offscreen display of a running instance, or null
+     */
+    HeadlessDisplay findDisplay(int instanceId) {
+        EmulatorInstance instance = findInstance(instanceId);
+        return instance != null ? instance.getHeadlessDisplay() : null;
+    }
+
+    /**
+     * Stop one instance, letting its MIDlet run destroyApp.
+     *
+     * @return false if there is no such instance
+     */
+    boolean stopInstance(int instanceId) {
+        EmulatorInstance instance = manager.findInstance(instanceId);
+        if (instance == null) {
+            return false;
+        }
+        InstanceShutdownCoordinator.getInstance().shutdown(instance, null);
+        return true;
+    }
+
+    @Override
+    public synchronized HostMetrics metrics() {
+        int running = 0;
+        int starting = 0;
+        Map<Integer, Long> frameCounts = new HashMap<>();
+        for (EmulatorInstance instance : manager.getInstances()) {
+            if (instance.getState() == InstanceState.RUNNING) {
+                running++;
+            } else if (instance.getState() == InstanceState.STARTING
+                    || instance.getState() == InstanceState.CREATED) {
+                starting++;
+            }
+            HeadlessDisplay display = instance.getHeadlessDisplay();
+            if (display != null) {
+                // A restarted instance counts from 0 again
+                long count = display.getFrameCount();
+                Long previous = lastFrameCounts.get(instance.getInstanceId());
+                frames += previous != null && previous <= count ? count - previous : count;
+                frameCounts.put(instance.getInstanceId(), count);
+            }
+        }
+        lastFrameCounts.clear();
+        lastFrameCounts.putAll(frameCounts);
+
+        int earlyExits = 0;
+        for (Integer instanceId : startedIds) {
+            EmulatorInstance instance = manager.findInstance(instanceId);
+            if (instance == null || instance.getState() == InstanceState.STOPPED) {
+                earlyExits++;
+            }
+        }
+
+        double cpuPercent = 0;
+        int threads = 0;
+        for (InstanceCpuUsage usage : InstanceCpuMonitor.getInstance().getUsage()) {
+            cpuPercent += usage.getWindowPercent();
+            threads += usage.getThreadCount();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        HostMetrics metrics = new HostMetrics(manager.getInstanceCount(), running, starting, startedIds.size(),
+                failed.get(), restarts.get(), earlyExits, frames, cpuPercent, threads,
+                runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory());
+        metrics.setCores(runtime.availableProcessors());
+        return metrics;
+    }
+
+    @Override
+    public boolean stop(long timeoutMs) {
+        stopping.set(true);
+        List<EmulatorInstance> instances = manager.getInstances();
+        if (instances.isEmpty()) {
+            return true;
+        }
+        InstanceShutdownCoordinator.getInstance().shutdownAll(instances, null);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        try {
+            while (manager.getInstanceCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return manager.getInstanceCount() == 0;
+    }
+
+    @Override
+    public void close() {
+        stopping.set(true);
+        launcherPool.shutdownNow();
+        InstanceWatchdog.getInstance().setEnabled(false);
+        InstanceCpuMonitor.getInstance().stop();
+        MemoryAdmissionController.getInstance().stop();
+    }
+}
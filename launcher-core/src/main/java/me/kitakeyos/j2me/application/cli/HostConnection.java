@@ -0,0 +1,274 @@
+package me.kitakeyos.j2me.application.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Launcher side of a connection to a host serving the {@link WorkerMessage}
+ * protocol (a worker process or a cluster node), and the instances placed on
+ * it.
+ * <p>
+ * Requests may be sent from any thread; each gets a future completed by the
+ * reader thread when the matching reply arrives. If the connection is lost,
+ * every pending request fails and the listener set with
+ * {@link #setOnLost} is called once.
+ */
+class HostConnection {
+
+    private static final Logger logger = Logger.getLogger(HostConnection.class.getName());
+
+    private static final long CONTROL_TIMEOUT_MS = 10_000;
+
+    private final String name;
+    private final Socket socket;
+    private final Writer writer;
+    private final Gson gson = new Gson();
+    private final Map<Long, CompletableFuture<WorkerMessage>> pending = new ConcurrentHashMap<>();
+    private final Set<Integer> instanceIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final AtomicBoolean lostReported = new AtomicBoolean();
+    private volatile boolean alive = true;
+    private volatile HostMetrics lastMetrics = new HostMetrics();
+    private volatile Runnable onLost;
+
+    /**
+     * @param name For messages, e.g. "Worker 2" or "Node 10.0.0.2:7700"
+     */
+    HostConnection(String name, Socket socket) throws IOException {
+        this.name = name;
+        this.socket = socket;
+        this.writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        socket.setTcpNoDelay(true);
+    }
+
+    /**
+     * Start reading replies. Called once the connection is established.
+     */
+    void startReader() throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Thread thread = new Thread(() -> {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    WorkerMessage reply;
+                    try {
+                        reply = gson.fromJson(line, WorkerMessage.class);
+                    } catch (JsonParseException e) {
+                        logger.warning(name + ": malformed reply: " + e.getMessage());
+                        continue;
+                    }
+                    CompletableFuture<WorkerMessage> future = reply != null ? pending.remove(reply.id) : null;
+                    if (future != null) {
+                        future.complete(reply);
+                    }
+                }
+            } catch (IOException e) {
+                // Connection lost
+            } finally {
+                markDead();
+            }
+        }, name.toLowerCase().replace(' ', '-') + "-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void markDead() {
+        if (!alive) {
+            return;
+        }
+        alive = false;
+        IOException lost = new IOException(name + " is gone");
+        for (Long id : pending.keySet()) {
+            CompletableFuture<WorkerMessage> future = pending.remove(id);
+            if (future != null) {
+                future.completeExceptionally(lost);
+            }
+        }
+        Runnable listener = onLost;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Send a request.
+     *
+     * @return Completes with the host's reply, exceptionally if the
+     *         connection is lost first
+     */
+    CompletableFuture<WorkerMessage> request(WorkerMessage request) {
+        CompletableFuture<WorkerMessage> future = new CompletableFuture<>();
+        if (!alive) {
+            future.completeExceptionally(new IOException(name + " is gone"));
+            return future;
+        }
+        request.id = nextRequestId.incrementAndGet();
+        pending.put(request.id, future);
+        String line = gson.toJson(request);
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                pending.remove(request.id);
+                future.completeExceptionally(e);
+                markDead();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Send a request and wait for a successful reply.
+     *
+     * @throws IOException If the host is gone, does not answer in time or
+     *                     answers with an error
+     */
+    WorkerMessage call(WorkerMessage request, long timeoutMs) throws IOException {
+        try {
+            WorkerMessage reply = request(request).get(timeoutMs, TimeUnit.MILLISECONDS);
+            if (!reply.isOk()) {
+                throw new IOException(name + ": " + reply.error);
+            }
+            return reply;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException(name + " did not answer " + request.op + " in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + name);
+        }
+    }
+
+    // === Remote control of single instances ===
+
+    /**
+     * Stop one instance, letting its MIDlet run destroyApp.
+     */
+    void stopInstance(int instanceId) throws IOException {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.STOP);
+        request.instanceId = instanceId;
+        call(request, CONTROL_TIMEOUT_MS);
+    }
+
+    void setSpeed(int instanceId, double speed) throws IOException {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.SPEED);
+        request.instanceId = instanceId;
+        request.speed = speed;
+        call(request, CONTROL_TIMEOUT_MS);
+    }
+
+    /**
+     * @param action {@link WorkerMessage#PRESS}, {@link WorkerMessage#RELEASE}
+     *               or {@link WorkerMessage#TYPE}
+     * @param code   MIDP key code
+     */
+    void sendKey(int instanceId, String action, int code) throws IOException {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.KEY);
+        request.instanceId = instanceId;
+        request.action = action;
+        request.code = code;
+        call(request, CONTROL_TIMEOUT_MS);
+    }
+
+    /**
+     * @param action {@link WorkerMessage#PRESS}, {@link WorkerMessage#RELEASE}
+     *               or {@link WorkerMessage#DRAG}
+     */
+    void sendPointer(int instanceId, String action, int x, int y) throws IOException {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.POINTER);
+        request.instanceId = instanceId;
+        request.action = action;
+        request.x = x;
+        request.y = y;
+        call(request, CONTROL_TIMEOUT_MS);
+    }
+
+    /**
+     * Fetch the current frame of an instance, streamed as PNG.
+     */
+    BufferedImage captureFrame(int instanceId) throws IOException {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.FRAME);
+        request.instanceId = instanceId;
+        WorkerMessage reply = call(request, CONTROL_TIMEOUT_MS);
+        return ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(reply.frame)));
+    }
+
+    /**
+     * Close the connection. The host stops the instances of the session.
+     */
+    void close() {
+        markDead();
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Called on the reader thread when the connection is lost or closed.
+     */
+    void setOnLost(Runnable onLost) {
+        this.onLost = onLost;
+    }
+
+    /**
+     * @return The last metrics the host reported
+     */
+    HostMetrics getLastMetrics() {
+        return lastMetrics;
+    }
+
+    void setLastMetrics(HostMetrics lastMetrics) {
+        this.lastMetrics = lastMetrics;
+    }
+
+    /**
+     * @return true the first time it is called, so the loss of a host is
+     *         reported once
+     */
+    boolean markLostReported() {
+        return lostReported.compareAndSet(false, true);
+    }
+
+    /**
+     * @return IDs of the instances placed on this host
+     */
+    Set<Integer> getInstanceIds() {
+        return instanceIds;
+    }
+}
@@ -0,0 +1,285 @@
+package me.kitakeyos.j2me.application.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.infrastructure.headless.HeadlessDisplay;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the {@link WorkerMessage} protocol for one launcher connection,
+ * hosting the requested instances in a {@link HeadlessHost}. Used by worker
+ * processes and by cluster node agents.
+ * <p>
+ * The host is created by {@link WorkerMessage#CONFIGURE} and stopped and
+ * closed when the session ends, by {@link WorkerMessage#SHUTDOWN} or by the
+ * connection being lost, so no instance outlives its launcher.
+ */
+final class HostEndpoint {
+
+    private static final Logger logger = Logger.getLogger(HostEndpoint.class.getName());
+
+    private static final long STOP_TIMEOUT_MS = 30_000;
+
+    private final Gson gson = new Gson();
+    private final String name;
+    private final Writer writer;
+    private final File fileDirectory;
+    private HeadlessHost host;
+
+    /**
+     * @param name          For log messages, e.g. "Worker 2"
+     * @param writer        Connection to the launcher
+     * @param fileDirectory Where uploaded JARs are kept, null to refuse
+     *                      uploads
+     */
+    HostEndpoint(String name, Writer writer, File fileDirectory) {
+        this.name = name;
+        this.writer = writer;
+        this.fileDirectory = fileDirectory;
+    }
+
+    /**
+     * Handle requests until shutdown or until the launcher goes away, then
+     * stop every instance of the session.
+     */
+    void serve(BufferedReader reader) throws IOException {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                WorkerMessage request;
+                try {
+                    request = gson.fromJson(line, WorkerMessage.class);
+                } catch (JsonParseException e) {
+                    logger.warning(name + ": malformed request: " + e.getMessage());
+                    continue;
+                }
+                if (request == null || request.op == null) {
+                    continue;
+                }
+                if (WorkerMessage.SHUTDOWN.equals(request.op)) {
+                    boolean stopped = host == null || host.stop(STOP_TIMEOUT_MS);
+                    send(WorkerMessage.reply(request, stopped, stopped ? null : "Some instances did not stop"));
+                    return;
+                }
+                try {
+                    handle(request);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, name + ": " + request.op + " failed", e);
+                    send(WorkerMessage.reply(request, false, String.valueOf(e.getMessage())));
+                }
+            }
+            // Launcher is gone: do not leave orphaned instances behind
+            if (host != null) {
+                host.stop(STOP_TIMEOUT_MS);
+            }
+        } finally {
+            if (host != null) {
+                host.close();
+                host = null;
+            }
+        }
+    }
+
+    private void handle(WorkerMessage request) {
+        if (WorkerMessage.CONFIGURE.equals(request.op)) {
+            if (host == null) {
+                host = new HeadlessHost(request.maxConcurrentStarts != null ? request.maxConcurrentStarts : 0);
+                host.start(request.admissionThresholdPercent != null ? request.admissionThresholdPercent : 0,
+                        request.redirections != null ? request.redirections : Collections.emptyList(),
+                        request.proxies != null ? request.proxies : Collections.emptyList(),
+                        request.watchdog);
+            }
+            send(WorkerMessage.reply(request, true, null));
+            return;
+        }
+        if (WorkerMessage.FILE.equals(request.op)) {
+            storeFile(request);
+            return;
+        }
+        if (host == null) {
+            send(WorkerMessage.reply(request, false, name + " is not configured"));
+            return;
+        }
+
+        switch (request.op) {
+            case WorkerMessage.CREATE:
+                host.launch(request.instanceId, request.emulator, request.app, request.group)
+                        .whenComplete((ok, error) -> send(WorkerMessage.reply(request, Boolean.TRUE.equals(ok),
+                                Boolean.TRUE.equals(ok) ? null : "Instance #" + request.instanceId
+                                        + " failed to start")));
+                break;
+            case WorkerMessage.STOP:
+                replyFound(request, host.stopInstance(request.instanceId));
+                break;
+            case WorkerMessage.SPEED: {
+                EmulatorInstance instance = host.findInstance(request.instanceId);
+                if (instance != null) {
+                    instance.setSpeedMultiplier(request.speed);
+                }
+                replyFound(request, instance != null);
+                break;
+            }
+            case WorkerMessage.KEY:
+                replyFound(request, key(host.findDisplay(request.instanceId), request.action, request.code));
+                break;
+            case WorkerMessage.POINTER:
+                replyFound(request, pointer(host.findDisplay(request.instanceId), request.action,
+                        request.x, request.y));
+                break;
+            case WorkerMessage.METRICS: {
+                WorkerMessage reply = WorkerMessage.reply(request, true, null);
+                reply.metrics = host.metrics();
+                send(reply);
+                break;
+            }
+            case WorkerMessage.FRAME: {
+                String frame = encodeFrame(host.findDisplay(request.instanceId));
+                WorkerMessage reply = WorkerMessage.reply(request, frame != null,
+                        frame != null ? null : "No frame for instance #" + request.instanceId);
+                reply.frame = frame;
+                send(reply);
+                break;
+            }
+            default:
+                send(WorkerMessage.reply(request, false, "Unknown operation: " + request.op));
+        }
+    }
+
+    /**
+     * Keep an uploaded JAR under its SHA-256, or, for a request without
+     * data, report whether it is already there. Replies with its local path.
+     */
+    private void storeFile(WorkerMessage request) {
+        if (fileDirectory == null || request.name == null || request.sha256 == null
+                || !request.sha256.matches("[0-9a-f]{64}")) {
+            send(WorkerMessage.reply(request, false, "Upload refused"));
+            return;
+        }
+        File file = new File(new File(fileDirectory, request.sha256), new File(request.name).getName());
+        if (file.isFile()) {
+            WorkerMessage reply = WorkerMessage.reply(request, true, null);
+            reply.path = file.getAbsolutePath();
+            send(reply);
+            return;
+        }
+        if (request.data == null) {
+            send(WorkerMessage.reply(request, false, "Not cached"));
+            return;
+        }
+        try {
+            byte[] data = Base64.getDecoder().decode(request.data);
+            if (!sha256(data).equals(request.sha256)) {
+                send(WorkerMessage.reply(request, false, "Checksum mismatch for " + request.name));
+                return;
+            }
+            file.getParentFile().mkdirs();
+            File partial = new File(file.getPath() + ".part");
+            Files.write(partial.toPath(), data);
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            WorkerMessage reply = WorkerMessage.reply(request, true, null);
+            reply.path = file.getAbsolutePath();
+            send(reply);
+        } catch (IOException | IllegalArgumentException e) {
+            send(WorkerMessage.reply(request, false, "Cannot store " + request.name + ": " + e.getMessage()));
+        }
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void replyFound(WorkerMessage request, boolean found) {
+        send(WorkerMessage.reply(request, found, found ? null : "Instance #" + request.instanceId
+                + " is not running or has no display"));
+    }
+
+    private static boolean key(HeadlessDisplay display, String action, int code) {
+        if (display == null) {
+            return false;
+        }
+        switch (action) {
+            case WorkerMessage.PRESS:
+                return display.keyPressed(code);
+            case WorkerMessage.RELEASE:
+                return display.keyReleased(code);
+            case WorkerMessage.TYPE:
+                return display.keyTyped(code);
+            default:
+                throw new IllegalArgumentException("Unknown key action: " + action);
+        }
+    }
+
+    private static boolean pointer(HeadlessDisplay display, String action, int x, int y) {
+        if (display == null) {
+            return false;
+        }
+        switch (action) {
+            case WorkerMessage.PRESS:
+                return display.pointerPressed(x, y);
+            case WorkerMessage.RELEASE:
+                return display.pointerReleased(x, y);
+            case WorkerMessage.DRAG:
+                return display.pointerDragged(x, y);
+            default:
+                throw new IllegalArgumentException("Unknown pointer action: " + action);
+        }
+    }
+
+    /**
+     * @return The current frame as a base64 PNG, or null if there is none
+     */
+    private static String encodeFrame(HeadlessDisplay display) {
+        BufferedImage image = display != null ? display.captureFrame() : null;
+        if (image == null) {
+            return null;
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            return null;
+        }
+        return Base64.getEncoder().encodeToString(png.toByteArray());
+    }
+
+    /**
+     * Write one message. Called from the request thread and from launcher
+     * threads completing a create.
+     */
+    void send(WorkerMessage message) {
+        String line = gson.toJson(message);
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                logger.fine(name + ": cannot reply: " + e.getMessage());
+            }
+        }
+    }
+}
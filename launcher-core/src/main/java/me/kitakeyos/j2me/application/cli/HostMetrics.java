@@ -0,0 +1,200 @@
+package me.kitakeyos.j2me.application.cli;
+
+/**
+ * Counters of a {@link FarmHost}, also sent by worker processes. Counts since
+ * the host started, except the instance, CPU, thread and heap figures, which
+ * are current.
+ */
+public class HostMetrics {
+
+    private int instances;
+    private int running;
+    private int starting;
+    private int started;
+    private int failed;
+    private int restarts;
+    private int earlyExits;
+    private int lost;
+    private int workers;
+    private int nodes;
+    private int migrated;
+    private int cores;
+    private long frames;
+    private double cpuPercent;
+    private int threads;
+    private long heapUsed;
+    private long heapMax;
+
+    HostMetrics() {
+    }
+
+    HostMetrics(int instances, int running, int starting, int started, int failed, int restarts, int earlyExits,
+                long frames, double cpuPercent, int threads, long heapUsed, long heapMax) {
+        this.instances = instances;
+        this.running = running;
+        this.starting = starting;
+        this.started = started;
+        this.failed = failed;
+        this.restarts = restarts;
+        this.earlyExits = earlyExits;
+        this.frames = frames;
+        this.cpuPercent = cpuPercent;
+        this.threads = threads;
+        this.heapUsed = heapUsed;
+        this.heapMax = heapMax;
+    }
+
+    /**
+     * Add the counters of another host, e.g. one worker process.
+     */
+    void add(HostMetrics other) {
+        instances += other.instances;
+        running += other.running;
+        starting += other.starting;
+        started += other.started;
+        failed += other.failed;
+        restarts += other.restarts;
+        earlyExits += other.earlyExits;
+        lost += other.lost;
+        frames += other.frames;
+        cpuPercent += other.cpuPercent;
+        threads += other.threads;
+        heapUsed += other.heapUsed;
+        heapMax += other.heapMax;
+        cores += other.cores;
+    }
+
+    /**
+     * Record instances lost with a worker process that died.
+     */
+    void addLost(int count) {
+        lost += count;
+    }
+
+    void addFailed(int count) {
+        failed += count;
+    }
+
+    /**
+     * @return The cumulative counters only, for a host that is gone
+     */
+    HostMetrics countersOnly() {
+        HostMetrics counters = new HostMetrics();
+        counters.started = started;
+        counters.failed = failed;
+        counters.restarts = restarts;
+        counters.frames = frames;
+        return counters;
+    }
+
+    void addMigrated(int count) {
+        migrated += count;
+    }
+
+    void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    void setNodes(int nodes) {
+        this.nodes = nodes;
+    }
+
+    void setCores(int cores) {
+        this.cores = cores;
+    }
+
+    /**
+     * @return Registered instances, whatever their state
+     */
+    public int getInstances() {
+        return instances;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public int getStarting() {
+        return starting;
+    }
+
+    /**
+     * @return Instance IDs started at least once
+     */
+    public int getStarted() {
+        return started;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * @return Started instances that are no longer running
+     */
+    public int getEarlyExits() {
+        return earlyExits;
+    }
+
+    /**
+     * @return Instances that were hosted by a worker process that died
+     */
+    public int getLost() {
+        return lost;
+    }
+
+    /**
+     * @return Live worker processes, 0 when instances run in this JVM
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return Live cluster nodes, 0 when not running as a cluster
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Instances moved from a lost cluster node to another one
+     */
+    public int getMigrated() {
+        return migrated;
+    }
+
+    /**
+     * @return Processors available to the host
+     */
+    public int getCores() {
+        return cores;
+    }
+
+    /**
+     * @return Frames painted since the host started
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    public double getCpuPercent() {
+        return cpuPercent;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    public long getHeapMax() {
+        return heapMax;
+    }
+}
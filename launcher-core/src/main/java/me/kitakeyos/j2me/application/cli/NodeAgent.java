@@ -0,0 +1,186 @@
+package me.kitakeyos.j2me.application.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cluster node: hosts instances for a {@link ClusterCoordinator} on this
+ * machine.
+ * <p>
+ * Usage: {@code java -cp J2MELauncher.jar me.kitakeyos.j2me.application.cli.NodeAgent
+ * [--bind address] [--port port] [--token-file file] [--verbose]}
+ * <p>
+ * The agent listens for one coordinator at a time. The coordinator must
+ * present the cluster token (from {@code --token-file} or the
+ * {@value #TOKEN_ENV} environment variable) in its hello, since it can make
+ * the agent run any JAR it uploads. Instances run headless through a
+ * {@link HostEndpoint}, with this machine's data directory for RMS;
+ * uploaded JARs are cached under {@code data/cluster}. When the coordinator
+ * disconnects, its instances are stopped and the agent waits for the next
+ * one. Listens on the loopback interface unless {@code --bind} is given.
+ */
+public final class NodeAgent {
+
+    private static final Logger logger = Logger.getLogger(NodeAgent.class.getName());
+
+    public static final int DEFAULT_PORT = 7700;
+    public static final String TOKEN_ENV = "J2ME_CLUSTER_TOKEN";
+
+    private static final String FILE_DIR = "cluster";
+    private static final int HELLO_TIMEOUT_MS = 10_000;
+
+    private final String token;
+    private final File fileDirectory;
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    private NodeAgent(String token, File fileDirectory) {
+        this.token = token;
+        this.fileDirectory = fileDirectory;
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        String bind = null;
+        int port = DEFAULT_PORT;
+        String token = System.getenv(TOKEN_ENV);
+        boolean verbose = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--bind":
+                        bind = args[++i];
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--token-file":
+                        token = new String(Files.readAllBytes(new File(args[++i]).toPath()),
+                                StandardCharsets.UTF_8).trim();
+                        break;
+                    case "--verbose":
+                    case "-v":
+                        verbose = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: NodeAgent [--bind <address>] [--port <port>] [--token-file <file>] "
+                    + "[--verbose]");
+            System.exit(FarmRunner.EXIT_USAGE);
+            return;
+        }
+        if (token == null || token.isEmpty()) {
+            System.err.println("No cluster token: set " + TOKEN_ENV + " or pass --token-file");
+            System.exit(FarmRunner.EXIT_USAGE);
+            return;
+        }
+        if (!verbose) {
+            Logger.getLogger("").setLevel(Level.WARNING);
+        }
+
+        File fileDirectory = new File(ApplicationConfig.getActive().getDataDirectory(), FILE_DIR);
+        try (ServerSocket server = new ServerSocket(port, 50,
+                bind != null ? InetAddress.getByName(bind) : InetAddress.getLoopbackAddress())) {
+            System.out.printf("Node agent listening on %s:%d%n", server.getInetAddress().getHostAddress(),
+                    server.getLocalPort());
+            new NodeAgent(token, fileDirectory).acceptLoop(server);
+        } catch (IOException e) {
+            System.err.println("Node agent failed: " + e.getMessage());
+            System.exit(FarmRunner.EXIT_FAILED);
+        }
+    }
+
+    private void acceptLoop(ServerSocket server) throws IOException {
+        while (true) {
+            Socket socket = server.accept();
+            Thread thread = new Thread(() -> session(socket), "node-session");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Serve one coordinator. A second coordinator is refused while one is
+     * connected, since both would drive the same instance manager.
+     */
+    private void session(Socket socket) {
+        String peer = socket.getRemoteSocketAddress().toString();
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(HELLO_TIMEOUT_MS);
+            Writer writer = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+            HostEndpoint endpoint = new HostEndpoint("Node", writer, fileDirectory);
+
+            WorkerMessage hello = readHello(s.getInputStream());
+            if (hello == null || hello.token == null || !MessageDigest.isEqual(
+                    hello.token.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+                logger.warning("Refused connection from " + peer + ": bad hello or token");
+                return;
+            }
+            if (!busy.compareAndSet(false, true)) {
+                endpoint.send(WorkerMessage.reply(hello, false, "Node is serving another coordinator"));
+                return;
+            }
+            try {
+                endpoint.send(WorkerMessage.reply(hello, true, null));
+                System.out.println("Coordinator connected from " + peer);
+                s.setSoTimeout(0);
+                endpoint.serve(new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)));
+                System.out.println("Coordinator " + peer + " disconnected, instances stopped");
+            } finally {
+                busy.set(false);
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Session with " + peer + " ended", e);
+        }
+    }
+
+    /**
+     * Read the first line, unbuffered so the rest stays for the endpoint.
+     *
+     * @return The hello, or null if the line is something else
+     */
+    private static WorkerMessage readHello(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try {
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                if (line.size() > 4096) {
+                    return null;
+                }
+                line.write(c);
+            }
+            WorkerMessage hello = new Gson().fromJson(new String(line.toByteArray(), StandardCharsets.UTF_8),
+                    WorkerMessage.class);
+            return hello != null && WorkerMessage.HELLO.equals(hello.op) ? hello : null;
+        } catch (SocketTimeoutException | JsonParseException e) {
+            return null;
+        }
+    }
+}
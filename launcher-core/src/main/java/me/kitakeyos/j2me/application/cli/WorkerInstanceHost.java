@@ -0,0 +1,147 @@
+package me.kitakeyos.j2me.application.cli;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.media.model.MediaPolicy;
+import me.kitakeyos.j2me.domain.network.service.NetworkService;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Worker processes for the Swing launcher: single instances started on
+ * demand in a {@link WorkerPool} and driven over the worker protocol, so
+ * the window shows frames streamed as PNG and forwards keys and pointer
+ * events instead of hosting the emulator in its own JVM.
+ * <p>
+ * Workers get the launcher's network rules as they are when each worker
+ * starts, its admission threshold and its watchdog settings. Instance IDs
+ * are chosen by the launcher, so RMS directories stay the same whichever
+ * JVM hosts an instance.
+ */
+public final class WorkerInstanceHost {
+
+    private static final long STOP_TIMEOUT_MS = 30_000;
+    private static final String WORKER_LOG_DIR = "workers";
+
+    private final WorkerPool pool;
+
+    public WorkerInstanceHost(ApplicationConfig config) throws IOException {
+        NetworkService networkService = NetworkService.getInstance();
+        this.pool = new WorkerPool(
+                new FarmDefinition.Workers(config.getInstancesPerWorker(), config.getWorkerHeapMb()),
+                networkService.getRedirectionRules(), networkService.getProxyRules(),
+                new FarmDefinition.Watchdog(config.isWatchdogEnabled(), config.getWatchdogStallTimeoutSeconds(),
+                        config.getWatchdogMaxRestartsPerHour()),
+                0, config.getAdmissionThresholdPercent(),
+                new File(config.getDataDirectory(), WORKER_LOG_DIR));
+    }
+
+    /**
+     * Start an instance on a worker with room, starting a worker if needed.
+     *
+     * @param appPath Installed (transformed) application JAR
+     * @return Completes with true once the instance runs, false if it failed
+     */
+    public CompletableFuture<Boolean> launch(int instanceId, String emulatorPath, String appPath, int width,
+                                             int height, boolean fullDisplay, double speed, boolean graphics,
+                                             MediaPolicy media) {
+        return pool.launch(instanceId, emulatorPath, appPath,
+                new FarmDefinition.Group(appPath, width, height, fullDisplay, speed, graphics, media));
+    }
+
+    /**
+     * Fetch the current frame of an instance. Blocks until the worker
+     * answers.
+     *
+     * @throws IOException If the worker is gone or the instance has not
+     *                     painted yet or is no longer running
+     */
+    public BufferedImage captureFrame(int instanceId) throws IOException {
+        return pool.hostOf(instanceId).captureFrame(instanceId);
+    }
+
+    /**
+     * @return false once the worker hosting the instance is gone
+     */
+    public boolean isWorkerAlive(int instanceId) {
+        try {
+            return pool.hostOf(instanceId).isAlive();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Input is sent without waiting, in order, over the worker's connection
+
+    public CompletableFuture<Boolean> pressKey(int instanceId, int code) {
+        return key(instanceId, WorkerMessage.PRESS, code);
+    }
+
+    public CompletableFuture<Boolean> releaseKey(int instanceId, int code) {
+        return key(instanceId, WorkerMessage.RELEASE, code);
+    }
+
+    public CompletableFuture<Boolean> pressPointer(int instanceId, int x, int y) {
+        return pointer(instanceId, WorkerMessage.PRESS, x, y);
+    }
+
+    public CompletableFuture<Boolean> releasePointer(int instanceId, int x, int y) {
+        return pointer(instanceId, WorkerMessage.RELEASE, x, y);
+    }
+
+    public CompletableFuture<Boolean> dragPointer(int instanceId, int x, int y) {
+        return pointer(instanceId, WorkerMessage.DRAG, x, y);
+    }
+
+    public CompletableFuture<Boolean> setSpeed(int instanceId, double speed) {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.SPEED);
+        request.instanceId = instanceId;
+        request.speed = speed;
+        return send(instanceId, request);
+    }
+
+    /**
+     * Stop one instance, letting its MIDlet run destroyApp.
+     */
+    public CompletableFuture<Boolean> stopInstance(int instanceId) {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.STOP);
+        request.instanceId = instanceId;
+        return send(instanceId, request);
+    }
+
+    /**
+     * Stop every instance and end the worker processes. Blocks until they
+     * exited or were killed.
+     */
+    public void close() {
+        pool.stop(STOP_TIMEOUT_MS);
+        pool.close();
+    }
+
+    private CompletableFuture<Boolean> key(int instanceId, String action, int code) {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.KEY);
+        request.instanceId = instanceId;
+        request.action = action;
+        request.code = code;
+        return send(instanceId, request);
+    }
+
+    private CompletableFuture<Boolean> pointer(int instanceId, String action, int x, int y) {
+        WorkerMessage request = new WorkerMessage(WorkerMessage.POINTER);
+        request.instanceId = instanceId;
+        request.action = action;
+        request.x = x;
+        request.y = y;
+        return send(instanceId, request);
+    }
+
+    private CompletableFuture<Boolean> send(int instanceId, WorkerMessage request) {
+        try {
+            return pool.hostOf(instanceId).request(request).handle((reply, error) -> reply != null && reply.isOk());
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package me.kitakeyos.j2me.application.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Entry point of a worker process, started by {@link WorkerPool} as
+ * {@code WorkerMain <port> <token> <worker>}.
+ * <p>
+ * Connects back to the launcher on the loopback port and hosts the
+ * instances it is asked to create through a {@link HostEndpoint}, so each
+ * worker has its own heap, GC and Metaspace and a crash only takes its own
+ * instances down. Exits after {@link WorkerMessage#SHUTDOWN}, or when the
+ * launcher's connection is lost, stopping its instances first either way.
+ */
+public final class WorkerMain {
+
+    private WorkerMain() {
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        if (args.length != 3) {
+            System.err.println("Usage: WorkerMain <port> <token> <worker>");
+            System.exit(FarmRunner.EXIT_USAGE);
+        }
+        if (!Boolean.getBoolean("j2me.worker.verbose")) {
+            Logger.getLogger("").setLevel(Level.WARNING);
+        }
+
+        int worker = Integer.parseInt(args[2]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+            socket.setTcpNoDelay(true);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            HostEndpoint endpoint = new HostEndpoint("Worker " + worker, writer, null);
+
+            WorkerMessage hello = new WorkerMessage(WorkerMessage.HELLO);
+            hello.token = args[1];
+            hello.worker = worker;
+            endpoint.send(hello);
+            endpoint.serve(reader);
+        } catch (IOException e) {
+            System.err.println("Worker " + worker + ": connection to launcher failed: " + e.getMessage());
+        }
+        System.exit(0);
+    }
+}
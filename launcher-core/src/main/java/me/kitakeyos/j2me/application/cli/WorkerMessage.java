@@ -0,0 +1,109 @@
+package me.kitakeyos.j2me.application.cli;
+
+import me.kitakeyos.j2me.domain.network.model.ProxyRule;
+import me.kitakeyos.j2me.domain.network.model.RedirectionRule;
+
+import java.util.List;
+
+/**
+ * One line of the worker protocol: a JSON object per line over a socket.
+ * The launcher sends requests, the worker answers each with a
+ * message carrying the same {@code id}, {@code ok} and, on failure,
+ * {@code error}. Only the fields of the operation are set.
+ * <p>
+ * A worker opens the connection and sends {@link #HELLO} with the token it
+ * was started with. A cluster coordinator opens the connection to a node
+ * agent and sends the hello itself; the agent answers it, or closes the
+ * connection on a wrong token.
+ */
+class WorkerMessage {
+
+    static final String HELLO = "hello";
+    /**
+     * Rules, watchdog, start concurrency and admission threshold; sent once
+     */
+    static final String CONFIGURE = "configure";
+    /**
+     * Start an instance; answered once it runs or failed
+     */
+    static final String CREATE = "create";
+    static final String STOP = "stop";
+    static final String SPEED = "speed";
+    /**
+     * Key event, {@code action} press / release / type, MIDP {@code code}
+     */
+    static final String KEY = "key";
+    /**
+     * Pointer event, {@code action} press / release / drag at {@code x, y}
+     */
+    static final String POINTER = "pointer";
+    static final String METRICS = "metrics";
+    /**
+     * Upload a JAR by {@code name}, {@code sha256} and base64 {@code data};
+     * without data, ask whether it is cached. Answered with its {@code path}
+     */
+    static final String FILE = "file";
+    /**
+     * Current frame of an instance as a base64 PNG
+     */
+    static final String FRAME = "frame";
+    /**
+     * Stop every instance and end the session
+     */
+    static final String SHUTDOWN = "shutdown";
+
+    static final String PRESS = "press";
+    static final String RELEASE = "release";
+    static final String TYPE = "type";
+    static final String DRAG = "drag";
+
+    long id;
+    String op;
+
+    // Requests
+    String token;
+    Integer worker;
+    Integer instanceId;
+    String emulator;
+    String app;
+    FarmDefinition.Group group;
+    List<RedirectionRule> redirections;
+    List<ProxyRule> proxies;
+    FarmDefinition.Watchdog watchdog;
+    Integer maxConcurrentStarts;
+    Integer admissionThresholdPercent;
+    Double speed;
+    String action;
+    Integer code;
+    Integer x;
+    Integer y;
+    String name;
+    String sha256;
+    String data;
+
+    // Responses
+    Boolean ok;
+    String error;
+    HostMetrics metrics;
+    String frame;
+    String path;
+
+    WorkerMessage() {
+    }
+
+    WorkerMessage(String op) {
+        this.op = op;
+    }
+
+    static WorkerMessage reply(WorkerMessage request, boolean ok, String error) {
+        WorkerMessage reply = new WorkerMessage(request.op);
+        reply.id = request.id;
+        reply.ok = ok;
+        reply.error = error;
+        return reply;
+    }
+
+    boolean isOk() {
+        return Boolean.TRUE.equals(ok);
+    }
+}
@@ -0,0 +1,234 @@
+package me.kitakeyos.j2me.application.cli;
+
+import me.kitakeyos.j2me.domain.network.model.ProxyRule;
+import me.kitakeyos.j2me.domain.network.model.RedirectionRule;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs the instances of a farm in worker processes, each a separate JVM
+ * hosting up to {@code instancesPerWorker} instances, with its own heap, GC
+ * and crash domain.
+ * <p>
+ * Workers are started on demand as instances are placed and controlled over
+ * a loopback socket (see {@link WorkerMessage}). Instance IDs are chosen by
+ * the farm, so RMS directories and network rules stay unique across
+ * workers. Each worker applies the farm's start concurrency and admission
+ * control to its own heap. A worker that dies takes only its instances
+ * down; they are reported as lost and not placed again.
+ */
+final class WorkerPool implements FarmHost {
+
+    private static final Logger logger = Logger.getLogger(WorkerPool.class.getName());
+
+    private static final long CALL_TIMEOUT_MS = 10_000;
+
+    private final FarmDefinition.Workers settings;
+    private final List<RedirectionRule> redirectionRules;
+    private final List<ProxyRule> proxyRules;
+    private final FarmDefinition.Watchdog watchdog;
+    private final int maxConcurrentStarts;
+    private final int admissionThresholdPercent;
+    private final File logDirectory;
+    private final String token = UUID.randomUUID().toString();
+    private final ServerSocket server;
+    private final List<WorkerProcess> workers = new CopyOnWriteArrayList<>();
+    private final Map<Integer, WorkerProcess> workerByInstance = new ConcurrentHashMap<>();
+    // Instances that could not be placed on any worker
+    private final AtomicInteger unplaced = new AtomicInteger();
+
+    /**
+     * @param logDirectory Receives one log file per worker
+     */
+    WorkerPool(FarmDefinition definition, int admissionThresholdPercent, File logDirectory) throws IOException {
+        this(definition.getWorkers(), definition.getRedirectionRules(), definition.getProxyRules(),
+                definition.getWatchdog(), definition.getMaxConcurrentStarts(), admissionThresholdPercent,
+                logDirectory);
+    }
+
+    /**
+     * @param redirectionRules Sent to each worker as it starts; may be a live
+     *                         view, so workers started later get the rules
+     *                         current at that time
+     * @param proxyRules       Likewise
+     * @param watchdog         Watchdog settings of each worker, null for none
+     * @param logDirectory     Receives one log file per worker
+     */
+    WorkerPool(FarmDefinition.Workers settings, List<RedirectionRule> redirectionRules, List<ProxyRule> proxyRules,
+               FarmDefinition.Watchdog watchdog, int maxConcurrentStarts, int admissionThresholdPercent,
+               File logDirectory) throws IOException {
+        this.settings = settings;
+        this.redirectionRules = redirectionRules;
+        this.proxyRules = proxyRules;
+        this.watchdog = watchdog;
+        this.maxConcurrentStarts = maxConcurrentStarts;
+        this.admissionThresholdPercent = admissionThresholdPercent;
+        this.logDirectory = logDirectory;
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> launch(int instanceId, String emulatorPath, String appPath,
+                                             FarmDefinition.Group group) {
+        WorkerProcess worker;
+        try {
+            worker = place(instanceId);
+        } catch (IOException e) {
+            unplaced.incrementAndGet();
+            System.err.println("Instance #" + instanceId + " failed to start: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+
+        WorkerMessage request = new WorkerMessage(WorkerMessage.CREATE);
+        request.instanceId = instanceId;
+        request.emulator = emulatorPath;
+        request.app = appPath;
+        request.group = group;
+        return worker.request(request).handle((reply, error) -> reply != null && reply.isOk());
+    }
+
+    /**
+     * Assign an instance to the first live worker with room, starting a new
+     * worker if there is none.
+     */
+    private synchronized WorkerProcess place(int instanceId) throws IOException {
+        WorkerProcess target = null;
+        for (WorkerProcess worker : workers) {
+            if (worker.isAlive() && worker.getInstanceIds().size() < settings.getInstancesPerWorker()) {
+                target = worker;
+                break;
+            }
+        }
+        if (target == null) {
+            target = startWorker(workers.size() + 1);
+        }
+        target.getInstanceIds().add(instanceId);
+        workerByInstance.put(instanceId, target);
+        return target;
+    }
+
+    private WorkerProcess startWorker(int index) throws IOException {
+        File logFile = new File(logDirectory, "worker-" + index + ".log");
+        WorkerProcess worker = WorkerProcess.spawn(index, server, token, settings, logFile);
+        WorkerMessage configure = new WorkerMessage(WorkerMessage.CONFIGURE);
+        configure.redirections = new ArrayList<>(redirectionRules);
+        configure.proxies = new ArrayList<>(proxyRules);
+        configure.watchdog = watchdog;
+        configure.maxConcurrentStarts = maxConcurrentStarts;
+        configure.admissionThresholdPercent = admissionThresholdPercent;
+        try {
+            worker.call(configure, CALL_TIMEOUT_MS);
+        } catch (IOException e) {
+            worker.close();
+            throw e;
+        }
+        workers.add(worker);
+        System.out.printf("Worker %d started, log %s%n", index, logFile.getPath());
+        return worker;
+    }
+
+    /**
+     * Sum the metrics of all workers. A worker that is gone or does not
+     * answer contributes its last reported counters; the instances of a dead
+     * worker count as lost.
+     */
+    @Override
+    public HostMetrics metrics() {
+        List<CompletableFuture<WorkerMessage>> replies = new ArrayList<>();
+        for (WorkerProcess worker : workers) {
+            replies.add(worker.isAlive() ? worker.request(new WorkerMessage(WorkerMessage.METRICS)) : null);
+        }
+
+        HostMetrics total = new HostMetrics();
+        int alive = 0;
+        for (int i = 0; i < workers.size(); i++) {
+            WorkerProcess worker = workers.get(i);
+            WorkerMessage reply = null;
+            if (replies.get(i) != null) {
+                try {
+                    reply = replies.get(i).get(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    logger.fine("No metrics from worker " + worker.getIndex() + ": " + e);
+                }
+            }
+            if (reply != null && reply.isOk() && reply.metrics != null) {
+                worker.setLastMetrics(reply.metrics);
+                total.add(reply.metrics);
+                alive++;
+            } else if (worker.isAlive()) {
+                total.add(worker.getLastMetrics());
+                alive++;
+            } else {
+                total.add(worker.getLastMetrics().countersOnly());
+                total.addLost(worker.getInstanceIds().size());
+                reportLost(worker);
+            }
+        }
+        total.addFailed(unplaced.get());
+        total.setWorkers(alive);
+        return total;
+    }
+
+    private void reportLost(WorkerProcess worker) {
+        if (worker.markLostReported() && !worker.getInstanceIds().isEmpty()) {
+            System.err.printf("Worker %d died, %d instance(s) lost, see %s%n", worker.getIndex(),
+                    worker.getInstanceIds().size(),
+                    new File(logDirectory, "worker-" + worker.getIndex() + ".log").getPath());
+        }
+    }
+
+    /**
+     * @return The worker hosting an instance, for remote control
+     * @throws IOException If the instance was never placed
+     */
+    HostConnection hostOf(int instanceId) throws IOException {
+        WorkerProcess worker = workerByInstance.get(instanceId);
+        if (worker == null) {
+            throw new IOException("Instance #" + instanceId + " is not placed on a worker");
+        }
+        return worker;
+    }
+
+    /**
+     * Ask every worker to stop its instances and exit, in parallel.
+     */
+    @Override
+    public boolean stop(long timeoutMs) {
+        for (WorkerProcess worker : workers) {
+            if (worker.isAlive()) {
+                worker.request(new WorkerMessage(WorkerMessage.SHUTDOWN));
+            }
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        boolean clean = true;
+        for (WorkerProcess worker : workers) {
+            clean &= worker.awaitExit(Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        return clean;
+    }
+
+    @Override
+    public void close() {
+        for (WorkerProcess worker : workers) {
+            worker.close();
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
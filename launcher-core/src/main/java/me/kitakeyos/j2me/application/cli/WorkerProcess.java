@@ -0,0 +1,159 @@
+package me.kitakeyos.j2me.application.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launcher side of one worker process: the child JVM, its connection and
+ * the instances placed on it.
+ */
+final class WorkerProcess extends HostConnection {
+
+    private static final long CONNECT_TIMEOUT_MS = 30_000;
+
+    private final int index;
+    private final Process process;
+
+    private WorkerProcess(int index, Process process, Socket socket) throws IOException {
+        super("Worker " + index, socket);
+        this.index = index;
+        this.process = process;
+    }
+
+    /**
+     * Start a worker JVM and wait for it to connect back.
+     *
+     * @param server   Loopback server socket of the pool; accepts are
+     *                 serialized by the caller
+     * @param token    Secret the worker must present in its hello
+     * @param settings Heap and extra JVM options
+     * @param logFile  Receives the worker's stdout and stderr
+     */
+    static WorkerProcess spawn(int index, ServerSocket server, String token, FarmDefinition.Workers settings,
+                               File logFile) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+        if (settings.getHeapMb() > 0) {
+            command.add("-Xmx" + settings.getHeapMb() + "m");
+        }
+        command.addAll(settings.getJvmArgs());
+        command.add("-Djava.awt.headless=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(WorkerMain.class.getName());
+        command.add(String.valueOf(server.getLocalPort()));
+        command.add(token);
+        command.add(String.valueOf(index));
+
+        logFile.getParentFile().mkdirs();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                .start();
+
+        Socket socket = null;
+        try {
+            long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+            while (socket == null) {
+                if (!process.isAlive()) {
+                    throw new IOException("Worker " + index + " exited with status " + process.exitValue()
+                            + ", see " + logFile);
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IOException("Worker " + index + " did not connect within "
+                            + CONNECT_TIMEOUT_MS / 1000 + " s");
+                }
+                // Poll so a worker that dies on startup is noticed
+                server.setSoTimeout((int) Math.min(remaining, 1000));
+                try {
+                    Socket candidate = server.accept();
+                    if (isHello(candidate, token, index)) {
+                        socket = candidate;
+                    } else {
+                        candidate.close();
+                    }
+                } catch (SocketTimeoutException e) {
+                    // Check the process and retry
+                }
+            }
+            socket.setSoTimeout(0);
+            WorkerProcess worker = new WorkerProcess(index, process, socket);
+            worker.startReader();
+            return worker;
+        } catch (IOException | RuntimeException e) {
+            if (socket != null) {
+                socket.close();
+            }
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the first line of a new connection and check it is the hello of
+     * the expected worker.
+     */
+    private static boolean isHello(Socket candidate, String token, int index) throws IOException {
+        candidate.setSoTimeout(5000);
+        try {
+            // Unbuffered: nothing past the hello may be consumed here
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = candidate.getInputStream().read()) != -1 && c != '\n') {
+                line.append((char) c);
+            }
+            WorkerMessage hello = new Gson().fromJson(line.toString(), WorkerMessage.class);
+            return hello != null && WorkerMessage.HELLO.equals(hello.op) && token.equals(hello.token)
+                    && hello.worker != null && hello.worker == index;
+        } catch (SocketTimeoutException | JsonParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Wait for the process to exit, then kill it if it is still there.
+     *
+     * @return true if it exited by itself
+     */
+    boolean awaitExit(long timeoutMs) {
+        boolean exited;
+        try {
+            exited = process.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exited = false;
+        }
+        close();
+        return exited;
+    }
+
+    /**
+     * Close the connection and kill the process.
+     */
+    @Override
+    void close() {
+        super.close();
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    @Override
+    boolean isAlive() {
+        return super.isAlive() && process.isAlive();
+    }
+}
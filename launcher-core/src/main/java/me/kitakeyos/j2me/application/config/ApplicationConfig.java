@@ -0,0 +1,646 @@
+package me.kitakeyos.j2me.application.config;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.Visibility;
+import me.kitakeyos.j2me.domain.media.model.MediaPolicy;
+import me.kitakeyos.j2me.infrastructure.console.InstanceConsole;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Manages application configuration, including microemulator path and other
+ * settings
+ */
+public class ApplicationConfig {
+    private static final Logger logger = Logger.getLogger(ApplicationConfig.class.getName());
+
+    private static final String CONFIG_FILE = "j2me_launcher.properties";
+    private static final String MICROEMULATOR_PATH_KEY = "microemulator.path";
+    private static final String DEFAULT_MICROEMULATOR_PATH = "microemulator.jar";
+    private static final String TOAST_NOTIFICATIONS_KEY = "ui.toastNotifications";
+    private static final String LANGUAGE_KEY = "ui.language";
+    private static final String PAINT_FPS_KEY_PREFIX = "paint.fps.";
+    private static final int DEFAULT_FOCUSED_PAINT_FPS = 60;
+    private static final int DEFAULT_VISIBLE_PAINT_FPS = 10;
+    private static final int DEFAULT_HIDDEN_PAINT_FPS = 1;
+    private static final String IDLE_SLEEP_SECONDS_KEY = "ui.idleSleepSeconds";
+    private static final int DEFAULT_IDLE_SLEEP_SECONDS = 0; // disabled by default
+    private static final String WARM_POOL_SIZE_KEY = "launch.warmPoolSize";
+    private static final int DEFAULT_WARM_POOL_SIZE = 0; // disabled by default
+    private static final String SUSPEND_KEEP_ALIVE_KEY = "instance.suspendKeepAlive";
+    private static final String CPU_BUDGET_PERCENT_KEY = "monitor.cpuBudgetPercent";
+    private static final int DEFAULT_CPU_BUDGET_PERCENT = 0; // disabled by default
+    private static final String GOVERNOR_ENABLED_KEY = "governor.enabled";
+    private static final String GOVERNOR_TARGET_CPU_KEY = "governor.targetCpuPercent";
+    private static final int DEFAULT_GOVERNOR_TARGET_CPU = 70;
+    private static final String GOVERNOR_MIN_SPEED_KEY = "governor.minSpeed";
+    private static final double DEFAULT_GOVERNOR_MIN_SPEED = 0.25;
+    private static final String GOVERNOR_MAX_SPEED_KEY = "governor.maxSpeed";
+    private static final double DEFAULT_GOVERNOR_MAX_SPEED = 1.0;
+    private static final String BACKGROUND_ENABLED_KEY = "background.enabled";
+    private static final String BACKGROUND_SPEED_KEY = "background.speed";
+    private static final double DEFAULT_BACKGROUND_SPEED = 0.5;
+    private static final String ADMISSION_THRESHOLD_KEY = "admission.memoryThresholdPercent";
+    private static final int DEFAULT_ADMISSION_THRESHOLD = 85;
+    private static final String ADMISSION_QUEUE_KEY = "admission.queueLaunches";
+    private static final String WATCHDOG_ENABLED_KEY = "watchdog.enabled";
+    private static final String WATCHDOG_STALL_TIMEOUT_KEY = "watchdog.stallTimeoutSeconds";
+    private static final int DEFAULT_WATCHDOG_STALL_TIMEOUT = 180;
+    private static final String WATCHDOG_MAX_RESTARTS_KEY = "watchdog.maxRestartsPerHour";
+    private static final int DEFAULT_WATCHDOG_MAX_RESTARTS = 5;
+    private static final String SOFT_RESTART_KEY = "restart.soft";
+    private static final String VIRTUAL_THREADS_KEY = "threads.virtual";
+    private static final String WORKERS_ENABLED_KEY = "workers.enabled";
+    private static final String WORKERS_INSTANCES_PER_WORKER_KEY = "workers.instancesPerWorker";
+    private static final int DEFAULT_WORKERS_INSTANCES_PER_WORKER = 10;
+    private static final String WORKERS_HEAP_MB_KEY = "workers.heapMb";
+    private static final String CONSOLE_BUFFER_LINES_KEY = "console.bufferLines";
+    private static final String CONSOLE_SPILL_KEY = "console.spillToFile";
+    private static final String CONSOLE_MAX_FILE_KB_KEY = "console.maxFileKb";
+    private static final int DEFAULT_CONSOLE_MAX_FILE_KB = 1024;
+    private static final String CONSOLE_MAX_FILES_KEY = "console.maxFiles";
+    private static final int DEFAULT_CONSOLE_MAX_FILES = 3;
+    private static final String CONSOLE_ECHO_KEY = "console.echo";
+    private static final String MEDIA_POLICY_KEY = "media.policy";
+    private static final String SESSION_AUTOSAVE_KEY = "session.autosave";
+    private static final String SESSION_RESTORE_ON_STARTUP_KEY = "session.restoreOnStartup";
+    public static final String DATA_DIR = "data";
+    public static final String APPS_DIR = "apps";
+    public static final String ICONS_DIR = "icons";
+    public static final String RMS_DIR = "rms";
+    public static final String LOGS_DIR = "logs";
+    public static final String APPS_CONFIG_FILE = "j2me_apps.properties";
+
+    private static volatile ApplicationConfig active;
+
+    private final Properties properties;
+    private final String configFilePath;
+    private final File dataDirectory;
+
+    public ApplicationConfig() {
+        // Use application directory instead of user home
+        this(new File(DATA_DIR));
+    }
+
+    /**
+     * Configuration stored in the given data directory, for hosts that embed
+     * the engine elsewhere than in the working directory
+     */
+    public ApplicationConfig(File dataDirectory) {
+        this.properties = new Properties();
+        this.dataDirectory = dataDirectory;
+        if (!dataDirectory.exists()) {
+            dataDirectory.mkdirs();
+        }
+
+        this.configFilePath = new File(dataDirectory, CONFIG_FILE).getPath();
+        loadConfiguration();
+    }
+
+    /**
+     * Configuration the engine reads its data directory from (RMS, network
+     * rules). A default one in {@link #DATA_DIR} is created on first use if
+     * the host did not set one.
+     */
+    public static ApplicationConfig getActive() {
+        ApplicationConfig config = active;
+        if (config == null) {
+            synchronized (ApplicationConfig.class) {
+                if (active == null) {
+                    active = new ApplicationConfig();
+                }
+                config = active;
+            }
+        }
+        return config;
+    }
+
+    public static void setActive(ApplicationConfig config) {
+        active = config;
+    }
+
+    /**
+     * Load configuration from file
+     */
+    public void loadConfiguration() {
+        File configFile = new File(configFilePath);
+        if (configFile.exists()) {
+            try (FileInputStream fis = new FileInputStream(configFile)) {
+                properties.load(fis);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Cannot load configuration file: " + e.getMessage());
+                loadDefaultConfiguration();
+            }
+        } else {
+            loadDefaultConfiguration();
+            saveConfiguration();
+        }
+    }
+
+    /**
+     * Save configuration to file
+     */
+    public void saveConfiguration() {
+        try (FileOutputStream fos = new FileOutputStream(configFilePath)) {
+            properties.store(fos, "J2ME Launcher Configuration");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot save configuration file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load default configuration
+     */
+    private void loadDefaultConfiguration() {
+        properties.setProperty(MICROEMULATOR_PATH_KEY, DEFAULT_MICROEMULATOR_PATH);
+        properties.setProperty(TOAST_NOTIFICATIONS_KEY, "true");
+    }
+
+    /**
+     * Check if toast notifications are enabled
+     */
+    public boolean isToastNotificationsEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(TOAST_NOTIFICATIONS_KEY, "false"));
+    }
+
+    /**
+     * Set toast notifications enabled
+     */
+    public void setToastNotificationsEnabled(boolean enabled) {
+        properties.setProperty(TOAST_NOTIFICATIONS_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Get microemulator path
+     */
+    public String getMicroemulatorPath() {
+        return properties.getProperty(MICROEMULATOR_PATH_KEY, DEFAULT_MICROEMULATOR_PATH);
+    }
+
+    /**
+     * Set microemulator path
+     */
+    public void setMicroemulatorPath(String path) {
+        properties.setProperty(MICROEMULATOR_PATH_KEY, path);
+    }
+
+    /**
+     * FPS cap of the MicroEmulator paint pipeline for instances with the
+     * given visibility, 0 for no cap. Applied at runtime via
+     * {@code PaintBudgetService}. Keeps EDT responsive when many instances
+     * run at high game-loop speed.
+     */
+    public int getPaintFps(Visibility visibility) {
+        int defaultFps = visibility == Visibility.FOCUSED ? DEFAULT_FOCUSED_PAINT_FPS
+                : visibility == Visibility.VISIBLE ? DEFAULT_VISIBLE_PAINT_FPS : DEFAULT_HIDDEN_PAINT_FPS;
+        try {
+            int fps = Integer.parseInt(properties.getProperty(paintFpsKey(visibility), String.valueOf(defaultFps)));
+            return fps >= 0 ? fps : defaultFps;
+        } catch (NumberFormatException e) {
+            return defaultFps;
+        }
+    }
+
+    public void setPaintFps(Visibility visibility, int fps) {
+        properties.setProperty(paintFpsKey(visibility), String.valueOf(fps));
+    }
+
+    private static String paintFpsKey(Visibility visibility) {
+        return PAINT_FPS_KEY_PREFIX + visibility.name().toLowerCase();
+    }
+
+    /**
+     * After this many seconds without user input, the paint throttle guard
+     * drops every paint. 0 disables the idle sleep entirely.
+     */
+    public int getIdleSleepSeconds() {
+        try {
+            return Integer.parseInt(properties.getProperty(IDLE_SLEEP_SECONDS_KEY,
+                    String.valueOf(DEFAULT_IDLE_SLEEP_SECONDS)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_IDLE_SLEEP_SECONDS;
+        }
+    }
+
+    public void setIdleSleepSeconds(int seconds) {
+        properties.setProperty(IDLE_SLEEP_SECONDS_KEY, String.valueOf(seconds));
+    }
+
+    /**
+     * Number of pre-warmed emulator shells kept ready per emulator
+     * configuration. 0 disables the warm pool.
+     */
+    public int getWarmPoolSize() {
+        try {
+            return Integer.parseInt(properties.getProperty(WARM_POOL_SIZE_KEY,
+                    String.valueOf(DEFAULT_WARM_POOL_SIZE)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_WARM_POOL_SIZE;
+        }
+    }
+
+    public void setWarmPoolSize(int size) {
+        properties.setProperty(WARM_POOL_SIZE_KEY, String.valueOf(size));
+    }
+
+    /**
+     * Whether TCP keep-alive is enabled on an instance's sockets while it is
+     * suspended, so idle connections are not dropped by the peer.
+     */
+    public boolean isSuspendKeepAliveEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(SUSPEND_KEEP_ALIVE_KEY, "true"));
+    }
+
+    public void setSuspendKeepAliveEnabled(boolean enabled) {
+        properties.setProperty(SUSPEND_KEEP_ALIVE_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Per-instance CPU budget in percent of one core. An instance whose
+     * average CPU exceeds it raises an alert. 0 disables the alert.
+     */
+    public int getCpuBudgetPercent() {
+        try {
+            return Integer.parseInt(properties.getProperty(CPU_BUDGET_PERCENT_KEY,
+                    String.valueOf(DEFAULT_CPU_BUDGET_PERCENT)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_CPU_BUDGET_PERCENT;
+        }
+    }
+
+    public void setCpuBudgetPercent(int percent) {
+        properties.setProperty(CPU_BUDGET_PERCENT_KEY, String.valueOf(percent));
+    }
+
+    /**
+     * Whether the adaptive CPU governor tunes instance speed automatically.
+     */
+    public boolean isGovernorEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(GOVERNOR_ENABLED_KEY, "false"));
+    }
+
+    public void setGovernorEnabled(boolean enabled) {
+        properties.setProperty(GOVERNOR_ENABLED_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Process CPU utilisation (percent of the whole machine) the governor
+     * aims for.
+     */
+    public int getGovernorTargetCpuPercent() {
+        try {
+            return Integer.parseInt(properties.getProperty(GOVERNOR_TARGET_CPU_KEY,
+                    String.valueOf(DEFAULT_GOVERNOR_TARGET_CPU)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_GOVERNOR_TARGET_CPU;
+        }
+    }
+
+    public void setGovernorTargetCpuPercent(int percent) {
+        properties.setProperty(GOVERNOR_TARGET_CPU_KEY, String.valueOf(percent));
+    }
+
+    /**
+     * Lowest speed multiplier the governor may set.
+     */
+    public double getGovernorMinSpeed() {
+        try {
+            return Double.parseDouble(properties.getProperty(GOVERNOR_MIN_SPEED_KEY,
+                    String.valueOf(DEFAULT_GOVERNOR_MIN_SPEED)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_GOVERNOR_MIN_SPEED;
+        }
+    }
+
+    public void setGovernorMinSpeed(double speed) {
+        properties.setProperty(GOVERNOR_MIN_SPEED_KEY, String.valueOf(speed));
+    }
+
+    /**
+     * Highest speed multiplier the governor may set.
+     */
+    public double getGovernorMaxSpeed() {
+        try {
+            return Double.parseDouble(properties.getProperty(GOVERNOR_MAX_SPEED_KEY,
+                    String.valueOf(DEFAULT_GOVERNOR_MAX_SPEED)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_GOVERNOR_MAX_SPEED;
+        }
+    }
+
+    public void setGovernorMaxSpeed(double speed) {
+        properties.setProperty(GOVERNOR_MAX_SPEED_KEY, String.valueOf(speed));
+    }
+
+    /**
+     * Whether hidden instances are slowed down and deprioritized.
+     */
+    public boolean isBackgroundModeEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(BACKGROUND_ENABLED_KEY, "true"));
+    }
+
+    public void setBackgroundModeEnabled(boolean enabled) {
+        properties.setProperty(BACKGROUND_ENABLED_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Speed multiplier hidden instances run at.
+     */
+    public double getBackgroundSpeed() {
+        try {
+            return Double.parseDouble(properties.getProperty(BACKGROUND_SPEED_KEY,
+                    String.valueOf(DEFAULT_BACKGROUND_SPEED)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_BACKGROUND_SPEED;
+        }
+    }
+
+    public void setBackgroundSpeed(double speed) {
+        properties.setProperty(BACKGROUND_SPEED_KEY, String.valueOf(speed));
+    }
+
+    /**
+     * Share of the heap and Metaspace maximums that projected usage may reach
+     * before launches are held back. 0 disables admission control.
+     */
+    public int getAdmissionThresholdPercent() {
+        try {
+            return Integer.parseInt(properties.getProperty(ADMISSION_THRESHOLD_KEY,
+                    String.valueOf(DEFAULT_ADMISSION_THRESHOLD)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_ADMISSION_THRESHOLD;
+        }
+    }
+
+    public void setAdmissionThresholdPercent(int percent) {
+        properties.setProperty(ADMISSION_THRESHOLD_KEY, String.valueOf(percent));
+    }
+
+    /**
+     * Whether launches over the memory threshold wait for room (true) or are
+     * refused (false).
+     */
+    public boolean isQueueLaunchesEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(ADMISSION_QUEUE_KEY, "true"));
+    }
+
+    public void setQueueLaunchesEnabled(boolean enabled) {
+        properties.setProperty(ADMISSION_QUEUE_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Whether hung instances are detected and restarted automatically.
+     */
+    public boolean isWatchdogEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(WATCHDOG_ENABLED_KEY, "false"));
+    }
+
+    public void setWatchdogEnabled(boolean enabled) {
+        properties.setProperty(WATCHDOG_ENABLED_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Seconds without repaint requests or socket traffic after which an
+     * instance is considered stalled.
+     */
+    public int getWatchdogStallTimeoutSeconds() {
+        try {
+            return Integer.parseInt(properties.getProperty(WATCHDOG_STALL_TIMEOUT_KEY,
+                    String.valueOf(DEFAULT_WATCHDOG_STALL_TIMEOUT)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_WATCHDOG_STALL_TIMEOUT;
+        }
+    }
+
+    public void setWatchdogStallTimeoutSeconds(int seconds) {
+        properties.setProperty(WATCHDOG_STALL_TIMEOUT_KEY, String.valueOf(seconds));
+    }
+
+    /**
+     * Maximum automatic restarts of one instance per hour.
+     */
+    public int getWatchdogMaxRestartsPerHour() {
+        try {
+            return Integer.parseInt(properties.getProperty(WATCHDOG_MAX_RESTARTS_KEY,
+                    String.valueOf(DEFAULT_WATCHDOG_MAX_RESTARTS)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_WATCHDOG_MAX_RESTARTS;
+        }
+    }
+
+    public void setWatchdogMaxRestartsPerHour(int restarts) {
+        properties.setProperty(WATCHDOG_MAX_RESTARTS_KEY, String.valueOf(restarts));
+    }
+
+    /**
+     * Whether restarted instances keep their classloader and only have the
+     * emulator's static state reset.
+     */
+    public boolean isSoftRestartEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(SOFT_RESTART_KEY, "true"));
+    }
+
+    public void setSoftRestartEnabled(boolean enabled) {
+        properties.setProperty(SOFT_RESTART_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Whether MIDlet threads run on virtual threads, on Java 21 and later.
+     * Off by default: priorities and per-thread CPU accounting do not cover
+     * virtual threads.
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(VIRTUAL_THREADS_KEY, "false"));
+    }
+
+    public void setVirtualThreadsEnabled(boolean enabled) {
+        properties.setProperty(VIRTUAL_THREADS_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Whether the Swing launcher starts new instances in worker processes
+     * instead of in its own JVM.
+     */
+    public boolean isWorkersEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(WORKERS_ENABLED_KEY, "false"));
+    }
+
+    public void setWorkersEnabled(boolean enabled) {
+        properties.setProperty(WORKERS_ENABLED_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Instances hosted by one worker process before another is started.
+     */
+    public int getInstancesPerWorker() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty(WORKERS_INSTANCES_PER_WORKER_KEY,
+                    String.valueOf(DEFAULT_WORKERS_INSTANCES_PER_WORKER))));
+        } catch (NumberFormatException e) {
+            return DEFAULT_WORKERS_INSTANCES_PER_WORKER;
+        }
+    }
+
+    public void setInstancesPerWorker(int instances) {
+        properties.setProperty(WORKERS_INSTANCES_PER_WORKER_KEY, String.valueOf(instances));
+    }
+
+    /**
+     * Maximum heap of each worker process in MB, 0 for the JVM default.
+     */
+    public int getWorkerHeapMb() {
+        try {
+            return Math.max(0, Integer.parseInt(properties.getProperty(WORKERS_HEAP_MB_KEY, "0")));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public void setWorkerHeapMb(int heapMb) {
+        properties.setProperty(WORKERS_HEAP_MB_KEY, String.valueOf(heapMb));
+    }
+
+    /**
+     * Lines of MIDlet output kept in memory per instance.
+     */
+    public int getConsoleBufferLines() {
+        try {
+            return Integer.parseInt(properties.getProperty(CONSOLE_BUFFER_LINES_KEY,
+                    String.valueOf(InstanceConsole.DEFAULT_CAPACITY)));
+        } catch (NumberFormatException e) {
+            return InstanceConsole.DEFAULT_CAPACITY;
+        }
+    }
+
+    public void setConsoleBufferLines(int lines) {
+        properties.setProperty(CONSOLE_BUFFER_LINES_KEY, String.valueOf(lines));
+    }
+
+    /**
+     * Whether MIDlet output is also written to rotating files under
+     * {@link #LOGS_DIR}.
+     */
+    public boolean isConsoleSpillEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(CONSOLE_SPILL_KEY, "false"));
+    }
+
+    public void setConsoleSpillEnabled(boolean enabled) {
+        properties.setProperty(CONSOLE_SPILL_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Size in KB at which a console file is rotated.
+     */
+    public int getConsoleMaxFileKb() {
+        try {
+            return Integer.parseInt(properties.getProperty(CONSOLE_MAX_FILE_KB_KEY,
+                    String.valueOf(DEFAULT_CONSOLE_MAX_FILE_KB)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_CONSOLE_MAX_FILE_KB;
+        }
+    }
+
+    /**
+     * Console files kept per instance, including the current one.
+     */
+    public int getConsoleMaxFiles() {
+        try {
+            return Integer.parseInt(properties.getProperty(CONSOLE_MAX_FILES_KEY,
+                    String.valueOf(DEFAULT_CONSOLE_MAX_FILES)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_CONSOLE_MAX_FILES;
+        }
+    }
+
+    /**
+     * Whether MIDlet output is also printed to the launcher's own console.
+     */
+    public boolean isConsoleEchoEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(CONSOLE_ECHO_KEY, "false"));
+    }
+
+    public void setConsoleEchoEnabled(boolean enabled) {
+        properties.setProperty(CONSOLE_ECHO_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * How the sound of instances without a policy of their own is played:
+     * real, stub or shared.
+     */
+    public MediaPolicy getMediaPolicy() {
+        try {
+            return MediaPolicy.fromName(properties.getProperty(MEDIA_POLICY_KEY, MediaPolicy.REAL.name()));
+        } catch (IllegalArgumentException e) {
+            return MediaPolicy.REAL;
+        }
+    }
+
+    public void setMediaPolicy(MediaPolicy policy) {
+        properties.setProperty(MEDIA_POLICY_KEY, policy.name().toLowerCase());
+    }
+
+    /**
+     * Whether the running instances are saved continuously so the session
+     * can be restored after a restart or crash.
+     */
+    public boolean isSessionAutosaveEnabled() {
+        return Boolean.parseBoolean(properties.getProperty(SESSION_AUTOSAVE_KEY, "true"));
+    }
+
+    public void setSessionAutosaveEnabled(boolean enabled) {
+        properties.setProperty(SESSION_AUTOSAVE_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Whether the saved session is restored automatically on startup.
+     */
+    public boolean isSessionRestoreOnStartup() {
+        return Boolean.parseBoolean(properties.getProperty(SESSION_RESTORE_ON_STARTUP_KEY, "false"));
+    }
+
+    public void setSessionRestoreOnStartup(boolean enabled) {
+        properties.setProperty(SESSION_RESTORE_ON_STARTUP_KEY, String.valueOf(enabled));
+    }
+
+    /**
+     * Get UI language
+     */
+    public String getLanguage() {
+        return properties.getProperty(LANGUAGE_KEY, "en");
+    }
+
+    /**
+     * Set UI language
+     */
+    public void setLanguage(String language) {
+        properties.setProperty(LANGUAGE_KEY, language);
+    }
+
+    /**
+     * Check if microemulator path is valid
+     */
+    public boolean isMicroemulatorPathValid() {
+        String path = getMicroemulatorPath();
+        File file = new File(path);
+        return file.exists() && file.isFile() && path.toLowerCase().endsWith(".jar");
+    }
+
+    /**
+     * Get configuration file path
+     */
+    public String getConfigFilePath() {
+        return configFilePath;
+    }
+
+    /**
+     * Get configuration directory
+     */
+    public File getDataDirectory() {
+        return dataDirectory;
+    }
+}
@@ -0,0 +1,262 @@
+package me.kitakeyos.j2me.application.emulator;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.InstanceState;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.infrastructure.classloader.EmulatorClassLoader;
+import me.kitakeyos.j2me.infrastructure.headless.HeadlessDisplay;
+import me.kitakeyos.j2me.util.reflection.EmulatorReflectionHelper;
+import me.kitakeyos.j2me.util.reflection.ReflectionHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Application layer service that launches emulator instances.
+ * This class coordinates between Domain (EmulatorInstance) and Infrastructure
+ * (EmulatorClassLoader).
+ * It's appropriate for Application layer since it orchestrates infrastructure
+ * components.
+ * <p>
+ * Headless instances are started here. Windowed instances need Swing, which
+ * only the launcher UI module has, so they are started through the
+ * {@link WindowedStarter} that module registers.
+ */
+public class EmulatorLauncher {
+
+    private static final Logger logger = Logger.getLogger(EmulatorLauncher.class.getName());
+
+    private static volatile WindowedStarter windowedStarter;
+
+    /**
+     * Starts the emulator and MIDlet of a windowed instance on its classloader
+     * and stores the UI components on the instance.
+     */
+    public interface WindowedStarter {
+        void start(EmulatorInstance instance, EmulatorClassLoader emulatorClassLoader) throws Exception;
+    }
+
+    /**
+     * An emulator built ahead of time without a MIDlet, e.g. a warm shell of
+     * the launcher UI. Prepared for a reserved instance ID, which the
+     * instance that binds it must use.
+     */
+    public interface PreparedEmulator {
+        EmulatorClassLoader getClassLoader();
+
+        /**
+         * Load the instance's MIDlet and store the UI components on it. Runs
+         * with the prepared classloader as context classloader.
+         */
+        void bind(EmulatorInstance instance) throws Exception;
+
+        /**
+         * Close what was prepared after a failed bind. The instance ID stays
+         * with the instance that tried to bind it.
+         */
+        void dispose();
+    }
+
+    /**
+     * Register how windowed instances are started. Without one, only
+     * headless instances can be started.
+     */
+    public static void setWindowedStarter(WindowedStarter starter) {
+        windowedStarter = starter;
+    }
+
+    /**
+     * Initialize an emulator classloader for the given instance
+     *
+     * @param instanceId           Instance ID
+     * @param microemulatorJarPath Path to microemulator JAR
+     * @return Initialized classloader
+     */
+    public static EmulatorClassLoader initializeEmulatorClassLoader(int instanceId, String microemulatorJarPath)
+            throws IOException {
+        List<URL> urls = new ArrayList<>();
+        File microemulatorJar = new File(microemulatorJarPath);
+
+        if (microemulatorJar.exists()) {
+            urls.add(microemulatorJar.toURI().toURL());
+        }
+
+        if (urls.isEmpty()) {
+            throw new IOException("No JAR files found in " + microemulatorJar);
+        }
+
+        return new EmulatorClassLoader(instanceId, urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader());
+    }
+
+    /**
+     * Start an emulator instance
+     *
+     * @param instance   The instance to start
+     * @param onComplete Callback when instance startup completes (success or
+     *                   failure)
+     */
+    public static void startEmulatorInstance(EmulatorInstance instance, Runnable onComplete) throws Exception {
+        startEmulatorInstance(instance, null, onComplete);
+    }
+
+    /**
+     * Start an emulator instance, binding it to a prepared emulator when one
+     * is available. It must have been prepared for the same instance ID.
+     *
+     * @param instance   The instance to start
+     * @param prepared   Prepared emulator, or null for a cold start
+     * @param onComplete Callback when instance startup completes (success or
+     *                   failure), run on the instance manager's callback
+     *                   executor
+     */
+    public static void startEmulatorInstance(EmulatorInstance instance, PreparedEmulator prepared,
+            Runnable onComplete) throws Exception {
+        // Set state to STARTING
+        instance.setState(InstanceState.STARTING);
+
+        long instanceStartTime = System.currentTimeMillis();
+
+        boolean soft = false;
+        try {
+            if (prepared != null) {
+                if (instance.isHeadless()) {
+                    throw new IllegalArgumentException("Prepared emulators are windowed, headless instances start cold");
+                }
+                EmulatorClassLoader emulatorClassLoader = prepared.getClassLoader();
+                instance.setEmulatorClassLoader(emulatorClassLoader);
+                Thread.currentThread().setContextClassLoader(emulatorClassLoader);
+
+                // Device and UI are already built, only the MIDlet is missing
+                prepared.bind(instance);
+            } else {
+                EmulatorClassLoader recycled = instance.takeRecycledClassLoader();
+                soft = recycled != null;
+                if (soft) {
+                    startSoft(instance, recycled);
+                } else {
+                    startOn(instance, initializeEmulatorClassLoader(instance.getInstanceId(),
+                            instance.getMicroemulatorPath()));
+                }
+            }
+
+            // Set state to RUNNING after successful configuration
+            instance.setState(InstanceState.RUNNING);
+
+            long instanceDuration = System.currentTimeMillis() - instanceStartTime;
+            logger.info(String.format("Instance #%d started in %d ms%s%s", instance.getInstanceId(), instanceDuration,
+                    instance.isHeadless() ? " (headless)" : prepared != null ? " (warm)" : "", soft ? " (soft)" : ""));
+
+        } catch (Exception e) {
+            instance.setState(InstanceState.STOPPED);
+            if (prepared != null) {
+                prepared.dispose();
+            }
+            throw new Exception("Failed to start instance #" + instance.getInstanceId() + ": " + e.getMessage());
+        } finally {
+            if (onComplete != null) {
+                InstanceManager.runCallback(onComplete);
+            }
+        }
+    }
+
+    /**
+     * Start an instance on the classloader of the run it replaces, whose
+     * static state has been reset. Falls back to a new classloader if the
+     * emulator does not come up on the recycled one.
+     */
+    private static void startSoft(EmulatorInstance instance, EmulatorClassLoader recycled) throws Exception {
+        try {
+            startOn(instance, recycled);
+        } catch (Exception e) {
+            logger.warning("Soft restart of instance #" + instance.getInstanceId() + " failed, starting cold: "
+                    + e.getMessage());
+            instance.getResourceManager().cleanupAll();
+            instance.setEmulatorClassLoader(null);
+            instance.setHeadlessDisplay(null);
+            recycled.close();
+            startOn(instance, initializeEmulatorClassLoader(instance.getInstanceId(),
+                    instance.getMicroemulatorPath()));
+        }
+    }
+
+    /**
+     * Start the emulator and its MIDlet on the given classloader.
+     */
+    private static void startOn(EmulatorInstance instance, EmulatorClassLoader emulatorClassLoader)
+            throws Exception {
+        // Store classloader reference for cleanup during shutdown
+        instance.setEmulatorClassLoader(emulatorClassLoader);
+
+        // Ensure emulator runs with its own context ClassLoader
+        Thread.currentThread().setContextClassLoader(emulatorClassLoader);
+
+        if (instance.isHeadless()) {
+            startHeadless(instance, emulatorClassLoader);
+            return;
+        }
+
+        WindowedStarter starter = windowedStarter;
+        if (starter == null) {
+            throw new IllegalStateException("Windowed instances need the launcher UI");
+        }
+        starter.start(instance, emulatorClassLoader);
+    }
+
+    /**
+     * Start an instance without any Swing component, the way MicroEmulator's
+     * own {@code org.microemu.app.Headless} entry point does: its emulator
+     * context paints into an offscreen image, which is exposed with the
+     * input API through {@link HeadlessDisplay}. Unlike that entry point, the
+     * record store stays on file so RMS data lives in the instance's
+     * directory as for windowed instances.
+     */
+    private static void startHeadless(EmulatorInstance instance, EmulatorClassLoader emulatorClassLoader)
+            throws Exception {
+        // Headless builds the no-UI emulator context and its Common
+        Object headless = ReflectionHelper.createInstance(emulatorClassLoader, "org.microemu.app.Headless");
+        Object common = ReflectionHelper.getFieldValue(headless, "emulator");
+
+        Class<?> deviceEntryClass = ReflectionHelper.loadClass(emulatorClassLoader,
+                "org.microemu.app.util.DeviceEntry");
+        Object deviceEntry = deviceEntryClass
+                .getConstructor(String.class, String.class, String.class, boolean.class, boolean.class)
+                .newInstance("Default device", null, "org/microemu/device/default/device.xml", true, false);
+        Class<?> j2seDeviceClass = ReflectionHelper.loadClass(emulatorClassLoader,
+                "org.microemu.device.j2se.J2SEDevice");
+        ReflectionHelper.invokeMethod(common, "initParams",
+                new Class<?>[]{List.class, deviceEntryClass, Class.class},
+                buildEmulatorParameters(instance), deviceEntry, j2seDeviceClass);
+        EmulatorReflectionHelper.initializeMIDlet(common);
+
+        // The context class is package-private, so call it through its interface
+        Object context = ReflectionHelper.getFieldValue(headless, "context");
+        Class<?> contextClass = ReflectionHelper.loadClass(emulatorClassLoader, "org.microemu.EmulatorContext");
+        Object displayComponent = contextClass.getMethod("getDisplayComponent").invoke(context);
+        HeadlessDisplay headlessDisplay = new HeadlessDisplay(instance.getInstanceId(), displayComponent,
+                emulatorClassLoader);
+        instance.setHeadlessDisplay(headlessDisplay);
+        instance.setMenuExitListener(e -> headlessDisplay.destroy());
+
+        Class<?> mIDletResourceLoader = ReflectionHelper.loadClass(emulatorClassLoader,
+                "org.microemu.app.util.MIDletResourceLoader");
+        instance.setAppClassLoader((ClassLoader) ReflectionHelper.getStaticFieldValue(mIDletResourceLoader,
+                "classLoader"));
+    }
+
+    /**
+     * Build emulator launch parameters. The MIDlet JAR is already transformed
+     * at install time.
+     */
+    public static List<String> buildEmulatorParameters(EmulatorInstance instance) {
+        List<String> params = new ArrayList<>();
+        params.add(instance.getJ2meFilePath());
+        params.add("--resizableDevice");
+        params.add(String.valueOf(instance.getDisplayWidth()));// Width
+        params.add(String.valueOf(instance.getDisplayHeight()));// Height
+        return params;
+    }
+}
@@ -16,7 +16,7 @@ public class J2meApplication implements Serializable {
     private String version;         // Application version
     private String filePath;        // Path to JAR/JAD file
     private String iconPath;        // Path to icon image (extracted from JAR)
-    private transient Image icon;   // Icon image (loaded on demand)
+    private transient volatile Image icon; // Icon image (loaded on demand)
     private long installedDate;     // Installation timestamp
     private long fileSize;          // File size in bytes
 
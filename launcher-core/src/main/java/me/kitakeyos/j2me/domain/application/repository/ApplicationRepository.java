@@ -49,12 +49,21 @@ public interface ApplicationRepository {
     void deleteApplicationFiles(J2meApplication app);
 
     /**
-     * Load all applications from the configuration file.
+     * Load all applications from the configuration file. Icons are not
+     * decoded, see {@link #loadIcon}.
      *
      * @return list of loaded applications
      */
     List<J2meApplication> loadAllApplications();
 
+    /**
+     * Decode the application icon from its icon file, unless it is already
+     * loaded or there is none.
+     *
+     * @param app the application to load the icon for
+     */
+    void loadIcon(J2meApplication app);
+
     /**
      * Save all applications to the configuration file.
      *
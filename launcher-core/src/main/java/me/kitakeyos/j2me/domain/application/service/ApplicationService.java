@@ -127,6 +127,14 @@ public class ApplicationService {
         return new ArrayList<>(applications);
     }
 
+    /**
+     * Decode the icon of an application if it is not loaded yet. Reads the
+     * icon file, so the UI calls it off the EDT.
+     */
+    public void loadIcon(J2meApplication app) {
+        repository.loadIcon(app);
+    }
+
     /**
      * Get application by ID
      */
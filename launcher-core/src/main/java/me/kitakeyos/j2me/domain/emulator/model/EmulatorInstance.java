@@ -0,0 +1,389 @@
+package me.kitakeyos.j2me.domain.emulator.model;
+
+import me.kitakeyos.j2me.domain.emulator.resource.ResourceManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceLifecycleManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceSuspendService;
+import me.kitakeyos.j2me.domain.speed.service.SpeedService;
+import me.kitakeyos.j2me.infrastructure.classloader.EmulatorClassLoader;
+import me.kitakeyos.j2me.infrastructure.console.ConsoleDrainer;
+import me.kitakeyos.j2me.infrastructure.console.InstanceConsole;
+import me.kitakeyos.j2me.infrastructure.headless.HeadlessDisplay;
+
+import java.awt.Container;
+import java.awt.event.ActionListener;
+import java.net.Socket;
+
+/**
+ * Represents an emulator instance with its configuration and state
+ * This class now follows proper encapsulation and Single Responsibility
+ * Principle
+ */
+public class EmulatorInstance {
+
+    /**
+     * Possible states for an emulator instance
+     */
+    public enum InstanceState {
+        CREATED, // Instance created but not running
+        STARTING, // Instance is starting
+        RUNNING, // Instance is running
+        STOPPED // Instance has been stopped
+    }
+
+    /**
+     * On-screen visibility of an instance's display
+     */
+    public enum Visibility {
+        FOCUSED, // Visible and holds keyboard focus
+        VISIBLE, // At least partly visible
+        HIDDEN // Scrolled off-screen, on another tab, or launcher minimized
+    }
+
+    // Core configuration (immutable)
+    private final int instanceId;
+    private final String microemulatorPath;
+    private final String j2meFilePath;
+    private final int displayWidth;
+    private final int displayHeight;
+    private final boolean fullDisplayMode;
+    private final boolean headless; // Offscreen display, no Swing components
+
+    // State management (written by launcher and shutdown threads, read
+    // everywhere)
+    private volatile InstanceState state;
+    private volatile Runnable stateChangeListener;
+    private volatile Visibility visibility = Visibility.VISIBLE;
+
+    // UI components, set by the windowed launcher of the UI
+    private Container devicePanel;
+    private Container emulatorDisplay;
+    private ActionListener menuExitListener;
+    private ClassLoader appClassLoader;
+    private EmulatorClassLoader emulatorClassLoader;
+    private EmulatorClassLoader recycledClassLoader; // Kept from the previous run on a soft restart
+    private java.nio.file.Path transformedJarPath; // Speed control: transformed JAR
+    private boolean graphicsEnabled = true; // Graphics optimization flag
+    private HeadlessDisplay headlessDisplay; // Set once a headless instance is running
+    private volatile InstanceConsole console; // MIDlet output, created on first use, kept across restarts
+
+    // Resource management
+    private final ResourceManager resourceManager;
+
+    public EmulatorInstance(int instanceId, String microemulatorPath, String j2meFilePath, int displayWidth,
+            int displayHeight, boolean fullDisplayMode) {
+        this(instanceId, microemulatorPath, j2meFilePath, displayWidth, displayHeight, fullDisplayMode, false);
+    }
+
+    /**
+     * @param headless Render offscreen and take input through
+     *                 {@link HeadlessDisplay} instead of a Swing window
+     */
+    public EmulatorInstance(int instanceId, String microemulatorPath, String j2meFilePath, int displayWidth,
+            int displayHeight, boolean fullDisplayMode, boolean headless) {
+        this.instanceId = instanceId;
+        this.microemulatorPath = microemulatorPath;
+        this.j2meFilePath = j2meFilePath;
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
+        this.fullDisplayMode = fullDisplayMode;
+        this.headless = headless;
+        this.state = InstanceState.CREATED;
+        this.resourceManager = new ResourceManager(instanceId);
+    }
+
+    // === Getters ===
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public String getMicroemulatorPath() {
+        return microemulatorPath;
+    }
+
+    public String getJ2meFilePath() {
+        return j2meFilePath;
+    }
+
+    public int getDisplayWidth() {
+        return displayWidth;
+    }
+
+    public int getDisplayHeight() {
+        return displayHeight;
+    }
+
+    public boolean isFullDisplayMode() {
+        return fullDisplayMode;
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public InstanceState getState() {
+        return state;
+    }
+
+    public Container getDevicePanel() {
+        return devicePanel;
+    }
+
+    public Container getEmulatorDisplay() {
+        return emulatorDisplay;
+    }
+
+    public ActionListener getMenuExitListener() {
+        return menuExitListener;
+    }
+
+    /**
+     * @return Offscreen display of a running headless instance, null otherwise
+     */
+    public HeadlessDisplay getHeadlessDisplay() {
+        return headlessDisplay;
+    }
+
+    public ClassLoader getAppClassLoader() {
+        return appClassLoader;
+    }
+
+    public EmulatorClassLoader getEmulatorClassLoader() {
+        return emulatorClassLoader;
+    }
+
+    /**
+     * Console the MIDlet's System.out and System.err write to, created and
+     * registered with {@link ConsoleDrainer} on first use
+     */
+    public InstanceConsole getConsole() {
+        InstanceConsole current = console;
+        if (current == null) {
+            synchronized (this) {
+                current = console;
+                if (current == null) {
+                    current = new InstanceConsole(instanceId);
+                    ConsoleDrainer.getInstance().register(current);
+                    console = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Hand the console over to the instance's replacement or for closing
+     *
+     * @return The console, at most once, or null if none was created
+     */
+    public synchronized InstanceConsole takeConsole() {
+        InstanceConsole current = console;
+        console = null;
+        return current;
+    }
+
+    /**
+     * Keep the console of the run this instance replaces
+     */
+    public synchronized void setConsole(InstanceConsole console) {
+        this.console = console;
+    }
+
+    public ResourceManager getResourceManager() {
+        return resourceManager;
+    }
+
+    public Visibility getVisibility() {
+        return visibility;
+    }
+
+    // === Setters ===
+
+    public void setState(InstanceState state) {
+        InstanceState previous = this.state;
+        this.state = state;
+        Runnable listener = stateChangeListener;
+        if (listener != null && previous != state) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Set the callback invoked after every state transition, on the thread
+     * that made it. Used by the instance registry to keep its cached views
+     * current.
+     */
+    public void setStateChangeListener(Runnable stateChangeListener) {
+        this.stateChangeListener = stateChangeListener;
+    }
+
+    /**
+     * Record the display's visibility. Policies are applied by
+     * BackgroundModeService, which is the only caller.
+     */
+    public void setVisibility(Visibility visibility) {
+        this.visibility = visibility;
+    }
+
+    public void setDevicePanel(Container devicePanel) {
+        this.devicePanel = devicePanel;
+    }
+
+    public void setEmulatorDisplay(Container emulatorDisplay) {
+        this.emulatorDisplay = emulatorDisplay;
+    }
+
+    public void setMenuExitListener(ActionListener menuExitListener) {
+        this.menuExitListener = menuExitListener;
+    }
+
+    public void setHeadlessDisplay(HeadlessDisplay headlessDisplay) {
+        this.headlessDisplay = headlessDisplay;
+    }
+
+    public void setAppClassLoader(ClassLoader appClassLoader) {
+        this.appClassLoader = appClassLoader;
+    }
+
+    public void setEmulatorClassLoader(EmulatorClassLoader emulatorClassLoader) {
+        this.emulatorClassLoader = emulatorClassLoader;
+    }
+
+    /**
+     * Hand over the classloader of the instance this one replaces, with its
+     * static state already reset, so the start does not build a new one.
+     */
+    public void setRecycledClassLoader(EmulatorClassLoader recycledClassLoader) {
+        this.recycledClassLoader = recycledClassLoader;
+    }
+
+    /**
+     * @return The recycled classloader, at most once, or null for a cold
+     *         start
+     */
+    public EmulatorClassLoader takeRecycledClassLoader() {
+        EmulatorClassLoader loader = recycledClassLoader;
+        recycledClassLoader = null;
+        return loader;
+    }
+
+    public java.nio.file.Path getTransformedJarPath() {
+        return transformedJarPath;
+    }
+
+    public void setTransformedJarPath(java.nio.file.Path transformedJarPath) {
+        this.transformedJarPath = transformedJarPath;
+    }
+
+    // === Speed Control ===
+
+    /**
+     * Get the current speed multiplier for this instance.
+     * 
+     * @return Speed multiplier (1.0 = normal, 2.0 = 2x faster)
+     */
+    public double getSpeedMultiplier() {
+        return SpeedService.getInstance()
+                .getSpeedMultiplier(instanceId);
+    }
+
+    /**
+     * Set speed multiplier for this instance.
+     * Takes effect immediately for Thread.sleep() calls.
+     * 
+     * @param multiplier Speed multiplier (1.0 = normal, 2.0 = 2x faster)
+     */
+    public void setSpeedMultiplier(double multiplier) {
+        SpeedService.getInstance()
+                .setSpeedMultiplier(instanceId, multiplier);
+    }
+
+    // === Suspend / Resume ===
+
+    /**
+     * Check if this instance is suspended (hibernated).
+     */
+    public boolean isSuspended() {
+        return InstanceSuspendService.getInstance().isSuspended(instanceId);
+    }
+
+    /**
+     * Suspend this instance: threads park at their next safe point, paint
+     * and input are dropped, sockets stay open.
+     *
+     * @param keepAlive Enable TCP keep-alive on open sockets while suspended
+     * @return true if the instance was suspended by this call
+     */
+    public boolean suspend(boolean keepAlive) {
+        return InstanceSuspendService.getInstance().suspend(this, keepAlive);
+    }
+
+    /**
+     * Resume this instance after {@link #suspend(boolean)}.
+     *
+     * @return true if the instance was resumed by this call
+     */
+    public boolean resume() {
+        return InstanceSuspendService.getInstance().resume(this);
+    }
+
+    // === Graphics Optimization ===
+    public boolean isGraphicsEnabled() {
+        return graphicsEnabled;
+    }
+
+    public void setGraphicsEnabled(boolean graphicsEnabled) {
+        this.graphicsEnabled = graphicsEnabled;
+    }
+
+    // === Business Logic ===
+
+    /**
+     * Check if this instance can be run
+     */
+    public boolean canRun() {
+        return state == InstanceState.CREATED || state == InstanceState.STOPPED;
+    }
+
+    /**
+     * Add a thread to this instance's resource manager
+     */
+    public void addThread(Thread thread) {
+        resourceManager.addThread(thread);
+    }
+
+    /**
+     * Remove a thread from this instance's resource manager
+     */
+    public void removeThread(Thread thread) {
+        resourceManager.removeThread(thread);
+    }
+
+    /**
+     * Add a socket to this instance's resource manager
+     */
+    public void addSocket(Socket socket) {
+        resourceManager.addSocket(socket);
+    }
+
+    /**
+     * Remove a socket from this instance's resource manager
+     */
+    public void removeSocket(Socket socket) {
+        resourceManager.removeSocket(socket);
+    }
+
+    /**
+     * Shutdown the instance and release all resources
+     * Delegates to InstanceLifecycleManager for proper cleanup
+     */
+    public void shutdown() {
+        InstanceLifecycleManager.shutdown(this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EmulatorInstance{id=%d, state=%s, path=%s}",
+                instanceId, state, j2meFilePath);
+    }
+}
@@ -0,0 +1,160 @@
+package me.kitakeyos.j2me.domain.emulator.model;
+
+import me.kitakeyos.j2me.domain.network.model.ProxyRule;
+import me.kitakeyos.j2me.domain.network.model.RedirectionRule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the instance farm, used to bring it back after a
+ * launcher restart or crash.
+ * <p>
+ * Each entry keeps the launch configuration of one instance under its
+ * instance ID. The ID also names the instance's RMS directory, so restoring
+ * under the same ID brings back the MIDlet's saved data.
+ */
+public class SessionSnapshot {
+
+    private final long savedAt;
+    private final boolean inputSyncEnabled;
+    private final List<Entry> entries;
+
+    public SessionSnapshot(long savedAt, boolean inputSyncEnabled, List<Entry> entries) {
+        this.savedAt = savedAt;
+        this.inputSyncEnabled = inputSyncEnabled;
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    /**
+     * @return Time the snapshot was taken, in epoch milliseconds
+     */
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    public boolean isInputSyncEnabled() {
+        return inputSyncEnabled;
+    }
+
+    /**
+     * @return Entries in ascending instance ID order
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Launch configuration of one instance.
+     */
+    public static class Entry {
+        private final int instanceId;
+        private final String microemulatorPath;
+        private final String j2meFilePath;
+        private final int displayWidth;
+        private final int displayHeight;
+        private final boolean fullDisplayMode;
+        private final double speedMultiplier;
+        private final boolean graphicsEnabled;
+        private final boolean inputSynced;
+        private final double priorityWeight;
+        private final String rmsDirectory;
+        private final List<RedirectionRule> redirectionRules;
+        private final List<ProxyRule> proxyRules;
+
+        public Entry(int instanceId, String microemulatorPath, String j2meFilePath, int displayWidth,
+                int displayHeight, boolean fullDisplayMode, double speedMultiplier, boolean graphicsEnabled,
+                boolean inputSynced, double priorityWeight, String rmsDirectory,
+                List<RedirectionRule> redirectionRules, List<ProxyRule> proxyRules) {
+            this.instanceId = instanceId;
+            this.microemulatorPath = microemulatorPath;
+            this.j2meFilePath = j2meFilePath;
+            this.displayWidth = displayWidth;
+            this.displayHeight = displayHeight;
+            this.fullDisplayMode = fullDisplayMode;
+            this.speedMultiplier = speedMultiplier;
+            this.graphicsEnabled = graphicsEnabled;
+            this.inputSynced = inputSynced;
+            this.priorityWeight = priorityWeight;
+            this.rmsDirectory = rmsDirectory;
+            this.redirectionRules = Collections.unmodifiableList(new ArrayList<>(redirectionRules));
+            this.proxyRules = Collections.unmodifiableList(new ArrayList<>(proxyRules));
+        }
+
+        public int getInstanceId() {
+            return instanceId;
+        }
+
+        public String getMicroemulatorPath() {
+            return microemulatorPath;
+        }
+
+        public String getJ2meFilePath() {
+            return j2meFilePath;
+        }
+
+        public int getDisplayWidth() {
+            return displayWidth;
+        }
+
+        public int getDisplayHeight() {
+            return displayHeight;
+        }
+
+        public boolean isFullDisplayMode() {
+            return fullDisplayMode;
+        }
+
+        /**
+         * @return User-set speed multiplier (without governor or background
+         *         overrides)
+         */
+        public double getSpeedMultiplier() {
+            return speedMultiplier;
+        }
+
+        public boolean isGraphicsEnabled() {
+            return graphicsEnabled;
+        }
+
+        public boolean isInputSynced() {
+            return inputSynced;
+        }
+
+        public double getPriorityWeight() {
+            return priorityWeight;
+        }
+
+        /**
+         * @return RMS directory of the instance at snapshot time
+         */
+        public String getRmsDirectory() {
+            return rmsDirectory;
+        }
+
+        /**
+         * @return Redirection rules bound to this instance ID
+         */
+        public List<RedirectionRule> getRedirectionRules() {
+            return redirectionRules;
+        }
+
+        /**
+         * @return Proxy rules bound to this instance ID
+         */
+        public List<ProxyRule> getProxyRules() {
+            return proxyRules;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Entry{#%d, app=%s, %dx%d, speed=%.2fx}", instanceId, j2meFilePath,
+                    displayWidth, displayHeight, speedMultiplier);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package me.kitakeyos.j2me.domain.emulator.repository;
+
+import me.kitakeyos.j2me.domain.emulator.model.SessionSnapshot;
+
+/**
+ * Repository interface for the saved instance session.
+ */
+public interface SessionRepository {
+
+    /**
+     * Load the last saved session
+     *
+     * @return Saved session, or null if there is none or it cannot be read
+     */
+    SessionSnapshot load();
+
+    /**
+     * Replace the saved session
+     */
+    void save(SessionSnapshot snapshot);
+}
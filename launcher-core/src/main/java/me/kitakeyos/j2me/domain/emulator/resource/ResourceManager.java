@@ -0,0 +1,357 @@
+package me.kitakeyos.j2me.domain.emulator.resource;
+
+import me.kitakeyos.j2me.infrastructure.thread.XThread;
+
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Manages resources (threads and sockets) for an emulator instance.
+ * This is a Domain concept - each EmulatorInstance owns its resources.
+ * Provides thread-safe operations for adding and cleaning up resources.
+ * <p>
+ * The registry only holds live resources: XThreads whose body goes through
+ * XThread.run() remove themselves when it returns and MonitoredSockets when
+ * they are closed. A sweep every {@link #PRUNE_INTERVAL} additions drops
+ * the rest, notably MIDlet Thread subclasses whose run() overrides
+ * XThread's without calling it. Long-running
+ * instances that spawn a thread or socket per request therefore stay at
+ * their working-set size instead of growing for the whole session. Live
+ * counts, high-water marks and totals are kept for diagnostics and logged
+ * at most once per {@link #LOG_INTERVAL_MS}.
+ */
+public class ResourceManager {
+    private static final Logger logger = Logger.getLogger(ResourceManager.class.getName());
+
+    /**
+     * Minimum interval between two INFO summaries per instance.
+     */
+    private static final long LOG_INTERVAL_MS = 30_000;
+
+    /**
+     * Sweep terminated threads and closed sockets every this many additions.
+     */
+    private static final int PRUNE_INTERVAL = 64;
+
+    private final int instanceId;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    // Emulator threads that are not XThreads (event dispatcher, audio, ...),
+    // attributed to the instance for accounting only: cleanup leaves them
+    // to the emulator's own shutdown path
+    private final Set<Thread> attributedThreads = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger peakThreads = new AtomicInteger();
+    private final AtomicInteger peakSockets = new AtomicInteger();
+    private final AtomicLong totalThreads = new AtomicLong();
+    private final AtomicLong totalSockets = new AtomicLong();
+    private final AtomicInteger additionsSincePrune = new AtomicInteger();
+    private final AtomicLong lastLogTime = new AtomicLong();
+
+    public ResourceManager(int instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * Add a thread to be managed by this instance
+     */
+    public void addThread(Thread thread) {
+        if (threads.add(thread)) {
+            totalThreads.incrementAndGet();
+            updatePeak(peakThreads, threads.size());
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Added thread to instance " + instanceId + ": " + thread.getName());
+        }
+        onAddition();
+    }
+
+    /**
+     * Attribute a non-XThread emulator thread to this instance so its CPU time
+     * is accounted. The thread is not interrupted or joined on cleanup.
+     */
+    public void addAttributedThread(Thread thread) {
+        if (!threads.contains(thread) && attributedThreads.add(thread)) {
+            onAddition();
+        }
+    }
+
+    /**
+     * Remove a thread from be managed by this instance
+     */
+    public void removeThread(Thread thread) {
+        if (threads.remove(thread) && logger.isLoggable(Level.FINE)) {
+            logger.fine("Removed thread from instance " + instanceId + ": " + thread.getName());
+        }
+    }
+
+    /**
+     * Add a socket to be managed by this instance
+     */
+    public void addSocket(Socket socket) {
+        if (sockets.add(socket)) {
+            totalSockets.incrementAndGet();
+            updatePeak(peakSockets, sockets.size());
+        }
+        logger.fine("Added socket to instance " + instanceId);
+        onAddition();
+    }
+
+    /**
+     * Remove a socket from be managed by this instance (called on close)
+     */
+    public void removeSocket(Socket socket) {
+        if (sockets.remove(socket)) {
+            logger.fine("Removed socket from instance " + instanceId);
+        }
+    }
+
+    private static void updatePeak(AtomicInteger peak, int current) {
+        int previous;
+        while (current > (previous = peak.get())) {
+            if (peak.compareAndSet(previous, current)) {
+                return;
+            }
+        }
+    }
+
+    private void onAddition() {
+        if (additionsSincePrune.incrementAndGet() >= PRUNE_INTERVAL) {
+            additionsSincePrune.set(0);
+            prune();
+        }
+
+        long now = System.currentTimeMillis();
+        long last = lastLogTime.get();
+        if (now - last >= LOG_INTERVAL_MS && lastLogTime.compareAndSet(last, now)) {
+            logger.info(getStatistics());
+        }
+    }
+
+    /**
+     * Drop terminated threads and closed sockets that were not removed by
+     * their own hooks. This is how finished MIDlet Thread subclasses leave:
+     * their run() overrides XThread's without calling it.
+     * Threads that were created but not yet started are kept.
+     *
+     * @return Number of entries removed
+     */
+    public int prune() {
+        int removed = 0;
+        for (Thread thread : threads) {
+            if (XThread.executionThreadOf(thread).getState() == Thread.State.TERMINATED && threads.remove(thread)) {
+                removed++;
+            }
+        }
+        for (Thread thread : attributedThreads) {
+            if (thread.getState() == Thread.State.TERMINATED && attributedThreads.remove(thread)) {
+                removed++;
+            }
+        }
+        for (Socket socket : sockets) {
+            if (socket.isClosed() && sockets.remove(socket)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.fine("Pruned " + removed + " stale resources from instance " + instanceId);
+        }
+        return removed;
+    }
+
+    /**
+     * Get all managed threads
+     */
+    public List<Thread> getThreads() {
+        return new ArrayList<>(threads);
+    }
+
+    /**
+     * Get every thread whose CPU time counts towards this instance: managed
+     * threads plus attributed emulator threads
+     */
+    public List<Thread> getAccountedThreads() {
+        List<Thread> all = new ArrayList<>(threads);
+        all.addAll(attributedThreads);
+        return all;
+    }
+
+    /**
+     * Get all managed sockets
+     */
+    public List<Socket> getSockets() {
+        return new ArrayList<>(sockets);
+    }
+
+    /**
+     * Wait for managed threads to terminate on their own, without interrupting
+     * them. Returns as soon as every thread has finished or the timeout
+     * elapses, whichever comes first.
+     *
+     * @param timeoutMs Maximum total time to wait
+     * @return true if no managed thread is still alive
+     */
+    public boolean awaitThreadTermination(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (Thread managed : getThreads()) {
+            Thread thread = XThread.executionThreadOf(managed);
+            if (thread == Thread.currentThread()) {
+                continue;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                thread.join(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Total deadline for all threads to finish gracefully, regardless of thread count.
+     * After this deadline, remaining threads are abandoned and reported.
+     */
+    private static final long THREAD_CLEANUP_DEADLINE_MS = 1000;
+
+    /**
+     * Clean up all threads - interrupt first, then join with shared deadline.
+     * Sockets are closed BEFORE interrupting threads so that threads blocked on I/O get unblocked.
+     * Total wait time is bounded by THREAD_CLEANUP_DEADLINE_MS regardless of thread count.
+     * <p>
+     * Threads are never force-stopped: MIDlet code is expected to have been
+     * cancelled beforehand, so it throws at its next injected checkpoint
+     * (loop back-edge or blocking call) and unwinds on its own.
+     *
+     * @return true if no managed or attributed thread is still alive
+     */
+    public boolean cleanupThreads() {
+        logger.info("Cleaning up " + threads.size() + " threads for instance " + instanceId);
+
+        List<Thread> aliveThreads = new ArrayList<>();
+
+        // Phase 1: Interrupt all threads, on the virtual thread running the
+        // body where there is one
+        for (Thread managed : threads) {
+            Thread thread = XThread.executionThreadOf(managed);
+            if (thread.isAlive() && thread != Thread.currentThread()) {
+                thread.interrupt();
+                aliveThreads.add(thread);
+            }
+        }
+
+        // Phase 2: Wait with a shared deadline (not per-thread timeout)
+        long deadline = System.currentTimeMillis() + THREAD_CLEANUP_DEADLINE_MS;
+        for (Thread thread : aliveThreads) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                thread.join(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Phase 3: Report threads that did not reach a checkpoint in time
+        boolean terminated = true;
+        for (Thread thread : aliveThreads) {
+            if (thread.isAlive()) {
+                terminated = false;
+                logger.warning("Thread did not terminate within " + THREAD_CLEANUP_DEADLINE_MS
+                        + " ms, abandoning: " + thread.getName() + " (" + thread.getState() + ")");
+            }
+        }
+        for (Thread thread : attributedThreads) {
+            if (thread.isAlive() && thread != Thread.currentThread()) {
+                terminated = false;
+                logger.fine("Emulator thread still alive: " + thread.getName() + " (" + thread.getState() + ")");
+            }
+        }
+
+        threads.clear();
+        attributedThreads.clear();
+        return terminated;
+    }
+
+    /**
+     * Clean up all sockets - close and clear
+     */
+    public void cleanupSockets() {
+        logger.info("Cleaning up " + sockets.size() + " sockets for instance " + instanceId);
+
+        for (Socket socket : sockets) {
+            if (!socket.isClosed()) {
+                try {
+                    socket.close();
+                } catch (Exception e) {
+                    logger.warning("Error closing socket: " + e.getMessage());
+                }
+            }
+        }
+        sockets.clear();
+    }
+
+    /**
+     * Clean up all resources.
+     * Sockets are closed FIRST to unblock threads waiting on I/O,
+     * then threads are interrupted and joined.
+     *
+     * @return true if no thread of the instance is still alive
+     */
+    public boolean cleanupAll() {
+        cleanupSockets();
+        boolean terminated = cleanupThreads();
+        logger.info("All resources cleaned up for instance " + instanceId);
+        return terminated;
+    }
+
+    /**
+     * Get resource statistics
+     */
+    public String getStatistics() {
+        return String.format("Instance #%d Resources: %d threads (peak %d, total %d), %d sockets (peak %d, total %d)",
+                instanceId, threads.size(), peakThreads.get(), totalThreads.get(),
+                sockets.size(), peakSockets.get(), totalSockets.get());
+    }
+
+    public int getLiveThreadCount() {
+        return threads.size();
+    }
+
+    public int getLiveSocketCount() {
+        return sockets.size();
+    }
+
+    public int getPeakThreadCount() {
+        return peakThreads.get();
+    }
+
+    public int getPeakSocketCount() {
+        return peakSockets.get();
+    }
+
+    public long getTotalThreadCount() {
+        return totalThreads.get();
+    }
+
+    public long getTotalSocketCount() {
+        return totalSockets.get();
+    }
+}
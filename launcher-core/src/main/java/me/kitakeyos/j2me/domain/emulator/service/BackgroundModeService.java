@@ -0,0 +1,262 @@
+package me.kitakeyos.j2me.domain.emulator.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.Visibility;
+import me.kitakeyos.j2me.domain.graphics.service.PaintBudgetService;
+import me.kitakeyos.j2me.domain.speed.service.SpeedService;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuMonitor;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuUsage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Applies per-instance policies driven by visibility and focus.
+ * <p>
+ * A hidden instance (scrolled off-screen, on another tab, or with the
+ * launcher minimized) drops to {@link Thread#MIN_PRIORITY} and runs no
+ * faster than the background speed multiplier. A visible instance runs at normal priority and
+ * speed, and the focused one gets one priority step above normal. Policies
+ * are undone as soon as the instance is shown again. Paint rates follow
+ * visibility too, through {@link PaintBudgetService}, whether or not the
+ * background policy is enabled.
+ * <p>
+ * Transitions are counted, and the CPU saved is estimated per background
+ * period as {@code (cpu before hiding - cpu while hidden) * time hidden},
+ * using {@link InstanceCpuMonitor} window averages.
+ */
+public class BackgroundModeService {
+
+    private static final Logger logger = Logger.getLogger(BackgroundModeService.class.getName());
+    private static final BackgroundModeService INSTANCE = new BackgroundModeService();
+
+    private static final int FOCUSED_PRIORITY = Thread.NORM_PRIORITY + 1;
+    private static final int BACKGROUND_PRIORITY = Thread.MIN_PRIORITY;
+
+    private final Map<Integer, Stats> stats = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private volatile double backgroundSpeed = 0.5;
+    private long totalTransitions;
+    private long totalSavedCpuMs;
+
+    private BackgroundModeService() {
+    }
+
+    public static BackgroundModeService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enable or disable the background policy. Visibility is still tracked
+     * while disabled; disabling restores every hidden instance.
+     */
+    public void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (InstanceManager.getActive() == null) {
+            return;
+        }
+        for (EmulatorInstance instance : InstanceManager.getActive().getRunningInstances()) {
+            if (instance.getVisibility() == Visibility.HIDDEN) {
+                if (enabled) {
+                    enterBackground(instance);
+                } else {
+                    leaveBackground(instance);
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the speed multiplier hidden instances run at. Applies to instances
+     * already in background mode.
+     */
+    public void setBackgroundSpeed(double backgroundSpeed) {
+        if (backgroundSpeed <= 0) {
+            throw new IllegalArgumentException("Background speed must be positive");
+        }
+        this.backgroundSpeed = backgroundSpeed;
+        for (Integer instanceId : stats.keySet()) {
+            if (isInBackground(instanceId)) {
+                SpeedService.getInstance().setBackgroundMultiplier(instanceId, backgroundSpeed);
+            }
+        }
+    }
+
+    public double getBackgroundSpeed() {
+        return backgroundSpeed;
+    }
+
+    /**
+     * Check if the background policy is currently applied to an instance.
+     */
+    public boolean isInBackground(int instanceId) {
+        Stats s = stats.get(instanceId);
+        return s != null && s.backgroundSince > 0;
+    }
+
+    /**
+     * Record a new visibility for an instance and apply the matching policy.
+     * Called on the EDT by the instances panel.
+     */
+    public void applyVisibility(EmulatorInstance instance, Visibility visibility) {
+        Visibility previous = instance.getVisibility();
+        if (previous == visibility) {
+            return;
+        }
+        instance.setVisibility(visibility);
+        logger.fine("Instance #" + instance.getInstanceId() + " " + previous + " -> " + visibility);
+        PaintBudgetService.getInstance().onVisibilityChanged(instance);
+
+        if (!enabled || instance.getState() != EmulatorInstance.InstanceState.RUNNING) {
+            return;
+        }
+        if (visibility == Visibility.HIDDEN) {
+            enterBackground(instance);
+        } else if (previous == Visibility.HIDDEN) {
+            leaveBackground(instance);
+        } else {
+            applyPriority(instance, getThreadPriority(instance));
+        }
+    }
+
+    /**
+     * Priority for threads of an instance, used for threads created while a
+     * policy is in effect.
+     */
+    public int getThreadPriority(EmulatorInstance instance) {
+        if (!enabled) {
+            return Thread.NORM_PRIORITY;
+        }
+        switch (instance.getVisibility()) {
+            case FOCUSED:
+                return FOCUSED_PRIORITY;
+            case HIDDEN:
+                return BACKGROUND_PRIORITY;
+            default:
+                return Thread.NORM_PRIORITY;
+        }
+    }
+
+    /**
+     * Forget per-instance state (on shutdown).
+     */
+    public void removeInstance(int instanceId) {
+        Stats s = stats.remove(instanceId);
+        if (s != null) {
+            synchronized (this) {
+                totalSavedCpuMs += s.savedCpuMs;
+                if (s.backgroundSince > 0) {
+                    totalSavedCpuMs += s.closePeriod(instanceId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of instances currently in background mode
+     */
+    public int getHiddenCount() {
+        int hidden = 0;
+        for (Stats s : stats.values()) {
+            if (s.backgroundSince > 0) {
+                hidden++;
+            }
+        }
+        return hidden;
+    }
+
+    /**
+     * @return Background transitions (in and out) since startup
+     */
+    public synchronized long getTransitionCount() {
+        return totalTransitions;
+    }
+
+    /**
+     * @return Estimated CPU milliseconds saved so far, including instances
+     *         that have already stopped
+     */
+    public synchronized long getEstimatedSavedCpuMs() {
+        long saved = totalSavedCpuMs;
+        for (Map.Entry<Integer, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            saved += s.savedCpuMs;
+            if (s.backgroundSince > 0) {
+                saved += s.estimateOpenPeriod(entry.getKey());
+            }
+        }
+        return saved;
+    }
+
+    private void enterBackground(EmulatorInstance instance) {
+        int instanceId = instance.getInstanceId();
+        Stats s = stats.computeIfAbsent(instanceId, id -> new Stats());
+        synchronized (this) {
+            if (s.backgroundSince > 0) {
+                return;
+            }
+            InstanceCpuUsage usage = InstanceCpuMonitor.getInstance().getUsage(instanceId);
+            s.foregroundCpuPercent = usage != null ? usage.getWindowPercent() : 0;
+            s.backgroundSince = System.currentTimeMillis();
+            totalTransitions++;
+        }
+        SpeedService.getInstance().setBackgroundMultiplier(instanceId, backgroundSpeed);
+        applyPriority(instance, BACKGROUND_PRIORITY);
+    }
+
+    private void leaveBackground(EmulatorInstance instance) {
+        int instanceId = instance.getInstanceId();
+        Stats s = stats.get(instanceId);
+        synchronized (this) {
+            if (s == null || s.backgroundSince == 0) {
+                return;
+            }
+            s.savedCpuMs += s.closePeriod(instanceId);
+            totalTransitions++;
+        }
+        SpeedService.getInstance().clearBackgroundMultiplier(instanceId);
+        applyPriority(instance, enabled ? getThreadPriority(instance) : Thread.NORM_PRIORITY);
+    }
+
+    private void applyPriority(EmulatorInstance instance, int priority) {
+        for (Thread thread : instance.getResourceManager().getAccountedThreads()) {
+            try {
+                if (thread.isAlive() && thread.getPriority() != priority) {
+                    thread.setPriority(priority);
+                }
+            } catch (SecurityException e) {
+                logger.fine("Cannot change priority of " + thread.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Background bookkeeping of one instance. Guarded by the service monitor.
+     */
+    private static class Stats {
+        private long backgroundSince; // 0 when in foreground
+        private double foregroundCpuPercent;
+        private long savedCpuMs;
+
+        long estimateOpenPeriod(int instanceId) {
+            InstanceCpuUsage usage = InstanceCpuMonitor.getInstance().getUsage(instanceId);
+            double backgroundCpuPercent = usage != null ? usage.getWindowPercent() : foregroundCpuPercent;
+            long elapsed = System.currentTimeMillis() - backgroundSince;
+            return (long) (Math.max(0, foregroundCpuPercent - backgroundCpuPercent) / 100.0 * elapsed);
+        }
+
+        long closePeriod(int instanceId) {
+            long saved = estimateOpenPeriod(instanceId);
+            backgroundSince = 0;
+            return saved;
+        }
+    }
+}
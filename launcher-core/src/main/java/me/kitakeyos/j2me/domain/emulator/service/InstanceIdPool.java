@@ -40,6 +40,26 @@ public class InstanceIdPool {
         }
     }
 
+    /**
+     * Take a specific ID out of the pool, e.g. to restore an instance under
+     * its previous ID. IDs skipped over become available for reuse.
+     * @param id The ID to reserve
+     * @return true if the ID was free and is now reserved
+     */
+    public synchronized boolean reserveId(int id) {
+        if (id <= 0) {
+            return false;
+        }
+        if (id >= nextNewId) {
+            for (int skipped = nextNewId; skipped < id; skipped++) {
+                availableIds.offer(skipped);
+            }
+            nextNewId = id + 1;
+            return true;
+        }
+        return availableIds.remove(id);
+    }
+
     /**
      * Reset the pool to initial state
      * Clears all available IDs and resets the counter
@@ -0,0 +1,357 @@
+package me.kitakeyos.j2me.domain.emulator.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.resource.ResourceManager;
+import me.kitakeyos.j2me.domain.graphics.service.GraphicsOptimizationService;
+import me.kitakeyos.j2me.domain.graphics.service.PaintBudgetService;
+import me.kitakeyos.j2me.domain.media.service.MediaService;
+import me.kitakeyos.j2me.domain.network.service.NetworkService;
+import me.kitakeyos.j2me.domain.speed.service.SpeedService;
+import me.kitakeyos.j2me.infrastructure.bytecode.SpeedHelperControl;
+import me.kitakeyos.j2me.infrastructure.classloader.EmulatorClassLoader;
+import me.kitakeyos.j2me.infrastructure.console.ConsoleDrainer;
+import me.kitakeyos.j2me.infrastructure.console.InstanceConsole;
+
+import java.awt.Container;
+import java.awt.event.ActionListener;
+import java.util.logging.Logger;
+
+/**
+ * Manages the lifecycle of emulator instances.
+ * Handles shutdown, cleanup and resource disposal.
+ * All cleanup steps use try-finally to ensure every step runs even if earlier steps fail.
+ */
+public class InstanceLifecycleManager {
+    private static final Logger logger = Logger.getLogger(InstanceLifecycleManager.class.getName());
+
+    /**
+     * Upper bound for MIDlet threads to wind down after the exit listener
+     * fired. The wait ends early as soon as they have terminated.
+     */
+    private static final long EXIT_GRACE_MS = 100;
+
+    private static volatile boolean softRestartEnabled = true;
+
+    /**
+     * Whether {@link #restart} keeps the instance's classloader and only
+     * resets its static state, instead of building a new one.
+     */
+    public static void setSoftRestartEnabled(boolean enabled) {
+        softRestartEnabled = enabled;
+    }
+
+    public static boolean isSoftRestartEnabled() {
+        return softRestartEnabled;
+    }
+
+    /**
+     * Shutdown an instance and release all its resources.
+     * This method is idempotent - calling it multiple times on the same instance is safe.
+     * Uses try-finally chain to guarantee all cleanup steps execute.
+     * Blocks the calling thread; use {@link InstanceShutdownCoordinator} to stop
+     * instances in the background.
+     *
+     * @param instance The instance to shutdown
+     */
+    public static void shutdown(EmulatorInstance instance) {
+        shutdown(instance, true, false);
+    }
+
+    /**
+     * Restart an instance under the same ID, so it keeps its RMS directory and
+     * its place in the UI. The instance is shut down like {@link #shutdown}
+     * except that its ID stays reserved, then a replacement with the same
+     * configuration is registered. Blocks the calling thread.
+     * <p>
+     * With soft restart enabled, the replacement gets the instance's
+     * classloader back with the static state of its classes reset to what
+     * their static initializers left, which skips defining and instrumenting
+     * the emulator again. The classloader is discarded as usual if a thread
+     * of the instance survived the shutdown or a field cannot be reset.
+     *
+     * @param instance The instance to restart
+     * @return The replacement, registered and not started yet, or null if the
+     *         instance was already stopped (e.g. by the user meanwhile)
+     */
+    public static EmulatorInstance restart(EmulatorInstance instance) {
+        if (!shutdown(instance, false, softRestartEnabled)) {
+            return null;
+        }
+        EmulatorClassLoader recycled = recycleClassLoader(instance);
+        EmulatorInstance replacement = new EmulatorInstance(instance.getInstanceId(),
+                instance.getMicroemulatorPath(), instance.getJ2meFilePath(),
+                instance.getDisplayWidth(), instance.getDisplayHeight(), instance.isFullDisplayMode(),
+                instance.isHeadless());
+        replacement.setRecycledClassLoader(recycled);
+        // Same ID, same console: the recycled emulator still writes to it
+        replacement.setConsole(instance.takeConsole());
+        InstanceManager.getActive().addInstance(replacement);
+        logger.info("Instance #" + instance.getInstanceId() + " re-created for "
+                + (recycled != null ? "soft restart" : "restart"));
+        return replacement;
+    }
+
+    /**
+     * Take the classloader a shutdown kept and reset its static state.
+     *
+     * @return The classloader, or null if none was kept or it could not be
+     *         reset
+     */
+    private static EmulatorClassLoader recycleClassLoader(EmulatorInstance instance) {
+        EmulatorClassLoader emulatorClassLoader = instance.getEmulatorClassLoader();
+        instance.setEmulatorClassLoader(null);
+        if (emulatorClassLoader == null) {
+            return null;
+        }
+        if (emulatorClassLoader.getStaticState().restore()) {
+            return emulatorClassLoader;
+        }
+        logger.warning("Static state of instance #" + instance.getInstanceId()
+                + " could not be fully reset, restarting cold");
+        closeClassLoader(instance.getInstanceId(), emulatorClassLoader);
+        return null;
+    }
+
+    /**
+     * @param releaseId       false to keep the instance ID reserved for a
+     *                        restart
+     * @param keepClassLoader Leave the classloader open on the instance if
+     *                        all its threads have ended
+     * @return false if the instance was already stopped
+     */
+    private static boolean shutdown(EmulatorInstance instance, boolean releaseId, boolean keepClassLoader) {
+        // Claim the shutdown atomically so a concurrent stop and restart
+        // cannot both run it
+        synchronized (instance) {
+            if (instance.getState() == EmulatorInstance.InstanceState.STOPPED) {
+                logger.fine("Instance #" + instance.getInstanceId() + " already stopped, skipping shutdown");
+                return false;
+            }
+            // Set state to stopped first to prevent concurrent shutdowns
+            instance.setState(EmulatorInstance.InstanceState.STOPPED);
+        }
+
+        logger.info("Shutting down instance #" + instance.getInstanceId() + " and releasing resources...");
+
+        try {
+            // 1. Restore graphics delegate BEFORE classloader is closed
+            cleanupGraphics(instance);
+        } finally {
+            try {
+                // 2. Clean up speed settings and wake suspended threads so they can exit
+                BackgroundModeService.getInstance().removeInstance(instance.getInstanceId());
+                SpeedService.getInstance().removeInstance(instance.getInstanceId());
+                InstanceSuspendService.getInstance().removeInstance(instance);
+            } finally {
+                try {
+                    // 3. Trigger emulator exit so MIDlet can cleanly shut down
+                    triggerEmulatorExit(instance);
+
+                    // Give emulator time to clean up its internal state
+                    awaitThreadTermination(instance);
+                } finally {
+                    try {
+                        // 4. Force-stop any remaining threads, close sockets and the
+                        // virtual players destroyApp left open
+                        MediaService.getInstance().closePlayers(instance.getInstanceId());
+                        cleanupResources(instance, keepClassLoader);
+                    } finally {
+                        try {
+                            // 5. Clean up network data for this instance, and its console
+                            // media policy and paint rate unless a replacement takes them over
+                            cleanupNetwork(instance);
+                            if (releaseId) {
+                                closeConsole(instance);
+                                MediaService.getInstance().removeInstance(instance.getInstanceId());
+                                PaintBudgetService.getInstance().removeInstance(instance.getInstanceId());
+                            }
+                        } finally {
+                            try {
+                                // 6. Remove from instance manager (so XThreads created during exit are still tracked)
+                                InstanceManager.getActive().removeInstance(instance, releaseId);
+                            } finally {
+                                try {
+                                    // 7. Clean up UI components
+                                    cleanupUIComponents(instance);
+                                } finally {
+                                    // 8. Clear bytecode cache if no more instances are running
+                                    evictCacheIfEmpty();
+
+                                    logger.info("Instance #" + instance.getInstanceId() + " shutdown completed");
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until the instance's threads have exited after the exit listener,
+     * bounded by EXIT_GRACE_MS.
+     */
+    private static void awaitThreadTermination(EmulatorInstance instance) {
+        ResourceManager resourceManager = instance.getResourceManager();
+        if (resourceManager != null && !resourceManager.awaitThreadTermination(EXIT_GRACE_MS)) {
+            logger.fine("Instance #" + instance.getInstanceId() + " still has live threads after exit");
+        }
+    }
+
+    /**
+     * Clean up all resources (threads, sockets, and classloader) managed by the instance.
+     *
+     * @param keepClassLoader Leave the classloader open and set on the
+     *                        instance, unless a thread survived
+     */
+    private static void cleanupResources(EmulatorInstance instance, boolean keepClassLoader) {
+        // Make MIDlet threads throw at their next checkpoint; must happen after
+        // the exit listener ran, since destroyApp executes MIDlet code too
+        if (SpeedHelperControl.cancel(instance.getAppClassLoader())) {
+            logger.fine("Cancellation requested for instance #" + instance.getInstanceId());
+        }
+
+        boolean terminated = false;
+        try {
+            ResourceManager resourceManager = instance.getResourceManager();
+            if (resourceManager != null) {
+                terminated = resourceManager.cleanupAll();
+            }
+        } catch (Exception e) {
+            logger.warning("Error cleaning up managed resources: " + e.getMessage());
+        }
+
+        // Nullify classloader references to allow GC
+        instance.setAppClassLoader(null);
+        if (keepClassLoader && terminated) {
+            logger.fine("Keeping EmulatorClassLoader of instance #" + instance.getInstanceId() + " for restart");
+        } else {
+            // Close EmulatorClassLoader to release JAR handles and loaded classes
+            closeClassLoader(instance.getInstanceId(), instance.getEmulatorClassLoader());
+            instance.setEmulatorClassLoader(null);
+        }
+        // A replacement stopped before it was started still holds one
+        closeClassLoader(instance.getInstanceId(), instance.takeRecycledClassLoader());
+
+        try {
+            // Cleanup transformed JAR file
+            java.nio.file.Path transformedJar = instance.getTransformedJarPath();
+            if (transformedJar != null) {
+                me.kitakeyos.j2me.infrastructure.bytecode.JarTransformer.cleanupTransformedJar(transformedJar);
+                instance.setTransformedJarPath(null);
+            }
+        } catch (Exception e) {
+            logger.warning("Error cleaning up transformed JAR: " + e.getMessage());
+        }
+    }
+
+    private static void closeClassLoader(int instanceId, EmulatorClassLoader emulatorClassLoader) {
+        if (emulatorClassLoader == null) {
+            return;
+        }
+        try {
+            emulatorClassLoader.close();
+            logger.info("Closed EmulatorClassLoader for instance #" + instanceId);
+        } catch (Exception e) {
+            logger.warning("Error closing EmulatorClassLoader: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restore original DisplayAccess by removing graphics delegate.
+     * Must be called BEFORE classloader is closed.
+     */
+    private static void cleanupGraphics(EmulatorInstance instance) {
+        try {
+            GraphicsOptimizationService.getInstance().removeInstance(instance);
+        } catch (Exception e) {
+            logger.warning("Error cleaning up graphics for instance #" + instance.getInstanceId()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove network logs and data pools for this instance.
+     */
+    private static void cleanupNetwork(EmulatorInstance instance) {
+        try {
+            NetworkService.getInstance().removeInstanceData(instance.getInstanceId());
+        } catch (Exception e) {
+            logger.warning("Error cleaning up network data for instance #" + instance.getInstanceId()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write out the console's remaining lines and stop draining it.
+     */
+    private static void closeConsole(EmulatorInstance instance) {
+        InstanceConsole console = instance.takeConsole();
+        if (console != null) {
+            ConsoleDrainer.getInstance().unregister(console);
+        }
+    }
+
+    /**
+     * Clear shared bytecode cache when no instances are running.
+     */
+    private static void evictCacheIfEmpty() {
+        try {
+            InstanceManager manager = InstanceManager.getActive();
+            if (manager.getRunningInstances().isEmpty()) {
+                EmulatorClassLoader.clearSharedCache();
+            }
+        } catch (Exception e) {
+            logger.warning("Error evicting bytecode cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Trigger the emulator's exit listener if available.
+     */
+    private static void triggerEmulatorExit(EmulatorInstance instance) {
+        ActionListener exitListener = instance.getMenuExitListener();
+        if (exitListener != null) {
+            try {
+                exitListener.actionPerformed(null);
+                logger.fine("Emulator exit listener triggered for instance #" + instance.getInstanceId());
+            } catch (Exception e) {
+                logger.warning("Error during menu exit: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Clean up UI components and their references.
+     */
+    private static void cleanupUIComponents(EmulatorInstance instance) {
+        Container emulatorDisplay = instance.getEmulatorDisplay();
+        if (emulatorDisplay != null) {
+            try {
+                emulatorDisplay.removeAll();
+                logger.fine("UI components cleaned for instance #" + instance.getInstanceId());
+            } catch (Exception e) {
+                logger.warning("Error cleaning display panel: " + e.getMessage());
+            }
+        }
+
+        // Clear UI references
+        instance.setEmulatorDisplay(null);
+        instance.setHeadlessDisplay(null);
+    }
+
+    /**
+     * Force shutdown an instance even if it's already stopped.
+     * Use this for cleanup operations that must run regardless of state.
+     */
+    public static void forceShutdown(EmulatorInstance instance) {
+        logger.info("Force shutdown instance #" + instance.getInstanceId());
+        instance.setState(EmulatorInstance.InstanceState.STOPPED);
+        cleanupGraphics(instance);
+        cleanupResources(instance, false);
+        cleanupNetwork(instance);
+        cleanupUIComponents(instance);
+        evictCacheIfEmpty();
+    }
+}
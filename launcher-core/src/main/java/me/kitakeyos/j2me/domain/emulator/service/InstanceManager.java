@@ -0,0 +1,332 @@
+package me.kitakeyos.j2me.domain.emulator.service;
+
+import me.kitakeyos.j2me.domain.emulator.input.InputSynchronizer;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.InstanceState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Manages emulator instances with ID pool for efficient ID reuse.
+ * Now uses InputSynchronizer interface (Dependency Inversion Principle).
+ * <p>
+ * Instances are indexed by ID in a concurrent map, so {@link #findInstance}
+ * is a lock-free O(1) lookup from any thread (XThread constructors, socket
+ * creation, speed updates). The instance list and the running-instance list
+ * are immutable snapshots republished only when an instance is added,
+ * removed or changes state; readers never copy or lock.
+ * <p>
+ * Runtime services (threads, sockets, monitors) reach the registry through
+ * {@link #getActive()}, which works the same with or without the Swing UI.
+ * The host decides where listener and completion callbacks run: the Swing UI
+ * passes an executor that runs them on the EDT, headless hosts run them on
+ * the thread that caused them.
+ */
+public class InstanceManager {
+    private static volatile InstanceManager active;
+
+    private final Map<Integer, EmulatorInstance> instancesById = new ConcurrentHashMap<>();
+    // Insertion order, guarded by registryLock; only used to rebuild snapshots
+    private final List<EmulatorInstance> instanceOrder = new ArrayList<>();
+    private final Object registryLock = new Object();
+    private volatile List<EmulatorInstance> instancesSnapshot = Collections.emptyList();
+    private volatile List<EmulatorInstance> runningSnapshot = Collections.emptyList();
+    private final Runnable stateChangeListener = this::republishSnapshots;
+    private final Executor callbackExecutor;
+    private final InstanceIdPool idPool;
+    private InputSynchronizer inputSynchronizer;
+    private final List<Runnable> instanceChangeListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<EmulatorInstance>> exitListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param callbackExecutor Runs listener and completion callbacks
+     */
+    public InstanceManager(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.idPool = new InstanceIdPool();
+    }
+
+    /**
+     * Create a manager that runs callbacks on the calling thread, for
+     * headless use.
+     */
+    public InstanceManager() {
+        this(Runnable::run);
+    }
+
+    /**
+     * @return The manager runtime services act on, or null before one is set
+     */
+    public static InstanceManager getActive() {
+        return active;
+    }
+
+    /**
+     * Make a manager the one runtime services act on.
+     */
+    public static void setActive(InstanceManager manager) {
+        active = manager;
+    }
+
+    /**
+     * Run a callback through the active manager's callback executor, or right
+     * away if there is no active manager.
+     */
+    public static void runCallback(Runnable callback) {
+        InstanceManager manager = active;
+        if (manager != null) {
+            manager.callbackExecutor.execute(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    /**
+     * Set the input synchronizer (dependency injection)
+     */
+    public void setInputSynchronizer(InputSynchronizer inputSynchronizer) {
+        this.inputSynchronizer = inputSynchronizer;
+    }
+
+    public void addInstance(EmulatorInstance instance) {
+        synchronized (registryLock) {
+            EmulatorInstance previous = instancesById.put(instance.getInstanceId(), instance);
+            if (previous != null) {
+                previous.setStateChangeListener(null);
+                instanceOrder.remove(previous);
+            }
+            instanceOrder.add(instance);
+            instance.setStateChangeListener(stateChangeListener);
+            republishSnapshots();
+        }
+        fireInstanceChanged();
+    }
+
+    public void removeInstance(EmulatorInstance instance) {
+        removeInstance(instance, true);
+    }
+
+    /**
+     * Unregister an instance.
+     *
+     * @param releaseId false to keep the ID reserved, for an instance that is
+     *                  about to be replaced under the same ID
+     */
+    public void removeInstance(EmulatorInstance instance, boolean releaseId) {
+        synchronized (registryLock) {
+            // Only unregister the exact instance: a restarted instance may
+            // already own the same ID
+            if (!instancesById.remove(instance.getInstanceId(), instance)) {
+                return;
+            }
+            instance.setStateChangeListener(null);
+            instanceOrder.remove(instance);
+            republishSnapshots();
+        }
+        if (releaseId) {
+            idPool.releaseId(instance.getInstanceId());
+        }
+        fireInstanceChanged();
+    }
+
+    public void clearAllInstances() {
+        for (EmulatorInstance instance : instancesSnapshot) {
+            if (instance.getState() == InstanceState.RUNNING) {
+                instance.shutdown();
+            }
+            idPool.releaseId(instance.getInstanceId());
+        }
+        synchronized (registryLock) {
+            for (EmulatorInstance instance : instanceOrder) {
+                instance.setStateChangeListener(null);
+            }
+            instancesById.clear();
+            instanceOrder.clear();
+            republishSnapshots();
+        }
+        fireInstanceChanged();
+    }
+
+    public void addInstanceChangeListener(Runnable listener) {
+        instanceChangeListeners.add(listener);
+    }
+
+    /**
+     * Listen for instances whose MIDlet exits the VM, e.g. to remove their
+     * view before they are shut down.
+     */
+    public void addExitListener(Consumer<EmulatorInstance> listener) {
+        exitListeners.add(listener);
+    }
+
+    /**
+     * Called when the MIDlet of an instance calls {@code System.exit}: the
+     * exit listeners run on the callback executor, then the instance is shut
+     * down in the background.
+     */
+    public void instanceExited(EmulatorInstance instance) {
+        callbackExecutor.execute(() -> {
+            for (Consumer<EmulatorInstance> listener : exitListeners) {
+                listener.accept(instance);
+            }
+            InstanceShutdownCoordinator.getInstance().shutdown(instance, null);
+        });
+    }
+
+    private void fireInstanceChanged() {
+        callbackExecutor.execute(() -> {
+            for (Runnable listener : instanceChangeListeners) {
+                listener.run();
+            }
+        });
+    }
+
+    /**
+     * Rebuild the cached snapshots. Called on registry changes and, through
+     * the state change listener, on every instance state transition.
+     */
+    private void republishSnapshots() {
+        synchronized (registryLock) {
+            List<EmulatorInstance> all = new ArrayList<>(instanceOrder);
+            List<EmulatorInstance> running = new ArrayList<>();
+            for (EmulatorInstance instance : all) {
+                if (instance.getState() == InstanceState.RUNNING) {
+                    running.add(instance);
+                }
+            }
+            instancesSnapshot = Collections.unmodifiableList(all);
+            runningSnapshot = Collections.unmodifiableList(running);
+        }
+    }
+
+    /**
+     * @return Immutable snapshot of all instances, in insertion order
+     */
+    public List<EmulatorInstance> getInstances() {
+        return instancesSnapshot;
+    }
+
+    /**
+     * @return Immutable snapshot of running instances, in insertion order.
+     *         Cached; no allocation per call
+     */
+    public List<EmulatorInstance> getRunningInstances() {
+        return runningSnapshot;
+    }
+
+    public List<EmulatorInstance> getRunnableInstances() {
+        List<EmulatorInstance> runnable = new ArrayList<>();
+        for (EmulatorInstance instance : instancesSnapshot) {
+            if (instance.canRun()) {
+                runnable.add(instance);
+            }
+        }
+        return runnable;
+    }
+
+    public EmulatorInstance findInstance(int instanceId) {
+        return instancesById.get(instanceId);
+    }
+
+    public int getInstanceCount() {
+        return instancesById.size();
+    }
+
+    public int getNextInstanceId() {
+        return idPool.acquireId();
+    }
+
+    /**
+     * Return an ID that was acquired but never bound to an instance
+     * (e.g. a discarded warm shell).
+     */
+    public void releaseInstanceId(int instanceId) {
+        idPool.releaseId(instanceId);
+    }
+
+    /**
+     * Reserve a specific ID for an instance restored under its previous ID.
+     *
+     * @return false if the ID is already taken
+     */
+    public boolean reserveInstanceId(int instanceId) {
+        return idPool.reserveId(instanceId);
+    }
+
+    public void resetInstanceIdCounter() {
+        idPool.reset();
+    }
+
+    public String getIdPoolStatistics() {
+        return idPool.getStatistics();
+    }
+
+    public InputSynchronizer getInputSynchronizer() {
+        return inputSynchronizer;
+    }
+
+    public void setInputSynchronizationEnabled(boolean enabled) {
+        if (inputSynchronizer != null) {
+            inputSynchronizer.setEnabled(enabled);
+        }
+    }
+
+    public boolean isInputSynchronizationEnabled() {
+        return inputSynchronizer != null && inputSynchronizer.isEnabled();
+    }
+
+    public void setInputScaleBySize(boolean scaleBySize) {
+        if (inputSynchronizer != null) {
+            inputSynchronizer.setScaleBySize(scaleBySize);
+        }
+    }
+
+    public boolean isInputScaleBySize() {
+        return inputSynchronizer != null && inputSynchronizer.isScaleBySize();
+    }
+
+    public void setSyncedInstanceIds(java.util.Set<Integer> instanceIds) {
+        if (inputSynchronizer != null) {
+            inputSynchronizer.setSyncedInstanceIds(instanceIds);
+        }
+    }
+
+    public java.util.Set<Integer> getSyncedInstanceIds() {
+        if (inputSynchronizer != null) {
+            return inputSynchronizer.getSyncedInstanceIds();
+        }
+        return java.util.Collections.emptySet();
+    }
+
+    public void notifyInstanceStarted(EmulatorInstance instance) {
+        if (inputSynchronizer != null && inputSynchronizer.isEnabled()) {
+            inputSynchronizer.attachListenersToInstance(instance);
+        }
+        fireInstanceChanged();
+    }
+
+    public void notifyInstanceStopping(EmulatorInstance instance) {
+        if (inputSynchronizer != null && inputSynchronizer.isEnabled()) {
+            inputSynchronizer.detachListenersFromInstance(instance);
+        }
+        fireInstanceChanged();
+    }
+
+    /**
+     * Enable or disable graphics rendering for all running instances.
+     */
+    public void setGlobalGraphicsEnabled(boolean enabled) {
+        me.kitakeyos.j2me.domain.graphics.service.GraphicsOptimizationService service = me.kitakeyos.j2me.domain.graphics.service.GraphicsOptimizationService
+                .getInstance();
+        for (EmulatorInstance instance : getRunningInstances()) {
+            service.setGraphicsEnabled(instance, enabled);
+        }
+    }
+}
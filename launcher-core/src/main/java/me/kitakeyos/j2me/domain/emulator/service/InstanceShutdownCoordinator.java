@@ -0,0 +1,128 @@
+package me.kitakeyos.j2me.domain.emulator.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs instance shutdowns on a bounded worker pool.
+ * <p>
+ * Instances stopped together form a batch. Each shutdown returns as soon as
+ * its threads have actually terminated. Memory is reclaimed by a single GC
+ * pass a short while after a batch finishes, shared by every batch that
+ * finishes meanwhile, so stopping a large farm or a run of single instances
+ * neither spawns a thread per instance nor serializes on GC.
+ */
+public class InstanceShutdownCoordinator {
+
+    private static final Logger logger = Logger.getLogger(InstanceShutdownCoordinator.class.getName());
+    private static final InstanceShutdownCoordinator INSTANCE = new InstanceShutdownCoordinator();
+
+    // Batches finishing within this window share one GC pass
+    private static final long GC_DELAY_MS = 2000;
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService gcScheduler;
+    private final AtomicBoolean gcPending = new AtomicBoolean();
+
+    private InstanceShutdownCoordinator() {
+        int workers = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "instance-shutdown-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.gcScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-shutdown-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static InstanceShutdownCoordinator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Shutdown a single instance in the background.
+     *
+     * @param instance   The instance to shutdown
+     * @param onComplete Callback run through {@link InstanceManager#runCallback}
+     *                   once the instance is down, may be null
+     */
+    public void shutdown(EmulatorInstance instance, Runnable onComplete) {
+        shutdownAll(Collections.singletonList(instance), onComplete);
+    }
+
+    /**
+     * Shutdown a batch of instances in the background.
+     *
+     * @param instances  Instances to shutdown
+     * @param onComplete Callback run through {@link InstanceManager#runCallback}
+     *                   once every instance of the batch is down, may be null
+     */
+    public void shutdownAll(Collection<EmulatorInstance> instances, Runnable onComplete) {
+        List<EmulatorInstance> batch = new ArrayList<>(instances);
+        if (batch.isEmpty()) {
+            if (onComplete != null) {
+                InstanceManager.runCallback(onComplete);
+            }
+            return;
+        }
+
+        long batchStart = System.currentTimeMillis();
+        AtomicInteger remaining = new AtomicInteger(batch.size());
+        for (EmulatorInstance instance : batch) {
+            executor.execute(() -> {
+                try {
+                    instance.shutdown();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Error shutting down instance #" + instance.getInstanceId(), e);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        completeBatch(batch.size(), batchStart, onComplete);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs once per batch, on the worker that finished last.
+     */
+    private void completeBatch(int size, long batchStart, Runnable onComplete) {
+        scheduleGc();
+
+        logger.info(String.format("Shutdown batch of %d instance(s) completed in %d ms",
+                size, System.currentTimeMillis() - batchStart));
+
+        if (onComplete != null) {
+            InstanceManager.runCallback(onComplete);
+        }
+    }
+
+    /**
+     * Reclaim the classloaders of stopped instances, once for every batch
+     * that finishes before the pass runs.
+     */
+    private void scheduleGc() {
+        if (gcPending.compareAndSet(false, true)) {
+            gcScheduler.schedule(() -> {
+                gcPending.set(false);
+                System.gc();
+            }, GC_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
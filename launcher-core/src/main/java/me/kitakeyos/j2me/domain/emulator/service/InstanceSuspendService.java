@@ -0,0 +1,160 @@
+package me.kitakeyos.j2me.domain.emulator.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.graphics.service.GraphicsOptimizationService;
+import me.kitakeyos.j2me.infrastructure.bytecode.SpeedHelperControl;
+import me.kitakeyos.j2me.infrastructure.thread.XThread;
+
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Suspends (hibernates) and resumes emulator instances.
+ * <p>
+ * A suspended instance keeps its classloader, MIDlet state and open sockets,
+ * but uses no CPU: MIDlet threads park at the checkpoints injected into the
+ * MIDlet JAR (loop back-edges, sleeps and blocking calls), the MIDlet timer
+ * and event dispatcher threads park at the safe points injected into their
+ * run loops, and paint and input are dropped at the DisplayAccess delegate.
+ */
+public class InstanceSuspendService {
+
+    private static final Logger logger = Logger.getLogger(InstanceSuspendService.class.getName());
+    private static final InstanceSuspendService INSTANCE = new InstanceSuspendService();
+
+    // instanceId -> monitor that parked safe-point threads wait on. Presence
+    // in the map means the instance is suspended.
+    private final Map<Integer, Object> suspendLocks = new ConcurrentHashMap<>();
+
+    private InstanceSuspendService() {
+    }
+
+    public static InstanceSuspendService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Suspend a running instance.
+     *
+     * @param instance  The instance to suspend
+     * @param keepAlive Enable TCP keep-alive on the instance's sockets so idle
+     *                  connections survive the pause
+     * @return true if the instance was suspended by this call
+     */
+    public boolean suspend(EmulatorInstance instance, boolean keepAlive) {
+        if (instance.getState() != EmulatorInstance.InstanceState.RUNNING) {
+            return false;
+        }
+        int instanceId = instance.getInstanceId();
+        if (suspendLocks.putIfAbsent(instanceId, new Object()) != null) {
+            return false;
+        }
+
+        GraphicsOptimizationService.getInstance().setSuspended(instance, true);
+        propagateToThreads(instance, true);
+
+        if (keepAlive) {
+            for (Socket socket : instance.getResourceManager().getSockets()) {
+                try {
+                    if (!socket.isClosed()) {
+                        socket.setKeepAlive(true);
+                    }
+                } catch (Exception e) {
+                    logger.fine("Could not enable keep-alive on socket of instance #" + instanceId + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+
+        logger.info("Instance #" + instanceId + " suspended");
+        return true;
+    }
+
+    /**
+     * Resume a suspended instance.
+     *
+     * @param instance The instance to resume
+     * @return true if the instance was resumed by this call
+     */
+    public boolean resume(EmulatorInstance instance) {
+        if (!release(instance.getInstanceId())) {
+            return false;
+        }
+        propagateToThreads(instance, false);
+        GraphicsOptimizationService.getInstance().setSuspended(instance, false);
+
+        logger.info("Instance #" + instance.getInstanceId() + " resumed");
+        return true;
+    }
+
+    /**
+     * Check if an instance is suspended.
+     */
+    public boolean isSuspended(int instanceId) {
+        return suspendLocks.containsKey(instanceId);
+    }
+
+    /**
+     * Safe point for launcher-side emulator threads: blocks while the
+     * instance is suspended. Returns immediately when the thread is
+     * interrupted so shutdown can proceed.
+     *
+     * @param instanceId Instance ID
+     */
+    public void awaitResume(int instanceId) {
+        Object lock = suspendLocks.get(instanceId);
+        if (lock == null) {
+            return;
+        }
+        synchronized (lock) {
+            while (suspendLocks.get(instanceId) == lock) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Release suspension state for an instance (on shutdown) so parked
+     * threads can run their exit path. Paint and input are not restored.
+     *
+     * @param instance The instance being shut down
+     */
+    public void removeInstance(EmulatorInstance instance) {
+        if (release(instance.getInstanceId())) {
+            propagateToThreads(instance, false);
+        }
+    }
+
+    private boolean release(int instanceId) {
+        Object lock = suspendLocks.remove(instanceId);
+        if (lock == null) {
+            return false;
+        }
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Flip the instance's SpeedHelper control flag. On resume, parked threads
+     * are also unparked so they continue immediately instead of on their
+     * next poll.
+     */
+    private void propagateToThreads(EmulatorInstance instance, boolean suspended) {
+        SpeedHelperControl.setSuspended(instance.getAppClassLoader(), suspended);
+        if (!suspended) {
+            for (Thread t : instance.getResourceManager().getThreads()) {
+                LockSupport.unpark(XThread.executionThreadOf(t));
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package me.kitakeyos.j2me.domain.emulator.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.infrastructure.bytecode.PaintThrottleClassVisitor;
+import me.kitakeyos.j2me.infrastructure.headless.HeadlessDisplay;
+import me.kitakeyos.j2me.infrastructure.network.MonitoredSocket;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Detects hung instances and restarts them.
+ * <p>
+ * Every {@link #CHECK_INTERVAL_MS} each running instance is checked for:
+ * <ul>
+ * <li>Deadlock: one of its threads is reported by
+ * {@link ThreadMXBean#findDeadlockedThreads()} on two consecutive checks.</li>
+ * <li>Blocked: every one of its threads is {@code BLOCKED} or {@code WAITING},
+ * at least one of them {@code BLOCKED} on a monitor, with no progress signal
+ * for {@link #BLOCKED_STRIKES} consecutive checks. This catches lock hangs
+ * that are not a cycle, such as a thread waiting forever for a notify while
+ * holding the lock the others need, well before the stall timeout. A MIDlet
+ * idling on a menu only has {@code WAITING} threads and is not affected.</li>
+ * <li>Stall: no progress signal for the stall timeout. Progress is the paint
+ * heartbeat ({@code SwingDisplayComponent.__lastRepaintRequest}, stamped on
+ * every repaint request even when the paint is dropped) or traffic on any of
+ * its sockets. A MIDlet blocked forever on a socket read shows neither.</li>
+ * </ul>
+ * Suspended instances are skipped. A MIDlet that legitimately shows a static
+ * screen without network traffic for longer than the timeout looks stalled,
+ * which is why the watchdog is opt-in and the timeout configurable.
+ * <p>
+ * Hung instances are handed to the {@link RecoveryHandler}, which restarts
+ * them through {@link InstanceLifecycleManager#restart} under the same ID.
+ * After each restart the instance is left alone for an exponentially growing
+ * backoff, and at most {@code maxRestartsPerHour} restarts are made per ID;
+ * once the budget is spent the instance is reported and left as is.
+ */
+public class InstanceWatchdog {
+
+    private static final Logger logger = Logger.getLogger(InstanceWatchdog.class.getName());
+    private static final InstanceWatchdog INSTANCE = new InstanceWatchdog();
+
+    public static final long CHECK_INTERVAL_MS = 10_000;
+
+    private static final long BASE_BACKOFF_MS = 30_000;
+    private static final long MAX_BACKOFF_MS = 15 * 60_000;
+    private static final long BUDGET_WINDOW_MS = 60 * 60_000;
+    // Consecutive checks with every thread blocked before acting
+    private static final int BLOCKED_STRIKES = 3;
+    private static final String DISPLAY_CLASS = PaintThrottleClassVisitor.TARGET_CLASS.replace('/', '.');
+
+    /**
+     * Why an instance was considered hung.
+     */
+    public enum Reason {
+        DEADLOCK, BLOCKED, STALLED
+    }
+
+    /**
+     * Performs recovery. Called on the watchdog thread.
+     */
+    public interface RecoveryHandler {
+        /**
+         * Restart a hung instance.
+         *
+         * @param attempt Restart number within the budget window, from 1
+         */
+        void restart(EmulatorInstance instance, Reason reason, int attempt);
+
+        /**
+         * The instance is hung but its restart budget is spent.
+         */
+        void givenUp(EmulatorInstance instance, Reason reason);
+    }
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Map<Integer, Health> health = new ConcurrentHashMap<>();
+    private volatile RecoveryHandler recoveryHandler;
+    private volatile boolean enabled;
+    private volatile long stallTimeoutMs = 180_000;
+    private volatile int maxRestartsPerHour = 5;
+    private volatile long totalRestarts;
+    private ScheduledExecutorService scheduler;
+
+    private InstanceWatchdog() {
+    }
+
+    public static InstanceWatchdog getInstance() {
+        return INSTANCE;
+    }
+
+    public void setRecoveryHandler(RecoveryHandler recoveryHandler) {
+        this.recoveryHandler = recoveryHandler;
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "instance-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    check();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Watchdog check failed", e);
+                }
+            }, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            logger.info(String.format("Instance watchdog enabled: stall timeout %d s, %d restart(s)/hour",
+                    stallTimeoutMs / 1000, maxRestartsPerHour));
+        } else {
+            scheduler.shutdownNow();
+            scheduler = null;
+            health.clear();
+            logger.info("Instance watchdog disabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setStallTimeoutSeconds(int seconds) {
+        this.stallTimeoutMs = Math.max(30, seconds) * 1000L;
+    }
+
+    public int getStallTimeoutSeconds() {
+        return (int) (stallTimeoutMs / 1000);
+    }
+
+    public void setMaxRestartsPerHour(int maxRestartsPerHour) {
+        this.maxRestartsPerHour = Math.max(0, maxRestartsPerHour);
+    }
+
+    public int getMaxRestartsPerHour() {
+        return maxRestartsPerHour;
+    }
+
+    /**
+     * @return Restarts made since startup
+     */
+    public long getTotalRestarts() {
+        return totalRestarts;
+    }
+
+    private void check() {
+        InstanceManager manager = InstanceManager.getActive();
+        if (manager == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<Long> deadlocked = findDeadlockedThreadIds();
+        Set<Integer> present = new HashSet<>();
+
+        for (EmulatorInstance instance : manager.getInstances()) {
+            int instanceId = instance.getInstanceId();
+            present.add(instanceId);
+            if (instance.getState() != EmulatorInstance.InstanceState.RUNNING) {
+                continue;
+            }
+            Health h = health.computeIfAbsent(instanceId, id -> new Health());
+            if (h.instance != instance) {
+                // First look at this instance, or at its replacement after a restart
+                h.instance = instance;
+                h.firstSeenMs = now;
+                h.heartbeatField = null;
+                h.deadlockStrikes = 0;
+                h.blockedStrikes = 0;
+                h.restartPending = false;
+                h.givenUp = false;
+            }
+            if (instance.isSuspended() || h.givenUp || now < h.notBeforeMs) {
+                continue;
+            }
+
+            Reason reason = null;
+            if (hasDeadlockedThread(instance, deadlocked)) {
+                // Confirm on the next check before acting
+                if (++h.deadlockStrikes >= 2) {
+                    reason = Reason.DEADLOCK;
+                }
+            } else {
+                h.deadlockStrikes = 0;
+                long lastProgress = Math.max(h.firstSeenMs,
+                        Math.max(readHeartbeat(instance, h), lastSocketActivity(instance)));
+                // Any progress since the previous check clears the strikes
+                if (lastProgress > h.lastProgressMs || !allThreadsBlocked(instance)) {
+                    h.blockedStrikes = 0;
+                } else if (++h.blockedStrikes >= BLOCKED_STRIKES) {
+                    reason = Reason.BLOCKED;
+                }
+                h.lastProgressMs = lastProgress;
+                if (reason == null && now - lastProgress > stallTimeoutMs) {
+                    reason = Reason.STALLED;
+                }
+            }
+            if (reason != null) {
+                recover(instance, h, reason, now);
+            }
+        }
+
+        // Forget IDs that are gone, except those being restarted
+        health.entrySet().removeIf(e -> !present.contains(e.getKey()) && !e.getValue().restartPending);
+    }
+
+    private void recover(EmulatorInstance instance, Health h, Reason reason, long now) {
+        int instanceId = instance.getInstanceId();
+        while (!h.restarts.isEmpty() && now - h.restarts.peekFirst() > BUDGET_WINDOW_MS) {
+            h.restarts.pollFirst();
+        }
+        RecoveryHandler handler = recoveryHandler;
+        if (h.restarts.size() >= maxRestartsPerHour || handler == null) {
+            h.givenUp = true;
+            logger.warning("Instance #" + instanceId + " is hung (" + reason + "), restart budget spent");
+            if (handler != null) {
+                handler.givenUp(instance, reason);
+            }
+            return;
+        }
+
+        h.restarts.addLast(now);
+        int attempt = h.restarts.size();
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 16));
+        // The replacement gets the backoff plus the normal stall timeout from first sight
+        h.notBeforeMs = now + backoff;
+        h.restartPending = true;
+        totalRestarts++;
+        logger.warning(String.format("Instance #%d is hung (%s), restarting (attempt %d, backoff %d s)",
+                instanceId, reason, attempt, backoff / 1000));
+        try {
+            handler.restart(instance, reason, attempt);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Restart of instance #" + instanceId + " failed", e);
+        }
+    }
+
+    private Set<Long> findDeadlockedThreadIds() {
+        Set<Long> ids = new HashSet<>();
+        long[] deadlocked = threadBean.findDeadlockedThreads();
+        if (deadlocked != null) {
+            for (long id : deadlocked) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static boolean hasDeadlockedThread(EmulatorInstance instance, Set<Long> deadlocked) {
+        if (deadlocked.isEmpty()) {
+            return false;
+        }
+        for (Thread thread : instance.getResourceManager().getAccountedThreads()) {
+            if (deadlocked.contains(thread.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the instance has live threads, all of them parked
+     *         without a timeout and at least one blocked on a monitor
+     */
+    private static boolean allThreadsBlocked(EmulatorInstance instance) {
+        boolean anyBlocked = false;
+        boolean anyLive = false;
+        for (Thread thread : instance.getResourceManager().getAccountedThreads()) {
+            Thread.State state = thread.getState();
+            if (state == Thread.State.NEW || state == Thread.State.TERMINATED) {
+                continue;
+            }
+            anyLive = true;
+            if (state == Thread.State.BLOCKED) {
+                anyBlocked = true;
+            } else if (state != Thread.State.WAITING) {
+                return false;
+            }
+        }
+        return anyLive && anyBlocked;
+    }
+
+    /**
+     * Read the instance's paint heartbeat. MicroEmulator classes are defined
+     * by each instance's own classloader, so the static field is per instance.
+     * Headless instances do not use the Swing display and report their last
+     * painted frame instead.
+     *
+     * @return Time of the last repaint request, 0 if none or unreadable
+     */
+    private static long readHeartbeat(EmulatorInstance instance, Health h) {
+        HeadlessDisplay headlessDisplay = instance.getHeadlessDisplay();
+        if (headlessDisplay != null) {
+            return headlessDisplay.getLastFrameMs();
+        }
+        try {
+            Field field = h.heartbeatField;
+            if (field == null) {
+                ClassLoader loader = instance.getEmulatorClassLoader();
+                if (loader == null) {
+                    return 0;
+                }
+                field = Class.forName(DISPLAY_CLASS, false, loader)
+                        .getField(PaintThrottleClassVisitor.HEARTBEAT_FIELD);
+                h.heartbeatField = field;
+            }
+            return field.getLong(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return 0;
+        }
+    }
+
+    private static long lastSocketActivity(EmulatorInstance instance) {
+        long last = 0;
+        for (Socket socket : instance.getResourceManager().getSockets()) {
+            if (socket instanceof MonitoredSocket) {
+                last = Math.max(last, ((MonitoredSocket) socket).getLastActivityMs());
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Watchdog state of one instance ID. Only touched by the watchdog thread.
+     */
+    private static class Health {
+        private EmulatorInstance instance;
+        private long firstSeenMs;
+        private long notBeforeMs;
+        private int deadlockStrikes;
+        private int blockedStrikes;
+        private long lastProgressMs;
+        private boolean restartPending;
+        private boolean givenUp;
+        private Field heartbeatField;
+        private final Deque<Long> restarts = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,291 @@
+package me.kitakeyos.j2me.domain.emulator.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.InstanceState;
+import me.kitakeyos.j2me.domain.emulator.model.SessionSnapshot;
+import me.kitakeyos.j2me.domain.emulator.repository.SessionRepository;
+import me.kitakeyos.j2me.domain.network.model.ProxyRule;
+import me.kitakeyos.j2me.domain.network.model.RedirectionRule;
+import me.kitakeyos.j2me.domain.network.service.NetworkService;
+import me.kitakeyos.j2me.domain.speed.service.CpuGovernor;
+import me.kitakeyos.j2me.infrastructure.bytecode.SystemCallHandler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a snapshot of the instance farm on disk and prepares it for restore.
+ * <p>
+ * The snapshot is rewritten shortly after every instance change and every
+ * {@link #AUTOSAVE_INTERVAL_MS}, which also picks up speed, graphics and
+ * priority changes that do not fire instance events. A crash or host reboot
+ * therefore loses at most one interval of changes.
+ * <p>
+ * Restore keeps each instance's ID, so its RMS directory
+ * ({@code data/rms/<id>}) and the network rules bound to it apply again.
+ * Entries that are still waiting to be launched stay in the snapshot, so a
+ * crash during a restore does not shrink the saved farm.
+ */
+public class SessionService {
+
+    private static final Logger logger = Logger.getLogger(SessionService.class.getName());
+
+    public static final long AUTOSAVE_INTERVAL_MS = 30_000;
+    // Delay that coalesces bursts of instance events into one write
+    private static final long SAVE_DELAY_MS = 1000;
+
+    private final SessionRepository repository;
+    private final Map<Integer, SessionSnapshot.Entry> pendingRestore = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private volatile boolean autosaveEnabled = true;
+    private ScheduledExecutorService scheduler;
+
+    public SessionService(SessionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Start periodic autosave. Does nothing if already started.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::autosave, AUTOSAVE_INTERVAL_MS, AUTOSAVE_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public void setAutosaveEnabled(boolean autosaveEnabled) {
+        this.autosaveEnabled = autosaveEnabled;
+    }
+
+    public boolean isAutosaveEnabled() {
+        return autosaveEnabled;
+    }
+
+    /**
+     * Schedule a save shortly, coalescing with any save already scheduled.
+     * Called on instance changes.
+     */
+    public void requestSave() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = scheduler;
+        }
+        if (executor == null || !autosaveEnabled || !saveScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.schedule(() -> {
+            saveScheduled.set(false);
+            autosave();
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void autosave() {
+        if (!autosaveEnabled) {
+            return;
+        }
+        try {
+            save();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Session autosave failed", e);
+        }
+    }
+
+    /**
+     * Write the current farm to the repository.
+     */
+    public synchronized void save() {
+        SessionSnapshot snapshot = capture();
+        if (snapshot != null) {
+            repository.save(snapshot);
+            logger.fine("Session saved: " + snapshot.getEntries().size() + " instance(s)");
+        }
+    }
+
+    /**
+     * @return The last saved session, or null if there is none
+     */
+    public SessionSnapshot load() {
+        return repository.load();
+    }
+
+    /**
+     * Snapshot every instance that is created, starting or running, plus
+     * restored entries not launched yet.
+     *
+     * @return Snapshot, or null if no instance manager exists yet
+     */
+    public SessionSnapshot capture() {
+        InstanceManager manager = InstanceManager.getActive();
+        if (manager == null) {
+            return null;
+        }
+        Set<Integer> synced = manager.getSyncedInstanceIds();
+        List<RedirectionRule> redirectionRules = NetworkService.getInstance().getRedirectionRules();
+        List<ProxyRule> proxyRules = NetworkService.getInstance().getProxyRules();
+
+        Map<Integer, SessionSnapshot.Entry> entries = new TreeMap<>(pendingRestore);
+        for (EmulatorInstance instance : manager.getInstances()) {
+            if (instance.getState() == InstanceState.STOPPED) {
+                continue;
+            }
+            int instanceId = instance.getInstanceId();
+            List<RedirectionRule> boundRedirections = new ArrayList<>();
+            for (RedirectionRule rule : redirectionRules) {
+                if (rule.getInstanceId() == instanceId) {
+                    boundRedirections.add(rule);
+                }
+            }
+            List<ProxyRule> boundProxies = new ArrayList<>();
+            for (ProxyRule rule : proxyRules) {
+                if (rule.getInstanceId() == instanceId) {
+                    boundProxies.add(rule);
+                }
+            }
+            entries.put(instanceId, new SessionSnapshot.Entry(
+                    instanceId,
+                    instance.getMicroemulatorPath(),
+                    instance.getJ2meFilePath(),
+                    instance.getDisplayWidth(),
+                    instance.getDisplayHeight(),
+                    instance.isFullDisplayMode(),
+                    instance.getSpeedMultiplier(),
+                    instance.isGraphicsEnabled(),
+                    synced.contains(instanceId),
+                    CpuGovernor.getInstance().getPriorityWeight(instanceId),
+                    SystemCallHandler.initMEHomePath(instanceId).getPath(),
+                    boundRedirections,
+                    boundProxies));
+        }
+        return new SessionSnapshot(System.currentTimeMillis(), manager.isInputSynchronizationEnabled(),
+                new ArrayList<>(entries.values()));
+    }
+
+    /**
+     * Prepare the entries of a snapshot for launch: reserve their instance
+     * IDs, bring back their network rules and per-instance settings. Entries
+     * whose ID is taken or whose emulator / application file is gone are
+     * skipped. Warm shells must be released beforehand, since they hold IDs.
+     *
+     * @return Entries to launch, in ascending ID order
+     */
+    public List<SessionSnapshot.Entry> prepareRestore(SessionSnapshot snapshot) {
+        InstanceManager manager = InstanceManager.getActive();
+        List<SessionSnapshot.Entry> restorable = new ArrayList<>();
+        if (manager == null || snapshot == null) {
+            return restorable;
+        }
+        for (SessionSnapshot.Entry entry : snapshot.getEntries()) {
+            int instanceId = entry.getInstanceId();
+            if (!new File(entry.getMicroemulatorPath()).isFile() || !new File(entry.getJ2meFilePath()).isFile()) {
+                logger.warning("Not restoring instance #" + instanceId + ": emulator or application file missing");
+                continue;
+            }
+            if (!manager.reserveInstanceId(instanceId)) {
+                logger.warning("Not restoring instance #" + instanceId + ": ID already in use");
+                continue;
+            }
+            restoreNetworkRules(entry);
+            CpuGovernor.getInstance().setPriorityWeight(instanceId, entry.getPriorityWeight());
+            pendingRestore.put(instanceId, entry);
+            restorable.add(entry);
+        }
+
+        // Sync membership is by ID, so it can be applied before the instances start
+        Set<Integer> synced = new java.util.HashSet<>(manager.getSyncedInstanceIds());
+        for (SessionSnapshot.Entry entry : restorable) {
+            if (entry.isInputSynced()) {
+                synced.add(entry.getInstanceId());
+            }
+        }
+        manager.setSyncedInstanceIds(synced);
+        if (snapshot.isInputSyncEnabled() && !synced.isEmpty()) {
+            manager.setInputSynchronizationEnabled(true);
+        }
+        logger.info(String.format("Restoring %d of %d instance(s) from session saved at %tF %<tT",
+                restorable.size(), snapshot.getEntries().size(), snapshot.getSavedAt()));
+        return restorable;
+    }
+
+    /**
+     * A prepared entry has been registered as an instance.
+     */
+    public void restoreLaunched(int instanceId) {
+        pendingRestore.remove(instanceId);
+    }
+
+    /**
+     * Drop prepared entries that will not be launched and return their IDs.
+     */
+    public void cancelRestore() {
+        InstanceManager manager = InstanceManager.getActive();
+        for (Integer instanceId : pendingRestore.keySet()) {
+            if (pendingRestore.remove(instanceId) != null && manager != null) {
+                manager.releaseInstanceId(instanceId);
+            }
+        }
+    }
+
+    /**
+     * Re-add rules bound to the entry's ID that are no longer configured.
+     */
+    private static void restoreNetworkRules(SessionSnapshot.Entry entry) {
+        NetworkService networkService = NetworkService.getInstance();
+        for (RedirectionRule rule : entry.getRedirectionRules()) {
+            boolean present = false;
+            for (RedirectionRule existing : networkService.getRedirectionRules()) {
+                if (existing.getInstanceId() == rule.getInstanceId()
+                        && existing.getOriginalPort() == rule.getOriginalPort()
+                        && existing.getTargetPort() == rule.getTargetPort()
+                        && Objects.equals(existing.getOriginalHost(), rule.getOriginalHost())
+                        && Objects.equals(existing.getTargetHost(), rule.getTargetHost())) {
+                    present = true;
+                    break;
+                }
+            }
+            if (!present) {
+                networkService.addRedirectionRule(rule);
+            }
+        }
+        for (ProxyRule rule : entry.getProxyRules()) {
+            boolean present = false;
+            for (ProxyRule existing : networkService.getProxyRules()) {
+                if (existing.getInstanceId() == rule.getInstanceId()
+                        && existing.getProxyType() == rule.getProxyType()
+                        && existing.getProxyPort() == rule.getProxyPort()
+                        && Objects.equals(existing.getProxyHost(), rule.getProxyHost())) {
+                    present = true;
+                    break;
+                }
+            }
+            if (!present) {
+                networkService.addProxyRule(rule);
+            }
+        }
+    }
+}
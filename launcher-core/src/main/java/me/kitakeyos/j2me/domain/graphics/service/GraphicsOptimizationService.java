@@ -0,0 +1,238 @@
+package me.kitakeyos.j2me.domain.graphics.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.infrastructure.bytecode.DisplayAccessDelegateGenerator;
+import me.kitakeyos.j2me.infrastructure.classloader.EmulatorClassLoader;
+import me.kitakeyos.j2me.util.reflection.ReflectionHelper;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Service to manage graphics optimization (Stop Painting feature).
+ * Wraps the MIDlet's org.microemu.DisplayAccess in a delegate generated by
+ * {@link DisplayAccessDelegateGenerator}, whose paint and input methods
+ * check a volatile flag before forwarding.
+ */
+public class GraphicsOptimizationService {
+
+    private static final Logger logger = Logger.getLogger(GraphicsOptimizationService.class.getName());
+    private static GraphicsOptimizationService instance;
+
+    private static final String DISPLAY_ACCESS_CLASS = "org.microemu.DisplayAccess";
+
+    // instanceId -> toggle of the delegate installed for it
+    private final Map<Integer, GraphicsToggle> toggles = new ConcurrentHashMap<>();
+
+    public static synchronized GraphicsOptimizationService getInstance() {
+        if (instance == null) {
+            instance = new GraphicsOptimizationService();
+        }
+        return instance;
+    }
+
+    /**
+     * Toggle graphics rendering for the given instance.
+     *
+     * @param emulatorInstance The emulator instance
+     * @param enabled          True to enable painting, false to stop it
+     */
+    public void setGraphicsEnabled(EmulatorInstance emulatorInstance, boolean enabled) {
+        emulatorInstance.setGraphicsEnabled(enabled);
+
+        try {
+            GraphicsToggle handler = findOrInstallToggle(emulatorInstance);
+            if (handler == null) {
+                return;
+            }
+            handler.setEnabled(enabled);
+            logger.info("Graphics for instance #" + emulatorInstance.getInstanceId() + " set to " + enabled);
+
+            // If enabling, force a repaint to restore the screen
+            if (enabled) {
+                handler.repaint();
+            }
+        } catch (Exception e) {
+            logger.severe("Failed to toggle graphics for instance #" + emulatorInstance.getInstanceId() + ": "
+                    + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Block or unblock paint and input for a suspended instance. Independent
+     * of the graphics toggle: resuming restores whatever the user had chosen.
+     *
+     * @param emulatorInstance The emulator instance
+     * @param suspended        True to drop paint and input, false to restore
+     */
+    public void setSuspended(EmulatorInstance emulatorInstance, boolean suspended) {
+        try {
+            GraphicsToggle handler = findOrInstallToggle(emulatorInstance);
+            if (handler == null) {
+                return;
+            }
+            handler.setSuspended(suspended);
+            if (!suspended && emulatorInstance.isGraphicsEnabled()) {
+                handler.repaint();
+            }
+        } catch (Exception e) {
+            logger.warning("Failed to update suspend state for instance #" + emulatorInstance.getInstanceId()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Return the toggle of the delegate in front of the instance's
+     * DisplayAccess, wrapping the current DisplayAccess first if needed.
+     *
+     * @return The toggle, or null if the MIDlet has no DisplayAccess yet
+     */
+    private GraphicsToggle findOrInstallToggle(EmulatorInstance emulatorInstance) throws Exception {
+        EmulatorClassLoader cl = emulatorInstance.getEmulatorClassLoader();
+        if (cl == null) {
+            return null;
+        }
+
+        Object midletAccess = getMIDletAccess(cl);
+        if (midletAccess == null) {
+            logger.warning("Could not get MIDletAccess for instance #" + emulatorInstance.getInstanceId());
+            return null;
+        }
+
+        // Get current DisplayAccess
+        // DisplayAccess currentDisplayAccess = access.getDisplayAccess();
+        Object currentDisplayAccess = ReflectionHelper.invokeMethod(midletAccess, "getDisplayAccess");
+        if (currentDisplayAccess == null) {
+            return null;
+        }
+
+        // Check if we already wrapped it with our delegate
+        GraphicsToggle toggle = toggles.get(emulatorInstance.getInstanceId());
+        if (toggle != null && toggle.getDelegate() == currentDisplayAccess) {
+            return toggle;
+        }
+        if (isDelegate(currentDisplayAccess)) {
+            // Installed before the toggle was dropped, e.g. by a restart on this classloader
+            toggle = new GraphicsToggle(currentDisplayAccess, emulatorInstance.isGraphicsEnabled());
+            toggles.put(emulatorInstance.getInstanceId(), toggle);
+            return toggle;
+        }
+
+        // If not wrapped yet, wrap it!
+        Class<?> displayAccessInterface = ReflectionHelper.loadClass(cl, DISPLAY_ACCESS_CLASS);
+        Class<?> delegateClass = cl.defineGeneratedClass(DisplayAccessDelegateGenerator.BINARY_NAME,
+                () -> DisplayAccessDelegateGenerator.generateClass(displayAccessInterface));
+        Object delegate = delegateClass.getConstructor(displayAccessInterface).newInstance(currentDisplayAccess);
+        toggle = new GraphicsToggle(delegate, emulatorInstance.isGraphicsEnabled());
+
+        // Set new DisplayAccess
+        // access.setDisplayAccess(delegate);
+        ReflectionHelper.invokeMethod(midletAccess, "setDisplayAccess",
+                new Class<?>[] { displayAccessInterface }, delegate);
+        toggles.put(emulatorInstance.getInstanceId(), toggle);
+
+        logger.info("Installed graphics delegate for instance #" + emulatorInstance.getInstanceId());
+        return toggle;
+    }
+
+    /**
+     * Remove the graphics delegate for an instance, restoring the original
+     * DisplayAccess. Called during instance shutdown to prevent reference
+     * leaks.
+     */
+    public void removeInstance(EmulatorInstance emulatorInstance) {
+        toggles.remove(emulatorInstance.getInstanceId());
+        try {
+            ClassLoader cl = emulatorInstance.getEmulatorClassLoader();
+            if (cl == null) {
+                return;
+            }
+
+            Object midletAccess = getMIDletAccess(cl);
+            if (midletAccess == null) {
+                return;
+            }
+
+            Object currentDisplayAccess = ReflectionHelper.invokeMethod(midletAccess, "getDisplayAccess");
+
+            // If wrapped with our delegate, restore the original
+            if (currentDisplayAccess != null && isDelegate(currentDisplayAccess)) {
+                Object original = ReflectionHelper.getFieldValue(currentDisplayAccess,
+                        DisplayAccessDelegateGenerator.TARGET_FIELD);
+                Class<?> displayAccessInterface = ReflectionHelper.loadClass(cl, DISPLAY_ACCESS_CLASS);
+                ReflectionHelper.invokeMethod(midletAccess, "setDisplayAccess",
+                        new Class<?>[] { displayAccessInterface }, original);
+                logger.info("Restored original DisplayAccess for instance #" + emulatorInstance.getInstanceId());
+            }
+        } catch (Exception e) {
+            logger.warning("Error removing graphics delegate for instance #" + emulatorInstance.getInstanceId()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * MIDletAccess access = MIDletBridge.getMIDletAccess();
+     */
+    private static Object getMIDletAccess(ClassLoader cl) throws Exception {
+        Class<?> bridgeClass = ReflectionHelper.loadClass(cl, "org.microemu.MIDletBridge");
+        return ReflectionHelper.invokeStaticMethod(bridgeClass, "getMIDletAccess", new Class<?>[0]);
+    }
+
+    private static boolean isDelegate(Object displayAccess) {
+        return DisplayAccessDelegateGenerator.BINARY_NAME.equals(displayAccess.getClass().getName());
+    }
+
+    /**
+     * Graphics and suspend state of one delegate. Paint runs only while
+     * graphics are enabled and the instance is not suspended; input only
+     * while it is not suspended. Each is written to the delegate as one
+     * flag, so its methods read a single volatile field.
+     */
+    private static class GraphicsToggle {
+        private final Object delegate;
+        private final Field paintEnabled;
+        private final Field inputEnabled;
+        private boolean enabled;
+        private boolean suspended;
+
+        GraphicsToggle(Object delegate, boolean enabled) throws NoSuchFieldException, IllegalAccessException {
+            this.delegate = delegate;
+            this.paintEnabled = delegate.getClass().getField(DisplayAccessDelegateGenerator.PAINT_FIELD);
+            this.inputEnabled = delegate.getClass().getField(DisplayAccessDelegateGenerator.INPUT_FIELD);
+            this.enabled = enabled;
+            apply();
+        }
+
+        Object getDelegate() {
+            return delegate;
+        }
+
+        synchronized void setEnabled(boolean enabled) throws IllegalAccessException {
+            this.enabled = enabled;
+            apply();
+        }
+
+        synchronized void setSuspended(boolean suspended) throws IllegalAccessException {
+            this.suspended = suspended;
+            apply();
+        }
+
+        private void apply() throws IllegalAccessException {
+            paintEnabled.setBoolean(delegate, enabled && !suspended);
+            inputEnabled.setBoolean(delegate, !suspended);
+        }
+
+        /**
+         * Force a repaint through the delegate to restore the screen.
+         */
+        void repaint() {
+            try {
+                ReflectionHelper.invokeMethod(delegate, "repaint");
+            } catch (Exception ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package me.kitakeyos.j2me.domain.graphics.service;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.Visibility;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.infrastructure.bytecode.PaintBudget;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Service to set the paint rate of each instance.
+ * <p>
+ * Every instance has one {@link PaintBudget}, read by the paint-throttle
+ * guard injected into its display (see PaintThrottleClassVisitor). By default
+ * the budget follows the instance's visibility: the focused instance paints
+ * fastest, visible ones at thumbnail rate and hidden ones about once a
+ * second. A rate chosen for the instance itself overrides its visibility
+ * until cleared.
+ */
+public class PaintBudgetService {
+
+    private static final Logger logger = Logger.getLogger(PaintBudgetService.class.getName());
+    private static final PaintBudgetService INSTANCE = new PaintBudgetService();
+
+    /** FPS meaning no cap */
+    public static final int UNLIMITED = 0;
+
+    private final Map<Visibility, Integer> tierFps = new EnumMap<>(Visibility.class);
+    // instanceId -> budget, kept across restarts like the instance's RMS
+    private final Map<Integer, PaintBudget> budgets = new ConcurrentHashMap<>();
+    // instanceId -> FPS chosen for the instance, instead of its visibility's
+    private final Map<Integer, Integer> overrides = new ConcurrentHashMap<>();
+
+    private PaintBudgetService() {
+        tierFps.put(Visibility.FOCUSED, 60);
+        tierFps.put(Visibility.VISIBLE, 10);
+        tierFps.put(Visibility.HIDDEN, 1);
+    }
+
+    public static PaintBudgetService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Apply the configured FPS of each visibility
+     */
+    public void configure(ApplicationConfig config) {
+        for (Visibility visibility : Visibility.values()) {
+            setTierFps(visibility, config.getPaintFps(visibility));
+        }
+    }
+
+    /**
+     * Set the FPS of instances with the given visibility and no rate of
+     * their own. Applies to running instances at once.
+     *
+     * @param fps Frames per second, or {@link #UNLIMITED}
+     */
+    public synchronized void setTierFps(Visibility visibility, int fps) {
+        if (fps < 0) {
+            throw new IllegalArgumentException("FPS must not be negative");
+        }
+        tierFps.put(visibility, fps);
+        for (Integer instanceId : budgets.keySet()) {
+            refresh(instanceId);
+        }
+    }
+
+    public synchronized int getTierFps(Visibility visibility) {
+        return tierFps.get(visibility);
+    }
+
+    /**
+     * Give an instance a fixed FPS, whatever its visibility.
+     *
+     * @param fps Frames per second, or {@link #UNLIMITED}
+     */
+    public void setFpsOverride(int instanceId, int fps) {
+        if (fps < 0) {
+            throw new IllegalArgumentException("FPS must not be negative");
+        }
+        overrides.put(instanceId, fps);
+        refresh(instanceId);
+        logger.info("Instance #" + instanceId + " paint rate set to " + (fps == UNLIMITED ? "unlimited" : fps + " FPS"));
+    }
+
+    /**
+     * Let an instance's FPS follow its visibility again.
+     */
+    public void clearFpsOverride(int instanceId) {
+        if (overrides.remove(instanceId) != null) {
+            refresh(instanceId);
+            logger.info("Instance #" + instanceId + " paint rate follows visibility");
+        }
+    }
+
+    /**
+     * @return The FPS chosen for an instance, or null if it follows its
+     *         visibility
+     */
+    public Integer getFpsOverride(int instanceId) {
+        return overrides.get(instanceId);
+    }
+
+    /**
+     * @return The FPS an instance paints at now
+     */
+    public int getFps(int instanceId) {
+        return fpsFor(instanceId);
+    }
+
+    /**
+     * Budget of an instance, created on first use. Called once per run by
+     * the injected guard, which keeps it.
+     */
+    public PaintBudget getBudget(int instanceId) {
+        return budgets.computeIfAbsent(instanceId, id -> new PaintBudget(fpsFor(id)));
+    }
+
+    /**
+     * Follow a visibility change of an instance. Called by
+     * BackgroundModeService.
+     */
+    public void onVisibilityChanged(EmulatorInstance instance) {
+        refresh(instance.getInstanceId());
+    }
+
+    /**
+     * Forget the budget and rate of an instance whose ID is released.
+     */
+    public void removeInstance(int instanceId) {
+        budgets.remove(instanceId);
+        overrides.remove(instanceId);
+    }
+
+    private void refresh(int instanceId) {
+        PaintBudget budget = budgets.get(instanceId);
+        if (budget != null) {
+            budget.setFps(fpsFor(instanceId));
+        }
+    }
+
+    private int fpsFor(int instanceId) {
+        Integer override = overrides.get(instanceId);
+        if (override != null) {
+            return override;
+        }
+        InstanceManager manager = InstanceManager.getActive();
+        EmulatorInstance instance = manager != null ? manager.findInstance(instanceId) : null;
+        return getTierFps(instance != null ? instance.getVisibility() : Visibility.VISIBLE);
+    }
+}
@@ -0,0 +1,23 @@
+package me.kitakeyos.j2me.domain.media.model;
+
+/**
+ * How an instance's {@code javax.microedition.media} players are backed.
+ */
+public enum MediaPolicy {
+    REAL, // MicroEmulator's own players, one audio line or sequencer each
+    STUB, // Silent players that keep the Player state machine and events
+    SHARED; // Sampled audio mixed into one line shared by all instances
+
+    /**
+     * Parse a policy name as written in the configuration, case-insensitive.
+     *
+     * @throws IllegalArgumentException If the name is unknown
+     */
+    public static MediaPolicy fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown media policy: " + name);
+        }
+    }
+}
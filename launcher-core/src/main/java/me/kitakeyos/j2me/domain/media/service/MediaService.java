@@ -0,0 +1,290 @@
+package me.kitakeyos.j2me.domain.media.service;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.domain.media.model.MediaPolicy;
+import me.kitakeyos.j2me.infrastructure.media.SharedAudioMixer;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiSystem;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service to back each instance's {@code javax.microedition.media} with the
+ * {@link MediaPolicy} chosen for it.
+ * <p>
+ * MicroEmulator's {@code Manager.createPlayer} and {@code playTone} ask this
+ * service first (see MediaClassVisitor). Under REAL it returns nothing and
+ * MicroEmulator builds its own players, each opening an audio line or MIDI
+ * sequencer. Under STUB and SHARED it returns a {@link VirtualPlayer}, which
+ * never touches an audio device; SHARED players also play their sampled
+ * audio on the {@link SharedAudioMixer}. A policy change applies to the
+ * players created after it.
+ */
+public class MediaService {
+
+    private static final Logger logger = Logger.getLogger(MediaService.class.getName());
+    private static final MediaService INSTANCE = new MediaService();
+
+    private static final String MIDLET_BRIDGE_CLASS = "org.microemu.MIDletBridge";
+
+    // instanceId -> policy, kept across restarts like the instance's RMS
+    private final Map<Integer, MediaPolicy> policies = new ConcurrentHashMap<>();
+    // instanceId -> open virtual players, closed silently on shutdown
+    private final Map<Integer, Set<VirtualPlayer>> players = new ConcurrentHashMap<>();
+    private volatile MediaPolicy defaultPolicy = MediaPolicy.REAL;
+    private ScheduledExecutorService scheduler;
+
+    private MediaService() {
+    }
+
+    public static MediaService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Apply the configured default policy
+     */
+    public void configure(ApplicationConfig config) {
+        setDefaultPolicy(config.getMediaPolicy());
+    }
+
+    /**
+     * Policy of the instances without one of their own
+     */
+    public void setDefaultPolicy(MediaPolicy policy) {
+        this.defaultPolicy = policy;
+    }
+
+    public MediaPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Set the policy of an instance, for the players it creates from now on.
+     *
+     * @param instanceId Instance ID
+     * @param policy     Media policy
+     */
+    public void setPolicy(int instanceId, MediaPolicy policy) {
+        policies.put(instanceId, policy);
+        logger.info("Instance #" + instanceId + " media policy set to " + policy);
+    }
+
+    /**
+     * @return The instance's policy, or the default one
+     */
+    public MediaPolicy getPolicy(int instanceId) {
+        return policies.getOrDefault(instanceId, defaultPolicy);
+    }
+
+    /**
+     * @return The number of open virtual players of an instance
+     */
+    public int getPlayerCount(int instanceId) {
+        Set<VirtualPlayer> open = players.get(instanceId);
+        return open != null ? open.size() : 0;
+    }
+
+    /**
+     * {@code Manager.createPlayer(InputStream, String)} of an instance.
+     *
+     * @return A player for the MIDlet, or null to let MicroEmulator create
+     *         its own
+     */
+    public Object createPlayer(int instanceId, InputStream stream, String type) throws IOException {
+        MediaPolicy policy = getPolicy(instanceId);
+        if (policy == MediaPolicy.REAL) {
+            return null;
+        }
+        if (stream == null) {
+            throw new IllegalArgumentException("Stream is null");
+        }
+        byte[] data = readAll(stream);
+        boolean midi = type != null && type.contains("mid");
+        short[] samples = null;
+        if (policy == MediaPolicy.SHARED && !midi && SharedAudioMixer.getInstance().isAvailable()) {
+            samples = SharedAudioMixer.getInstance().decode(data);
+        }
+        long durationUs = samples != null
+                ? samples.length * 1_000_000L / (long) SharedAudioMixer.FORMAT.getSampleRate()
+                : probeDuration(data, midi);
+        return createVirtualPlayer(instanceId, type, durationUs, samples);
+    }
+
+    /**
+     * {@code Manager.createPlayer(String)} of an instance. MicroEmulator
+     * supports no locator; virtual players accept any and play it as a
+     * stream of unknown length.
+     *
+     * @return A player for the MIDlet, or null to let MicroEmulator handle it
+     */
+    public Object createPlayer(int instanceId, String locator) {
+        if (getPolicy(instanceId) == MediaPolicy.REAL) {
+            return null;
+        }
+        if (locator == null) {
+            throw new IllegalArgumentException("Locator is null");
+        }
+        return createVirtualPlayer(instanceId, null, VirtualPlayer.TIME_UNKNOWN, null);
+    }
+
+    /**
+     * {@code Manager.playTone} of an instance.
+     *
+     * @return true if the tone was handled, false to let MicroEmulator play
+     *         it on a line of its own
+     */
+    public boolean playTone(int instanceId, int note, int durationMs, int volume) {
+        MediaPolicy policy = getPolicy(instanceId);
+        if (policy == MediaPolicy.REAL) {
+            return false;
+        }
+        if (note < 0 || note > 127 || durationMs <= 0) {
+            throw new IllegalArgumentException("Invalid tone: note " + note + ", duration " + durationMs);
+        }
+        SharedAudioMixer mixer = SharedAudioMixer.getInstance();
+        if (policy == MediaPolicy.SHARED && mixer.isAvailable()) {
+            mixer.play(mixer.tone(note, durationMs, volume), 0);
+        }
+        return true;
+    }
+
+    /**
+     * Close the virtual players of an instance without notifying its
+     * listeners. Called while the instance shuts down.
+     */
+    public void closePlayers(int instanceId) {
+        Set<VirtualPlayer> open = players.remove(instanceId);
+        if (open != null) {
+            for (VirtualPlayer player : open.toArray(new VirtualPlayer[0])) {
+                player.close(false);
+            }
+        }
+    }
+
+    /**
+     * Forget the policy of an instance whose ID is released.
+     */
+    public void removeInstance(int instanceId) {
+        closePlayers(instanceId);
+        policies.remove(instanceId);
+    }
+
+    private Object createVirtualPlayer(int instanceId, String type, long durationUs, short[] samples) {
+        EmulatorInstance instance = InstanceManager.getActive().findInstance(instanceId);
+        ClassLoader classLoader = instance != null ? instance.getEmulatorClassLoader() : null;
+        if (classLoader == null) {
+            return null;
+        }
+        try {
+            Class<?> playerClass = classLoader.loadClass(VirtualPlayer.PLAYER_CLASS);
+            VirtualPlayer player = new VirtualPlayer(instanceId, type, durationUs, samples, getScheduler(),
+                    classLoader.loadClass(VirtualPlayer.LISTENER_CLASS), playerClass,
+                    classLoader.loadClass(VirtualPlayer.CONTROL_CLASS), this::playerClosed,
+                    error -> reportListenerError(instanceId, error));
+            player.setProxy(Proxy.newProxyInstance(classLoader, new Class<?>[]{playerClass}, player));
+            players.computeIfAbsent(instanceId, id -> ConcurrentHashMap.newKeySet()).add(player);
+            // Registered like MicroEmulator's own players, which closes them with the MIDlet
+            bridge(classLoader, playerClass, "addMediaPlayer", player.getProxy());
+            return player.getProxy();
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.WARNING, "Cannot create a virtual player for instance #" + instanceId, e);
+            return null;
+        }
+    }
+
+    private void playerClosed(VirtualPlayer player) {
+        Set<VirtualPlayer> open = players.get(player.getInstanceId());
+        if (open != null) {
+            open.remove(player);
+        }
+        EmulatorInstance instance = InstanceManager.getActive().findInstance(player.getInstanceId());
+        ClassLoader classLoader = instance != null ? instance.getEmulatorClassLoader() : null;
+        if (classLoader != null) {
+            try {
+                bridge(classLoader, classLoader.loadClass(VirtualPlayer.PLAYER_CLASS), "removeMediaPlayer",
+                        player.getProxy());
+            } catch (ReflectiveOperationException e) {
+                logger.fine("Cannot unregister player of instance #" + player.getInstanceId() + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private static void bridge(ClassLoader classLoader, Class<?> playerClass, String method, Object player)
+            throws ReflectiveOperationException {
+        classLoader.loadClass(MIDLET_BRIDGE_CLASS).getMethod(method, playerClass).invoke(null, player);
+    }
+
+    private static void reportListenerError(int instanceId, Throwable error) {
+        EmulatorInstance instance = InstanceManager.getActive().findInstance(instanceId);
+        if (instance != null) {
+            instance.getConsole().printStackTrace(error);
+        } else {
+            logger.log(Level.FINE, "Player listener of instance #" + instanceId + " failed", error);
+        }
+    }
+
+    /**
+     * Duration of a sound from its header, without decoding it or opening a
+     * device.
+     *
+     * @return Microseconds, or TIME_UNKNOWN
+     */
+    private static long probeDuration(byte[] data, boolean midi) {
+        try {
+            if (midi) {
+                return MidiSystem.getSequence(new ByteArrayInputStream(data)).getMicrosecondLength();
+            }
+            AudioFileFormat format = AudioSystem.getAudioFileFormat(new ByteArrayInputStream(data));
+            long frames = format.getFrameLength();
+            float frameRate = format.getFormat().getFrameRate();
+            if (frames > 0 && frameRate > 0) {
+                return (long) (frames * 1_000_000.0 / frameRate);
+            }
+        } catch (InvalidMidiDataException | UnsupportedAudioFileException | IOException | RuntimeException e) {
+            logger.fine("Cannot read sound duration: " + e.getMessage());
+        }
+        return VirtualPlayer.TIME_UNKNOWN;
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[16384];
+        int read;
+        while ((read = stream.read(chunk, 0, chunk.length)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Timers and listener callbacks of all virtual players, in order
+     */
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "media-events");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+}
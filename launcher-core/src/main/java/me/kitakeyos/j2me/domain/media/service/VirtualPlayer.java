@@ -0,0 +1,370 @@
+package me.kitakeyos.j2me.domain.media.service;
+
+import me.kitakeyos.j2me.infrastructure.media.SharedAudioMixer;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Player handed to the MIDlet under the STUB and SHARED media policies, as a
+ * dynamic proxy of the instance's {@code javax.microedition.media.Player}.
+ * <p>
+ * It follows the JSR-135 state machine (UNREALIZED, REALIZED, PREFETCHED,
+ * STARTED, CLOSED), media time, loop count and the STARTED, STOPPED,
+ * END_OF_MEDIA and CLOSED events, timed from the sound's duration, so a
+ * game waiting for a sound to end carries on as with real audio. Without
+ * samples it is silent; with samples each start also plays them on the
+ * {@link SharedAudioMixer}. Timers and listener callbacks run on the
+ * scheduler of {@link MediaService}.
+ */
+class VirtualPlayer implements InvocationHandler {
+
+    static final String PLAYER_CLASS = "javax.microedition.media.Player";
+    static final String LISTENER_CLASS = "javax.microedition.media.PlayerListener";
+    static final String CONTROL_CLASS = "javax.microedition.media.Control";
+
+    // Player states and constants, see javax.microedition.media.Player
+    private static final int UNREALIZED = 100;
+    private static final int REALIZED = 200;
+    private static final int PREFETCHED = 300;
+    private static final int STARTED = 400;
+    private static final int CLOSED = 0;
+    static final long TIME_UNKNOWN = -1;
+
+    // Shortest loop, so an empty sound looping forever does not spin
+    private static final long MIN_LOOP_US = 50_000;
+
+    private final int instanceId;
+    private final String contentType;
+    private final long durationUs;
+    private final short[] samples; // Null to play silently
+    private final ScheduledExecutorService scheduler;
+    private final Method playerUpdate;
+    private final Class<?> controlClass;
+    private final List<Object> listeners = new ArrayList<>();
+    private final Consumer<VirtualPlayer> closeListener;
+    private final Consumer<Throwable> errorSink;
+    private Object proxy;
+
+    private int state = UNREALIZED;
+    private int loopCount = 1;
+    private int loopsLeft;
+    private long mediaTimeUs; // Position while not started, or when the current run started
+    private long startedAtNanos;
+    private ScheduledFuture<?> endOfMedia;
+    private SharedAudioMixer.Voice voice;
+
+    /**
+     * @param closeListener Told once the player is closed
+     * @param errorSink     Receives what a MIDlet's listener throws
+     */
+    VirtualPlayer(int instanceId, String contentType, long durationUs, short[] samples,
+                  ScheduledExecutorService scheduler, Class<?> listenerClass, Class<?> playerClass,
+                  Class<?> controlClass, Consumer<VirtualPlayer> closeListener, Consumer<Throwable> errorSink)
+            throws NoSuchMethodException {
+        this.instanceId = instanceId;
+        this.contentType = contentType;
+        this.durationUs = durationUs;
+        this.samples = samples;
+        this.scheduler = scheduler;
+        this.playerUpdate = listenerClass.getMethod("playerUpdate", playerClass, String.class, Object.class);
+        this.controlClass = controlClass;
+        this.closeListener = closeListener;
+        this.errorSink = errorSink;
+    }
+
+    void setProxy(Object proxy) {
+        this.proxy = proxy;
+    }
+
+    Object getProxy() {
+        return proxy;
+    }
+
+    int getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "realize":
+                realize();
+                return null;
+            case "prefetch":
+                prefetch();
+                return null;
+            case "start":
+                start();
+                return null;
+            case "stop":
+                stop();
+                return null;
+            case "deallocate":
+                deallocate();
+                return null;
+            case "close":
+                close(true);
+                return null;
+            case "setMediaTime":
+                return setMediaTime((Long) args[0]);
+            case "getMediaTime":
+                return getMediaTime();
+            case "getState":
+                return getState();
+            case "getDuration":
+                return durationUs;
+            case "getContentType":
+                return contentType;
+            case "setLoopCount":
+                setLoopCount((Integer) args[0]);
+                return null;
+            case "addPlayerListener":
+                addPlayerListener(args[0]);
+                return null;
+            case "removePlayerListener":
+                removePlayerListener(args[0]);
+                return null;
+            case "getControl":
+                return getControl((String) args[0]);
+            case "getControls":
+                return getControls();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "VirtualPlayer[#" + instanceId + ", " + contentType + "]";
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private synchronized void realize() {
+        checkNotClosed();
+        if (state == UNREALIZED) {
+            state = REALIZED;
+        }
+    }
+
+    private synchronized void prefetch() {
+        realize();
+        if (state == REALIZED) {
+            state = PREFETCHED;
+        }
+    }
+
+    private synchronized void start() {
+        prefetch();
+        if (state == STARTED) {
+            return;
+        }
+        if (durationUs != TIME_UNKNOWN && mediaTimeUs >= durationUs) {
+            // Started again after the end of media: from the beginning
+            mediaTimeUs = 0;
+        }
+        state = STARTED;
+        loopsLeft = loopCount;
+        post("started", mediaTimeUs);
+        play();
+    }
+
+    private synchronized void stop() {
+        checkNotClosed();
+        if (state == STARTED) {
+            mediaTimeUs = currentMediaTime();
+            halt();
+            state = PREFETCHED;
+            post("stopped", mediaTimeUs);
+        }
+    }
+
+    private synchronized void deallocate() {
+        checkNotClosed();
+        stop();
+        if (state == PREFETCHED) {
+            state = REALIZED;
+        }
+    }
+
+    /**
+     * @param notify false when the instance is going away: no CLOSED event,
+     *               since the MIDlet code is being torn down too
+     */
+    synchronized void close(boolean notify) {
+        if (state == CLOSED) {
+            return;
+        }
+        halt();
+        state = CLOSED;
+        if (notify) {
+            post("closed", null);
+        }
+        listeners.clear();
+        closeListener.accept(this);
+    }
+
+    private synchronized long setMediaTime(long timeUs) {
+        checkNotClosed();
+        if (state == UNREALIZED) {
+            throw new IllegalStateException("Player is unrealized");
+        }
+        long time = Math.max(0, timeUs);
+        if (durationUs != TIME_UNKNOWN) {
+            time = Math.min(time, durationUs);
+        }
+        mediaTimeUs = time;
+        if (state == STARTED) {
+            halt();
+            play();
+        }
+        return time;
+    }
+
+    private synchronized long getMediaTime() {
+        return state == STARTED ? currentMediaTime() : mediaTimeUs;
+    }
+
+    private synchronized int getState() {
+        return state;
+    }
+
+    private synchronized void setLoopCount(int count) {
+        checkNotClosed();
+        if (state == STARTED) {
+            throw new IllegalStateException("Player is started");
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("Loop count must not be 0");
+        }
+        loopCount = count;
+    }
+
+    private synchronized void addPlayerListener(Object listener) {
+        checkNotClosed();
+        if (listener != null && !listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    private synchronized void removePlayerListener(Object listener) {
+        checkNotClosed();
+        listeners.remove(listener);
+    }
+
+    private synchronized Object getControl(String type) {
+        checkRealized();
+        if (type == null) {
+            throw new IllegalArgumentException("Control type is null");
+        }
+        // Like MicroEmulator's own players: no controls
+        return null;
+    }
+
+    private synchronized Object getControls() {
+        checkRealized();
+        return Array.newInstance(controlClass, 0);
+    }
+
+    // === Playback ===
+
+    /**
+     * Play from the current media time and schedule the end of media.
+     */
+    private void play() {
+        startedAtNanos = System.nanoTime();
+        if (samples != null) {
+            int fromFrame = (int) (mediaTimeUs * (long) SharedAudioMixer.FORMAT.getSampleRate() / 1_000_000L);
+            voice = SharedAudioMixer.getInstance().play(samples, fromFrame);
+        }
+        if (durationUs == TIME_UNKNOWN) {
+            // Like a stream: plays until stopped
+            return;
+        }
+        long remainingUs = Math.max(durationUs - mediaTimeUs, mediaTimeUs == 0 ? MIN_LOOP_US : 0);
+        ScheduledFuture<?>[] scheduled = new ScheduledFuture<?>[1];
+        scheduled[0] = scheduler.schedule(() -> endOfMedia(scheduled[0]), remainingUs, TimeUnit.MICROSECONDS);
+        endOfMedia = scheduled[0];
+    }
+
+    private synchronized void endOfMedia(ScheduledFuture<?> run) {
+        if (state != STARTED || endOfMedia != run) {
+            // Stopped or moved meanwhile
+            return;
+        }
+        endOfMedia = null;
+        voice = null;
+        mediaTimeUs = durationUs;
+        post("endOfMedia", durationUs);
+        if (loopsLeft < 0 || --loopsLeft > 0) {
+            mediaTimeUs = 0;
+            play();
+        } else {
+            state = PREFETCHED;
+        }
+    }
+
+    /**
+     * Cancel the end of media and silence the voice, keeping the state.
+     */
+    private void halt() {
+        if (endOfMedia != null) {
+            endOfMedia.cancel(false);
+            endOfMedia = null;
+        }
+        if (voice != null) {
+            voice.stop();
+            voice = null;
+        }
+    }
+
+    private long currentMediaTime() {
+        long time = mediaTimeUs + (System.nanoTime() - startedAtNanos) / 1000;
+        return durationUs != TIME_UNKNOWN ? Math.min(time, durationUs) : time;
+    }
+
+    // === Events ===
+
+    /**
+     * Deliver an event to the listeners registered now, in order, off the
+     * caller's thread as JSR-135 asks.
+     */
+    private void post(String event, Object data) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Object[] targets = listeners.toArray();
+        scheduler.execute(() -> {
+            for (Object listener : targets) {
+                try {
+                    playerUpdate.invoke(listener, proxy, event, data);
+                } catch (InvocationTargetException e) {
+                    errorSink.accept(e.getCause());
+                } catch (IllegalAccessException | RuntimeException e) {
+                    errorSink.accept(e);
+                }
+            }
+        });
+    }
+
+    private void checkNotClosed() {
+        if (state == CLOSED) {
+            throw new IllegalStateException("Player is closed");
+        }
+    }
+
+    private void checkRealized() {
+        checkNotClosed();
+        if (state == UNREALIZED) {
+            throw new IllegalStateException("Player is unrealized");
+        }
+    }
+}
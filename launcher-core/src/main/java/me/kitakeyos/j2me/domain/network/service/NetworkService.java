@@ -45,6 +45,10 @@ public class NetworkService {
     private static final int MAX_LOG_SIZE = 1000;
     private static final int MAX_PACKET_LOG_SIZE = 5000;
 
+    // False while rules come from elsewhere (e.g. a farm definition) and must
+    // not overwrite the saved ones
+    private volatile boolean persistRules = true;
+
     // Statistics
     private long totalBytesSent = 0;
     private long totalBytesReceived = 0;
@@ -107,7 +111,17 @@ public class NetworkService {
      */
     private void onRulesModified() {
         notifyRulesChanged();
-        saveRules();
+        if (persistRules) {
+            saveRules();
+        }
+    }
+
+    /**
+     * Enable or disable saving rules to disk on every change. When disabled,
+     * rule changes only live in memory until the process ends.
+     */
+    public void setPersistRules(boolean persistRules) {
+        this.persistRules = persistRules;
     }
 
     // === Connection Logs ===
@@ -433,8 +447,7 @@ public class NetworkService {
     // === Persistence ===
 
     private java.io.File getConfigFile() {
-        java.io.File dataDir = me.kitakeyos.j2me.application.MainApplication.INSTANCE.getApplicationConfig()
-                .getDataDirectory();
+        java.io.File dataDir = me.kitakeyos.j2me.application.config.ApplicationConfig.getActive().getDataDirectory();
         return new java.io.File(dataDir, NETWORK_RULES_FILE);
     }
 
@@ -0,0 +1,233 @@
+package me.kitakeyos.j2me.domain.speed.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.BackgroundModeService;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuMonitor;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuUsage;
+import me.kitakeyos.j2me.infrastructure.monitoring.SystemMonitorService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adaptive CPU governor.
+ * <p>
+ * Every {@link #TICK_INTERVAL_MS} it compares process CPU load against a
+ * target utilisation and moves each instance's speed multiplier within a
+ * [min, max] band to close the gap. The top of the band is raised to the
+ * user-set speed of instances set faster than it. Slower instances sleep longer in the
+ * injected SpeedHelper and burn less CPU.
+ * <p>
+ * The overall correction ratio is {@code target / current}, limited per tick
+ * so the loop converges without oscillating. Each instance gets its own share
+ * of the correction: instances that use more CPU than average and instances
+ * with a low priority weight are slowed first and sped up last. Suspended
+ * instances are left alone since they use no CPU, and so are instances in
+ * background mode, which already run at the background speed.
+ * <p>
+ * Overrides go through {@link SpeedService#setGovernorMultiplier}; the
+ * user-set multipliers are untouched and come back when the governor is
+ * disabled.
+ */
+public class CpuGovernor {
+
+    private static final Logger logger = Logger.getLogger(CpuGovernor.class.getName());
+    private static final CpuGovernor INSTANCE = new CpuGovernor();
+
+    public static final long TICK_INTERVAL_MS = 2000;
+    public static final double DEFAULT_WEIGHT = 1.0;
+
+    // No correction while within this many percentage points of the target
+    private static final double DEADBAND_PERCENT = 5.0;
+    // Bounds of the overall correction ratio per tick
+    private static final double MAX_STEP_DOWN = 0.8;
+    private static final double MAX_STEP_UP = 1.25;
+    // Bound of the per-instance exponent applied to the correction ratio
+    private static final double MAX_PRESSURE = 3.0;
+
+    private final SystemMonitorService monitorService = new SystemMonitorService();
+    private final Map<Integer, Double> priorityWeights = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = false;
+    private volatile double targetCpuPercent = 70;
+    private volatile double minMultiplier = 0.25;
+    private volatile double maxMultiplier = 1.0;
+    private ScheduledExecutorService scheduler;
+
+    private CpuGovernor() {
+    }
+
+    public static CpuGovernor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enable or disable the governor. Disabling restores every instance to its
+     * user-set multiplier.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            InstanceCpuMonitor.getInstance().start();
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cpu-governor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    tick();
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "CPU governor tick failed", e);
+                }
+            }, TICK_INTERVAL_MS, TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            logger.info(String.format("CPU governor enabled: target %.0f%%, band [%.2fx, %.2fx]",
+                    targetCpuPercent, minMultiplier, maxMultiplier));
+        } else {
+            scheduler.shutdownNow();
+            scheduler = null;
+            releaseAll();
+            logger.info("CPU governor disabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param targetCpuPercent Target process CPU, in percent of the whole
+     *                         machine (as reported by the OS bean)
+     */
+    public void setTargetCpuPercent(double targetCpuPercent) {
+        this.targetCpuPercent = Math.max(1, Math.min(100, targetCpuPercent));
+    }
+
+    public double getTargetCpuPercent() {
+        return targetCpuPercent;
+    }
+
+    /**
+     * Set the multiplier band the governor stays within.
+     */
+    public void setBand(double minMultiplier, double maxMultiplier) {
+        if (minMultiplier <= 0 || maxMultiplier < minMultiplier) {
+            throw new IllegalArgumentException("Invalid governor band: [" + minMultiplier + ", " + maxMultiplier + "]");
+        }
+        this.minMultiplier = minMultiplier;
+        this.maxMultiplier = maxMultiplier;
+    }
+
+    public double getMinMultiplier() {
+        return minMultiplier;
+    }
+
+    public double getMaxMultiplier() {
+        return maxMultiplier;
+    }
+
+    /**
+     * Set the priority weight of an instance. Higher weights are slowed later
+     * and recover earlier; 1.0 is normal.
+     */
+    public void setPriorityWeight(int instanceId, double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Priority weight must be positive");
+        }
+        priorityWeights.put(instanceId, weight);
+    }
+
+    public double getPriorityWeight(int instanceId) {
+        return priorityWeights.getOrDefault(instanceId, DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Forget per-instance state (on shutdown).
+     */
+    public void removeInstance(int instanceId) {
+        priorityWeights.remove(instanceId);
+    }
+
+    private void releaseAll() {
+        InstanceManager manager = InstanceManager.getActive();
+        if (manager == null) {
+            return;
+        }
+        for (EmulatorInstance instance : manager.getInstances()) {
+            SpeedService.getInstance().clearGovernorMultiplier(instance.getInstanceId());
+        }
+    }
+
+    private void tick() {
+        InstanceManager manager = InstanceManager.getActive();
+        double processCpu = monitorService.getProcessCpuLoad();
+        if (manager == null || processCpu < 0) {
+            return;
+        }
+        double target = targetCpuPercent;
+        if (Math.abs(processCpu - target) < DEADBAND_PERCENT) {
+            return;
+        }
+
+        // Participating instances and their CPU / weight averages
+        List<EmulatorInstance> governed = new ArrayList<>();
+        double cpuSum = 0;
+        double weightSum = 0;
+        for (EmulatorInstance instance : manager.getRunningInstances()) {
+            if (instance.isSuspended()
+                    || BackgroundModeService.getInstance().isInBackground(instance.getInstanceId())) {
+                continue;
+            }
+            governed.add(instance);
+            InstanceCpuUsage usage = InstanceCpuMonitor.getInstance().getUsage(instance.getInstanceId());
+            cpuSum += usage != null ? usage.getWindowPercent() : 0;
+            weightSum += getPriorityWeight(instance.getInstanceId());
+        }
+        if (governed.isEmpty()) {
+            return;
+        }
+        double cpuMean = cpuSum / governed.size();
+        double weightMean = weightSum / governed.size();
+
+        double ratio = Math.max(MAX_STEP_DOWN, Math.min(MAX_STEP_UP, target / Math.max(1, processCpu)));
+        boolean slowingDown = ratio < 1;
+        SpeedService speedService = SpeedService.getInstance();
+
+        for (EmulatorInstance instance : governed) {
+            int instanceId = instance.getInstanceId();
+            InstanceCpuUsage usage = InstanceCpuMonitor.getInstance().getUsage(instanceId);
+            double cpuShare = cpuMean > 0 && usage != null ? usage.getWindowPercent() / cpuMean : 1;
+            double weight = getPriorityWeight(instanceId) / weightMean;
+
+            // Slowing down: heavy, low-priority instances take most of the cut.
+            // Speeding up: high-priority instances recover first.
+            double pressure = slowingDown ? cpuShare / weight : weight;
+            pressure = Math.max(0, Math.min(MAX_PRESSURE, pressure));
+
+            // The governor's own value, not the background-capped one
+            double current = speedService.getBaseSpeedMultiplier(instanceId);
+            double next = current * Math.pow(ratio, pressure);
+            // The band's top never pulls an instance below its user speed:
+            // an instance set to 2x may be slowed, but recovers up to 2x
+            double ceiling = Math.max(maxMultiplier, speedService.getSpeedMultiplier(instanceId));
+            next = Math.max(minMultiplier, Math.min(ceiling, next));
+            if (Math.abs(next - current) >= 0.01) {
+                speedService.setGovernorMultiplier(instanceId, Math.round(next * 100) / 100.0);
+            }
+        }
+
+        logger.fine(String.format("CPU governor: process %.1f%%, target %.1f%%, ratio %.2f over %d instance(s)",
+                processCpu, target, ratio, governed.size()));
+    }
+}
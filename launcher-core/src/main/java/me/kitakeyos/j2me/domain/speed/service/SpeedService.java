@@ -0,0 +1,202 @@
+package me.kitakeyos.j2me.domain.speed.service;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.infrastructure.thread.XThread;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Service to manage speed multipliers for emulator instances.
+ * Allows real-time speed adjustment without restarting instances.
+ *
+ * The multiplier is stored here as the canonical source of truth, and
+ * propagated directly to every {@link XThread} of the target instance so
+ * the injected SpeedHelper can read it with zero reflection or lookup.
+ *
+ * The {@link CpuGovernor} may override the user-set multiplier, giving the
+ * base multiplier: the governor override, else the user value. Background
+ * mode caps the base multiplier while an instance is hidden, so a hidden
+ * instance never runs faster than it would shown. A user change drops the
+ * governor override so the governor restarts from the new value.
+ */
+public class SpeedService {
+
+    private static final Logger logger = Logger.getLogger(SpeedService.class.getName());
+    private static final SpeedService INSTANCE = new SpeedService();
+
+    // instanceId -> speedMultiplier (1.0 = normal, 2.0 = 2x faster, 0.5 = half
+    // speed). Canonical value; also pushed onto each XThread of the instance.
+    private final Map<Integer, Double> speedMultipliers = new ConcurrentHashMap<>();
+    // instanceId -> multiplier chosen by the CPU governor, replaces the
+    // user-set value while present
+    private final Map<Integer, Double> governorMultipliers = new ConcurrentHashMap<>();
+    // instanceId -> cap on the base multiplier while the instance is in
+    // background mode
+    private final Map<Integer, Double> backgroundMultipliers = new ConcurrentHashMap<>();
+
+    private SpeedService() {
+    }
+
+    public static SpeedService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set speed multiplier for an instance.
+     *
+     * @param instanceId Instance ID
+     * @param multiplier Speed multiplier (1.0 = normal, 2.0 = 2x faster)
+     */
+    public void setSpeedMultiplier(int instanceId, double multiplier) {
+        if (multiplier <= 0) {
+            throw new IllegalArgumentException("Speed multiplier must be positive");
+        }
+        speedMultipliers.put(instanceId, multiplier);
+        governorMultipliers.remove(instanceId);
+
+        // Push the multiplier onto each XThread's encoded name so the injected
+        // SpeedHelper can read it with a single getName() call — no reflection,
+        // no cross-classloader reference, no lock contention.
+        propagateToThreads(instanceId, getEffectiveSpeedMultiplier(instanceId));
+        logger.info(String.format("Instance #%d speed set to %.1fx", instanceId, multiplier));
+    }
+
+    /**
+     * Get speed multiplier for an instance.
+     *
+     * @param instanceId Instance ID
+     * @return Speed multiplier (default 1.0 if not set)
+     */
+    public double getSpeedMultiplier(int instanceId) {
+        return speedMultipliers.getOrDefault(instanceId, 1.0);
+    }
+
+    /**
+     * Get the multiplier without the background cap: the governor override
+     * if any, otherwise the user-set value.
+     *
+     * @param instanceId Instance ID
+     * @return Base speed multiplier
+     */
+    public double getBaseSpeedMultiplier(int instanceId) {
+        Double governed = governorMultipliers.get(instanceId);
+        return governed != null ? governed : getSpeedMultiplier(instanceId);
+    }
+
+    /**
+     * Get the multiplier threads actually run at: the base multiplier,
+     * capped by the background multiplier while one is set.
+     *
+     * @param instanceId Instance ID
+     * @return Effective speed multiplier
+     */
+    public double getEffectiveSpeedMultiplier(int instanceId) {
+        double base = getBaseSpeedMultiplier(instanceId);
+        Double background = backgroundMultipliers.get(instanceId);
+        return background != null ? Math.min(base, background) : base;
+    }
+
+    /**
+     * Override the multiplier of an instance on behalf of the CPU governor.
+     * The user-set value is kept and restored by
+     * {@link #clearGovernorMultiplier(int)}.
+     *
+     * @param instanceId Instance ID
+     * @param multiplier Speed multiplier, must be positive
+     */
+    public void setGovernorMultiplier(int instanceId, double multiplier) {
+        if (multiplier <= 0) {
+            throw new IllegalArgumentException("Speed multiplier must be positive");
+        }
+        Double previous = governorMultipliers.put(instanceId, multiplier);
+        if (previous == null || previous != multiplier) {
+            propagateToThreads(instanceId, getEffectiveSpeedMultiplier(instanceId));
+            logger.fine(String.format("Instance #%d governed speed set to %.2fx", instanceId, multiplier));
+        }
+    }
+
+    /**
+     * Drop the governor override and return to the user-set multiplier.
+     *
+     * @param instanceId Instance ID
+     */
+    public void clearGovernorMultiplier(int instanceId) {
+        if (governorMultipliers.remove(instanceId) != null) {
+            propagateToThreads(instanceId, getEffectiveSpeedMultiplier(instanceId));
+        }
+    }
+
+    /**
+     * Cap the multiplier of an instance while it is in background mode.
+     *
+     * @param instanceId Instance ID
+     * @param multiplier Speed multiplier, must be positive
+     */
+    public void setBackgroundMultiplier(int instanceId, double multiplier) {
+        if (multiplier <= 0) {
+            throw new IllegalArgumentException("Speed multiplier must be positive");
+        }
+        backgroundMultipliers.put(instanceId, multiplier);
+        propagateToThreads(instanceId, getEffectiveSpeedMultiplier(instanceId));
+    }
+
+    /**
+     * Drop the background override when the instance is shown again.
+     *
+     * @param instanceId Instance ID
+     */
+    public void clearBackgroundMultiplier(int instanceId) {
+        if (backgroundMultipliers.remove(instanceId) != null) {
+            propagateToThreads(instanceId, getEffectiveSpeedMultiplier(instanceId));
+        }
+    }
+
+    /**
+     * Check if the governor currently overrides the instance's speed.
+     */
+    public boolean isGoverned(int instanceId) {
+        return governorMultipliers.containsKey(instanceId);
+    }
+
+    /**
+     * Remove speed settings for an instance (on shutdown).
+     *
+     * @param instanceId Instance ID
+     */
+    public void removeInstance(int instanceId) {
+        speedMultipliers.remove(instanceId);
+        governorMultipliers.remove(instanceId);
+        backgroundMultipliers.remove(instanceId);
+        CpuGovernor.getInstance().removeInstance(instanceId);
+    }
+
+    /**
+     * Check if instance has custom speed.
+     */
+    public boolean hasCustomSpeed(int instanceId) {
+        return speedMultipliers.containsKey(instanceId);
+    }
+
+    /**
+     * Push the multiplier onto every XThread already running for this instance.
+     * Newly-created XThreads pick up the value via their constructor.
+     */
+    private void propagateToThreads(int instanceId, double multiplier) {
+        InstanceManager manager = InstanceManager.getActive();
+        if (manager == null) {
+            return;
+        }
+        EmulatorInstance instance = manager.findInstance(instanceId);
+        if (instance == null) {
+            return;
+        }
+        for (Thread t : instance.getResourceManager().getThreads()) {
+            if (t instanceof XThread) {
+                ((XThread) t).setSpeedMultiplier(multiplier);
+            }
+        }
+    }
+}
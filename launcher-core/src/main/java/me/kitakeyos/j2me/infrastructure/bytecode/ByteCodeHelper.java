@@ -17,6 +17,23 @@ public class ByteCodeHelper {
         return klass.getName().replace('.', '/');
     }
 
+    /**
+     * Descriptor of the static XThread counterpart of a Thread method that
+     * must act on the thread running the body (isAlive, join, getState): the
+     * receiver becomes the first argument, so the call is rewritten in place
+     * without changing the stack.
+     *
+     * @param name Name of the invoked Thread method
+     * @param desc Descriptor of the invoked Thread method
+     * @return The static descriptor, or null if the method has no counterpart
+     */
+    public static String threadStateCallDescriptor(String name, String desc) {
+        boolean known = (name.equals("isAlive") && desc.equals("()Z"))
+                || (name.equals("join") && (desc.equals("()V") || desc.equals("(J)V") || desc.equals("(JI)V")))
+                || (name.equals("getState") && desc.equals("()Ljava/lang/Thread$State;"));
+        return known ? "(Ljava/lang/Thread;" + desc.substring(1) : null;
+    }
+
     /**
      * Convert Java class name string to internal bytecode format.
      * Example: "java.lang.String" → "java/lang/String"
@@ -0,0 +1,105 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * ASM ClassVisitor that injects cooperative cancellation checkpoints into
+ * J2ME app classes.
+ *
+ * Inserts {@code SpeedHelper.checkpoint()} before every backward jump (loop
+ * back-edge) and before calls that can block: {@code Thread.sleep/join/yield},
+ * {@code Object.wait}, {@code Connector.open*} and stream reads. A MIDlet
+ * thread therefore reaches a checkpoint in bounded time whether it spins,
+ * sleeps or waits on I/O, which lets the launcher stop or suspend an instance
+ * without {@code Thread.stop()}.
+ *
+ * Must run before {@link J2meSpeedClassVisitor} so it sees the original
+ * {@code Thread.sleep} calls.
+ */
+public class CheckpointClassVisitor extends ClassAdapter {
+
+    private final ModificationTracker tracker;
+
+    public CheckpointClassVisitor(ClassVisitor cv, ModificationTracker tracker) {
+        super(cv);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc,
+            String signature, String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+        if ((access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) != 0) {
+            return mv;
+        }
+        return new CheckpointInjector(mv, tracker);
+    }
+
+    /**
+     * Check if a call may block the calling thread.
+     */
+    static boolean isBlockingCall(int opcode, String owner, String name) {
+        if (owner.equals("java/lang/Thread")) {
+            return name.equals("sleep") || name.equals("join") || name.equals("yield");
+        }
+        if (name.equals("wait") && opcode == Opcodes.INVOKEVIRTUAL) {
+            return true;
+        }
+        if (owner.equals("javax/microedition/io/Connector")) {
+            return name.startsWith("open");
+        }
+        if (owner.equals("java/io/InputStream") || owner.equals("java/io/DataInputStream")) {
+            return name.startsWith("read");
+        }
+        return false;
+    }
+
+    private static class CheckpointInjector extends MethodAdapter {
+        private final ModificationTracker tracker;
+        // Labels already emitted; a jump to one of them is a back-edge
+        private final Set<Label> visitedLabels = new HashSet<>();
+
+        CheckpointInjector(MethodVisitor mv, ModificationTracker tracker) {
+            super(mv);
+            this.tracker = tracker;
+        }
+
+        private void injectCheckpoint() {
+            // No arguments and no result: the operand stack is left untouched
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, SpeedHelperGenerator.CLASS_NAME,
+                    SpeedHelperGenerator.CHECKPOINT_METHOD, "()V");
+            tracker.setModified(true);
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            visitedLabels.add(label);
+            super.visitLabel(label);
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            // JSR targets are subroutines, not loops
+            if (opcode != Opcodes.JSR && visitedLabels.contains(label)) {
+                injectCheckpoint();
+            }
+            super.visitJumpInsn(opcode, label);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String desc) {
+            if (isBlockingCall(opcode, owner, name)) {
+                injectCheckpoint();
+            }
+            super.visitMethodInsn(opcode, owner, name, desc);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.logging.Logger;
+
+/**
+ * ASM ClassVisitor that sends a MIDlet's console output to its instance's
+ * {@link me.kitakeyos.j2me.infrastructure.console.InstanceConsole}.
+ *
+ * <p>MicroEmulator already rewrites {@code System.out}, {@code System.err} and
+ * {@code Throwable.printStackTrace()} in MIDlet classes into accesses to
+ * {@code org/microemu/Injected}. Out of the box those end in its Logger,
+ * which walks the stack for every line to find the caller and then prints to
+ * the JVM's System.out, one synchronized stream for all instances.
+ *
+ * <p>What this transform does, in {@code org/microemu/Injected} (defined per
+ * instance like every MicroEmulator class):
+ * <ul>
+ *   <li>{@code outPrintStream()} and {@code errPrintStream()}, which
+ *       initialize {@code Injected.out} and {@code Injected.err}, return the
+ *       streams of the instance's console.</li>
+ *   <li>{@code printStackTrace(Throwable)} and
+ *       {@code handleCatchThrowable(Throwable)} write the trace to the
+ *       instance's console.</li>
+ * </ul>
+ * The instance ID is baked in, so the streams are resolved once per
+ * instance, not per call.
+ */
+public class ConsoleRedirectClassVisitor extends ClassAdapter {
+
+    private static final Logger logger = Logger.getLogger(ConsoleRedirectClassVisitor.class.getName());
+
+    public static final String TARGET_CLASS = "org/microemu/Injected";
+    private static final String HANDLER_CLASS = ByteCodeHelper.toInternalName(SystemCallHandler.class);
+    private static final String STREAM_DESC = "()Ljava/io/PrintStream;";
+
+    private final int instanceId;
+    private final ModificationTracker tracker;
+    private boolean isTargetClass = false;
+
+    public ConsoleRedirectClassVisitor(ClassVisitor cv, int instanceId, ModificationTracker tracker) {
+        super(cv);
+        this.instanceId = instanceId;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature,
+            String superName, String[] interfaces) {
+        this.isTargetClass = TARGET_CLASS.equals(name);
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc,
+            String signature, String[] exceptions) {
+        if (!isTargetClass) {
+            return super.visitMethod(access, name, desc, signature, exceptions);
+        }
+        if (STREAM_DESC.equals(desc) && ("outPrintStream".equals(name) || "errPrintStream".equals(name))) {
+            // return SystemCallHandler.consoleOut(instanceId); (or consoleErr)
+            MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+            mv.visitCode();
+            mv.visitLdcInsn(instanceId);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, HANDLER_CLASS,
+                    "outPrintStream".equals(name) ? "consoleOut" : "consoleErr", "(I)Ljava/io/PrintStream;");
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(1, 0);
+            mv.visitEnd();
+            return replaced(name);
+        }
+        if ("(Ljava/lang/Throwable;)V".equals(desc) && "printStackTrace".equals(name)) {
+            // SystemCallHandler.printStackTrace(instanceId, throwable);
+            MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+            mv.visitCode();
+            emitPrintStackTrace(mv);
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(2, 1);
+            mv.visitEnd();
+            return replaced(name);
+        }
+        if ("(Ljava/lang/Throwable;)Ljava/lang/Throwable;".equals(desc) && "handleCatchThrowable".equals(name)) {
+            // SystemCallHandler.printStackTrace(instanceId, throwable); return throwable;
+            MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+            mv.visitCode();
+            emitPrintStackTrace(mv);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(2, 1);
+            mv.visitEnd();
+            return replaced(name);
+        }
+        return super.visitMethod(access, name, desc, signature, exceptions);
+    }
+
+    private void emitPrintStackTrace(MethodVisitor mv) {
+        mv.visitLdcInsn(instanceId);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, HANDLER_CLASS, "printStackTrace",
+                "(ILjava/lang/Throwable;)V");
+    }
+
+    /**
+     * The new body is written, skip the original one
+     */
+    private MethodVisitor replaced(String name) {
+        tracker.setModified(true);
+        logger.fine("Redirected console of " + TARGET_CLASS + "." + name + " to instance #" + instanceId);
+        return null;
+    }
+}
@@ -0,0 +1,185 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Generates bytecode for the DisplayAccess delegate that
+ * GraphicsOptimizationService installs between MicroEmulator and a MIDlet's
+ * display, to stop painting or drop input per instance.
+ *
+ * The delegate is defined in the instance's EmulatorClassLoader, next to
+ * the {@code org.microemu.DisplayAccess} it implements, and forwards each
+ * call with a plain interface invocation. Paint methods check only
+ * {@code paintEnabled} and input methods only {@code inputEnabled}, one
+ * volatile read each; every other method forwards unconditionally. The
+ * launcher writes the flags by reflection when the user toggles graphics
+ * or suspends the instance, which is rare, so nothing on the paint path
+ * goes through reflection, a proxy or a method-name comparison.
+ *
+ * The methods are generated from the interface as loaded, so the delegate
+ * matches whatever DisplayAccess the configured MicroEmulator declares. The
+ * generated class is equivalent to:
+ *
+ * <pre>
+ * package j2me_graphics;
+ * public class DisplayAccessDelegate implements DisplayAccess {
+ *     public final DisplayAccess target;
+ *     public volatile boolean paintEnabled = true;
+ *     public volatile boolean inputEnabled = true;
+ *
+ *     public DisplayAccessDelegate(DisplayAccess target) {
+ *         this.target = target;
+ *     }
+ *
+ *     public void paint(Graphics g) {        // also repaint, serviceRepaints
+ *         if (!paintEnabled) return;
+ *         target.paint(g);
+ *     }
+ *
+ *     public void keyPressed(int keyCode) {  // also key*, pointer*, commandAction
+ *         if (!inputEnabled) return;
+ *         target.keyPressed(keyCode);
+ *     }
+ *
+ *     public Displayable getCurrent() {      // every other method
+ *         return target.getCurrent();
+ *     }
+ * }
+ * </pre>
+ */
+public class DisplayAccessDelegateGenerator {
+
+    public static final String CLASS_NAME = "j2me_graphics/DisplayAccessDelegate";
+    public static final String BINARY_NAME = CLASS_NAME.replace('/', '.');
+    public static final String TARGET_FIELD = "target";
+    public static final String PAINT_FIELD = "paintEnabled";
+    public static final String INPUT_FIELD = "inputEnabled";
+
+    private DisplayAccessDelegateGenerator() {
+    }
+
+    /**
+     * Generate bytecode for a delegate of the given interface.
+     *
+     * @param displayAccessInterface {@code org.microemu.DisplayAccess} as
+     *                               loaded by the instance's classloader
+     */
+    public static byte[] generateClass(Class<?> displayAccessInterface) {
+        String interfaceName = Type.getInternalName(displayAccessInterface);
+        String interfaceDesc = Type.getDescriptor(displayAccessInterface);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+
+        cw.visit(Opcodes.V1_5,
+                Opcodes.ACC_PUBLIC + Opcodes.ACC_SUPER,
+                CLASS_NAME,
+                null,
+                "java/lang/Object",
+                new String[] { interfaceName });
+
+        cw.visitField(Opcodes.ACC_PUBLIC + Opcodes.ACC_FINAL, TARGET_FIELD, interfaceDesc, null, null).visitEnd();
+        cw.visitField(Opcodes.ACC_PUBLIC + Opcodes.ACC_VOLATILE, PAINT_FIELD, "Z", null, null).visitEnd();
+        cw.visitField(Opcodes.ACC_PUBLIC + Opcodes.ACC_VOLATILE, INPUT_FIELD, "Z", null, null).visitEnd();
+
+        generateConstructor(cw, interfaceDesc);
+        for (Method method : displayAccessInterface.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                generateForwarder(cw, interfaceName, interfaceDesc, method);
+            }
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Generate: public DisplayAccessDelegate(DisplayAccess target), with
+     * both flags set
+     */
+    private static void generateConstructor(ClassWriter cw, String interfaceDesc) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + interfaceDesc + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, TARGET_FIELD, interfaceDesc);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, PAINT_FIELD, "Z");
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, INPUT_FIELD, "Z");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generate one interface method: the flag guard if the method paints or
+     * takes input, then {@code return target.method(args)}
+     */
+    private static void generateForwarder(ClassWriter cw, String interfaceName, String interfaceDesc,
+            Method method) {
+        String desc = Type.getMethodDescriptor(method);
+        Type returnType = Type.getReturnType(method);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), desc, null,
+                exceptionNames(method));
+        mv.visitCode();
+
+        String guard = guardFieldOf(method.getName());
+        if (guard != null && returnType == Type.VOID_TYPE) {
+            // if (!flag) return;
+            Label proceed = new Label();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME, guard, "Z");
+            mv.visitJumpInsn(Opcodes.IFNE, proceed);
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitLabel(proceed);
+        }
+
+        // return target.method(args);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME, TARGET_FIELD, interfaceDesc);
+        int slot = 1;
+        for (Type argument : Type.getArgumentTypes(method)) {
+            mv.visitVarInsn(argument.getOpcode(Opcodes.ILOAD), slot);
+            slot += argument.getSize();
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, interfaceName, method.getName(), desc);
+        mv.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * @return The flag a method checks, or null if it always forwards
+     */
+    private static String guardFieldOf(String name) {
+        if (name.equals("paint") || name.equals("repaint") || name.equals("serviceRepaints")) {
+            return PAINT_FIELD;
+        }
+        if (name.startsWith("key") || name.startsWith("pointer") || name.equals("commandAction")) {
+            return INPUT_FIELD;
+        }
+        return null;
+    }
+
+    private static String[] exceptionNames(Method method) {
+        Class<?>[] exceptions = method.getExceptionTypes();
+        if (exceptions.length == 0) {
+            return null;
+        }
+        String[] names = new String[exceptions.length];
+        for (int i = 0; i < exceptions.length; i++) {
+            names[i] = Type.getInternalName(exceptions[i]);
+        }
+        return names;
+    }
+}
@@ -6,6 +6,8 @@ import org.objectweb.asm.MethodAdapter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -13,6 +15,15 @@ import java.util.logging.Logger;
  * 
  * Replaces Thread.sleep(millis) with a call to SpeedHelper.sleep(millis)
  * where SpeedHelper is a class we inject into the transformed JAR.
+ *
+ * Replaces Thread.currentThread() with MIDletThread.current(), which
+ * resolves to XThread.current() through MIDletThread's rebased superclass.
+ * A MIDlet thread running on a virtual thread then still sees its own
+ * thread object, so {@code while (thread == Thread.currentThread())} game
+ * loops keep running. Likewise isAlive(), join() and getState() on a thread
+ * become MIDletThread.isAlive(Thread) and so on, which act on the virtual
+ * thread running its body. MIDletThread is visible to the MIDlet
+ * classloader, XThread itself is not referenced.
  * 
  * NOTE: This visitor does NOT hardcode instanceId. SpeedHelper will get
  * the instanceId from the current Thread at runtime.
@@ -22,14 +33,27 @@ public class J2meSpeedClassVisitor extends ClassAdapter {
     private static final Logger logger = Logger.getLogger(J2meSpeedClassVisitor.class.getName());
 
     private final ModificationTracker tracker;
+    // Classes of the JAR that extend Thread, as owners of thread calls
+    private final Set<String> threadClasses;
     private String className;
 
     // The helper class we inject into the JAR
     public static final String SPEED_HELPER_CLASS = "j2me_speed_helper/SpeedHelper";
+    // MicroEmulator's thread class for MIDlets, rebased onto XThread
+    private static final String MIDLET_THREAD_CLASS = "org/microemu/app/util/MIDletThread";
 
     public J2meSpeedClassVisitor(ClassVisitor cv, ModificationTracker tracker) {
+        this(cv, tracker, Collections.<String>emptySet());
+    }
+
+    /**
+     * @param threadClasses Internal names of the JAR's classes that extend
+     *                      Thread, directly or not
+     */
+    public J2meSpeedClassVisitor(ClassVisitor cv, ModificationTracker tracker, Set<String> threadClasses) {
         super(cv);
         this.tracker = tracker;
+        this.threadClasses = threadClasses;
     }
 
     // Backwards compatibility constructor
@@ -48,7 +72,7 @@ public class J2meSpeedClassVisitor extends ClassAdapter {
     public MethodVisitor visitMethod(int access, String name, String desc,
             String signature, String[] exceptions) {
         MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
-        return new SleepInterceptor(mv, tracker, className);
+        return new SleepInterceptor(mv, tracker, className, threadClasses);
     }
 
     /**
@@ -58,11 +82,14 @@ public class J2meSpeedClassVisitor extends ClassAdapter {
 
         private final ModificationTracker tracker;
         private final String className;
+        private final Set<String> threadClasses;
 
-        public SleepInterceptor(MethodVisitor mv, ModificationTracker tracker, String className) {
+        public SleepInterceptor(MethodVisitor mv, ModificationTracker tracker, String className,
+                Set<String> threadClasses) {
             super(mv);
             this.tracker = tracker;
             this.className = className;
+            this.threadClasses = threadClasses;
         }
 
         @Override
@@ -102,6 +129,26 @@ public class J2meSpeedClassVisitor extends ClassAdapter {
                 return;
             }
 
+            // Intercept Thread.currentThread()
+            if (opcode == Opcodes.INVOKESTATIC &&
+                    owner.equals("java/lang/Thread") &&
+                    name.equals("currentThread")) {
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, MIDLET_THREAD_CLASS, "current", desc);
+                tracker.setModified(true);
+                return;
+            }
+
+            // Intercept isAlive(), join(...) and getState() on a thread
+            if (opcode == Opcodes.INVOKEVIRTUAL && (owner.equals("java/lang/Thread")
+                    || owner.equals(MIDLET_THREAD_CLASS) || threadClasses.contains(owner))) {
+                String staticDesc = ByteCodeHelper.threadStateCallDescriptor(name, desc);
+                if (staticDesc != null) {
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, MIDLET_THREAD_CLASS, name, staticDesc);
+                    tracker.setModified(true);
+                    return;
+                }
+            }
+
             // Pass through other method calls
             super.visitMethodInsn(opcode, owner, name, desc);
         }
@@ -9,6 +9,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -17,7 +21,8 @@ import java.util.logging.Logger;
 
 /**
  * Transforms J2ME JAR files by applying bytecode modifications.
- * Creates a modified copy of the JAR with Thread.sleep() calls intercepted.
+ * Creates a modified copy of the JAR with Thread.sleep() calls intercepted
+ * and cancellation checkpoints injected on loop back-edges and blocking calls.
  * 
  * The transformation is done during application installation, not at runtime.
  * The transformed JAR contains SpeedHelper class which gets instanceId from
@@ -48,6 +53,7 @@ public class JarTransformer {
 
         try (JarFile jar = new JarFile(sourceJar.toFile());
                 JarOutputStream jos = new JarOutputStream(new FileOutputStream(transformedJar.toFile()))) {
+            Set<String> threadClasses = findThreadClasses(jar);
 
             Enumeration<JarEntry> entries = jar.entries();
 
@@ -63,7 +69,7 @@ public class JarTransformer {
                     if (name.endsWith(".class")) {
                         totalClasses++;
                         // Transform class bytecode
-                        byte[] transformed = transformClass(is);
+                        byte[] transformed = transformClass(is, threadClasses);
                         if (transformed != null) {
                             jos.write(transformed);
                             transformedClasses++;
@@ -120,21 +126,60 @@ public class JarTransformer {
         logger.info("Injected SpeedHelper class into JAR");
     }
 
+    /**
+     * Find the classes of the JAR that extend Thread, directly or through
+     * other classes of the JAR. Calls on them are rewritten like calls on
+     * Thread.
+     *
+     * @return Internal names
+     */
+    static Set<String> findThreadClasses(JarFile jar) throws IOException {
+        Map<String, String> superNames = new HashMap<>();
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry entry = entries.nextElement();
+            if (!entry.getName().endsWith(".class")) {
+                continue;
+            }
+            try (InputStream is = jar.getInputStream(entry)) {
+                ClassReader cr = new ClassReader(readAllBytes(is));
+                superNames.put(cr.getClassName(), cr.getSuperName());
+            } catch (RuntimeException e) {
+                logger.fine("Unreadable class " + entry.getName() + ": " + e);
+            }
+        }
+        Set<String> threadClasses = new HashSet<>();
+        for (String name : superNames.keySet()) {
+            // Walk up within the JAR; bounded in case of a broken cycle
+            String current = superNames.get(name);
+            for (int depth = 0; current != null && depth < superNames.size(); depth++) {
+                if (current.equals("java/lang/Thread")) {
+                    threadClasses.add(name);
+                    break;
+                }
+                current = superNames.get(current);
+            }
+        }
+        return threadClasses;
+    }
+
     /**
      * Transform a single class bytecode.
      */
-    private static byte[] transformClass(InputStream classInputStream) {
+    private static byte[] transformClass(InputStream classInputStream, Set<String> threadClasses) {
         try {
             byte[] originalBytes = readAllBytes(classInputStream);
 
             ClassReader cr = new ClassReader(originalBytes);
             ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS); // Auto-compute max stack/locals
             ModificationTracker tracker = new ModificationTracker();
-            ClassVisitor cv = new J2meSpeedClassVisitor(cw, tracker);
+            // Chain: reader → CheckpointClassVisitor → J2meSpeedClassVisitor → writer
+            ClassVisitor cv = new J2meSpeedClassVisitor(cw, tracker, threadClasses);
+            cv = new CheckpointClassVisitor(cv, tracker);
             cr.accept(cv, 0);
 
             if (tracker.isModified()) {
-                logger.fine("Transformed class with Thread.sleep interception");
+                logger.fine("Transformed class with Thread.sleep interception and checkpoints");
                 return cw.toByteArray();
             } else {
                 return originalBytes; // Return original if no modifications
@@ -0,0 +1,163 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.logging.Logger;
+
+/**
+ * ASM ClassVisitor that lets the instance's media policy decide how
+ * MicroEmulator's {@code javax.microedition.media.Manager} plays sound.
+ *
+ * <p>Out of the box every sound a MIDlet loads becomes a
+ * {@code SampledAudioPlayer} or {@code MidiAudioPlayer}, each opening its own
+ * audio line or MIDI sequencer, and {@code playTone} opens a line per tone.
+ * On a server without an audio device those throw.
+ *
+ * <p>What this transform does, in {@code Manager} (defined per instance like
+ * every MicroEmulator class): prepends a call to SystemCallHandler to
+ * {@code createPlayer(InputStream, String)}, {@code createPlayer(String)}
+ * and {@code playTone(int, int, int)}, with the instance ID baked in. If the
+ * handler returns a player (or true for a tone), that is the result;
+ * otherwise the original body runs:
+ * <pre>
+ * public static Player createPlayer(InputStream stream, String type) {
+ *     Object player = SystemCallHandler.createPlayer(instanceId, stream, type);
+ *     if (player != null) return (Player) player;
+ *     // ... original body ...
+ * }
+ *
+ * public static synchronized void playTone(int note, int duration, int volume) {
+ *     if (SystemCallHandler.playTone(instanceId, note, duration, volume)) return;
+ *     // ... original body ...
+ * }
+ * </pre>
+ */
+public class MediaClassVisitor extends ClassAdapter {
+
+    private static final Logger logger = Logger.getLogger(MediaClassVisitor.class.getName());
+
+    public static final String TARGET_CLASS = "javax/microedition/media/Manager";
+    private static final String PLAYER_CLASS = "javax/microedition/media/Player";
+    private static final String HANDLER_CLASS = ByteCodeHelper.toInternalName(SystemCallHandler.class);
+    private static final String STREAM_DESC = "(Ljava/io/InputStream;Ljava/lang/String;)L" + PLAYER_CLASS + ";";
+    private static final String LOCATOR_DESC = "(Ljava/lang/String;)L" + PLAYER_CLASS + ";";
+    private static final String TONE_DESC = "(III)V";
+
+    private final int instanceId;
+    private final ModificationTracker tracker;
+    private boolean isTargetClass = false;
+
+    public MediaClassVisitor(ClassVisitor cv, int instanceId, ModificationTracker tracker) {
+        super(cv);
+        this.instanceId = instanceId;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature,
+            String superName, String[] interfaces) {
+        this.isTargetClass = TARGET_CLASS.equals(name);
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc,
+            String signature, String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+        if (!isTargetClass) {
+            return mv;
+        }
+        if ("createPlayer".equals(name) && (STREAM_DESC.equals(desc) || LOCATOR_DESC.equals(desc))) {
+            tracker.setModified(true);
+            logger.fine("Routing " + TARGET_CLASS + "." + name + desc + " of instance #" + instanceId);
+            return new CreatePlayerInjector(mv, instanceId, STREAM_DESC.equals(desc));
+        }
+        if ("playTone".equals(name) && TONE_DESC.equals(desc)) {
+            tracker.setModified(true);
+            logger.fine("Routing " + TARGET_CLASS + "." + name + desc + " of instance #" + instanceId);
+            return new PlayToneInjector(mv, instanceId);
+        }
+        return mv;
+    }
+
+    /**
+     * Prepends the handler call to one of the createPlayer methods. Local
+     * slots are the parameters: 0 stream and 1 type, or 0 locator.
+     */
+    private static class CreatePlayerInjector extends MethodAdapter {
+
+        private final int instanceId;
+        private final boolean fromStream;
+
+        CreatePlayerInjector(MethodVisitor mv, int instanceId, boolean fromStream) {
+            super(mv);
+            this.instanceId = instanceId;
+            this.fromStream = fromStream;
+        }
+
+        @Override
+        public void visitCode() {
+            mv.visitCode();
+            mv.visitLdcInsn(instanceId);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            if (fromStream) {
+                mv.visitVarInsn(Opcodes.ALOAD, 1);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, HANDLER_CLASS, "createPlayer",
+                        "(ILjava/io/InputStream;Ljava/lang/String;)Ljava/lang/Object;");
+            } else {
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, HANDLER_CLASS, "createPlayer",
+                        "(ILjava/lang/String;)Ljava/lang/Object;");
+            }
+            Label original = new Label();
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitJumpInsn(Opcodes.IFNULL, original);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, PLAYER_CLASS);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitLabel(original);
+            mv.visitInsn(Opcodes.POP);
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            mv.visitMaxs(Math.max(maxStack, 3), maxLocals);
+        }
+    }
+
+    /**
+     * Prepends the handler call to playTone. Local slots 0-2 are note,
+     * duration and volume.
+     */
+    private static class PlayToneInjector extends MethodAdapter {
+
+        private final int instanceId;
+
+        PlayToneInjector(MethodVisitor mv, int instanceId) {
+            super(mv);
+            this.instanceId = instanceId;
+        }
+
+        @Override
+        public void visitCode() {
+            mv.visitCode();
+            mv.visitLdcInsn(instanceId);
+            mv.visitVarInsn(Opcodes.ILOAD, 0);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, HANDLER_CLASS, "playTone", "(IIII)Z");
+            Label original = new Label();
+            mv.visitJumpInsn(Opcodes.IFEQ, original);
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitLabel(original);
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            mv.visitMaxs(Math.max(maxStack, 4), maxLocals);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+public class ModificationTracker {
+    private boolean modified = false;
+    private boolean rewritten = false;
+
+    public void setModified(boolean modified) {
+        this.modified = modified;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Mark a change that does not depend on the instance, so the rewritten
+     * class can still be shared between instances.
+     */
+    public void setRewritten(boolean rewritten) {
+        this.rewritten = rewritten;
+    }
+
+    public boolean isRewritten() {
+        return rewritten;
+    }
+}
@@ -0,0 +1,33 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+/**
+ * Paint rate of one instance, read by the injected paint-throttle guard in
+ * {@code SwingDisplayComponent.repaintRequest(IIII)V}.
+ *
+ * <p>The guard fetches its instance's budget once and keeps it in a static
+ * field of {@code SwingDisplayComponent}, which is defined per instance, so
+ * every later paint costs one {@code GETFIELD} of {@link #intervalMs} — no
+ * map lookup. Changing the FPS takes effect on the very next paint.
+ */
+public final class PaintBudget {
+
+    /** Minimum milliseconds between accepted paints. 0 = unlimited. */
+    public volatile long intervalMs;
+
+    public PaintBudget(int fps) {
+        setFps(fps);
+    }
+
+    public void setFps(int fps) {
+        if (fps <= 0) {
+            intervalMs = 0L; // unlimited
+        } else {
+            intervalMs = 1000L / fps;
+        }
+    }
+
+    public int getFps() {
+        long interval = intervalMs;
+        return interval <= 0 ? 0 : (int) (1000L / interval);
+    }
+}
@@ -10,19 +10,31 @@ import java.util.logging.Logger;
 
 /**
  * ASM ClassVisitor that caps the paint rate of MicroEmulator's display
- * component to 30 FPS, regardless of how fast the MIDlet's game loop runs.
+ * component to the instance's {@link PaintBudget}, regardless of how fast
+ * the MIDlet's game loop runs.
  *
  * <p>Why: with many concurrent instances, each MIDlet's {@code Canvas.repaint()}
  * funnels through {@code SwingDisplayComponent.repaintRequest(IIII)V}, which
  * does a full back-buffer render and schedules a Swing repaint on the EDT.
- * At 100 instances × 30-60 fps the EDT drowns in paint events.
+ * At 100 instances × 30-60 fps the EDT drowns in paint events. The
+ * budget differs per instance (the focused one paints faster than
+ * thumbnails, hidden ones barely at all), see PaintBudgetService.
  *
  * <p>What this transform does:
  * <ol>
  *   <li>Adds a {@code private long __lastPaintTime} field to
  *       {@code org/microemu/app/ui/swing/SwingDisplayComponent}.</li>
+ *   <li>Adds a {@code public static PaintBudget __paintBudget} field,
+ *       filled on the first paint from SystemCallHandler with the instance
+ *       ID baked in. MicroEmulator classes are defined per instance, so the
+ *       field holds this instance's budget and later paints read it
+ *       directly.</li>
  *   <li>Prepends a guard at the entry of {@code repaintRequest(IIII)V} that
- *       drops the call if {@code now - __lastPaintTime < 33 ms}.</li>
+ *       drops the call if {@code now - __lastPaintTime < budget interval}.</li>
+ *   <li>Adds a {@code public static volatile long __lastRepaintRequest} field,
+ *       stamped on every call before any guard. MicroEmulator classes are
+ *       defined per instance, so this is a per-instance paint heartbeat read
+ *       by the hang watchdog.</li>
  * </ol>
  *
  * <p>Game logic speed is unaffected — it's controlled by
@@ -33,19 +45,25 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
 
     private static final Logger logger = Logger.getLogger(PaintThrottleClassVisitor.class.getName());
 
-    private static final String TARGET_CLASS = "org/microemu/app/ui/swing/SwingDisplayComponent";
+    public static final String TARGET_CLASS = "org/microemu/app/ui/swing/SwingDisplayComponent";
+    public static final String HEARTBEAT_FIELD = "__lastRepaintRequest";
     private static final String TARGET_METHOD = "repaintRequest";
     private static final String TARGET_DESC = "(IIII)V";
     private static final String FIELD_NAME = "__lastPaintTime";
-    private static final String CONFIG_CLASS = "me/kitakeyos/j2me/infrastructure/bytecode/PaintThrottleConfig";
-    private static final String CONFIG_FIELD = "intervalMs";
+    private static final String BUDGET_FIELD = "__paintBudget";
+    private static final String CONFIG_CLASS = ByteCodeHelper.toInternalName(PaintThrottleConfig.class);
+    private static final String BUDGET_CLASS = ByteCodeHelper.toInternalName(PaintBudget.class);
+    private static final String BUDGET_DESC = "L" + BUDGET_CLASS + ";";
+    private static final String HANDLER_CLASS = ByteCodeHelper.toInternalName(SystemCallHandler.class);
 
+    private final int instanceId;
     private final ModificationTracker tracker;
     private boolean isTargetClass = false;
     private String owner;
 
-    public PaintThrottleClassVisitor(ClassVisitor cv, ModificationTracker tracker) {
+    public PaintThrottleClassVisitor(ClassVisitor cv, int instanceId, ModificationTracker tracker) {
         super(cv);
+        this.instanceId = instanceId;
         this.tracker = tracker;
     }
 
@@ -59,6 +77,11 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
         if (isTargetClass) {
             // Add: private long __lastPaintTime;
             cv.visitField(Opcodes.ACC_PRIVATE, FIELD_NAME, "J", null, null).visitEnd();
+            // Add: public static volatile long __lastRepaintRequest;
+            cv.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_VOLATILE,
+                    HEARTBEAT_FIELD, "J", null, null).visitEnd();
+            // Add: public static PaintBudget __paintBudget;
+            cv.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, BUDGET_FIELD, BUDGET_DESC, null, null).visitEnd();
             tracker.setModified(true);
             logger.info("Adding paint throttle to " + name);
         }
@@ -70,7 +93,7 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
         MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
         if (isTargetClass && TARGET_METHOD.equals(name) && TARGET_DESC.equals(desc)) {
             logger.info("Injecting throttle guard into " + owner + "." + name + desc);
-            return new ThrottleGuardInjector(mv, owner);
+            return new ThrottleGuardInjector(mv, owner, instanceId);
         }
         return mv;
     }
@@ -81,8 +104,15 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
      * <p>Equivalent source:
      * <pre>
      * void repaintRequest(int x, int y, int w, int h) {
+     *     __lastRepaintRequest = System.currentTimeMillis();
+     *     if (PaintThrottleConfig.windowMinimized) return;
      *     long now = System.currentTimeMillis();
-     *     if (now - this.__lastPaintTime &lt; 33L) return;
+     *     // ... idle check ...
+     *     PaintBudget budget = __paintBudget;
+     *     if (budget == null) {
+     *         budget = __paintBudget = SystemCallHandler.paintBudget(instanceId);
+     *     }
+     *     if (now - this.__lastPaintTime &lt; budget.intervalMs) return;
      *     this.__lastPaintTime = now;
      *     // ... original body ...
      * }
@@ -98,16 +128,24 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
     private static class ThrottleGuardInjector extends MethodAdapter {
 
         private final String owner;
+        private final int instanceId;
 
-        ThrottleGuardInjector(MethodVisitor mv, String owner) {
+        ThrottleGuardInjector(MethodVisitor mv, String owner, int instanceId) {
             super(mv);
             this.owner = owner;
+            this.instanceId = instanceId;
         }
 
         @Override
         public void visitCode() {
             mv.visitCode();
 
+            // Heartbeat: the MIDlet asked for a paint, whether or not it is drawn
+            // __lastRepaintRequest = System.currentTimeMillis();
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System",
+                    "currentTimeMillis", "()J");
+            mv.visitFieldInsn(Opcodes.PUTSTATIC, owner, HEARTBEAT_FIELD, "J");
+
             org.objectweb.asm.Label dropFrame = new org.objectweb.asm.Label();
 
             // Guard 1: launcher window minimized → drop every frame
@@ -115,26 +153,12 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
             mv.visitFieldInsn(Opcodes.GETSTATIC, CONFIG_CLASS, "windowMinimized", "Z");
             mv.visitJumpInsn(Opcodes.IFNE, dropFrame);
 
-            // Guard 2: component scrolled out of viewport
-            // Rectangle r = this.getVisibleRect();
-            // if (r.width <= 0 || r.height <= 0) return;
-            mv.visitVarInsn(Opcodes.ALOAD, 0);
-            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "javax/swing/JComponent",
-                    "getVisibleRect", "()Ljava/awt/Rectangle;");
-            mv.visitVarInsn(Opcodes.ASTORE, 5);
-            mv.visitVarInsn(Opcodes.ALOAD, 5);
-            mv.visitFieldInsn(Opcodes.GETFIELD, "java/awt/Rectangle", "width", "I");
-            mv.visitJumpInsn(Opcodes.IFLE, dropFrame);
-            mv.visitVarInsn(Opcodes.ALOAD, 5);
-            mv.visitFieldInsn(Opcodes.GETFIELD, "java/awt/Rectangle", "height", "I");
-            mv.visitJumpInsn(Opcodes.IFLE, dropFrame);
-
             // long now = System.currentTimeMillis();
             mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System",
                     "currentTimeMillis", "()J");
-            mv.visitVarInsn(Opcodes.LSTORE, 5); // reuse slot 5-6 (Rectangle ref no longer needed)
+            mv.visitVarInsn(Opcodes.LSTORE, 5);
 
-            // Guard 3: idle timeout
+            // Guard 2: idle timeout
             // long idle = PaintThrottleConfig.idleTimeoutMs;
             // if (idle > 0 && now - PaintThrottleConfig.lastActivityMs > idle) return;
             mv.visitFieldInsn(Opcodes.GETSTATIC, CONFIG_CLASS, "idleTimeoutMs", "J");
@@ -159,13 +183,26 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
 
             mv.visitLabel(afterIdle);
 
-            // Guard 4: rate limit
-            // if (now - this.__lastPaintTime < intervalMs) return;
+            // Guard 3: rate limit. Hidden instances are held to a low
+            // budget here instead of being dropped outright.
+            // if (now - this.__lastPaintTime < budget.intervalMs) return;
             mv.visitVarInsn(Opcodes.LLOAD, 5);
             mv.visitVarInsn(Opcodes.ALOAD, 0);
             mv.visitFieldInsn(Opcodes.GETFIELD, owner, FIELD_NAME, "J");
             mv.visitInsn(Opcodes.LSUB);
-            mv.visitFieldInsn(Opcodes.GETSTATIC, CONFIG_CLASS, CONFIG_FIELD, "J");
+            // PaintBudget budget = __paintBudget;
+            // if (budget == null) budget = __paintBudget = SystemCallHandler.paintBudget(instanceId);
+            org.objectweb.asm.Label haveBudget = new org.objectweb.asm.Label();
+            mv.visitFieldInsn(Opcodes.GETSTATIC, owner, BUDGET_FIELD, BUDGET_DESC);
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitJumpInsn(Opcodes.IFNONNULL, haveBudget);
+            mv.visitInsn(Opcodes.POP);
+            mv.visitLdcInsn(instanceId);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, HANDLER_CLASS, "paintBudget", "(I)" + BUDGET_DESC);
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitFieldInsn(Opcodes.PUTSTATIC, owner, BUDGET_FIELD, BUDGET_DESC);
+            mv.visitLabel(haveBudget);
+            mv.visitFieldInsn(Opcodes.GETFIELD, BUDGET_CLASS, "intervalMs", "J");
             mv.visitInsn(Opcodes.LCMP);
             org.objectweb.asm.Label proceed = new org.objectweb.asm.Label();
             mv.visitJumpInsn(Opcodes.IFGE, proceed);
@@ -185,8 +222,8 @@ public class PaintThrottleClassVisitor extends ClassAdapter {
 
         @Override
         public void visitMaxs(int maxStack, int maxLocals) {
-            // slots 5-6 used for temp (Rectangle ref or long now).
-            // Max stack: 4 for LSUB with two longs.
+            // slots 5-6 used for temp (long now).
+            // Max stack: 4 for LSUB with two longs, or a long and two budget refs.
             super.visitMaxs(Math.max(maxStack, 4), Math.max(maxLocals, 7));
         }
     }
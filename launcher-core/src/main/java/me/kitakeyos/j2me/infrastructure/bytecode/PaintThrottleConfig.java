@@ -1,12 +1,13 @@
 package me.kitakeyos.j2me.infrastructure.bytecode;
 
 /**
- * Runtime config read by the injected paint-throttle guard in
- * {@code SwingDisplayComponent.repaintRequest(IIII)V}.
+ * Launcher-wide runtime config read by the injected paint-throttle guard in
+ * {@code SwingDisplayComponent.repaintRequest(IIII)V}. The paint rate itself
+ * is per instance, see {@link PaintBudget}.
  *
- * <p>The bytecode emits a {@code GETSTATIC} against
- * {@link #intervalMs}, so mutating this field takes effect on the very next
- * paint call — no restart needed.
+ * <p>The bytecode emits a {@code GETSTATIC} against these fields, so
+ * mutating them takes effect on the very next paint call — no restart
+ * needed.
  *
  * <p>This class lives in the launcher classpath. MicroEmulator classes are
  * loaded by {@code EmulatorClassLoader} which delegates non-MIDlet classes
@@ -15,20 +16,17 @@ package me.kitakeyos.j2me.infrastructure.bytecode;
  */
 public final class PaintThrottleConfig {
 
-    /** Minimum milliseconds between accepted paints. 0 = unlimited. */
-    public static volatile long intervalMs = 33L; // 30 FPS default
-
     /**
      * When true, the injected guard drops every paint immediately. Set by
-     * MainApplication's WindowStateListener when the launcher JFrame is
-     * minimized to the taskbar — no point rendering 100 MIDlet canvases
+     * the launcher UI's WindowStateListener when its window is minimized to
+     * the taskbar — no point rendering 100 MIDlet canvases
      * the user cannot see.
      */
     public static volatile boolean windowMinimized = false;
 
     /**
      * Wall-clock timestamp of the last user input event (mouse / key) seen
-     * by MainApplication's AWT event listener. Bytecode compares against
+     * by the launcher UI's AWT event listener. Bytecode compares against
      * {@link #idleTimeoutMs} and drops paints when the launcher looks idle.
      */
     public static volatile long lastActivityMs = System.currentTimeMillis();
@@ -49,16 +47,4 @@ public final class PaintThrottleConfig {
     public static int getIdleTimeoutSeconds() {
         return (int) (idleTimeoutMs / 1000L);
     }
-
-    public static void setFps(int fps) {
-        if (fps <= 0) {
-            intervalMs = 0L; // unlimited
-        } else {
-            intervalMs = 1000L / fps;
-        }
-    }
-
-    public static int getFps() {
-        return intervalMs <= 0 ? 0 : (int) (1000L / intervalMs);
-    }
 }
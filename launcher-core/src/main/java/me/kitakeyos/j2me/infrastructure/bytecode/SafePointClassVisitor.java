@@ -0,0 +1,158 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.logging.Logger;
+
+/**
+ * ASM ClassVisitor that injects suspend safe points into the run loops of
+ * MicroEmulator's own worker threads.
+ *
+ * <p>Why: MIDlet threads park at the checkpoints injected into the MIDlet
+ * JAR when an instance is suspended, but the MIDlet timer thread and the
+ * event dispatcher thread are emulator threads that never reach one. They spin on
+ * {@code Object.wait()} and keep firing timer tasks and paint events.
+ *
+ * <p>What this transform does: prepends
+ * {@code SystemCallHandler.safePoint(instanceId)} to the head of
+ * {@code run()V} in {@code MIDletTimer} and {@code EventDispatcher}. Both
+ * loops jump back to offset 0 on every iteration, outside any monitor, so
+ * the safe point runs once per iteration without holding a lock.
+ */
+public class SafePointClassVisitor extends ClassAdapter {
+
+    private static final Logger logger = Logger.getLogger(SafePointClassVisitor.class.getName());
+
+    private static final String[] TARGET_CLASSES = {
+            "org/microemu/app/util/MIDletTimer",
+            "org/microemu/device/ui/EventDispatcher"
+    };
+    private static final String TARGET_METHOD = "run";
+    private static final String TARGET_DESC = "()V";
+    private static final String INJECTED_CLASS = ByteCodeHelper.toInternalName(SystemCallHandler.class);
+
+    private final int instanceId;
+    private final ModificationTracker tracker;
+    private boolean isTargetClass = false;
+    private String owner;
+
+    public SafePointClassVisitor(ClassVisitor cv, int instanceId, ModificationTracker tracker) {
+        super(cv);
+        this.instanceId = instanceId;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature,
+            String superName, String[] interfaces) {
+        this.owner = name;
+        this.isTargetClass = false;
+        for (String target : TARGET_CLASSES) {
+            if (target.equals(name)) {
+                isTargetClass = true;
+                break;
+            }
+        }
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc,
+            String signature, String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+        if (isTargetClass && TARGET_METHOD.equals(name) && TARGET_DESC.equals(desc)) {
+            logger.info("Injecting safe point into " + owner + "." + name + desc);
+            tracker.setModified(true);
+            return new LoopHeadInjector(mv, instanceId);
+        }
+        return mv;
+    }
+
+    /**
+     * Emits the safe point call right after the label at offset 0 (the loop
+     * head, so back-edges re-execute it), or before the first instruction if
+     * the method has no such label.
+     */
+    private static class LoopHeadInjector extends MethodAdapter {
+        private final int instanceId;
+        private boolean injected = false;
+
+        LoopHeadInjector(MethodVisitor mv, int instanceId) {
+            super(mv);
+            this.instanceId = instanceId;
+        }
+
+        private void injectOnce() {
+            if (!injected) {
+                injected = true;
+                mv.visitLdcInsn(instanceId);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, INJECTED_CLASS, "safePoint", "(I)V");
+            }
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            super.visitLabel(label);
+            injectOnce();
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            injectOnce();
+            super.visitInsn(opcode);
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            injectOnce();
+            super.visitIntInsn(opcode, operand);
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            injectOnce();
+            super.visitVarInsn(opcode, var);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            injectOnce();
+            super.visitTypeInsn(opcode, type);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+            injectOnce();
+            super.visitFieldInsn(opcode, owner, name, desc);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String desc) {
+            injectOnce();
+            super.visitMethodInsn(opcode, owner, name, desc);
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            injectOnce();
+            super.visitJumpInsn(opcode, label);
+        }
+
+        @Override
+        public void visitLdcInsn(Object cst) {
+            injectOnce();
+            super.visitLdcInsn(cst);
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            // The injected LDC needs one stack slot on an otherwise empty stack
+            super.visitMaxs(Math.max(maxStack, 1), maxLocals);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import me.kitakeyos.j2me.util.reflection.ReflectionHelper;
+
+import java.util.logging.Logger;
+
+/**
+ * Launcher-side access to the {@code control} field of the SpeedHelper class
+ * injected into a MIDlet JAR. Each instance loads its own copy of SpeedHelper
+ * through its MIDlet classloader, so flipping the field affects exactly one
+ * instance.
+ *
+ * JARs installed before the field existed have no such field; updates are
+ * then skipped and the callers fall back to interrupt-based behaviour.
+ */
+public class SpeedHelperControl {
+
+    private static final Logger logger = Logger.getLogger(SpeedHelperControl.class.getName());
+
+    private static final String HELPER_CLASS = SpeedHelperGenerator.CLASS_NAME.replace('/', '.');
+
+    private SpeedHelperControl() {
+    }
+
+    /**
+     * Park (or release) MIDlet threads at their next checkpoint.
+     *
+     * @param appClassLoader The instance's MIDlet classloader
+     * @param suspended      True to park, false to release
+     * @return true if the flag was applied
+     */
+    public static boolean setSuspended(ClassLoader appClassLoader, boolean suspended) {
+        return update(appClassLoader, SpeedHelperGenerator.CONTROL_SUSPENDED, suspended);
+    }
+
+    /**
+     * Make every MIDlet thread throw at its next checkpoint. Irreversible for
+     * the lifetime of the classloader.
+     *
+     * @param appClassLoader The instance's MIDlet classloader
+     * @return true if the flag was applied
+     */
+    public static boolean cancel(ClassLoader appClassLoader) {
+        return update(appClassLoader, SpeedHelperGenerator.CONTROL_CANCELLED, true);
+    }
+
+    private static synchronized boolean update(ClassLoader appClassLoader, int bit, boolean on) {
+        if (appClassLoader == null) {
+            return false;
+        }
+        try {
+            Class<?> helper = ReflectionHelper.loadClass(appClassLoader, HELPER_CLASS);
+            int control = (Integer) ReflectionHelper.getStaticFieldValue(helper, SpeedHelperGenerator.CONTROL_FIELD);
+            control = on ? control | bit : control & ~bit;
+            ReflectionHelper.setStaticFieldValue(helper, SpeedHelperGenerator.CONTROL_FIELD, control);
+            return true;
+        } catch (Exception e) {
+            logger.fine("SpeedHelper control not available: " + e);
+            return false;
+        }
+    }
+}
@@ -16,12 +16,22 @@ import org.objectweb.asm.Opcodes;
  * when speed != 1.0. The fast path (no override) is just {@code getName()}
  * + {@code indexOf} + one branch — no lock, no allocation, no reflection.
  *
+ * Suspension and cancellation are per instance rather than per thread. The
+ * MIDlet classloader (and therefore this class) is private to one instance,
+ * so the launcher sets the static {@code control} field by reflection (see
+ * {@link SpeedHelperControl}). {@code checkpoint()} is injected on loop
+ * back-edges and before blocking calls; its fast path is a single volatile
+ * read. The EDT is never parked or cancelled there.
+ *
  * The generated class is equivalent to:
  *
  * <pre>
  * package j2me_speed_helper;
  * public class SpeedHelper {
+ *     public static volatile int control; // 1 = suspended, 2 = cancelled
+ *
  *     public static void sleep(long millis) throws InterruptedException {
+ *         checkpoint();
  *         String name = Thread.currentThread().getName();
  *         int idx = name.indexOf(1); // '\u0001'
  *         if (idx >= 0) {
@@ -39,6 +49,25 @@ import org.objectweb.asm.Opcodes;
  *             Thread.sleep(millis);
  *         }
  *     }
+ *
+ *     public static void checkpoint() {
+ *         if (control != 0) {
+ *             checkpointSlow();
+ *         }
+ *     }
+ *
+ *     private static void checkpointSlow() {
+ *         if (EventQueue.isDispatchThread()) {
+ *             return;
+ *         }
+ *         Thread t = Thread.currentThread();
+ *         while (control == 1 && !t.isInterrupted()) {
+ *             LockSupport.parkNanos(1000000000L);
+ *         }
+ *         if ((control & 2) != 0) {
+ *             throw new Error("Instance cancelled");
+ *         }
+ *     }
  * }
  * </pre>
  */
@@ -46,6 +75,12 @@ public class SpeedHelperGenerator {
 
     public static final String CLASS_NAME = "j2me_speed_helper/SpeedHelper";
     public static final String CLASS_FILE_NAME = "j2me_speed_helper/SpeedHelper.class";
+    public static final String CONTROL_FIELD = "control";
+    public static final String CHECKPOINT_METHOD = "checkpoint";
+
+    /** Bits of the {@code control} field. */
+    public static final int CONTROL_SUSPENDED = 1;
+    public static final int CONTROL_CANCELLED = 2;
 
     /**
      * Generate bytecode for SpeedHelper class.
@@ -69,7 +104,13 @@ public class SpeedHelperGenerator {
         mv.visitMaxs(1, 1);
         mv.visitEnd();
 
+        // public static volatile int control;
+        cw.visitField(Opcodes.ACC_PUBLIC + Opcodes.ACC_STATIC + Opcodes.ACC_VOLATILE,
+                CONTROL_FIELD, "I", null, null).visitEnd();
+
         generateSleepMethod(cw);
+        generateCheckpointMethod(cw);
+        generateCheckpointSlowMethod(cw);
 
         cw.visitEnd();
         return cw.toByteArray();
@@ -97,6 +138,9 @@ public class SpeedHelperGenerator {
         Label doSleep = new Label();
         Label end = new Label();
 
+        // checkpoint();
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, CLASS_NAME, CHECKPOINT_METHOD, "()V");
+
         // String name = Thread.currentThread().getName();
         mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Thread", "currentThread", "()Ljava/lang/Thread;");
         mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Thread", "getName", "()Ljava/lang/String;");
@@ -191,4 +235,103 @@ public class SpeedHelperGenerator {
         mv.visitMaxs(4, 7);
         mv.visitEnd();
     }
+
+    /**
+     * Generate: public static void checkpoint()
+     *
+     * Hot path: one volatile read and a branch, small enough to be inlined
+     * into the loops it is injected into.
+     */
+    private static void generateCheckpointMethod(ClassWriter cw) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC + Opcodes.ACC_STATIC,
+                CHECKPOINT_METHOD,
+                "()V",
+                null,
+                null);
+        mv.visitCode();
+
+        Label end = new Label();
+
+        // if (control == 0) return;
+        mv.visitFieldInsn(Opcodes.GETSTATIC, CLASS_NAME, CONTROL_FIELD, "I");
+        mv.visitJumpInsn(Opcodes.IFEQ, end);
+
+        // checkpointSlow();
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, CLASS_NAME, "checkpointSlow", "()V");
+
+        mv.visitLabel(end);
+        mv.visitInsn(Opcodes.RETURN);
+
+        mv.visitMaxs(1, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generate: private static void checkpointSlow()
+     *
+     * Parks while the instance is suspended (the launcher unparks on resume;
+     * the one-second timeout only guards against a missed unpark), then
+     * throws if the instance was cancelled. An interrupt ends the wait so
+     * shutdown is never blocked by a suspended thread.
+     *
+     * Local slots:
+     *   0: Thread t
+     */
+    private static void generateCheckpointSlowMethod(ClassWriter cw) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PRIVATE + Opcodes.ACC_STATIC,
+                "checkpointSlow",
+                "()V",
+                null,
+                null);
+        mv.visitCode();
+
+        Label loopStart = new Label();
+        Label afterLoop = new Label();
+        Label end = new Label();
+
+        // if (EventQueue.isDispatchThread()) return;
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/awt/EventQueue", "isDispatchThread", "()Z");
+        mv.visitJumpInsn(Opcodes.IFNE, end);
+
+        // Thread t = Thread.currentThread();
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Thread", "currentThread", "()Ljava/lang/Thread;");
+        mv.visitVarInsn(Opcodes.ASTORE, 0);
+
+        // loop: if (control != 1) goto afterLoop;
+        mv.visitLabel(loopStart);
+        mv.visitFieldInsn(Opcodes.GETSTATIC, CLASS_NAME, CONTROL_FIELD, "I");
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitJumpInsn(Opcodes.IF_ICMPNE, afterLoop);
+
+        // if (t.isInterrupted()) goto afterLoop;
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Thread", "isInterrupted", "()Z");
+        mv.visitJumpInsn(Opcodes.IFNE, afterLoop);
+
+        // LockSupport.parkNanos(1000000000L);
+        mv.visitLdcInsn(Long.valueOf(1000000000L));
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/concurrent/locks/LockSupport", "parkNanos", "(J)V");
+        mv.visitJumpInsn(Opcodes.GOTO, loopStart);
+
+        mv.visitLabel(afterLoop);
+
+        // if ((control & 2) == 0) return;
+        mv.visitFieldInsn(Opcodes.GETSTATIC, CLASS_NAME, CONTROL_FIELD, "I");
+        mv.visitInsn(Opcodes.ICONST_2);
+        mv.visitInsn(Opcodes.IAND);
+        mv.visitJumpInsn(Opcodes.IFEQ, end);
+
+        // throw new Error("Instance cancelled");
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/Error");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitLdcInsn("Instance cancelled");
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Error", "<init>", "(Ljava/lang/String;)V");
+        mv.visitInsn(Opcodes.ATHROW);
+
+        mv.visitLabel(end);
+        mv.visitInsn(Opcodes.RETURN);
+
+        mv.visitMaxs(3, 1);
+        mv.visitEnd();
+    }
 }
@@ -0,0 +1,126 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * ASM ClassVisitor that makes every emulator class with static fields report
+ * them once its static initializer has run, so the instance can later be
+ * restarted on the same classloader with its static state reset.
+ *
+ * <p>What this transform does:
+ * <ol>
+ *   <li>Before each {@code RETURN} of {@code <clinit>}, calls
+ *       {@code StaticStateSnapshot.record(Class.forName(thisClass))}.
+ *       {@code Class.forName} from the initializing class itself returns it
+ *       without waiting, and works for class files older than Java 5, which
+ *       cannot load class constants.</li>
+ *   <li>Adds a {@code <clinit>} with just that call to classes that have
+ *       static fields but no initializer, so their defaults are captured
+ *       too.</li>
+ * </ol>
+ *
+ * <p>The call does not depend on the instance, so the class stays shareable
+ * between instances: the change is reported with
+ * {@link ModificationTracker#setRewritten} rather than
+ * {@link ModificationTracker#setModified}.
+ */
+public class StaticStateClassVisitor extends ClassAdapter {
+
+    private static final String RECORDER_CLASS = "me/kitakeyos/j2me/infrastructure/classloader/StaticStateSnapshot";
+    private static final String RECORDER_METHOD = "record";
+    private static final String CLINIT = "<clinit>";
+
+    private final ModificationTracker tracker;
+    private String className;
+    private boolean isInterface;
+    private boolean hasStaticFields;
+    private boolean hasClinit;
+
+    public StaticStateClassVisitor(ClassVisitor cv, ModificationTracker tracker) {
+        super(cv);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature,
+            String superName, String[] interfaces) {
+        this.className = name;
+        this.isInterface = (access & Opcodes.ACC_INTERFACE) != 0;
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+        // Static finals with a constant value are inlined and never change
+        boolean constant = (access & Opcodes.ACC_FINAL) != 0 && value != null;
+        if ((access & Opcodes.ACC_STATIC) != 0 && !constant) {
+            hasStaticFields = true;
+        }
+        return super.visitField(access, name, desc, signature, value);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc,
+            String signature, String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+        // Fields are visited before methods, so hasStaticFields is final here
+        if (CLINIT.equals(name) && !isInterface && hasStaticFields) {
+            hasClinit = true;
+            tracker.setRewritten(true);
+            return new RecordOnReturn(mv, className);
+        }
+        return mv;
+    }
+
+    @Override
+    public void visitEnd() {
+        if (!isInterface && hasStaticFields && !hasClinit) {
+            MethodVisitor mv = cv.visitMethod(Opcodes.ACC_STATIC, CLINIT, "()V", null, null);
+            mv.visitCode();
+            emitRecord(mv, className);
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(1, 0);
+            mv.visitEnd();
+            tracker.setRewritten(true);
+        }
+        super.visitEnd();
+    }
+
+    private static void emitRecord(MethodVisitor mv, String className) {
+        mv.visitLdcInsn(className.replace('/', '.'));
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Class", "forName",
+                "(Ljava/lang/String;)Ljava/lang/Class;");
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, RECORDER_CLASS, RECORDER_METHOD, "(Ljava/lang/Class;)V");
+    }
+
+    /**
+     * Inserts the record call before every return of {@code <clinit>}.
+     */
+    private static class RecordOnReturn extends MethodAdapter {
+        private final String className;
+
+        RecordOnReturn(MethodVisitor mv, String className) {
+            super(mv);
+            this.className = className;
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            if (opcode == Opcodes.RETURN) {
+                emitRecord(mv, className);
+            }
+            super.visitInsn(opcode);
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            // One more slot for the class name, then the Class
+            super.visitMaxs(maxStack + 1, maxLocals);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * MicroEmulator
+ * Copyright (C) 2006-2007 Bartek Teodorczyk <barteo@barteo.net>
+ * Copyright (C) 2006-2007 Vlad Skarzhevskyy
+ * <p>
+ * It is licensed under the following two licenses as alternatives:
+ * 1. GNU Lesser General Public License (the "LGPL") version 2.1 or any newer version
+ * 2. Apache License (the "AL") Version 2.0
+ * <p>
+ * You may not use this file except in compliance with at least one of
+ * the above two licenses.
+ * <p>
+ * You may obtain a copy of the LGPL at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.txt
+ * <p>
+ * You may obtain a copy of the AL at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the LGPL or the AL for the specific language governing permissions and
+ * limitations.
+ *
+ * @version $Id: Injected.java 1605 2008-02-25 21:07:14Z barteo $
+ */
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceSuspendService;
+import me.kitakeyos.j2me.domain.graphics.service.PaintBudgetService;
+import me.kitakeyos.j2me.domain.media.service.MediaService;
+import me.kitakeyos.j2me.domain.network.service.NetworkService;
+import me.kitakeyos.j2me.infrastructure.console.InstanceConsole;
+import me.kitakeyos.j2me.infrastructure.network.MonitoredSocket;
+import me.kitakeyos.j2me.infrastructure.thread.XThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.net.Socket;
+import java.nio.file.Paths;
+
+/**
+ * @author vlads
+ *
+ *         This code is added to MIDlet application to solve problems with
+ *         security policy while running in Applet and Webstart.
+ *         Also solves resource loading paterns commonly used in MIDlet and not
+ *         aceptable in Java SE application
+ *         The calls to this code is injected by ClassLoader or "Save for
+ *         Web...".
+ *         <p>
+ *         This class is used instead injected one when application is running
+ *         in Applet with MicroEmulator.
+ *
+ *         Serializable is just internal flag to verify tha proper class is
+ *         loaded by application.
+ */
+@SuppressWarnings("unused")
+public final class SystemCallHandler implements Serializable {
+
+    private static final long serialVersionUID = -1L;
+
+    /**
+     * We don't need to instantiate the class, all access is static
+     */
+    private SystemCallHandler() {
+
+    }
+
+    public static void exit(int instanceId, int status) {
+        InstanceManager manager = InstanceManager.getActive();
+        EmulatorInstance emulatorInstance = manager.findInstance(instanceId);
+        if (emulatorInstance != null) {
+            // The UI removes the instance's tab, then it is shut down off the EDT
+            manager.instanceExited(emulatorInstance);
+        }
+    }
+
+    public static void safePoint(int instanceId) {
+        // Parks emulator worker threads while the instance is suspended
+        InstanceSuspendService.getInstance().awaitResume(instanceId);
+    }
+
+    public static void startThread(Thread thread, int instanceId) {
+        // XThreads register themselves; plain emulator threads are attributed
+        // for CPU accounting
+        if (!(thread instanceof XThread)) {
+            EmulatorInstance emulatorInstance = InstanceManager.getActive()
+                    .findInstance(instanceId);
+            if (emulatorInstance != null) {
+                emulatorInstance.getResourceManager().addAttributedThread(thread);
+            }
+        }
+        thread.start();
+    }
+
+    public static PrintStream consoleOut(int instanceId) {
+        InstanceConsole console = consoleOf(instanceId);
+        return console != null ? console.getOut() : System.out;
+    }
+
+    public static PrintStream consoleErr(int instanceId) {
+        InstanceConsole console = consoleOf(instanceId);
+        return console != null ? console.getErr() : System.err;
+    }
+
+    public static void printStackTrace(int instanceId, Throwable throwable) {
+        InstanceConsole console = consoleOf(instanceId);
+        if (console != null) {
+            console.printStackTrace(throwable);
+        } else {
+            throwable.printStackTrace();
+        }
+    }
+
+    public static Object createPlayer(int instanceId, InputStream stream, String type) throws IOException {
+        // Null lets MicroEmulator create its own player
+        return MediaService.getInstance().createPlayer(instanceId, stream, type);
+    }
+
+    public static Object createPlayer(int instanceId, String locator) {
+        return MediaService.getInstance().createPlayer(instanceId, locator);
+    }
+
+    public static boolean playTone(int instanceId, int note, int duration, int volume) {
+        return MediaService.getInstance().playTone(instanceId, note, duration, volume);
+    }
+
+    public static PaintBudget paintBudget(int instanceId) {
+        return PaintBudgetService.getInstance().getBudget(instanceId);
+    }
+
+    private static InstanceConsole consoleOf(int instanceId) {
+        EmulatorInstance emulatorInstance = InstanceManager.getActive().findInstance(instanceId);
+        return emulatorInstance != null ? emulatorInstance.getConsole() : null;
+    }
+
+    public static File initMEHomePath(int instanceId) {
+        return Paths.get(ApplicationConfig.getActive().getDataDirectory().getPath(), ApplicationConfig.RMS_DIR,
+                String.valueOf(instanceId)).toFile();
+    }
+
+    public static Socket createSocket(int instanceId, String host, int port) throws IOException {
+        // Delegate to NetworkService for redirection, proxy, and logging
+        Socket realSocket = NetworkService.getInstance()
+                .createSocket(instanceId, host, port);
+
+        // Wrap with MonitoredSocket for packet capture
+        MonitoredSocket socket = new MonitoredSocket(
+                realSocket, instanceId, host, port);
+
+        // Track socket in emulator instance for cleanup, until it is closed
+        EmulatorInstance emulatorInstance = InstanceManager.getActive().findInstance(instanceId);
+        if (emulatorInstance != null) {
+            emulatorInstance.addSocket(socket);
+            socket.setCloseListener(() -> emulatorInstance.removeSocket(socket));
+        }
+        return socket;
+    }
+
+}
@@ -1,5 +1,6 @@
 package me.kitakeyos.j2me.infrastructure.bytecode;
 
+import me.kitakeyos.j2me.infrastructure.thread.XThread;
 import org.objectweb.asm.MethodAdapter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -13,9 +14,13 @@ public class SystemCallInterceptor extends MethodAdapter {
     private final ModificationTracker modificationTracker;
 
     private static final String INJECTED_CLASS = ByteCodeHelper.toInternalName(SystemCallHandler.class);
+    private static final String XTHREAD_CLASS = ByteCodeHelper.toInternalName(XThread.class);
+    private static final String MIDLET_THREAD_CLASS = "org/microemu/app/util/MIDletThread";
 
     // Track if we just saw NEW Socket
     private boolean foundNewSocket = false;
+    // An intercepted call pushed one extra operand (the instance ID)
+    private boolean needsExtraStack = false;
 
     public SystemCallInterceptor(MethodVisitor mv, int instanceId, ModificationTracker modificationTracker) {
         super(mv);
@@ -92,8 +97,38 @@ public class SystemCallInterceptor extends MethodAdapter {
             return;
         }
 
+        // Route Thread.start() through the handler so plain emulator threads
+        // (event dispatcher, audio, input method) are attributed to the instance
+        if (opcode == Opcodes.INVOKEVIRTUAL && owner.equals("java/lang/Thread")
+                && name.equals("start") && desc.equals("()V")) {
+            // Stack: [thread] -> [thread, instanceId]
+            mv.visitLdcInsn(instanceId);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INJECTED_CLASS, "startThread", "(Ljava/lang/Thread;I)V");
+            needsExtraStack = true;
+            modificationTracker.setModified(true);
+            return;
+        }
+
+        // isAlive/join/getState must see the virtual thread running an XThread body
+        if (opcode == Opcodes.INVOKEVIRTUAL
+                && (owner.equals("java/lang/Thread") || owner.equals(MIDLET_THREAD_CLASS))) {
+            String staticDesc = ByteCodeHelper.threadStateCallDescriptor(name, desc);
+            if (staticDesc != null) {
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, XTHREAD_CLASS, name, staticDesc);
+                modificationTracker.setModified(true);
+                return;
+            }
+        }
+
         // Handle System.exit
         if (opcode == Opcodes.INVOKESTATIC) {
+            // An XThread body on a virtual thread must still see its XThread
+            if (name.equals("currentThread") && owner.equals("java/lang/Thread")) {
+                mv.visitMethodInsn(opcode, XTHREAD_CLASS, "current", desc);
+                modificationTracker.setModified(true);
+                return;
+            }
+
             if ((name.equals("exit")) && (owner.equals("java/lang/System"))) {
                 mv.visitLdcInsn(instanceId);
                 mv.visitInsn(Opcodes.SWAP);
@@ -112,4 +147,10 @@ public class SystemCallInterceptor extends MethodAdapter {
 
         mv.visitMethodInsn(opcode, owner, name, desc);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        // Classes are written without COMPUTE_MAXS
+        super.visitMaxs(needsExtraStack ? maxStack + 1 : maxStack, maxLocals);
+    }
+}
@@ -26,8 +26,12 @@
  */
 package me.kitakeyos.j2me.infrastructure.classloader;
 
+import me.kitakeyos.j2me.infrastructure.bytecode.ConsoleRedirectClassVisitor;
 import me.kitakeyos.j2me.infrastructure.bytecode.InstrumentationClassVisitor;
+import me.kitakeyos.j2me.infrastructure.bytecode.MediaClassVisitor;
 import me.kitakeyos.j2me.infrastructure.bytecode.PaintThrottleClassVisitor;
+import me.kitakeyos.j2me.infrastructure.bytecode.SafePointClassVisitor;
+import me.kitakeyos.j2me.infrastructure.bytecode.StaticStateClassVisitor;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -66,13 +70,21 @@ public class ClassPreprocessor {
 			ClassReader cr = new ClassReader(originalBytes);
 			ClassWriter cw = new ClassWriter(0);
 			me.kitakeyos.j2me.infrastructure.bytecode.ModificationTracker tracker = new me.kitakeyos.j2me.infrastructure.bytecode.ModificationTracker();
-			// Chain: reader → InstrumentationClassVisitor → PaintThrottleClassVisitor → writer
-			ClassVisitor cv = new PaintThrottleClassVisitor(cw, tracker);
+			// Chain: reader → MediaClassVisitor → ConsoleRedirectClassVisitor → InstrumentationClassVisitor
+			// → SafePointClassVisitor → PaintThrottleClassVisitor → StaticStateClassVisitor → writer
+			ClassVisitor cv = new StaticStateClassVisitor(cw, tracker);
+			cv = new PaintThrottleClassVisitor(cv, instanceId, tracker);
+			cv = new SafePointClassVisitor(cv, instanceId, tracker);
 			cv = new InstrumentationClassVisitor(cv, instanceId, tracker);
+			cv = new ConsoleRedirectClassVisitor(cv, instanceId, tracker);
+			cv = new MediaClassVisitor(cv, instanceId, tracker);
 			cr.accept(cv, 0);
 
 			if (tracker.isModified()) {
 				return new InstrumentationResult(cw.toByteArray(), true);
+			} else if (tracker.isRewritten()) {
+				// Instance independent, can still be shared
+				return new InstrumentationResult(cw.toByteArray(), false);
 			} else {
 				return new InstrumentationResult(originalBytes, false);
 			}
@@ -9,6 +9,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,6 +21,8 @@ import java.util.logging.Logger;
  * - Reverse delegation (loads MIDlet classes before system classes)
  * - Bytecode instrumentation via ASM
  * - Shared instrumented bytecode cache across instances
+ * - Snapshot of static state after class initialization, to restart an
+ *   instance on the same classloader
  *
  * @author vlads
  */
@@ -31,6 +34,7 @@ public class EmulatorClassLoader extends URLClassLoader {
     private static final Map<String, byte[]> sharedBytecodeCache = new ConcurrentHashMap<>();
 
     private final int instanceId;
+    private final StaticStateSnapshot staticState = new StaticStateSnapshot(this);
 
     /**
      * Clear the shared bytecode cache.
@@ -63,6 +67,33 @@ public class EmulatorClassLoader extends URLClassLoader {
         return instanceId;
     }
 
+    /**
+     * Get the static state of the classes initialized so far, as it was right
+     * after their static initializers
+     */
+    public StaticStateSnapshot getStaticState() {
+        return staticState;
+    }
+
+    /**
+     * Define a class generated by the launcher in this classloader, so it can
+     * implement the emulator's own types, or return it if already defined.
+     *
+     * @param generator Produces the bytecode, only called if the class is not
+     *                  defined yet
+     */
+    public Class<?> defineGeneratedClass(String name, Supplier<byte[]> generator) {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null) {
+                byte[] bytecode = generator.get();
+                loadedClass = defineClass(name, bytecode, 0, bytecode.length);
+                logger.fine("Defined generated class " + name + " for instance #" + instanceId);
+            }
+            return loadedClass;
+        }
+    }
+
     /**
      * Appends the Class Location URL to the list of URLs to search for classes and
      * resources.
@@ -185,7 +216,7 @@ public class EmulatorClassLoader extends URLClassLoader {
                 throw new ClassNotFoundException(name);
             }
 
-            // If not modified, save to shared RAM cache
+            // If instance independent, save to shared RAM cache
             if (!result.isModified) {
                 sharedBytecodeCache.put(name, result.bytecode);
             }
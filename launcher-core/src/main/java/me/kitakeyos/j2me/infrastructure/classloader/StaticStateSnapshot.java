@@ -0,0 +1,183 @@
+package me.kitakeyos.j2me.infrastructure.classloader;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Static state of the classes defined by one {@link EmulatorClassLoader}, as
+ * it was when each class finished its static initializer. Restoring it puts
+ * the emulator back where a fresh classloader would start, without defining
+ * and instrumenting its classes again, so an instance can be restarted on
+ * the same classloader.
+ * <p>
+ * Each class calls {@link #record} at the end of {@code <clinit>}; the call
+ * is injected by
+ * {@link me.kitakeyos.j2me.infrastructure.bytecode.StaticStateClassVisitor}.
+ * Values are kept one level deep: arrays, collections and maps referenced
+ * by a static field get their contents back, and so do the fields of
+ * emulator objects referenced by a static field (singletons, registries).
+ * Static final fields cannot be written, only the contents of what they
+ * reference are restored.
+ */
+public class StaticStateSnapshot {
+
+    private static final Logger logger = Logger.getLogger(StaticStateSnapshot.class.getName());
+
+    private final ClassLoader owner;
+    private final List<FieldState> fields = new ArrayList<>();
+    private int classCount;
+
+    StaticStateSnapshot(ClassLoader owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Capture the static fields of a class that has just been initialized.
+     * Called by instrumented bytecode at the end of {@code <clinit>}.
+     */
+    public static void record(Class<?> type) {
+        if (type.getClassLoader() instanceof EmulatorClassLoader) {
+            ((EmulatorClassLoader) type.getClassLoader()).getStaticState().capture(type);
+        }
+    }
+
+    private void capture(Class<?> type) {
+        List<FieldState> captured = new ArrayList<>();
+        try {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    captureField(field, null, true, captured);
+                }
+            }
+        } catch (LinkageError | RuntimeException e) {
+            // A field type that cannot be resolved; the class is left out
+            logger.log(Level.FINE, "Cannot capture static state of " + type.getName(), e);
+            return;
+        }
+        synchronized (this) {
+            fields.addAll(captured);
+            classCount++;
+        }
+    }
+
+    /**
+     * @param expand Also capture the fields of an emulator object the field
+     *               references
+     */
+    private void captureField(Field field, Object holder, boolean expand, List<FieldState> captured) {
+        try {
+            field.setAccessible(true);
+            Object value = field.get(holder);
+            captured.add(new FieldState(field, holder, value, copyContents(value)));
+            if (expand && value != null && !value.getClass().isArray() && value.getClass().getClassLoader() == owner) {
+                for (Class<?> c = value.getClass(); c != null && c.getClassLoader() == owner; c = c.getSuperclass()) {
+                    for (Field instanceField : c.getDeclaredFields()) {
+                        if (!Modifier.isStatic(instanceField.getModifiers())) {
+                            captureField(instanceField, value, false, captured);
+                        }
+                    }
+                }
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            logger.fine("Cannot capture " + field + ": " + e);
+        }
+    }
+
+    /**
+     * @return A copy of the elements of an array, collection or map, else
+     *         null
+     */
+    private static Object copyContents(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        if (value instanceof Map) {
+            return new LinkedHashMap<>((Map<?, ?>) value);
+        }
+        return null;
+    }
+
+    /**
+     * Put every captured field back to its value after {@code <clinit>}.
+     * No code of the classloader may run meanwhile.
+     *
+     * @return true if every field could be restored
+     */
+    public synchronized boolean restore() {
+        boolean complete = true;
+        for (FieldState state : fields) {
+            complete &= state.restore();
+        }
+        logger.fine(String.format("Restored %d static field(s) of %d class(es)%s", fields.size(), classCount,
+                complete ? "" : ", some failed"));
+        return complete;
+    }
+
+    /**
+     * @return Number of classes whose static state was captured
+     */
+    public synchronized int getClassCount() {
+        return classCount;
+    }
+
+    private static final class FieldState {
+        private final Field field;
+        private final Object holder;
+        private final Object value;
+        private final Object contents;
+
+        private FieldState(Field field, Object holder, Object value, Object contents) {
+            this.field = field;
+            this.holder = holder;
+            this.value = value;
+            this.contents = contents;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private boolean restore() {
+            try {
+                Object current = field.get(holder);
+                boolean same = field.getType().isPrimitive() ? current.equals(value) : current == value;
+                if (!same) {
+                    field.set(holder, value);
+                }
+                if (contents == null) {
+                    return true;
+                }
+                if (contents.getClass().isArray()) {
+                    System.arraycopy(contents, 0, value, 0, Array.getLength(contents));
+                } else if (contents instanceof Collection) {
+                    // Only touch changed ones, unmodifiable collections cannot be
+                    if (!new ArrayList<>((Collection) value).equals(contents)) {
+                        ((Collection) value).clear();
+                        ((Collection) value).addAll((Collection) contents);
+                    }
+                } else if (!value.equals(contents)) {
+                    ((Map) value).clear();
+                    ((Map) value).putAll((Map) contents);
+                }
+                return true;
+            } catch (IllegalAccessException | RuntimeException e) {
+                logger.fine("Cannot restore " + field + ": " + e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package me.kitakeyos.j2me.infrastructure.console;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Copies new console lines of every instance, on one background thread, to
+ * rotating per-instance files and optionally to the JVM console. MIDlet
+ * threads only ever touch their ring buffer; the files and System.out are
+ * written here alone, in batches. Both outputs are off by default, the
+ * buffers can still be read in the UI.
+ * <p>
+ * Files are {@code <directory>/<instance ID>/console.log}, renamed to
+ * {@code console.log.1}, {@code .2}, ... once they reach the size limit.
+ */
+public class ConsoleDrainer {
+
+    private static final Logger logger = Logger.getLogger(ConsoleDrainer.class.getName());
+    private static final ConsoleDrainer INSTANCE = new ConsoleDrainer();
+
+    private static final long DRAIN_INTERVAL_MS = 250;
+    private static final String FILE_NAME = "console.log";
+
+    private final Map<InstanceConsole, Sink> sinks = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    private volatile boolean echo;
+    private volatile boolean spill;
+    private volatile File directory;
+    private volatile long maxFileBytes = 1024 * 1024;
+    private volatile int maxFiles = 3;
+
+    private ConsoleDrainer() {
+    }
+
+    public static ConsoleDrainer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Apply the console settings of a configuration to consoles created from
+     * now on and to the drainer
+     */
+    public void configure(ApplicationConfig config) {
+        InstanceConsole.setDefaultCapacity(config.getConsoleBufferLines());
+        setEcho(config.isConsoleEchoEnabled());
+        setSpill(config.isConsoleSpillEnabled(), new File(config.getDataDirectory(), ApplicationConfig.LOGS_DIR),
+                config.getConsoleMaxFileKb() * 1024L, config.getConsoleMaxFiles());
+    }
+
+    /**
+     * Also print every line to the JVM's System.out, prefixed with the
+     * instance ID
+     */
+    public void setEcho(boolean echo) {
+        this.echo = echo;
+    }
+
+    /**
+     * Write every line to rotating files
+     *
+     * @param directory    Parent of the per-instance directories
+     * @param maxFileBytes Size at which a file is rotated
+     * @param maxFiles     Files kept per instance, including the current one
+     */
+    public void setSpill(boolean enabled, File directory, long maxFileBytes, int maxFiles) {
+        this.directory = directory;
+        this.maxFileBytes = Math.max(4096, maxFileBytes);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.spill = enabled && directory != null;
+    }
+
+    /**
+     * Start draining a console. Lines it already holds are drained too.
+     */
+    public synchronized void register(InstanceConsole console) {
+        sinks.putIfAbsent(console, new Sink(console));
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "console-drainer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::drainAll, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Drain a console one last time and close its file, in the background
+     */
+    public synchronized void unregister(InstanceConsole console) {
+        Sink sink = sinks.remove(console);
+        if (sink != null && executor != null) {
+            executor.execute(() -> {
+                drain(sink);
+                sink.close();
+            });
+        }
+    }
+
+    private void drainAll() {
+        for (Sink sink : sinks.values()) {
+            try {
+                drain(sink);
+            } catch (RuntimeException e) {
+                logger.warning("Error draining console of instance #" + sink.console.getInstanceId() + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private void drain(Sink sink) {
+        boolean toConsole = echo;
+        boolean toFile = spill;
+        if (!toConsole && !toFile) {
+            // Nothing to copy to; viewers read the buffer themselves
+            sink.cursor = Math.max(sink.cursor, sink.console.getLineCount() - sink.console.getCapacity());
+            sink.close();
+            return;
+        }
+
+        // The whole buffer at most, so one pass always catches up
+        List<ConsoleLine> lines = new ArrayList<>();
+        long from = sink.cursor;
+        sink.cursor = sink.console.read(from, lines, sink.console.getCapacity());
+        long dropped = sink.cursor - from - lines.size();
+        if (lines.isEmpty() && dropped == 0) {
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        if (dropped > 0) {
+            text.append("... ").append(dropped).append(" lines dropped\n");
+        }
+        for (ConsoleLine line : lines) {
+            text.append(sink.timeFormat.format(new Date(line.getTimestamp())))
+                    .append(line.isError() ? " E " : "   ")
+                    .append(line.getText()).append('\n');
+        }
+        if (toFile) {
+            sink.write(text);
+        }
+        if (toConsole) {
+            String prefix = "[#" + sink.console.getInstanceId() + "] ";
+            StringBuilder echoed = new StringBuilder(text.length() + lines.size() * prefix.length());
+            int start = 0;
+            int newline;
+            while ((newline = text.indexOf("\n", start)) >= 0) {
+                echoed.append(prefix).append(text, start, newline + 1);
+                start = newline + 1;
+            }
+            System.out.print(echoed);
+        }
+    }
+
+    /**
+     * Drain state of one console, only used on the drainer thread
+     */
+    private class Sink {
+        final InstanceConsole console;
+        final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+        long cursor;
+        Writer writer;
+        long written;
+
+        Sink(InstanceConsole console) {
+            this.console = console;
+        }
+
+        void write(CharSequence text) {
+            try {
+                if (writer == null) {
+                    open();
+                }
+                writer.append(text);
+                writer.flush();
+                written += text.length();
+                if (written >= maxFileBytes) {
+                    close();
+                    rotate();
+                }
+            } catch (IOException e) {
+                logger.warning("Cannot write console file of instance #" + console.getInstanceId() + ": "
+                        + e.getMessage());
+                close();
+            }
+        }
+
+        private File instanceDirectory() {
+            return new File(directory, String.valueOf(console.getInstanceId()));
+        }
+
+        private void open() throws IOException {
+            File dir = instanceDirectory();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            File file = new File(dir, FILE_NAME);
+            written = file.length();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true),
+                    StandardCharsets.UTF_8));
+        }
+
+        private void rotate() {
+            File dir = instanceDirectory();
+            File oldest = new File(dir, FILE_NAME + "." + (maxFiles - 1));
+            if (oldest.exists() && !oldest.delete()) {
+                logger.warning("Cannot delete " + oldest);
+            }
+            for (int i = maxFiles - 2; i >= 0; i--) {
+                File from = new File(dir, i == 0 ? FILE_NAME : FILE_NAME + "." + i);
+                if (from.exists() && !from.renameTo(new File(dir, FILE_NAME + "." + (i + 1)))) {
+                    logger.warning("Cannot rotate " + from);
+                }
+            }
+            File current = new File(dir, FILE_NAME);
+            if (maxFiles == 1 && current.exists() && !current.delete()) {
+                logger.warning("Cannot delete " + current);
+            }
+        }
+
+        void close() {
+            if (writer == null) {
+                return;
+            }
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.fine("Error closing console file: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package me.kitakeyos.j2me.infrastructure.console;
+
+/**
+ * One line a MIDlet wrote to System.out or System.err
+ */
+public final class ConsoleLine {
+
+    private final long sequence;
+    private final long timestamp;
+    private final boolean error;
+    private final String text;
+
+    ConsoleLine(long sequence, long timestamp, boolean error, String text) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.error = error;
+        this.text = text;
+    }
+
+    /**
+     * Position of the line in the instance's output, starting at 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return true if the line was written to System.err
+     */
+    public boolean isError() {
+        return error;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,257 @@
+package me.kitakeyos.j2me.infrastructure.console;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * The System.out or System.err a MIDlet sees. Unlike {@link PrintStream},
+ * nothing here synchronizes: complete lines go straight into the instance's
+ * ring buffer, and a line that is printed in pieces is collected per thread
+ * until its newline.
+ * <p>
+ * Raw bytes (write, or a Writer wrapped around the stream) are collected
+ * per thread too and decoded with the platform charset, like
+ * {@link PrintStream} encodes, once their line is complete, so a character
+ * split across writes is decoded whole.
+ */
+class ConsolePrintStream extends PrintStream {
+
+    /**
+     * A partial line this long is stored without waiting for its newline
+     */
+    private static final int MAX_PENDING_CHARS = 8192;
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    };
+
+    private final ConsoleRingBuffer buffer;
+    private final boolean error;
+    private final ThreadLocal<StringBuilder> pending = ThreadLocal.withInitial(StringBuilder::new);
+    private final ThreadLocal<ByteArrayOutputStream> pendingBytes = ThreadLocal.withInitial(ByteArrayOutputStream::new);
+    private final Charset charset = Charset.defaultCharset();
+
+    ConsolePrintStream(ConsoleRingBuffer buffer, boolean error) {
+        super(DISCARD);
+        this.buffer = buffer;
+        this.error = error;
+    }
+
+    /**
+     * Append text that may contain any number of line breaks
+     */
+    void text(String s) {
+        drainBytes();
+        append(s);
+    }
+
+    private void append(String s) {
+        StringBuilder partial = pending.get();
+        int start = 0;
+        int newline;
+        while ((newline = s.indexOf('\n', start)) >= 0) {
+            int end = newline > start && s.charAt(newline - 1) == '\r' ? newline - 1 : newline;
+            if (partial.length() > 0) {
+                partial.append(s, start, end);
+                buffer.add(error, partial.toString());
+                partial.setLength(0);
+            } else {
+                buffer.add(error, s.substring(start, end));
+            }
+            start = newline + 1;
+        }
+        if (start < s.length()) {
+            partial.append(s, start, s.length());
+            if (partial.length() >= MAX_PENDING_CHARS) {
+                buffer.add(error, partial.toString());
+                partial.setLength(0);
+            }
+        }
+    }
+
+    private void line(String s) {
+        drainBytes();
+        StringBuilder partial = pending.get();
+        if (partial.length() == 0 && s.indexOf('\n') < 0) {
+            buffer.add(error, s);
+        } else {
+            text(s);
+            text("\n");
+        }
+    }
+
+    @Override
+    public void print(boolean b) {
+        text(String.valueOf(b));
+    }
+
+    @Override
+    public void print(char c) {
+        text(String.valueOf(c));
+    }
+
+    @Override
+    public void print(int i) {
+        text(String.valueOf(i));
+    }
+
+    @Override
+    public void print(long l) {
+        text(String.valueOf(l));
+    }
+
+    @Override
+    public void print(float f) {
+        text(String.valueOf(f));
+    }
+
+    @Override
+    public void print(double d) {
+        text(String.valueOf(d));
+    }
+
+    @Override
+    public void print(char[] s) {
+        text(new String(s));
+    }
+
+    @Override
+    public void print(String s) {
+        text(String.valueOf(s));
+    }
+
+    @Override
+    public void print(Object obj) {
+        text(String.valueOf(obj));
+    }
+
+    @Override
+    public void println() {
+        line("");
+    }
+
+    @Override
+    public void println(boolean x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void println(char x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void println(int x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void println(long x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void println(float x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void println(double x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void println(char[] x) {
+        line(new String(x));
+    }
+
+    @Override
+    public void println(String x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void println(Object x) {
+        line(String.valueOf(x));
+    }
+
+    @Override
+    public void write(int b) {
+        ByteArrayOutputStream bytes = pendingBytes.get();
+        bytes.write(b);
+        if (b == '\n' || bytes.size() >= MAX_PENDING_CHARS) {
+            decode(bytes);
+        }
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+        ByteArrayOutputStream bytes = pendingBytes.get();
+        int start = off;
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (buf[i] == '\n') {
+                bytes.write(buf, start, i + 1 - start);
+                decode(bytes);
+                start = i + 1;
+            }
+        }
+        bytes.write(buf, start, end - start);
+        if (bytes.size() >= MAX_PENDING_CHARS) {
+            decode(bytes);
+        }
+    }
+
+    /**
+     * Decode the collected bytes of this thread as text. A newline byte
+     * cannot be part of a multi-byte character in the charsets a JVM uses
+     * by default, so complete lines decode whole; only a line cut at
+     * {@link #MAX_PENDING_CHARS} may split one.
+     */
+    private void decode(ByteArrayOutputStream bytes) {
+        String s = new String(bytes.toByteArray(), charset);
+        bytes.reset();
+        append(s);
+    }
+
+    /**
+     * Move bytes this thread wrote without a newline ahead of its next text,
+     * keeping the order of mixed byte and text output
+     */
+    private void drainBytes() {
+        ByteArrayOutputStream bytes = pendingBytes.get();
+        if (bytes.size() > 0) {
+            decode(bytes);
+        }
+    }
+
+    @Override
+    public PrintStream format(String format, Object... args) {
+        text(String.format(format, args));
+        return this;
+    }
+
+    @Override
+    public PrintStream format(Locale l, String format, Object... args) {
+        text(String.format(l, format, args));
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean checkError() {
+        return false;
+    }
+}
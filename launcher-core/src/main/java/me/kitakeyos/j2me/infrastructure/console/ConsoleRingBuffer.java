@@ -0,0 +1,76 @@
+package me.kitakeyos.j2me.infrastructure.console;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring of console lines for any number of writers. Writers never
+ * block and never wait for readers: each claims the next sequence number and
+ * stores its line in that slot, replacing the line one capacity older.
+ * Readers keep their own cursor and tell from the sequence numbers which
+ * lines were overwritten before they got to them.
+ */
+public class ConsoleRingBuffer {
+
+    private final AtomicReferenceArray<ConsoleLine> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * @param capacity Lines kept, rounded up to a power of two
+     */
+    public ConsoleRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Sequence number the next line will get, i.e. the number of lines
+     * written so far
+     */
+    public long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    public void add(boolean error, String text) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) sequence & mask, new ConsoleLine(sequence, System.currentTimeMillis(), error, text));
+    }
+
+    /**
+     * Copy the lines from a cursor on, oldest first. Lines that were already
+     * overwritten are skipped; the reader sees them as a gap between the
+     * sequence numbers it got. Stops early at a line that was claimed but
+     * not stored yet, so lines are never returned out of order.
+     *
+     * @param from     First sequence number wanted
+     * @param into     Receives the lines
+     * @param maxLines Upper bound of lines to copy
+     * @return The cursor to pass to the next call
+     */
+    public long read(long from, List<ConsoleLine> into, int maxLines) {
+        long end = nextSequence.get();
+        long sequence = Math.max(from, end - slots.length());
+        int copied = 0;
+        for (; sequence < end && copied < maxLines; sequence++) {
+            ConsoleLine line = slots.get((int) sequence & mask);
+            if (line == null || line.getSequence() < sequence) {
+                break;
+            }
+            if (line.getSequence() == sequence) {
+                into.add(line);
+                copied++;
+            }
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,91 @@
+package me.kitakeyos.j2me.infrastructure.console;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Console of one instance: what its MIDlet writes to System.out and
+ * System.err, and the stack traces it prints, in a bounded ring buffer.
+ * Writing takes no lock, so chatty instances do not contend with each other
+ * on the JVM's System.out. {@link ConsoleDrainer} copies new lines to files
+ * or the JVM console in the background, and viewers read the buffer with
+ * their own cursor.
+ * <p>
+ * The console belongs to the instance ID and is handed over on restart: the
+ * emulator's static state keeps referencing its streams.
+ */
+public class InstanceConsole {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static volatile int defaultCapacity = DEFAULT_CAPACITY;
+
+    private final int instanceId;
+    private final ConsoleRingBuffer buffer;
+    private final ConsolePrintStream out;
+    private final ConsolePrintStream err;
+
+    /**
+     * Lines kept by consoles created from now on
+     */
+    public static void setDefaultCapacity(int capacity) {
+        defaultCapacity = Math.max(16, capacity);
+    }
+
+    public InstanceConsole(int instanceId) {
+        this(instanceId, defaultCapacity);
+    }
+
+    public InstanceConsole(int instanceId, int capacity) {
+        this.instanceId = instanceId;
+        this.buffer = new ConsoleRingBuffer(capacity);
+        this.out = new ConsolePrintStream(buffer, false);
+        this.err = new ConsolePrintStream(buffer, true);
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public PrintStream getOut() {
+        return out;
+    }
+
+    public PrintStream getErr() {
+        return err;
+    }
+
+    /**
+     * Write a throwable's stack trace to the error stream
+     */
+    public void printStackTrace(Throwable throwable) {
+        StringWriter trace = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(trace));
+        err.text(trace.toString());
+    }
+
+    /**
+     * Lines the buffer holds at most
+     */
+    public int getCapacity() {
+        return buffer.getCapacity();
+    }
+
+    /**
+     * Number of lines written since the console was created
+     */
+    public long getLineCount() {
+        return buffer.getNextSequence();
+    }
+
+    /**
+     * Copy the lines from a cursor on, see {@link ConsoleRingBuffer#read}
+     *
+     * @return The cursor to pass to the next call
+     */
+    public long read(long from, List<ConsoleLine> into, int maxLines) {
+        return buffer.read(from, into, maxLines);
+    }
+}
@@ -0,0 +1,233 @@
+package me.kitakeyos.j2me.infrastructure.headless;
+
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * Offscreen display and input of a headless instance.
+ * <p>
+ * Wraps MicroEmulator's {@code NoUiDisplayComponent}, which paints the
+ * current Displayable into a {@code BufferedImage} on the thread that asked
+ * for the repaint. No Swing component is created, so it works under
+ * {@code java.awt.headless=true}. Input is passed straight to the MIDlet's
+ * {@code DisplayAccess} as MIDP key codes and display coordinates, the same
+ * calls the Swing display makes for mouse and keyboard events.
+ * <p>
+ * All MicroEmulator classes are resolved through the instance's own
+ * classloader.
+ */
+public class HeadlessDisplay {
+
+    private static final Logger logger = Logger.getLogger(HeadlessDisplay.class.getName());
+
+    private static final String DISPLAY_COMPONENT_CLASS = "org.microemu.app.ui.noui.NoUiDisplayComponent";
+    private static final String REPAINT_LISTENER_CLASS = "org.microemu.app.ui.DisplayRepaintListener";
+    private static final String MIDLET_BRIDGE_CLASS = "org.microemu.MIDletBridge";
+    private static final String DISPLAY_ACCESS_CLASS = "org.microemu.DisplayAccess";
+
+    private final int instanceId;
+    private final Object displayComponent;
+    private final Method getDisplayImage;
+    private final Method getMIDletAccess;
+    private final Method getDisplayAccess;
+    private final Method keyPressed;
+    private final Method keyReleased;
+    private final Method keyRepeated;
+    private final Method pointerPressed;
+    private final Method pointerReleased;
+    private final Method pointerDragged;
+
+    private volatile long frameCount;
+    private volatile long lastFrameMs;
+
+    /**
+     * @param instanceId       Owning instance
+     * @param displayComponent The emulator context's NoUiDisplayComponent
+     * @param classLoader      The instance's emulator classloader
+     */
+    public HeadlessDisplay(int instanceId, Object displayComponent, ClassLoader classLoader)
+            throws ReflectiveOperationException {
+        this.instanceId = instanceId;
+        this.displayComponent = displayComponent;
+
+        Class<?> componentClass = Class.forName(DISPLAY_COMPONENT_CLASS, true, classLoader);
+        if (!componentClass.isInstance(displayComponent)) {
+            throw new IllegalArgumentException("Not a headless display component: " + displayComponent);
+        }
+        this.getDisplayImage = componentClass.getMethod("getDisplayImage");
+
+        Class<?> bridgeClass = Class.forName(MIDLET_BRIDGE_CLASS, true, classLoader);
+        this.getMIDletAccess = bridgeClass.getMethod("getMIDletAccess");
+        this.getDisplayAccess = getMIDletAccess.getReturnType().getMethod("getDisplayAccess");
+
+        Class<?> accessClass = Class.forName(DISPLAY_ACCESS_CLASS, true, classLoader);
+        this.keyPressed = accessClass.getMethod("keyPressed", int.class);
+        this.keyReleased = accessClass.getMethod("keyReleased", int.class);
+        this.keyRepeated = accessClass.getMethod("keyRepeated", int.class);
+        this.pointerPressed = accessClass.getMethod("pointerPressed", int.class, int.class);
+        this.pointerReleased = accessClass.getMethod("pointerReleased", int.class, int.class);
+        this.pointerDragged = accessClass.getMethod("pointerDragged", int.class, int.class);
+
+        // Count frames: the component fires its listener after each completed paint
+        Class<?> listenerClass = Class.forName(REPAINT_LISTENER_CLASS, true, classLoader);
+        Object listener = Proxy.newProxyInstance(classLoader, new Class<?>[]{listenerClass},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "repaintInvoked":
+                            lastFrameMs = System.currentTimeMillis();
+                            frameCount++;
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "HeadlessDisplay#" + instanceId;
+                        default:
+                            return null;
+                    }
+                });
+        componentClass.getMethod("addDisplayRepaintListener", listenerClass).invoke(displayComponent, listener);
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return Number of frames painted so far
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return Time of the last painted frame, 0 if none yet
+     */
+    public long getLastFrameMs() {
+        return lastFrameMs;
+    }
+
+    /**
+     * Copy the current frame. The MIDlet may be painting meanwhile, so the
+     * copy can mix two consecutive frames.
+     *
+     * @return Copy of the display, or null if nothing was painted yet
+     */
+    public BufferedImage captureFrame() {
+        Image image;
+        try {
+            Object mutableImage = getDisplayImage.invoke(displayComponent);
+            if (mutableImage == null) {
+                return null;
+            }
+            image = (Image) mutableImage.getClass().getMethod("getImage").invoke(mutableImage);
+        } catch (ReflectiveOperationException e) {
+            logger.warning("Cannot read display of instance #" + instanceId + ": " + e.getMessage());
+            return null;
+        }
+        if (image == null) {
+            return null;
+        }
+        BufferedImage copy = new BufferedImage(image.getWidth(null), image.getHeight(null),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics g = copy.getGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return copy;
+    }
+
+    /**
+     * Let the MIDlet save its state and stop. Used as the exit hook of a
+     * headless instance; its threads are force-stopped afterwards by the
+     * lifecycle manager.
+     */
+    public void destroy() {
+        try {
+            Object midletAccess = getMIDletAccess.invoke(null);
+            if (midletAccess != null) {
+                getMIDletAccess.getReturnType().getMethod("destroyApp", boolean.class).invoke(midletAccess, true);
+            }
+        } catch (InvocationTargetException e) {
+            logger.warning("destroyApp of instance #" + instanceId + " failed: " + e.getCause());
+        } catch (ReflectiveOperationException e) {
+            logger.warning("Cannot destroy MIDlet of instance #" + instanceId + ": " + e.getMessage());
+        }
+    }
+
+    // === Input ===
+
+    /**
+     * @param keyCode MIDP key code (e.g. {@code Canvas.KEY_NUM5}, or the
+     *                device's negative code for a soft or navigation key)
+     * @return false if no MIDlet display is available
+     */
+    public boolean keyPressed(int keyCode) {
+        return dispatch(keyPressed, keyCode);
+    }
+
+    public boolean keyReleased(int keyCode) {
+        return dispatch(keyReleased, keyCode);
+    }
+
+    public boolean keyRepeated(int keyCode) {
+        return dispatch(keyRepeated, keyCode);
+    }
+
+    /**
+     * Press and release a key.
+     */
+    public boolean keyTyped(int keyCode) {
+        return keyPressed(keyCode) && keyReleased(keyCode);
+    }
+
+    /**
+     * @param x X in display coordinates
+     * @param y Y in display coordinates
+     * @return false if no MIDlet display is available
+     */
+    public boolean pointerPressed(int x, int y) {
+        return dispatch(pointerPressed, x, y);
+    }
+
+    public boolean pointerReleased(int x, int y) {
+        return dispatch(pointerReleased, x, y);
+    }
+
+    public boolean pointerDragged(int x, int y) {
+        return dispatch(pointerDragged, x, y);
+    }
+
+    /**
+     * Deliver one event to the current MIDlet's DisplayAccess. Events are
+     * serialized per instance, like the EDT does for a windowed instance.
+     */
+    private synchronized boolean dispatch(Method method, Object... args) {
+        try {
+            Object midletAccess = getMIDletAccess.invoke(null);
+            if (midletAccess == null) {
+                return false;
+            }
+            Object displayAccess = getDisplayAccess.invoke(midletAccess);
+            if (displayAccess == null) {
+                return false;
+            }
+            method.invoke(displayAccess, args);
+            return true;
+        } catch (InvocationTargetException e) {
+            logger.warning("Input to instance #" + instanceId + " failed: " + e.getCause());
+            return false;
+        } catch (IllegalAccessException e) {
+            logger.warning("Input to instance #" + instanceId + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+}
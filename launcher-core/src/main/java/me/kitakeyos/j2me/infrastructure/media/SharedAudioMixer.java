@@ -0,0 +1,258 @@
+package me.kitakeyos.j2me.infrastructure.media;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One audio line for the sampled audio of every instance with the SHARED
+ * media policy.
+ * <p>
+ * Sounds are decoded once, when the MIDlet creates the player, to 16-bit
+ * mono PCM at {@link #FORMAT}. Playing one adds a voice, and a single
+ * "audio-mixer" thread sums the active voices into the line block by block.
+ * The line is opened on the first voice and closed again after
+ * {@link #IDLE_CLOSE_MS} of silence, so an idle launcher holds no device.
+ */
+public class SharedAudioMixer {
+
+    private static final Logger logger = Logger.getLogger(SharedAudioMixer.class.getName());
+    private static final SharedAudioMixer INSTANCE = new SharedAudioMixer();
+
+    public static final AudioFormat FORMAT = new AudioFormat(22050f, 16, 1, true, false);
+    private static final int BLOCK_FRAMES = 1024; // About 46 ms at 22050 Hz
+    private static final long IDLE_CLOSE_MS = 2000;
+
+    private final List<Voice> voices = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private Boolean available;
+    private Thread mixerThread;
+
+    private SharedAudioMixer() {
+    }
+
+    public static SharedAudioMixer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Whether the system has an output line for {@link #FORMAT}. Checked
+     * once; on servers without an audio device this is false and SHARED
+     * instances get silent players.
+     */
+    public synchronized boolean isAvailable() {
+        if (available == null) {
+            try {
+                available = AudioSystem.isLineSupported(new DataLine.Info(SourceDataLine.class, FORMAT));
+            } catch (RuntimeException | LinkageError e) {
+                available = false;
+            }
+            logger.info("Shared audio mixer " + (available ? "available" : "unavailable, playing silently"));
+        }
+        return available;
+    }
+
+    /**
+     * Decode a WAV or AU file to mixer samples.
+     *
+     * @return The samples, or null if the format cannot be converted
+     */
+    public short[] decode(byte[] data) {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new ByteArrayInputStream(data))) {
+            AudioInputStream stream = source;
+            AudioFormat format = source.getFormat();
+            if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || format.getSampleSizeInBits() != 16) {
+                // Companded or 8-bit data becomes 16-bit PCM first, resampling is a separate step
+                AudioFormat pcm = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+                stream = AudioSystem.getAudioInputStream(pcm, stream);
+            }
+            if (!FORMAT.matches(stream.getFormat())) {
+                stream = AudioSystem.getAudioInputStream(FORMAT, stream);
+            }
+            byte[] bytes = readAll(stream);
+            short[] samples = new short[bytes.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+            }
+            return samples;
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            logger.fine("Cannot decode sound for the shared mixer: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Samples of a sine tone, for {@code Manager.playTone}.
+     *
+     * @param note       MIDI note, 69 is A4 (440 Hz)
+     * @param durationMs Length of the tone
+     * @param volume     0 to 100
+     */
+    public short[] tone(int note, int durationMs, int volume) {
+        double frequency = 440.0 * Math.pow(2, (note - 69) / 12.0);
+        int frames = (int) (FORMAT.getSampleRate() * durationMs / 1000);
+        double amplitude = Short.MAX_VALUE * Math.max(0, Math.min(100, volume)) / 100.0 * 0.5;
+        short[] samples = new short[frames];
+        for (int i = 0; i < frames; i++) {
+            samples[i] = (short) (amplitude * Math.sin(2 * Math.PI * frequency * i / FORMAT.getSampleRate()));
+        }
+        return samples;
+    }
+
+    /**
+     * Start playing samples from the given frame.
+     *
+     * @return The voice, to stop it before its end
+     */
+    public Voice play(short[] samples, int fromFrame) {
+        Voice voice = new Voice(samples, fromFrame);
+        synchronized (lock) {
+            voices.add(voice);
+            if (mixerThread == null) {
+                mixerThread = new Thread(this::mixLoop, "audio-mixer");
+                mixerThread.setDaemon(true);
+                mixerThread.start();
+            }
+            lock.notifyAll();
+        }
+        return voice;
+    }
+
+    /**
+     * @return The number of voices playing now
+     */
+    public int getVoiceCount() {
+        return voices.size();
+    }
+
+    private void mixLoop() {
+        int[] mix = new int[BLOCK_FRAMES];
+        byte[] block = new byte[BLOCK_FRAMES * 2];
+        SourceDataLine line = null;
+        long lastActive = System.currentTimeMillis();
+        while (true) {
+            try {
+                if (voices.isEmpty()) {
+                    if (line != null && System.currentTimeMillis() - lastActive > IDLE_CLOSE_MS) {
+                        line.drain();
+                        line.close();
+                        line = null;
+                    }
+                    if (line == null) {
+                        synchronized (lock) {
+                            while (voices.isEmpty()) {
+                                lock.wait();
+                            }
+                        }
+                    }
+                }
+                if (line == null) {
+                    line = openLine();
+                    if (line == null) {
+                        voices.clear();
+                        continue;
+                    }
+                }
+
+                Arrays.fill(mix, 0);
+                for (Voice voice : voices) {
+                    if (voice.mixInto(mix)) {
+                        voices.remove(voice);
+                    }
+                }
+                for (int i = 0; i < BLOCK_FRAMES; i++) {
+                    int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                    block[2 * i] = (byte) sample;
+                    block[2 * i + 1] = (byte) (sample >> 8);
+                }
+                // Blocks while the line's buffer is full, which paces the loop
+                line.write(block, 0, block.length);
+                if (!voices.isEmpty()) {
+                    lastActive = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Shared audio mixer failed, restarting the line", e);
+                if (line != null) {
+                    line.close();
+                    line = null;
+                }
+                voices.clear();
+            }
+        }
+    }
+
+    private SourceDataLine openLine() {
+        try {
+            SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, BLOCK_FRAMES * 2 * 4);
+            line.start();
+            return line;
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            logger.warning("Shared audio line unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] readAll(AudioInputStream stream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[16384];
+        int read;
+        while ((read = stream.read(chunk, 0, chunk.length)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Samples being played, from a position the mixer advances.
+     */
+    public static final class Voice {
+        private final short[] samples;
+        private volatile int position;
+        private volatile boolean stopped;
+
+        private Voice(short[] samples, int position) {
+            this.samples = samples;
+            this.position = Math.max(0, position);
+        }
+
+        /**
+         * Stop the voice; the mixer drops it at its next block.
+         */
+        public void stop() {
+            stopped = true;
+        }
+
+        /**
+         * Add the next block of samples to the mix.
+         *
+         * @return true if the voice is finished
+         */
+        private boolean mixInto(int[] mix) {
+            if (stopped) {
+                return true;
+            }
+            int from = position;
+            int count = Math.min(mix.length, samples.length - from);
+            for (int i = 0; i < count; i++) {
+                mix[i] += samples[from + i];
+            }
+            position = from + Math.max(count, 0);
+            return position >= samples.length;
+        }
+    }
+}
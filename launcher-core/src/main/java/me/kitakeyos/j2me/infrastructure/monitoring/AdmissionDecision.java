@@ -0,0 +1,83 @@
+package me.kitakeyos.j2me.infrastructure.monitoring;
+
+/**
+ * Immutable result of a launch admission check, as computed by
+ * {@link MemoryAdmissionController}.
+ */
+public class AdmissionDecision {
+
+    /**
+     * Memory area that limited the decision.
+     */
+    public enum Limit {
+        NONE, HEAP, METASPACE
+    }
+
+    private final int requested;
+    private final int admitted;
+    private final Limit limit;
+    private final long projectedBytes;
+    private final long limitBytes;
+    private final long perInstanceBytes;
+
+    public AdmissionDecision(int requested, int admitted, Limit limit, long projectedBytes, long limitBytes,
+            long perInstanceBytes) {
+        this.requested = requested;
+        this.admitted = admitted;
+        this.limit = limit;
+        this.projectedBytes = projectedBytes;
+        this.limitBytes = limitBytes;
+        this.perInstanceBytes = perInstanceBytes;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return Number of the requested instances that fit under the threshold
+     */
+    public int getAdmitted() {
+        return admitted;
+    }
+
+    public boolean isFullyAdmitted() {
+        return admitted >= requested;
+    }
+
+    /**
+     * @return Memory area that limited admission, NONE if all were admitted
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return Projected usage of the limiting area if every requested
+     *         instance were started
+     */
+    public long getProjectedBytes() {
+        return projectedBytes;
+    }
+
+    /**
+     * @return Threshold of the limiting area
+     */
+    public long getLimitBytes() {
+        return limitBytes;
+    }
+
+    /**
+     * @return Modelled footprint of one instance in the limiting area
+     */
+    public long getPerInstanceBytes() {
+        return perInstanceBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdmissionDecision{admitted=%d/%d, limit=%s, projected=%d MB, threshold=%d MB, "
+                + "perInstance=%d MB}", admitted, requested, limit, projectedBytes >> 20, limitBytes >> 20,
+                perInstanceBytes >> 20);
+    }
+}
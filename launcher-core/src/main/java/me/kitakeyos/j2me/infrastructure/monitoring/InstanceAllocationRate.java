@@ -0,0 +1,52 @@
+package me.kitakeyos.j2me.infrastructure.monitoring;
+
+/**
+ * Immutable allocation-rate sample of one emulator instance, as computed by
+ * {@link InstanceCpuMonitor}.
+ */
+public class InstanceAllocationRate {
+
+    private final int instanceId;
+    private final double bytesPerSecond;
+    private final double peakBytesPerSecond;
+    private final long totalBytes;
+
+    public InstanceAllocationRate(int instanceId, double bytesPerSecond, double peakBytesPerSecond,
+            long totalBytes) {
+        this.instanceId = instanceId;
+        this.bytesPerSecond = bytesPerSecond;
+        this.peakBytesPerSecond = peakBytesPerSecond;
+        this.totalBytes = totalBytes;
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return Average allocation rate over the ring buffer window
+     */
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return Highest single-sample rate within the window
+     */
+    public double getPeakBytesPerSecond() {
+        return peakBytesPerSecond;
+    }
+
+    /**
+     * @return Bytes allocated since the instance was first sampled
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InstanceAllocationRate{id=%d, rate=%.1f KB/s, peak=%.1f KB/s, total=%d KB}",
+                instanceId, bytesPerSecond / 1024, peakBytesPerSecond / 1024, totalBytes / 1024);
+    }
+}
@@ -0,0 +1,344 @@
+package me.kitakeyos.j2me.infrastructure.monitoring;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-instance CPU and allocation accounting.
+ * <p>
+ * Once per {@link #SAMPLE_INTERVAL_MS} the CPU time and allocated bytes of
+ * every thread of each running instance are read from {@link ThreadMXBean}
+ * (allocation from {@code com.sun.management.ThreadMXBean}, where
+ * available) and the deltas since the previous sample are charged to the
+ * instance. Threads are the instance's
+ * XThreads plus the plain emulator threads attributed to it when started
+ * (see {@code SystemCallHandler.startThread}). Shared threads such as the
+ * Swing EDT cannot be attributed and are not counted. CPU a thread burns
+ * or allocates between its last sample and its termination is lost.
+ * <p>
+ * GC pressure is shared by every instance, so one instance with an
+ * allocation-heavy game loop causes pauses for all of them; allocation
+ * deltas are kept in a window of {@link #ALLOCATION_WINDOW_SAMPLES} samples
+ * to find it.
+ * <p>
+ * CPU deltas are kept in a rolling window of {@link #WINDOW_SAMPLES} samples. When
+ * a CPU budget is set, an instance whose window average exceeds it is flagged
+ * and budget listeners are notified once; the flag clears when usage drops
+ * below 90% of the budget.
+ */
+@SuppressWarnings("restriction")
+public class InstanceCpuMonitor {
+
+    private static final Logger logger = Logger.getLogger(InstanceCpuMonitor.class.getName());
+    private static final InstanceCpuMonitor INSTANCE = new InstanceCpuMonitor();
+
+    public static final long SAMPLE_INTERVAL_MS = 1000;
+    public static final int WINDOW_SAMPLES = 10;
+    public static final int ALLOCATION_WINDOW_SAMPLES = 30;
+
+    /**
+     * Listener notified when an instance crosses its CPU budget.
+     */
+    public interface BudgetListener {
+        /**
+         * Called on the sampler thread.
+         */
+        void onBudgetExceeded(InstanceCpuUsage usage);
+    }
+
+    private final ThreadMXBean threadBean;
+    private final boolean supported;
+    // Null if the JVM cannot measure per-thread allocation
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final Map<Integer, Tracker> trackers = new ConcurrentHashMap<>();
+    private final List<BudgetListener> budgetListeners = new CopyOnWriteArrayList<>();
+    private volatile Map<Integer, InstanceCpuUsage> latest = Collections.emptyMap();
+    private volatile Map<Integer, InstanceAllocationRate> latestAllocation = Collections.emptyMap();
+    private volatile double budgetPercent = 0;
+    private ScheduledExecutorService scheduler;
+
+    private InstanceCpuMonitor() {
+        this.threadBean = ManagementFactory.getThreadMXBean();
+        boolean enabled = threadBean.isThreadCpuTimeSupported();
+        if (enabled && !threadBean.isThreadCpuTimeEnabled()) {
+            try {
+                threadBean.setThreadCpuTimeEnabled(true);
+            } catch (UnsupportedOperationException | SecurityException e) {
+                enabled = false;
+            }
+        }
+        this.supported = enabled;
+
+        com.sun.management.ThreadMXBean bean = null;
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            bean = (com.sun.management.ThreadMXBean) threadBean;
+            try {
+                if (!bean.isThreadAllocatedMemorySupported()) {
+                    bean = null;
+                } else if (!bean.isThreadAllocatedMemoryEnabled()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                }
+            } catch (UnsupportedOperationException | SecurityException e) {
+                bean = null;
+            }
+        }
+        this.allocationBean = bean;
+    }
+
+    public static InstanceCpuMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return false if the JVM cannot measure per-thread CPU time
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * @return false if the JVM cannot measure per-thread allocation
+     */
+    public boolean isAllocationSupported() {
+        return allocationBean != null;
+    }
+
+    /**
+     * Start periodic sampling. Does nothing if already started or if neither
+     * CPU time nor allocation can be measured.
+     */
+    public synchronized void start() {
+        if (scheduler != null || (!supported && allocationBean == null)) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-cpu-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                sample();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "CPU sampling failed", e);
+            }
+        }, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Set the per-instance CPU budget, in percent of one core. 0 disables
+     * alerting.
+     */
+    public void setCpuBudgetPercent(double budgetPercent) {
+        this.budgetPercent = Math.max(0, budgetPercent);
+    }
+
+    public double getCpuBudgetPercent() {
+        return budgetPercent;
+    }
+
+    public void addBudgetListener(BudgetListener listener) {
+        budgetListeners.add(listener);
+    }
+
+    public void removeBudgetListener(BudgetListener listener) {
+        budgetListeners.remove(listener);
+    }
+
+    /**
+     * @return Latest usage of every sampled instance, ordered by instance ID
+     */
+    public List<InstanceCpuUsage> getUsage() {
+        List<InstanceCpuUsage> result = new ArrayList<>(latest.values());
+        result.sort((a, b) -> Integer.compare(a.getInstanceId(), b.getInstanceId()));
+        return result;
+    }
+
+    /**
+     * @return Latest usage of one instance, or null if it has not been sampled
+     */
+    public InstanceCpuUsage getUsage(int instanceId) {
+        return latest.get(instanceId);
+    }
+
+    /**
+     * @return Latest allocation rate of every sampled instance, ordered by
+     *         instance ID
+     */
+    public List<InstanceAllocationRate> getAllocationRates() {
+        List<InstanceAllocationRate> result = new ArrayList<>(latestAllocation.values());
+        result.sort((a, b) -> Integer.compare(a.getInstanceId(), b.getInstanceId()));
+        return result;
+    }
+
+    /**
+     * @return Latest allocation rate of one instance, or null if it has not
+     *         been sampled
+     */
+    public InstanceAllocationRate getAllocationRate(int instanceId) {
+        return latestAllocation.get(instanceId);
+    }
+
+    /**
+     * @param limit Maximum number of entries
+     * @return Instances with the highest window allocation rate, highest first
+     */
+    public List<InstanceAllocationRate> getTopAllocators(int limit) {
+        List<InstanceAllocationRate> result = new ArrayList<>(latestAllocation.values());
+        result.sort((a, b) -> Double.compare(b.getBytesPerSecond(), a.getBytesPerSecond()));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * @return Per-sample allocation rates (bytes/s) of the window, oldest
+     *         first; empty if the instance has not been sampled
+     */
+    public double[] getAllocationHistory(int instanceId) {
+        Tracker tracker = trackers.get(instanceId);
+        return tracker != null ? tracker.allocationWindow.history() : new double[0];
+    }
+
+    private void sample() {
+        InstanceManager manager = InstanceManager.getActive();
+        if (manager == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        double budget = budgetPercent;
+        Map<Integer, InstanceCpuUsage> next = new HashMap<>();
+        Map<Integer, InstanceAllocationRate> nextAllocation = new HashMap<>();
+        Set<Integer> live = new HashSet<>();
+
+        for (EmulatorInstance instance : manager.getRunningInstances()) {
+            int instanceId = instance.getInstanceId();
+            live.add(instanceId);
+            Tracker tracker = trackers.computeIfAbsent(instanceId, id -> new Tracker(now));
+
+            // One walk over the instance's threads for both readings
+            Map<Long, Long> cpuByThread = new HashMap<>();
+            Map<Long, Long> bytesByThread = new HashMap<>();
+            long delta = 0;
+            long allocated = 0;
+            for (Thread thread : instance.getResourceManager().getAccountedThreads()) {
+                long threadId = thread.getId();
+                // A thread seen for the first time is charged its whole
+                // lifetime: it was registered with this instance when created
+                long cpu = supported ? threadBean.getThreadCpuTime(threadId) : -1;
+                if (cpu >= 0) { // else not started yet, or already terminated
+                    Long previous = tracker.lastCpuByThread.get(threadId);
+                    delta += previous == null ? cpu : Math.max(0, cpu - previous);
+                    cpuByThread.put(threadId, cpu);
+                }
+                long bytes = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : -1;
+                if (bytes >= 0) {
+                    Long previous = tracker.lastBytesByThread.get(threadId);
+                    allocated += previous == null ? bytes : Math.max(0, bytes - previous);
+                    bytesByThread.put(threadId, bytes);
+                }
+            }
+            tracker.lastCpuByThread = cpuByThread;
+            tracker.lastBytesByThread = bytesByThread;
+
+            double percent = tracker.record(delta, allocated, now);
+            if (allocationBean != null) {
+                nextAllocation.put(instanceId, new InstanceAllocationRate(instanceId,
+                        tracker.allocationWindow.perSecond(), tracker.allocationWindow.peakPerSecond(),
+                        tracker.totalAllocatedBytes));
+            }
+            if (!supported) {
+                continue;
+            }
+            boolean crossed = false;
+            if (budget > 0 && tracker.cpuWindow.isFull()) {
+                if (!tracker.overBudget && percent > budget) {
+                    tracker.overBudget = true;
+                    crossed = true;
+                } else if (tracker.overBudget && percent < budget * 0.9) {
+                    tracker.overBudget = false;
+                }
+            } else {
+                tracker.overBudget = false;
+            }
+
+            InstanceCpuUsage usage = new InstanceCpuUsage(instanceId, percent, tracker.totalCpuNanos,
+                    cpuByThread.size(), tracker.overBudget);
+            next.put(instanceId, usage);
+
+            if (crossed) {
+                logger.warning(String.format("Instance #%d exceeds CPU budget: %.1f%% > %.1f%%",
+                        instanceId, percent, budget));
+                for (BudgetListener listener : budgetListeners) {
+                    listener.onBudgetExceeded(usage);
+                }
+            }
+        }
+
+        trackers.keySet().retainAll(live);
+        latest = Collections.unmodifiableMap(next);
+        latestAllocation = Collections.unmodifiableMap(nextAllocation);
+    }
+
+    /**
+     * Sampling state of one instance. Only touched by the sampler thread,
+     * except for reads of the windows.
+     */
+    private static class Tracker {
+        private final RateWindow cpuWindow = new RateWindow(WINDOW_SAMPLES);
+        private final RateWindow allocationWindow = new RateWindow(ALLOCATION_WINDOW_SAMPLES);
+        private long lastSampleNanos;
+        private long totalCpuNanos;
+        private long totalAllocatedBytes;
+        private boolean overBudget;
+        private boolean primed;
+        private Map<Long, Long> lastCpuByThread = new HashMap<>();
+        private Map<Long, Long> lastBytesByThread = new HashMap<>();
+
+        Tracker(long now) {
+            this.lastSampleNanos = now;
+        }
+
+        /**
+         * Record a sample and return the CPU window average in percent of
+         * one core.
+         */
+        double record(long cpuNanos, long allocatedBytes, long now) {
+            totalCpuNanos += cpuNanos;
+            totalAllocatedBytes += allocatedBytes;
+            long wall = now - lastSampleNanos;
+            lastSampleNanos = now;
+            if (!primed) {
+                // First sample: the delta covers startup, not steady state.
+                // Count it in the totals but keep it out of the windows
+                primed = true;
+                return 0;
+            }
+            cpuWindow.add(cpuNanos, wall);
+            allocationWindow.add(allocatedBytes, wall);
+            return cpuWindow.perSecond() / 1e7;
+        }
+    }
+}
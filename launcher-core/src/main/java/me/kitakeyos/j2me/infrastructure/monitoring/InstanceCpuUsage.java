@@ -0,0 +1,61 @@
+package me.kitakeyos.j2me.infrastructure.monitoring;
+
+/**
+ * Immutable CPU usage sample of one emulator instance, as computed by
+ * {@link InstanceCpuMonitor}.
+ */
+public class InstanceCpuUsage {
+
+    private final int instanceId;
+    private final double windowPercent;
+    private final long totalCpuNanos;
+    private final int threadCount;
+    private final boolean overBudget;
+
+    public InstanceCpuUsage(int instanceId, double windowPercent, long totalCpuNanos, int threadCount,
+            boolean overBudget) {
+        this.instanceId = instanceId;
+        this.windowPercent = windowPercent;
+        this.totalCpuNanos = totalCpuNanos;
+        this.threadCount = threadCount;
+        this.overBudget = overBudget;
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return Average CPU over the rolling window, in percent of one core
+     */
+    public double getWindowPercent() {
+        return windowPercent;
+    }
+
+    /**
+     * @return CPU time consumed since the instance was first sampled
+     */
+    public long getTotalCpuNanos() {
+        return totalCpuNanos;
+    }
+
+    /**
+     * @return Number of threads sampled (managed plus attributed)
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @return true if the window average exceeds the configured CPU budget
+     */
+    public boolean isOverBudget() {
+        return overBudget;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InstanceCpuUsage{id=%d, window=%.1f%%, total=%d ms, threads=%d%s}",
+                instanceId, windowPercent, totalCpuNanos / 1_000_000, threadCount, overBudget ? ", over budget" : "");
+    }
+}
@@ -0,0 +1,284 @@
+package me.kitakeyos.j2me.infrastructure.monitoring;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Heap and Metaspace admission control for new instances.
+ * <p>
+ * Every instance loads its own copy of MicroEmulator and the MIDlet through
+ * separate classloaders, so heap and Metaspace grow roughly linearly with the
+ * number of instances. Starting one instance too many pushes the JVM into
+ * back-to-back full GCs and stalls all of them.
+ * <p>
+ * The model keeps a baseline (usage with no instance running) and a smoothed
+ * per-instance footprint, learned every {@link #SAMPLE_INTERVAL_MS} from heap
+ * usage after the last GC ({@link MemoryPoolMXBean#getCollectionUsage()}) and
+ * Metaspace usage. Before a launch, usage is projected as
+ * {@code current + (starting + requested) * footprint} and compared with a
+ * threshold percentage of the heap and Metaspace maximums. Until the first
+ * measurement conservative defaults are used, and a learned footprint never
+ * drops below a floor: a GC that runs while instances sit idle can make one
+ * look almost free.
+ */
+public class MemoryAdmissionController {
+
+    private static final Logger logger = Logger.getLogger(MemoryAdmissionController.class.getName());
+    private static final MemoryAdmissionController INSTANCE = new MemoryAdmissionController();
+
+    public static final long SAMPLE_INTERVAL_MS = 5000;
+
+    // Footprint assumed before any instance has been measured
+    private static final long DEFAULT_HEAP_PER_INSTANCE = 24L << 20;
+    private static final long DEFAULT_METASPACE_PER_INSTANCE = 6L << 20;
+    // Smallest footprint the model learns, whatever was measured
+    private static final long MIN_HEAP_PER_INSTANCE = 4L << 20;
+    private static final long MIN_METASPACE_PER_INSTANCE = 2L << 20;
+    // Weight of a new measurement in the smoothed footprint
+    private static final double SMOOTHING = 0.3;
+
+    private final List<MemoryPoolMXBean> heapPools;
+    private final MemoryPoolMXBean metaspacePool;
+    private final List<GarbageCollectorMXBean> collectors;
+
+    private volatile double thresholdPercent = 85;
+    private volatile long heapPerInstance = DEFAULT_HEAP_PER_INSTANCE;
+    private volatile long metaspacePerInstance = DEFAULT_METASPACE_PER_INSTANCE;
+    private volatile boolean measured;
+    private boolean metaspaceMeasured;
+    private long heapBaseline = -1;
+    private long metaspaceBaseline = -1;
+    private long lastGcCount = -1;
+    private ScheduledExecutorService scheduler;
+
+    private MemoryAdmissionController() {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        MemoryPoolMXBean metaspace = null;
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap.add(pool);
+            } else if ("Metaspace".equals(pool.getName())) {
+                metaspace = pool;
+            }
+        }
+        this.heapPools = heap;
+        this.metaspacePool = metaspace;
+        this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    }
+
+    public static MemoryAdmissionController getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start learning the per-instance footprint. Does nothing if already
+     * started.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "memory-admission");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                sample();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Memory footprint sampling failed", e);
+            }
+        }, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * @param thresholdPercent Share of the heap and Metaspace maximums that
+     *                         projected usage may reach; 0 disables admission
+     *                         control
+     */
+    public void setThresholdPercent(double thresholdPercent) {
+        this.thresholdPercent = Math.max(0, Math.min(100, thresholdPercent));
+    }
+
+    public double getThresholdPercent() {
+        return thresholdPercent;
+    }
+
+    /**
+     * @return Modelled heap footprint of one instance, in bytes
+     */
+    public long getHeapPerInstance() {
+        return heapPerInstance;
+    }
+
+    /**
+     * @return Modelled Metaspace footprint of one instance, in bytes
+     */
+    public long getMetaspacePerInstance() {
+        return metaspacePerInstance;
+    }
+
+    /**
+     * @return true once the footprint has been measured from running
+     *         instances rather than assumed
+     */
+    public boolean isMeasured() {
+        return measured;
+    }
+
+    /**
+     * Decide how many of {@code requested} new instances may start now.
+     * Instances still starting are counted as if they were already running.
+     */
+    public AdmissionDecision check(int requested) {
+        double threshold = thresholdPercent;
+        if (threshold <= 0 || requested <= 0) {
+            return new AdmissionDecision(requested, requested, AdmissionDecision.Limit.NONE, 0, 0, 0);
+        }
+        int starting = countStartingInstances();
+
+        long heapPer = heapPerInstance;
+        long heapMax = Runtime.getRuntime().maxMemory();
+        long heapLimit = heapMax == Long.MAX_VALUE ? Long.MAX_VALUE : (long) (heapMax * threshold / 100);
+        long heapUsed = currentHeapUsage() + starting * heapPer;
+        int heapFit = fit(heapUsed, heapLimit, heapPer, requested);
+
+        long metaPer = metaspacePerInstance;
+        long metaMax = metaspacePool != null ? metaspacePool.getUsage().getMax() : -1;
+        long metaLimit = metaMax > 0 ? (long) (metaMax * threshold / 100) : Long.MAX_VALUE;
+        long metaUsed = currentMetaspaceUsage() + starting * metaPer;
+        int metaFit = fit(metaUsed, metaLimit, metaPer, requested);
+
+        int admitted = Math.min(requested, Math.min(heapFit, metaFit));
+        if (admitted >= requested) {
+            return new AdmissionDecision(requested, requested, AdmissionDecision.Limit.NONE,
+                    heapUsed + requested * heapPer, heapLimit, heapPer);
+        }
+        AdmissionDecision decision = heapFit <= metaFit
+                ? new AdmissionDecision(requested, admitted, AdmissionDecision.Limit.HEAP,
+                        heapUsed + requested * heapPer, heapLimit, heapPer)
+                : new AdmissionDecision(requested, admitted, AdmissionDecision.Limit.METASPACE,
+                        metaUsed + requested * metaPer, metaLimit, metaPer);
+        logger.fine("Launch admission limited: " + decision);
+        return decision;
+    }
+
+    private static int fit(long used, long limit, long perInstance, int requested) {
+        if (limit == Long.MAX_VALUE) {
+            return requested;
+        }
+        long room = limit - used;
+        return room <= 0 ? 0 : (int) Math.min(requested, room / Math.max(1, perInstance));
+    }
+
+    private int countStartingInstances() {
+        InstanceManager manager = InstanceManager.getActive();
+        if (manager == null) {
+            return 0;
+        }
+        int starting = 0;
+        for (EmulatorInstance instance : manager.getInstances()) {
+            if (instance.getState() == EmulatorInstance.InstanceState.STARTING) {
+                starting++;
+            }
+        }
+        return starting;
+    }
+
+    private long totalGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Heap usage after the last GC. Before the first GC every pool reports
+     * zero collection usage, so live usage is used instead (an overestimate,
+     * which errs on the safe side).
+     */
+    private long currentHeapUsage() {
+        boolean collected = totalGcCount() > 0;
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = collected ? pool.getCollectionUsage() : null;
+            if (usage == null) {
+                usage = pool.getUsage();
+            }
+            used += usage.getUsed();
+        }
+        return used;
+    }
+
+    private long currentMetaspaceUsage() {
+        return metaspacePool != null ? metaspacePool.getUsage().getUsed() : 0;
+    }
+
+    private synchronized void sample() {
+        InstanceManager manager = InstanceManager.getActive();
+        if (manager == null) {
+            return;
+        }
+        // Only steady-state samples: instances still starting are half loaded
+        if (countStartingInstances() > 0) {
+            return;
+        }
+        int running = manager.getRunningInstances().size();
+        long heap = currentHeapUsage();
+        long metaspace = currentMetaspaceUsage();
+
+        if (running == 0) {
+            heapBaseline = heapBaseline < 0 ? heap : Math.min(heapBaseline, heap);
+            metaspaceBaseline = metaspaceBaseline < 0 ? metaspace : Math.min(metaspaceBaseline, metaspace);
+            return;
+        }
+        if (heapBaseline < 0) {
+            return; // launched before the first sample, no baseline to subtract
+        }
+
+        // Heap after GC only changes when a collection ran
+        long gcCount = totalGcCount();
+        if (gcCount > 0 && gcCount != lastGcCount) {
+            lastGcCount = gcCount;
+            long perInstance = Math.max(0, heap - heapBaseline) / running;
+            heapPerInstance = smooth(heapPerInstance, perInstance, measured, MIN_HEAP_PER_INSTANCE);
+            measured = true;
+        }
+        long metaPerInstance = Math.max(0, metaspace - metaspaceBaseline) / running;
+        metaspacePerInstance = smooth(metaspacePerInstance, metaPerInstance, metaspaceMeasured,
+                MIN_METASPACE_PER_INSTANCE);
+        metaspaceMeasured = true;
+    }
+
+    /**
+     * The first measurement replaces the default, later ones are blended in.
+     * The result is never below {@code floor}.
+     */
+    private static long smooth(long previous, long sample, boolean hasHistory, long floor) {
+        long next = hasHistory ? (long) (previous * (1 - SMOOTHING) + sample * SMOOTHING) : sample;
+        return Math.max(floor, next);
+    }
+}
@@ -0,0 +1,69 @@
+package me.kitakeyos.j2me.infrastructure.monitoring;
+
+/**
+ * Ring buffer of the last samples of an amount (CPU nanoseconds, allocated
+ * bytes) and the wall time each sample covers. Written by the sampler
+ * thread, may be read from any thread.
+ */
+class RateWindow {
+
+    private final long[] amounts;
+    private final long[] walls;
+    private int index;
+    private int filled;
+
+    RateWindow(int size) {
+        this.amounts = new long[size];
+        this.walls = new long[size];
+    }
+
+    synchronized void add(long amount, long wallNanos) {
+        amounts[index] = amount;
+        walls[index] = Math.max(1, wallNanos);
+        index = (index + 1) % amounts.length;
+        if (filled < amounts.length) {
+            filled++;
+        }
+    }
+
+    synchronized boolean isFull() {
+        return filled == amounts.length;
+    }
+
+    /**
+     * @return Average amount per second over the window, 0 if empty
+     */
+    synchronized double perSecond() {
+        long amount = 0;
+        long wall = 0;
+        for (int i = 0; i < filled; i++) {
+            amount += amounts[i];
+            wall += walls[i];
+        }
+        return wall > 0 ? amount * 1e9 / wall : 0;
+    }
+
+    /**
+     * @return Highest per-second rate of a single sample in the window
+     */
+    synchronized double peakPerSecond() {
+        double peak = 0;
+        for (int i = 0; i < filled; i++) {
+            peak = Math.max(peak, amounts[i] * 1e9 / walls[i]);
+        }
+        return peak;
+    }
+
+    /**
+     * @return Per-second rate of each sample, oldest first
+     */
+    synchronized double[] history() {
+        double[] result = new double[filled];
+        int start = (index - filled + amounts.length) % amounts.length;
+        for (int i = 0; i < filled; i++) {
+            int slot = (start + i) % amounts.length;
+            result[i] = amounts[slot] * 1e9 / walls[slot];
+        }
+        return result;
+    }
+}
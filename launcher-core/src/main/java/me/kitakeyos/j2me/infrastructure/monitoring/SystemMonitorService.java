@@ -5,6 +5,7 @@ import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryUsage;
 import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.ThreadMXBean;
+import java.util.List;
 
 /**
  * Service to retrieve system performance metrics
@@ -66,6 +67,21 @@ public class SystemMonitorService {
         return -1;
     }
 
+    /**
+     * Per-instance allocation rates, sampled in the background by
+     * {@link InstanceCpuMonitor}.
+     */
+    public List<InstanceAllocationRate> getInstanceAllocationRates() {
+        return InstanceCpuMonitor.getInstance().getAllocationRates();
+    }
+
+    /**
+     * Instances allocating the most, highest rate first.
+     */
+    public List<InstanceAllocationRate> getTopAllocators(int limit) {
+        return InstanceCpuMonitor.getInstance().getTopAllocators(limit);
+    }
+
     public long getFreePhysicalMemory() {
         if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
             return ((com.sun.management.OperatingSystemMXBean) osBean).getFreePhysicalMemorySize();
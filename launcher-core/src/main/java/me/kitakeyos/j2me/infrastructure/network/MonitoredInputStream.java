@@ -19,13 +19,16 @@ public class MonitoredInputStream extends InputStream {
     private final int socketId;
     private final String host;
     private final int port;
+    private final MonitoredSocket socket;
 
-    public MonitoredInputStream(InputStream wrapped, int instanceId, int socketId, String host, int port) {
+    public MonitoredInputStream(InputStream wrapped, int instanceId, int socketId, String host, int port,
+            MonitoredSocket socket) {
         this.wrapped = wrapped;
         this.instanceId = instanceId;
         this.socketId = socketId;
         this.host = host;
         this.port = port;
+        this.socket = socket;
     }
 
     @Override
@@ -57,6 +60,7 @@ public class MonitoredInputStream extends InputStream {
     }
 
     private void onDataReceived(byte[] data, int offset, int length) {
+        socket.markActivity();
         NetworkService ns = NetworkService.getInstance();
         logPacket(data, offset, length);
         SocketTap tap = ns.getOrCreateTap(socketId, instanceId, host, port);
@@ -18,13 +18,16 @@ public class MonitoredOutputStream extends OutputStream {
     private final int socketId;
     private final String host;
     private final int port;
+    private final MonitoredSocket socket;
 
-    public MonitoredOutputStream(OutputStream wrapped, int instanceId, int socketId, String host, int port) {
+    public MonitoredOutputStream(OutputStream wrapped, int instanceId, int socketId, String host, int port,
+            MonitoredSocket socket) {
         this.wrapped = wrapped;
         this.instanceId = instanceId;
         this.socketId = socketId;
         this.host = host;
         this.port = port;
+        this.socket = socket;
     }
 
     @Override
@@ -47,6 +50,7 @@ public class MonitoredOutputStream extends OutputStream {
     }
 
     private void onDataSent(byte[] data, int offset, int length) {
+        socket.markActivity();
         NetworkService ns = NetworkService.getInstance();
         logPacket(data, offset, length);
         SocketTap tap = ns.getOrCreateTap(socketId, instanceId, host, port);
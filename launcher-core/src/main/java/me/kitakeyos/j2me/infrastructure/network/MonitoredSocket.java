@@ -26,6 +26,9 @@ public class MonitoredSocket extends Socket {
 
     private MonitoredInputStream monitoredInputStream;
     private MonitoredOutputStream monitoredOutputStream;
+    private volatile Runnable closeListener;
+    // Wall-clock time of the last byte read or written, for the hang watchdog
+    private volatile long lastActivityMs = System.currentTimeMillis();
 
     public MonitoredSocket(Socket wrapped, int instanceId, String host, int port) {
         this.wrapped = wrapped;
@@ -35,10 +38,34 @@ public class MonitoredSocket extends Socket {
         this.port = port;
     }
 
+    /**
+     * Set a callback run once when this socket is closed, used to
+     * deregister it from its instance.
+     */
+    public void setCloseListener(Runnable closeListener) {
+        this.closeListener = closeListener;
+    }
+
+    /**
+     * Record that data was read or written. Called by the monitored streams.
+     */
+    void markActivity() {
+        lastActivityMs = System.currentTimeMillis();
+    }
+
+    /**
+     * @return Wall-clock time of the last byte read or written, or of the
+     *         socket creation if there was no traffic yet
+     */
+    public long getLastActivityMs() {
+        return lastActivityMs;
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
         if (monitoredInputStream == null) {
-            monitoredInputStream = new MonitoredInputStream(wrapped.getInputStream(), instanceId, socketId, host, port);
+            monitoredInputStream = new MonitoredInputStream(wrapped.getInputStream(), instanceId, socketId, host, port,
+                    this);
         }
         return monitoredInputStream;
     }
@@ -47,7 +74,7 @@ public class MonitoredSocket extends Socket {
     public OutputStream getOutputStream() throws IOException {
         if (monitoredOutputStream == null) {
             monitoredOutputStream = new MonitoredOutputStream(wrapped.getOutputStream(), instanceId, socketId, host,
-                    port);
+                    port, this);
         }
         return monitoredOutputStream;
     }
@@ -201,7 +228,15 @@ public class MonitoredSocket extends Socket {
 
     @Override
     public synchronized void close() throws IOException {
-        wrapped.close();
+        try {
+            wrapped.close();
+        } finally {
+            Runnable listener = closeListener;
+            if (listener != null) {
+                closeListener = null;
+                listener.run();
+            }
+        }
     }
 
     @Override
@@ -121,9 +121,7 @@ public class ApplicationRepositoryImpl implements ApplicationRepository {
 
                 String relativeIconPath = props.getProperty(prefix + "iconPath");
                 if (relativeIconPath != null) {
-                    String absoluteIconPath = getAbsolutePath(relativeIconPath);
-                    app.setIconPath(absoluteIconPath);
-                    loadIconForApplication(app, absoluteIconPath);
+                    app.setIconPath(getAbsolutePath(relativeIconPath));
                 }
 
                 // Update file size if not set
@@ -148,6 +146,13 @@ public class ApplicationRepositoryImpl implements ApplicationRepository {
         return applications;
     }
 
+    @Override
+    public void loadIcon(J2meApplication app) {
+        if (app.getIcon() == null && app.getIconPath() != null) {
+            loadIconForApplication(app, app.getIconPath());
+        }
+    }
+
     @Override
     public void saveAllApplications(List<J2meApplication> applications) {
         Properties props = new Properties();
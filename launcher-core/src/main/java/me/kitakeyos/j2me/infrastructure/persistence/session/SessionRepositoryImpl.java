@@ -0,0 +1,229 @@
+package me.kitakeyos.j2me.infrastructure.persistence.session;
+
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.emulator.model.SessionSnapshot;
+import me.kitakeyos.j2me.domain.emulator.repository.SessionRepository;
+import me.kitakeyos.j2me.domain.network.model.ProxyRule;
+import me.kitakeyos.j2me.domain.network.model.RedirectionRule;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Properties-file based implementation of SessionRepository.
+ * Stores the session in data/session.properties. The file is written to a
+ * temporary file first and moved into place, so a crash while saving leaves
+ * the previous session intact.
+ */
+public class SessionRepositoryImpl implements SessionRepository {
+
+    private static final Logger logger = Logger.getLogger(SessionRepositoryImpl.class.getName());
+    private static final String SESSION_FILE = "session.properties";
+
+    private final File sessionFile;
+
+    public SessionRepositoryImpl(ApplicationConfig applicationConfig) {
+        this.sessionFile = new File(applicationConfig.getDataDirectory(), SESSION_FILE);
+    }
+
+    @Override
+    public SessionSnapshot load() {
+        if (!sessionFile.exists()) {
+            return null;
+        }
+
+        Properties props = new Properties();
+        try (FileInputStream fis = new FileInputStream(sessionFile)) {
+            props.load(fis);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot load session: " + e.getMessage());
+            return null;
+        }
+
+        List<SessionSnapshot.Entry> entries = new ArrayList<>();
+        int count = parseInt(props.getProperty("instance.count"), 0);
+        for (int i = 0; i < count; i++) {
+            String prefix = "instance." + i + ".";
+            int instanceId = parseInt(props.getProperty(prefix + "id"), -1);
+            String microemulatorPath = props.getProperty(prefix + "microemulatorPath");
+            String j2meFilePath = props.getProperty(prefix + "j2meFilePath");
+            if (instanceId <= 0 || microemulatorPath == null || j2meFilePath == null) {
+                continue; // Skip invalid entry
+            }
+            entries.add(new SessionSnapshot.Entry(
+                    instanceId,
+                    microemulatorPath,
+                    j2meFilePath,
+                    parseInt(props.getProperty(prefix + "displayWidth"), 240),
+                    parseInt(props.getProperty(prefix + "displayHeight"), 320),
+                    Boolean.parseBoolean(props.getProperty(prefix + "fullDisplayMode", "false")),
+                    parseDouble(props.getProperty(prefix + "speed"), 1.0),
+                    Boolean.parseBoolean(props.getProperty(prefix + "graphicsEnabled", "true")),
+                    Boolean.parseBoolean(props.getProperty(prefix + "inputSynced", "false")),
+                    parseDouble(props.getProperty(prefix + "priorityWeight"), 1.0),
+                    props.getProperty(prefix + "rmsDirectory"),
+                    loadRedirectionRules(props, prefix, instanceId),
+                    loadProxyRules(props, prefix, instanceId)));
+        }
+
+        return new SessionSnapshot(
+                parseLong(props.getProperty("session.savedAt"), sessionFile.lastModified()),
+                Boolean.parseBoolean(props.getProperty("session.inputSyncEnabled", "false")),
+                entries);
+    }
+
+    @Override
+    public void save(SessionSnapshot snapshot) {
+        Properties props = new Properties();
+        props.setProperty("session.savedAt", String.valueOf(snapshot.getSavedAt()));
+        props.setProperty("session.inputSyncEnabled", String.valueOf(snapshot.isInputSyncEnabled()));
+        props.setProperty("instance.count", String.valueOf(snapshot.getEntries().size()));
+
+        for (int i = 0; i < snapshot.getEntries().size(); i++) {
+            SessionSnapshot.Entry entry = snapshot.getEntries().get(i);
+            String prefix = "instance." + i + ".";
+            props.setProperty(prefix + "id", String.valueOf(entry.getInstanceId()));
+            props.setProperty(prefix + "microemulatorPath", entry.getMicroemulatorPath());
+            props.setProperty(prefix + "j2meFilePath", entry.getJ2meFilePath());
+            props.setProperty(prefix + "displayWidth", String.valueOf(entry.getDisplayWidth()));
+            props.setProperty(prefix + "displayHeight", String.valueOf(entry.getDisplayHeight()));
+            props.setProperty(prefix + "fullDisplayMode", String.valueOf(entry.isFullDisplayMode()));
+            props.setProperty(prefix + "speed", String.valueOf(entry.getSpeedMultiplier()));
+            props.setProperty(prefix + "graphicsEnabled", String.valueOf(entry.isGraphicsEnabled()));
+            props.setProperty(prefix + "inputSynced", String.valueOf(entry.isInputSynced()));
+            props.setProperty(prefix + "priorityWeight", String.valueOf(entry.getPriorityWeight()));
+            if (entry.getRmsDirectory() != null) {
+                props.setProperty(prefix + "rmsDirectory", entry.getRmsDirectory());
+            }
+            saveRedirectionRules(props, prefix, entry.getRedirectionRules());
+            saveProxyRules(props, prefix, entry.getProxyRules());
+        }
+
+        File tempFile = new File(sessionFile.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+            props.store(fos, "Instance Session");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot save session: " + e.getMessage());
+            return;
+        }
+        try {
+            try {
+                Files.move(tempFile.toPath(), sessionFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), sessionFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot save session: " + e.getMessage());
+        }
+    }
+
+    private static void saveRedirectionRules(Properties props, String prefix, List<RedirectionRule> rules) {
+        props.setProperty(prefix + "redirect.count", String.valueOf(rules.size()));
+        for (int i = 0; i < rules.size(); i++) {
+            RedirectionRule rule = rules.get(i);
+            String rulePrefix = prefix + "redirect." + i + ".";
+            props.setProperty(rulePrefix + "originalHost", rule.getOriginalHost());
+            props.setProperty(rulePrefix + "originalPort", String.valueOf(rule.getOriginalPort()));
+            props.setProperty(rulePrefix + "targetHost", rule.getTargetHost());
+            props.setProperty(rulePrefix + "targetPort", String.valueOf(rule.getTargetPort()));
+            props.setProperty(rulePrefix + "enabled", String.valueOf(rule.isEnabled()));
+        }
+    }
+
+    private static List<RedirectionRule> loadRedirectionRules(Properties props, String prefix, int instanceId) {
+        List<RedirectionRule> rules = new ArrayList<>();
+        int count = parseInt(props.getProperty(prefix + "redirect.count"), 0);
+        for (int i = 0; i < count; i++) {
+            String rulePrefix = prefix + "redirect." + i + ".";
+            String originalHost = props.getProperty(rulePrefix + "originalHost");
+            String targetHost = props.getProperty(rulePrefix + "targetHost");
+            if (originalHost == null || targetHost == null) {
+                continue;
+            }
+            RedirectionRule rule = new RedirectionRule(originalHost,
+                    parseInt(props.getProperty(rulePrefix + "originalPort"), 0), targetHost,
+                    parseInt(props.getProperty(rulePrefix + "targetPort"), 0), instanceId);
+            rule.setEnabled(Boolean.parseBoolean(props.getProperty(rulePrefix + "enabled", "true")));
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    private static void saveProxyRules(Properties props, String prefix, List<ProxyRule> rules) {
+        props.setProperty(prefix + "proxy.count", String.valueOf(rules.size()));
+        for (int i = 0; i < rules.size(); i++) {
+            ProxyRule rule = rules.get(i);
+            String rulePrefix = prefix + "proxy." + i + ".";
+            props.setProperty(rulePrefix + "type", rule.getProxyType().name());
+            props.setProperty(rulePrefix + "host", rule.getProxyHost());
+            props.setProperty(rulePrefix + "port", String.valueOf(rule.getProxyPort()));
+            props.setProperty(rulePrefix + "enabled", String.valueOf(rule.isEnabled()));
+            if (rule.getUsername() != null) {
+                props.setProperty(rulePrefix + "username", rule.getUsername());
+            }
+            if (rule.getPassword() != null) {
+                props.setProperty(rulePrefix + "password", rule.getPassword());
+            }
+        }
+    }
+
+    private static List<ProxyRule> loadProxyRules(Properties props, String prefix, int instanceId) {
+        List<ProxyRule> rules = new ArrayList<>();
+        int count = parseInt(props.getProperty(prefix + "proxy.count"), 0);
+        for (int i = 0; i < count; i++) {
+            String rulePrefix = prefix + "proxy." + i + ".";
+            String typeStr = props.getProperty(rulePrefix + "type");
+            String host = props.getProperty(rulePrefix + "host");
+            if (typeStr == null || host == null) {
+                continue;
+            }
+            ProxyRule.ProxyType type;
+            try {
+                type = ProxyRule.ProxyType.valueOf(typeStr);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            int port = parseInt(props.getProperty(rulePrefix + "port"), 0);
+            String username = props.getProperty(rulePrefix + "username");
+            ProxyRule rule = username != null && !username.isEmpty()
+                    ? new ProxyRule(type, host, port, instanceId, username,
+                            props.getProperty(rulePrefix + "password"))
+                    : new ProxyRule(type, host, port, instanceId);
+            rule.setEnabled(Boolean.parseBoolean(props.getProperty(rulePrefix + "enabled", "true")));
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        try {
+            return value != null ? Long.parseLong(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        try {
+            return value != null ? Double.parseDouble(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package me.kitakeyos.j2me.infrastructure.thread;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for short, blocking launcher tasks and, optionally, MIDlet threads.
+ * <p>
+ * This is the implementation for runtimes without virtual threads, where
+ * everything runs on platform threads as before. The Java 21 build of this
+ * class lives in {@code src/main/java21} and goes to
+ * {@code META-INF/versions/21} of the multi-release JAR, where Java 21 and
+ * later pick it instead. Both must keep the same public methods.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if this runtime has virtual threads
+     */
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * Executor for launcher tasks that mostly wait (reading JARs, starting
+     * instances). Here a cached pool of platform threads.
+     *
+     * @param namePrefix Thread names are the prefix and a sequence number
+     */
+    public static ExecutorService newTaskExecutor(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> new Thread(task, namePrefix + "-" + count.incrementAndGet()));
+    }
+
+    /**
+     * Start a task on a new virtual thread
+     *
+     * @throws UnsupportedOperationException Always, there are no virtual
+     *                                       threads before Java 21
+     */
+    public static Thread startVirtualThread(String name, Runnable task) {
+        throw new UnsupportedOperationException("Virtual threads need Java 21");
+    }
+
+    /**
+     * Report virtual threads that block while pinned to their carrier. Does
+     * nothing here.
+     */
+    public static void enablePinningDiagnostics() {
+    }
+}
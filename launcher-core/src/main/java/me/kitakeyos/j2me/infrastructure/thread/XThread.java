@@ -0,0 +1,262 @@
+package me.kitakeyos.j2me.infrastructure.thread;
+
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.BackgroundModeService;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.domain.speed.service.SpeedService;
+
+import java.util.logging.Logger;
+
+@SuppressWarnings("unused")
+public class XThread extends Thread {
+
+    private static final Logger logger = Logger.getLogger(XThread.class.getName());
+
+    /**
+     * Sentinel char embedded in Thread.getName() to carry the current speed
+     * multiplier across the classloader boundary to the injected SpeedHelper.
+     * SOH (U+0001) is vanishingly unlikely to appear in any real thread name.
+     */
+    public static final char SPEED_MARKER = '\u0001';
+
+    // Run the bodies of threads started from now on on virtual threads
+    private static volatile boolean virtualThreadsEnabled;
+    // XThread whose body the current virtual thread runs
+    private static final ThreadLocal<XThread> RUNNING_BODY = new ThreadLocal<>();
+
+    private final int instanceId;
+    // Base (user-visible) thread name, without the encoded speed suffix.
+    private volatile String baseName;
+    private volatile double speedMultiplier = 1.0;
+    // Instance this thread is registered with, so it can deregister itself
+    private volatile EmulatorInstance owner;
+    // Virtual thread running the body, null when started as a platform thread
+    private volatile Thread virtualThread;
+
+    public XThread(String name, int instanceId) {
+        super(name);
+        this.instanceId = instanceId;
+        this.baseName = name;
+        initSpeedFromService();
+        addToEmulatorInstance();
+    }
+
+    public XThread(Runnable target, String name, int instanceId) {
+        super(target, name);
+        this.instanceId = instanceId;
+        this.baseName = name;
+        initSpeedFromService();
+        addToEmulatorInstance();
+    }
+
+    private void initSpeedFromService() {
+        this.speedMultiplier = SpeedService.getInstance().getEffectiveSpeedMultiplier(instanceId);
+        applyEncodedName();
+    }
+
+    private void addToEmulatorInstance() {
+        InstanceManager manager = InstanceManager.getActive();
+        EmulatorInstance instance = manager.findInstance(instanceId);
+        if (instance != null) {
+            owner = instance;
+            instance.addThread(this);
+            // Threads created while the instance is hidden or focused start
+            // with the priority BackgroundModeService gave the others
+            int priority = BackgroundModeService.getInstance().getThreadPriority(instance);
+            if (priority != Thread.NORM_PRIORITY) {
+                setPriority(priority);
+            }
+        } else {
+            logger.info("Emulator Instance Not Found");
+        }
+    }
+
+    /**
+     * Deregisters the thread from its instance once the body returns, so
+     * finished threads do not accumulate in the resource registry. Only
+     * bodies that go through this method get here: Runnable targets, and
+     * MIDletThread's own run(), which calls super.run(). MIDlet Thread
+     * subclasses are rebased onto MIDletThread and override run() without
+     * calling super, so on a platform thread they are left to the periodic
+     * sweep of ResourceManager; on a virtual thread start() deregisters
+     * them.
+     */
+    @Override
+    public void run() {
+        try {
+            super.run();
+        } finally {
+            deregister();
+        }
+    }
+
+    private void deregister() {
+        EmulatorInstance instance = owner;
+        if (instance != null) {
+            owner = null;
+            instance.removeThread(this);
+        }
+    }
+
+    /**
+     * Run the bodies of XThreads started from now on on virtual threads.
+     * Only has an effect on runtimes that have them, and enables pinning
+     * diagnostics. The XThread object then only holds the name, speed and
+     * registration; priorities, per-thread CPU time and deadlock detection
+     * do not see virtual threads. Since the XThread itself stays NEW, MIDlet
+     * and emulator code is rewritten so that {@code Thread.currentThread()}
+     * calls {@link #current()} and {@code isAlive()}, {@code join()} and
+     * {@code getState()} on a thread call their static counterparts here,
+     * which act on the virtual thread. Game loops comparing their thread with
+     * the current one, and {@code while (t.isAlive())} or {@code t.join()} in
+     * destroyApp, keep working.
+     *
+     * @return true if the mode is now active
+     */
+    public static boolean setVirtualThreadsEnabled(boolean enabled) {
+        virtualThreadsEnabled = enabled && VirtualThreads.isAvailable();
+        if (virtualThreadsEnabled) {
+            VirtualThreads.enablePinningDiagnostics();
+        }
+        return virtualThreadsEnabled;
+    }
+
+    public static boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!virtualThreadsEnabled) {
+            super.start();
+            return;
+        }
+        if (virtualThread != null || getState() != State.NEW) {
+            throw new IllegalThreadStateException();
+        }
+        // Wrapped here since a subclass's run() may never reach ours
+        virtualThread = VirtualThreads.startVirtualThread(getName(), () -> {
+            RUNNING_BODY.set(this);
+            try {
+                run();
+            } finally {
+                deregister();
+            }
+        });
+    }
+
+    /**
+     * Replacement for {@code Thread.currentThread()} in instrumented code.
+     *
+     * @return The XThread whose body is running on the current virtual
+     *         thread, else the current thread
+     */
+    public static Thread current() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof XThread) {
+            return thread;
+        }
+        XThread body = RUNNING_BODY.get();
+        return body != null ? body : thread;
+    }
+
+    @Override
+    public void interrupt() {
+        Thread thread = virtualThread;
+        if (thread != null) {
+            thread.interrupt();
+        } else {
+            super.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isInterrupted() {
+        Thread thread = virtualThread;
+        return thread != null ? thread.isInterrupted() : super.isInterrupted();
+    }
+
+    /**
+     * @return The thread running the body: the virtual thread if it was
+     *         started on one, else this thread. isAlive(), join() and
+     *         getState() cannot be redirected, so code waiting for the
+     *         thread must use this.
+     */
+    public Thread getExecutionThread() {
+        Thread thread = virtualThread;
+        return thread != null ? thread : this;
+    }
+
+    /**
+     * @return The thread running the body of the given thread, see
+     *         {@link #getExecutionThread()}
+     */
+    public static Thread executionThreadOf(Thread thread) {
+        return thread instanceof XThread ? ((XThread) thread).getExecutionThread() : thread;
+    }
+
+    // Replacements for Thread methods in instrumented code, see
+    // ByteCodeHelper.threadStateCallDescriptor
+
+    public static boolean isAlive(Thread thread) {
+        return executionThreadOf(thread).isAlive();
+    }
+
+    public static void join(Thread thread) throws InterruptedException {
+        executionThreadOf(thread).join();
+    }
+
+    public static void join(Thread thread, long millis) throws InterruptedException {
+        executionThreadOf(thread).join(millis);
+    }
+
+    public static void join(Thread thread, long millis, int nanos) throws InterruptedException {
+        executionThreadOf(thread).join(millis, nanos);
+    }
+
+    public static State getState(Thread thread) {
+        return executionThreadOf(thread).getState();
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public double getSpeedMultiplier() {
+        return speedMultiplier;
+    }
+
+    /**
+     * Called by SpeedService when the instance speed changes. Re-encodes
+     * the thread name so the next SpeedHelper.sleep() call picks up the new
+     * value without any lock or map lookup.
+     */
+    public void setSpeedMultiplier(double multiplier) {
+        this.speedMultiplier = multiplier;
+        applyEncodedName();
+    }
+
+    /**
+     * When speed is 1.0 we leave the name untouched (no marker, no parsing on
+     * the sleep hot path). Only instances with a real override pay the
+     * encoding cost.
+     */
+    private void applyEncodedName() {
+        double m = this.speedMultiplier;
+        String name = this.baseName;
+        if (m == 1.0) {
+            super.setName(name);
+        } else {
+            int milli = (int) (m * 1000.0 + 0.5);
+            if (milli <= 0) {
+                milli = 1;
+            }
+            super.setName(name + SPEED_MARKER + milli);
+        }
+        // SpeedHelper reads the name of the thread actually running
+        Thread thread = virtualThread;
+        if (thread != null) {
+            thread.setName(getName());
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package me.kitakeyos.j2me.util.reflection;
 
-import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ComponentListener;
 import java.lang.reflect.InvocationTargetException;
@@ -15,12 +14,12 @@ public class EmulatorReflectionHelper {
     /**
      * Initialize parameters for the MicroEmulator
      *
-     * @param app         The Main application instance
+     * @param app         The MicroEmulator Main frame
      * @param params      Parameters list
      * @param classLoader ClassLoader to use
      * @return Device entry object
      */
-    public static Object initializeEmulatorParams(JFrame app, List<String> params, ClassLoader classLoader)
+    public static Object initializeEmulatorParams(Object app, List<String> params, ClassLoader classLoader)
             throws ClassNotFoundException, NoSuchFieldException, NoSuchMethodException,
             InvocationTargetException, IllegalAccessException {
 
@@ -101,9 +100,9 @@ public class EmulatorReflectionHelper {
     /**
      * Setup component listener for the application frame
      *
-     * @param app The Main application JFrame
+     * @param app The MicroEmulator Main frame
      */
-    public static void setupComponentListener(JFrame app)
+    public static void setupComponentListener(Object app)
             throws NoSuchFieldException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
         Object componentListener = ReflectionHelper.getFieldValue(app, "componentListener");
         ReflectionHelper.invokeMethod(
@@ -117,9 +116,9 @@ public class EmulatorReflectionHelper {
     /**
      * Notify state changed through response interface listener
      *
-     * @param app The Main application JFrame
+     * @param app The MicroEmulator Main frame
      */
-    public static void notifyStateChanged(JFrame app)
+    public static void notifyStateChanged(Object app)
             throws NoSuchFieldException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
         Object responseInterfaceListener = ReflectionHelper.getFieldValue(app, "responseInterfaceListener");
         ReflectionHelper.invokeDeclaredMethod(
@@ -133,9 +132,9 @@ public class EmulatorReflectionHelper {
     /**
      * Update device display
      *
-     * @param app The Main application JFrame
+     * @param app The MicroEmulator Main frame
      */
-    public static void updateDevice(JFrame app)
+    public static void updateDevice(Object app)
             throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
         ReflectionHelper.invokeDeclaredMethod(app, "updateDevice");
     }
@@ -0,0 +1,61 @@
+package me.kitakeyos.j2me.infrastructure.thread;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for short, blocking launcher tasks and, optionally, MIDlet threads.
+ * <p>
+ * Java 21 build of the class in {@code src/main/java}, packaged in
+ * {@code META-INF/versions/21} of the multi-release JAR: tasks run on
+ * virtual threads, so waiting on I/O or locks does not hold a platform
+ * thread. Both must keep the same public methods.
+ */
+public final class VirtualThreads {
+
+    /**
+     * Read by the JDK when the first virtual thread is created
+     */
+    private static final String TRACE_PINNED_PROPERTY = "jdk.tracePinnedThreads";
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if this runtime has virtual threads
+     */
+    public static boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Executor for launcher tasks that mostly wait (reading JARs, starting
+     * instances). Here each task gets its own virtual thread.
+     *
+     * @param namePrefix Thread names are the prefix and a sequence number
+     */
+    public static ExecutorService newTaskExecutor(String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix + "-", 1).factory());
+    }
+
+    /**
+     * Start a task on a new virtual thread
+     */
+    public static Thread startVirtualThread(String name, Runnable task) {
+        return Thread.ofVirtual().name(name).start(task);
+    }
+
+    /**
+     * Print a short stack trace whenever a virtual thread blocks while pinned
+     * to its carrier, inside a synchronized block or a native frame. MIDlet
+     * code synchronizes a lot, and every pinned thread holds a carrier, so
+     * this shows where virtual threads do not pay off. Only takes effect
+     * before the first virtual thread is created, and an explicit
+     * {@code -Djdk.tracePinnedThreads} wins.
+     */
+    public static void enablePinningDiagnostics() {
+        if (System.getProperty(TRACE_PINNED_PROPERTY) == null) {
+            System.setProperty(TRACE_PINNED_PROPERTY, "short");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package me.kitakeyos.j2me.domain.speed.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * How the user, governor and background multipliers of an instance combine.
+ */
+public class SpeedServiceTest {
+
+    private static final int INSTANCE = 9001;
+    private static final double DELTA = 1e-9;
+
+    private final SpeedService speed = SpeedService.getInstance();
+
+    @After
+    public void tearDown() {
+        speed.removeInstance(INSTANCE);
+    }
+
+    @Test
+    public void userValueAppliesWithoutOverrides() {
+        assertEquals(1.0, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+
+        speed.setSpeedMultiplier(INSTANCE, 3.0);
+
+        assertEquals(3.0, speed.getBaseSpeedMultiplier(INSTANCE), DELTA);
+        assertEquals(3.0, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+    }
+
+    @Test
+    public void governorReplacesUserValueUntilCleared() {
+        speed.setSpeedMultiplier(INSTANCE, 3.0);
+        speed.setGovernorMultiplier(INSTANCE, 0.5);
+
+        assertTrue(speed.isGoverned(INSTANCE));
+        assertEquals(3.0, speed.getSpeedMultiplier(INSTANCE), DELTA);
+        assertEquals(0.5, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+
+        speed.clearGovernorMultiplier(INSTANCE);
+
+        assertFalse(speed.isGoverned(INSTANCE));
+        assertEquals(3.0, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+    }
+
+    @Test
+    public void userChangeDropsTheGovernorOverride() {
+        speed.setGovernorMultiplier(INSTANCE, 0.5);
+
+        speed.setSpeedMultiplier(INSTANCE, 2.0);
+
+        assertFalse(speed.isGoverned(INSTANCE));
+        assertEquals(2.0, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+    }
+
+    @Test
+    public void backgroundCapsButNeverRaisesTheBase() {
+        speed.setSpeedMultiplier(INSTANCE, 2.0);
+        speed.setBackgroundMultiplier(INSTANCE, 0.5);
+        assertEquals(0.5, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+        assertEquals(2.0, speed.getBaseSpeedMultiplier(INSTANCE), DELTA);
+
+        // A hidden instance never runs faster than it would shown
+        speed.setSpeedMultiplier(INSTANCE, 0.25);
+        assertEquals(0.25, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+
+        speed.clearBackgroundMultiplier(INSTANCE);
+        assertEquals(0.25, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+    }
+
+    @Test
+    public void backgroundCapAppliesToTheGovernedValue() {
+        speed.setSpeedMultiplier(INSTANCE, 4.0);
+        speed.setGovernorMultiplier(INSTANCE, 1.5);
+        speed.setBackgroundMultiplier(INSTANCE, 1.0);
+
+        assertEquals(1.0, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+
+        speed.setGovernorMultiplier(INSTANCE, 0.75);
+
+        assertEquals(0.75, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+    }
+
+    @Test
+    public void removeInstanceForgetsEveryLayer() {
+        speed.setSpeedMultiplier(INSTANCE, 2.0);
+        speed.setGovernorMultiplier(INSTANCE, 0.5);
+        speed.setBackgroundMultiplier(INSTANCE, 0.25);
+
+        speed.removeInstance(INSTANCE);
+
+        assertFalse(speed.hasCustomSpeed(INSTANCE));
+        assertFalse(speed.isGoverned(INSTANCE));
+        assertEquals(1.0, speed.getEffectiveSpeedMultiplier(INSTANCE), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveMultipliersAreRejected() {
+        speed.setBackgroundMultiplier(INSTANCE, 0);
+    }
+}
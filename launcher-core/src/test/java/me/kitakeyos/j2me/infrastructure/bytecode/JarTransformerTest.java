@@ -0,0 +1,241 @@
+package me.kitakeyos.j2me.infrastructure.bytecode;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link JarTransformer} on a JAR holding a small MIDlet-style class
+ * and executes the result in its own classloader, as MicroEmulator would.
+ * Fixture classes are compiled with the tests and rewritten to class
+ * version 49 without stack maps, like the JARs of J2ME applications.
+ */
+public class JarTransformerTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private URLClassLoader loader;
+    private Thread thread;
+
+    /**
+     * Loops, waits, sleeps and synchronizes until it is stopped from outside.
+     */
+    public static class Spinner implements Runnable {
+        public static volatile int rounds;
+        private final Object lock = new Object();
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    synchronized (lock) {
+                        lock.wait(1);
+                    }
+                    Thread.sleep(1);
+                    int sum = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        sum += i;
+                    }
+                    rounds += sum > 0 ? 1 : 0;
+                }
+            } catch (InterruptedException e) {
+                // Not how it is stopped here
+            }
+        }
+    }
+
+    /**
+     * Calls the Thread methods that are routed to the thread running the body.
+     */
+    public static class Joiner {
+        public static boolean await(Thread thread) throws InterruptedException {
+            thread.join(100);
+            thread.join();
+            return thread.isAlive() || thread.getState() == Thread.State.TERMINATED;
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (thread != null && thread.isAlive()) {
+            SpeedHelperControl.cancel(loader);
+            thread.interrupt();
+            thread.join(TIMEOUT_MS);
+        }
+        if (loader != null) {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void transformedClassRunsAndStopsWhenCancelled() throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Class<?> spinner = startSpinner(failure);
+
+        awaitRounds(spinner, 3);
+        assertTrue(SpeedHelperControl.cancel(loader));
+        thread.join(TIMEOUT_MS);
+
+        assertFalse("Cancelled thread is still running", thread.isAlive());
+        Throwable thrown = failure.get();
+        assertNotNull("Cancelled thread ended without an error", thrown);
+        assertEquals(Error.class, thrown.getClass());
+        assertEquals("Instance cancelled", thrown.getMessage());
+    }
+
+    @Test
+    public void suspendedClassMakesNoProgressUntilReleased() throws Exception {
+        Class<?> spinner = startSpinner(new AtomicReference<>());
+        awaitRounds(spinner, 3);
+
+        assertTrue(SpeedHelperControl.setSuspended(loader, true));
+        // A round past its last checkpoint may still finish
+        Thread.sleep(100);
+        int parked = rounds(spinner);
+        Thread.sleep(300);
+        assertEquals(parked, rounds(spinner));
+        assertTrue(thread.isAlive());
+
+        assertTrue(SpeedHelperControl.setSuspended(loader, false));
+        awaitRounds(spinner, parked + 3);
+    }
+
+    @Test
+    public void threadStateCallsAreRoutedToMidletThread() throws Exception {
+        Path transformed = JarTransformer.transformJar(jarOf(Joiner.class).toPath());
+
+        List<String> calls = new ArrayList<>();
+        try (JarFile jar = new JarFile(transformed.toFile())) {
+            try (InputStream in = jar.getInputStream(jar.getJarEntry(entryName(Joiner.class)))) {
+                new ClassReader(readAll(in)).accept(new ClassAdapter(new ClassWriter(0)) {
+                    @Override
+                    public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+                                                     String[] exceptions) {
+                        return new MethodAdapter(super.visitMethod(access, name, desc, signature, exceptions)) {
+                            @Override
+                            public void visitMethodInsn(int opcode, String owner, String name, String desc) {
+                                if (owner.startsWith("org/microemu/") || owner.equals("java/lang/Thread")) {
+                                    calls.add(opcode + " " + owner + "." + name + desc);
+                                }
+                                super.visitMethodInsn(opcode, owner, name, desc);
+                            }
+                        };
+                    }
+                }, 0);
+            }
+        }
+
+        String midletThread = Opcodes.INVOKESTATIC + " org/microemu/app/util/MIDletThread.";
+        assertTrue(calls.toString(), calls.contains(midletThread + "join(Ljava/lang/Thread;J)V"));
+        assertTrue(calls.toString(), calls.contains(midletThread + "join(Ljava/lang/Thread;)V"));
+        assertTrue(calls.toString(), calls.contains(midletThread + "isAlive(Ljava/lang/Thread;)Z"));
+        assertTrue(calls.toString(),
+                calls.contains(midletThread + "getState(Ljava/lang/Thread;)Ljava/lang/Thread$State;"));
+        for (String call : calls) {
+            assertFalse(call, call.contains("java/lang/Thread."));
+        }
+    }
+
+    /**
+     * Transform a JAR holding {@link Spinner}, load it apart from the test
+     * classes and run it on a new thread.
+     *
+     * @param failure Receives what ended the thread
+     */
+    private Class<?> startSpinner(AtomicReference<Throwable> failure) throws Exception {
+        Path transformed = JarTransformer.transformJar(jarOf(Spinner.class).toPath());
+        loader = new URLClassLoader(new URL[]{transformed.toUri().toURL()},
+                ClassLoader.getSystemClassLoader().getParent());
+        Class<?> spinner = Class.forName(Spinner.class.getName(), true, loader);
+        assertEquals(loader, spinner.getClassLoader());
+
+        thread = new Thread((Runnable) spinner.getConstructor().newInstance(), "spinner");
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        thread.start();
+        return spinner;
+    }
+
+    private void awaitRounds(Class<?> spinner, int rounds) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (rounds(spinner) < rounds) {
+            assertTrue("Transformed class made no progress", System.currentTimeMillis() < deadline);
+            assertTrue("Transformed class stopped", thread.isAlive());
+            Thread.sleep(10);
+        }
+    }
+
+    private static int rounds(Class<?> spinner) throws Exception {
+        return spinner.getField("rounds").getInt(null);
+    }
+
+    /**
+     * @return A JAR holding the class, rewritten to class version 49
+     */
+    private File jarOf(Class<?> type) throws IOException {
+        byte[] original;
+        try (InputStream in = type.getClassLoader().getResourceAsStream(entryName(type))) {
+            original = readAll(in);
+        }
+        ClassWriter writer = new ClassWriter(0);
+        new ClassReader(original).accept(new ClassAdapter(writer) {
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName,
+                              String[] interfaces) {
+                super.visit(Opcodes.V1_5, access, name, signature, superName, interfaces);
+            }
+        }, ClassReader.SKIP_FRAMES);
+
+        File jar = folder.newFile(type.getSimpleName() + ".jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry(entryName(type)));
+            out.write(writer.toByteArray());
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    private static String entryName(Class<?> type) {
+        return type.getName().replace('.', '/') + ".class";
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
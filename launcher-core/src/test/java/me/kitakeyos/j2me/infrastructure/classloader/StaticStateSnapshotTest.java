@@ -0,0 +1,160 @@
+package me.kitakeyos.j2me.infrastructure.classloader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records the static state of classes defined in an
+ * {@link EmulatorClassLoader}, as the instrumented {@code <clinit>} would,
+ * and puts it back after the emulator changed it.
+ */
+public class StaticStateSnapshotTest {
+
+    private EmulatorClassLoader loader;
+
+    /**
+     * Stands for an emulator singleton referenced by a static field.
+     */
+    public static class Registry {
+        int count = 1;
+        final List<String> entries = new ArrayList<>(Collections.singletonList("first"));
+    }
+
+    public static class Statics {
+        static int counter = 5;
+        static String name = "initial";
+        static final int[] table = {1, 2, 3};
+        static final List<String> names = new ArrayList<>(Arrays.asList("a", "b"));
+        static final Map<String, Integer> sizes = new HashMap<>(Collections.singletonMap("w", 240));
+        static final List<String> fixed = Collections.unmodifiableList(Arrays.asList("x"));
+        static Registry registry = new Registry();
+    }
+
+    @Before
+    public void setUp() {
+        loader = new EmulatorClassLoader(1, new URL[0], getClass().getClassLoader());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        loader.close();
+    }
+
+    @Test
+    public void restorePutsStaticFieldsBackToTheirInitialValues() throws Exception {
+        Class<?> statics = defineAndRecord();
+        Object registry = get(statics, "registry");
+
+        set(statics, "counter", 42);
+        set(statics, "name", "changed");
+        ((int[]) get(statics, "table"))[0] = 99;
+        names(statics).add("c");
+        sizes(statics).put("h", 320);
+        set(statics, "registry", loader.loadClass(Registry.class.getName()).getConstructor().newInstance());
+
+        assertTrue(loader.getStaticState().restore());
+
+        assertEquals(5, get(statics, "counter"));
+        assertEquals("initial", get(statics, "name"));
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) get(statics, "table"));
+        assertEquals(Arrays.asList("a", "b"), names(statics));
+        assertEquals(Collections.singletonMap("w", 240), sizes(statics));
+        assertSame(registry, get(statics, "registry"));
+        assertEquals(1, loader.getStaticState().getClassCount());
+    }
+
+    @Test
+    public void restoreResetsFieldsOfReferencedEmulatorObjects() throws Exception {
+        Class<?> statics = defineAndRecord();
+        Object registry = get(statics, "registry");
+        Field count = registry.getClass().getDeclaredField("count");
+        count.setAccessible(true);
+        Field entries = registry.getClass().getDeclaredField("entries");
+        entries.setAccessible(true);
+
+        count.setInt(registry, 7);
+        @SuppressWarnings("unchecked")
+        List<String> list = (List<String>) entries.get(registry);
+        list.clear();
+
+        assertTrue(loader.getStaticState().restore());
+
+        assertEquals(1, count.getInt(registry));
+        assertEquals(Collections.singletonList("first"), list);
+    }
+
+    @Test
+    public void unchangedUnmodifiableCollectionsAreLeftAlone() throws Exception {
+        Class<?> statics = defineAndRecord();
+
+        assertTrue(loader.getStaticState().restore());
+
+        assertEquals(Collections.singletonList("x"), get(statics, "fixed"));
+    }
+
+    /**
+     * Define the fixture classes in the emulator classloader, initialize
+     * them and record their state like the injected call does.
+     */
+    private Class<?> defineAndRecord() throws Exception {
+        loader.defineGeneratedClass(Registry.class.getName(), () -> bytecodeOf(Registry.class));
+        Class<?> statics = loader.defineGeneratedClass(Statics.class.getName(), () -> bytecodeOf(Statics.class));
+        Class.forName(statics.getName(), true, loader);
+        StaticStateSnapshot.record(statics);
+        return statics;
+    }
+
+    private static Object get(Class<?> type, String name) throws Exception {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+    private static void set(Class<?> type, String name, Object value) throws Exception {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> names(Class<?> statics) throws Exception {
+        return (List<String>) get(statics, "names");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Integer> sizes(Class<?> statics) throws Exception {
+        return (Map<String, Integer>) get(statics, "sizes");
+    }
+
+    private static byte[] bytecodeOf(Class<?> type) {
+        try (InputStream in = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
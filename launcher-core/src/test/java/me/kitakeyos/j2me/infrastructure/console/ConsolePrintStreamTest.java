@@ -0,0 +1,68 @@
+package me.kitakeyos.j2me.infrastructure.console;
+
+import org.junit.Test;
+
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConsolePrintStreamTest {
+
+    private final ConsoleRingBuffer buffer = new ConsoleRingBuffer(16);
+    private final PrintStream out = new ConsolePrintStream(buffer, false);
+
+    @Test
+    public void textPrintedInPiecesBecomesOneLine() {
+        out.print("a");
+        out.print(1);
+        out.println('b');
+        out.print("c\r\nd\n");
+
+        assertEquals(lines("a1b", "c", "d"), texts());
+    }
+
+    @Test
+    public void multiByteCharactersSplitAcrossWritesDecodeWhole() {
+        byte[] bytes = "héllo 世界\n".getBytes(Charset.defaultCharset());
+
+        for (byte b : bytes) {
+            out.write(b);
+        }
+        out.write(bytes, 0, 2);
+        out.write(bytes, 2, bytes.length - 2);
+
+        assertEquals(lines(new String(bytes, 0, bytes.length - 1, Charset.defaultCharset()),
+                new String(bytes, 0, bytes.length - 1, Charset.defaultCharset())), texts());
+    }
+
+    @Test
+    public void bytesAndTextOfOneThreadKeepTheirOrder() {
+        out.write('a');
+        out.print("b");
+        out.write('c');
+        out.println();
+
+        assertEquals(lines("abc"), texts());
+    }
+
+    private List<String> texts() {
+        List<ConsoleLine> read = new ArrayList<>();
+        buffer.read(0, read, Integer.MAX_VALUE);
+        List<String> texts = new ArrayList<>();
+        for (ConsoleLine line : read) {
+            texts.add(line.getText());
+        }
+        return texts;
+    }
+
+    private static List<String> lines(String... texts) {
+        List<String> lines = new ArrayList<>();
+        for (String text : texts) {
+            lines.add(text);
+        }
+        return lines;
+    }
+}
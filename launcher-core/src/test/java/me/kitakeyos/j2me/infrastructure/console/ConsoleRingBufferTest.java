@@ -0,0 +1,96 @@
+package me.kitakeyos.j2me.infrastructure.console;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConsoleRingBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(2, new ConsoleRingBuffer(1).getCapacity());
+        assertEquals(8, new ConsoleRingBuffer(5).getCapacity());
+        assertEquals(8, new ConsoleRingBuffer(8).getCapacity());
+    }
+
+    @Test
+    public void readReturnsLinesInOrderFromTheCursor() {
+        ConsoleRingBuffer buffer = new ConsoleRingBuffer(8);
+        buffer.add(false, "one");
+        buffer.add(true, "two");
+        buffer.add(false, "three");
+
+        List<ConsoleLine> lines = new ArrayList<>();
+        long cursor = buffer.read(1, lines, 10);
+
+        assertEquals(3, cursor);
+        assertEquals(2, lines.size());
+        assertEquals("two", lines.get(0).getText());
+        assertTrue(lines.get(0).isError());
+        assertEquals(1, lines.get(0).getSequence());
+        assertEquals("three", lines.get(1).getText());
+    }
+
+    @Test
+    public void readStopsAtMaxLinesAndResumesFromTheCursor() {
+        ConsoleRingBuffer buffer = new ConsoleRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(false, "line " + i);
+        }
+
+        List<ConsoleLine> lines = new ArrayList<>();
+        long cursor = buffer.read(0, lines, 2);
+        cursor = buffer.read(cursor, lines, 10);
+
+        assertEquals(5, cursor);
+        assertEquals(5, lines.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, lines.get(i).getSequence());
+        }
+    }
+
+    @Test
+    public void overwrittenLinesShowAsAGapInSequenceNumbers() {
+        ConsoleRingBuffer buffer = new ConsoleRingBuffer(4);
+        for (int i = 0; i < 10; i++) {
+            buffer.add(false, "line " + i);
+        }
+
+        List<ConsoleLine> lines = new ArrayList<>();
+        long cursor = buffer.read(0, lines, 10);
+
+        assertEquals(10, cursor);
+        assertEquals(10, buffer.getNextSequence());
+        assertEquals(4, lines.size());
+        assertEquals(6, lines.get(0).getSequence());
+        assertEquals("line 9", lines.get(3).getText());
+    }
+
+    @Test
+    public void concurrentWritersLoseNoSequenceNumbers() throws InterruptedException {
+        ConsoleRingBuffer buffer = new ConsoleRingBuffer(1 << 12);
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    buffer.add(false, "x");
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<ConsoleLine> lines = new ArrayList<>();
+        assertEquals(4000, buffer.read(0, lines, Integer.MAX_VALUE));
+        assertEquals(4000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i, lines.get(i).getSequence());
+        }
+    }
+}
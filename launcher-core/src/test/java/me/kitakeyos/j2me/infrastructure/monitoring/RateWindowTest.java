@@ -0,0 +1,59 @@
+package me.kitakeyos.j2me.infrastructure.monitoring;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateWindowTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void emptyWindowHasNoRate() {
+        RateWindow window = new RateWindow(3);
+
+        assertFalse(window.isFull());
+        assertEquals(0, window.perSecond(), DELTA);
+        assertEquals(0, window.peakPerSecond(), DELTA);
+        assertEquals(0, window.history().length);
+    }
+
+    @Test
+    public void perSecondIsWeightedByTheWallTimeOfEachSample() {
+        RateWindow window = new RateWindow(4);
+        window.add(100, SECOND);
+        window.add(500, 3 * SECOND);
+
+        // 600 over 4 s, not the mean of 100/s and 166.7/s
+        assertEquals(150, window.perSecond(), DELTA);
+        assertEquals(500.0 / 3, window.peakPerSecond(), DELTA);
+    }
+
+    @Test
+    public void oldestSamplesAreReplacedOnceFull() {
+        RateWindow window = new RateWindow(3);
+        window.add(10, SECOND);
+        window.add(20, SECOND);
+        window.add(30, SECOND);
+        assertTrue(window.isFull());
+
+        window.add(40, SECOND);
+        window.add(50, SECOND);
+
+        assertArrayEquals(new double[]{30, 40, 50}, window.history(), DELTA);
+        assertEquals(40, window.perSecond(), DELTA);
+        assertEquals(50, window.peakPerSecond(), DELTA);
+    }
+
+    @Test
+    public void zeroWallTimeDoesNotDivideByZero() {
+        RateWindow window = new RateWindow(2);
+        window.add(5, 0);
+
+        assertEquals(5e9, window.perSecond(), DELTA);
+    }
+}
@@ -1,18 +1,33 @@
 package me.kitakeyos.j2me.application;
 
 import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.application.emulator.EmulatorLauncher;
+import me.kitakeyos.j2me.application.window.WindowedLauncher;
 import me.kitakeyos.j2me.domain.application.model.J2meApplication;
 import me.kitakeyos.j2me.domain.application.repository.ApplicationRepository;
 import me.kitakeyos.j2me.domain.application.service.ApplicationService;
-import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.service.BackgroundModeService;
 import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceLifecycleManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceWatchdog;
+import me.kitakeyos.j2me.domain.emulator.service.SessionService;
+import me.kitakeyos.j2me.domain.graphics.service.PaintBudgetService;
+import me.kitakeyos.j2me.domain.media.service.MediaService;
+import me.kitakeyos.j2me.domain.network.service.NetworkService;
+import me.kitakeyos.j2me.domain.speed.service.CpuGovernor;
+import me.kitakeyos.j2me.infrastructure.console.ConsoleDrainer;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuMonitor;
+import me.kitakeyos.j2me.infrastructure.monitoring.MemoryAdmissionController;
 import me.kitakeyos.j2me.infrastructure.persistence.application.ApplicationRepositoryImpl;
 import me.kitakeyos.j2me.infrastructure.persistence.emulator.EmulatorConfigRepositoryImpl;
+import me.kitakeyos.j2me.infrastructure.persistence.session.SessionRepositoryImpl;
+import me.kitakeyos.j2me.infrastructure.thread.XThread;
 import me.kitakeyos.j2me.presentation.emulator.panel.ApplicationsPanel;
 import me.kitakeyos.j2me.presentation.emulator.panel.EmulatorsPanel;
 import me.kitakeyos.j2me.presentation.emulator.panel.InstancesPanel;
 import me.kitakeyos.j2me.presentation.injection.panel.InjectionPanel;
 
+import me.kitakeyos.j2me.presentation.common.component.ToastNotification;
 import me.kitakeyos.j2me.presentation.common.dialog.SettingsDialog;
 import me.kitakeyos.j2me.presentation.common.i18n.Messages;
 
@@ -20,6 +35,11 @@ import javax.swing.*;
 
 /**
  * Main J2ME Launcher application
+ * <p>
+ * Only the Applications tab, shown first, and the Instances tab, which owns
+ * the instance manager, are built at startup; the other tabs are built the
+ * first time they are selected. Application icons are decoded in the
+ * background and the network rules are loaded once the window is shown.
  */
 public class MainApplication extends JFrame {
 
@@ -37,18 +57,27 @@ public class MainApplication extends JFrame {
     private final ApplicationRepository applicationRepository;
     private final ApplicationService applicationService;
     private final EmulatorConfigRepositoryImpl emulatorConfigRepository;
+    private final SessionService sessionService;
     private InstancesPanel instancesPanel;
     private EmulatorsPanel emulatorsPanel;
     public InstanceManager emulatorInstanceManager;
     public ApplicationsPanel applicationsPanel;
     private InjectionPanel injectionPanel;
 
+    // Indices of the tabs built on first selection
+    private static final int EMULATORS_TAB = 1;
+    private static final int INJECTION_TAB = 3;
+
+    private final StartupTimer startupTimer = new StartupTimer();
+
     public MainApplication() {
         // Initialize config first and load language
         applicationConfig = new ApplicationConfig();
+        ApplicationConfig.setActive(applicationConfig);
+        EmulatorLauncher.setWindowedStarter(new WindowedLauncher());
         Messages.loadBundle(applicationConfig.getLanguage());
-        me.kitakeyos.j2me.infrastructure.bytecode.PaintThrottleConfig.setFps(
-                applicationConfig.getMaxPaintFps());
+        PaintBudgetService.getInstance().configure(applicationConfig);
+        startupTimer.phase("config");
 
         setTitle(Messages.get("app.title"));
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -73,21 +102,92 @@ public class MainApplication extends JFrame {
                         | java.awt.AWTEvent.KEY_EVENT_MASK);
         me.kitakeyos.j2me.infrastructure.bytecode.PaintThrottleConfig.setIdleTimeoutSeconds(
                 applicationConfig.getIdleSleepSeconds());
+        startupTimer.phase("window");
 
         // Initialize managers with dependency injection
         applicationRepository = new ApplicationRepositoryImpl(applicationConfig);
         applicationService = new ApplicationService(applicationRepository);
         emulatorConfigRepository = new EmulatorConfigRepositoryImpl(applicationConfig);
+        sessionService = new SessionService(new SessionRepositoryImpl(applicationConfig));
+        startupTimer.phase("repositories");
 
         applicationsPanel = new ApplicationsPanel(this, applicationConfig, applicationService);
-        emulatorsPanel = new EmulatorsPanel(this, applicationConfig, applicationService, emulatorConfigRepository);
         instancesPanel = new InstancesPanel(this, applicationConfig, applicationService);
-        injectionPanel = new InjectionPanel(this, applicationConfig, applicationService);
 
-        // Wire emulator config repository to instances panel
+        // Wire emulator config repository and session to instances panel
+        instancesPanel.setSessionService(sessionService);
         instancesPanel.setEmulatorConfigRepository(emulatorConfigRepository);
 
         emulatorInstanceManager = instancesPanel.emulatorInstanceManager;
+        InstanceManager.setActive(emulatorInstanceManager);
+        startupTimer.phase("panels");
+
+        // Per-instance CPU and allocation accounting, alerting when an instance exceeds its CPU budget
+        InstanceCpuMonitor cpuMonitor = InstanceCpuMonitor.getInstance();
+        cpuMonitor.setCpuBudgetPercent(applicationConfig.getCpuBudgetPercent());
+        cpuMonitor.addBudgetListener(usage -> ToastNotification.showWarning(Messages.get(
+                "sysmon.cpu.overBudget", usage.getInstanceId(), Math.round(usage.getWindowPercent()))));
+        cpuMonitor.start();
+
+        // Heap / Metaspace model used to hold back launches that would not fit
+        MemoryAdmissionController admission = MemoryAdmissionController.getInstance();
+        admission.setThresholdPercent(applicationConfig.getAdmissionThresholdPercent());
+        admission.start();
+
+        // Adaptive CPU governor (off unless enabled in config)
+        CpuGovernor governor = CpuGovernor.getInstance();
+        governor.setTargetCpuPercent(applicationConfig.getGovernorTargetCpuPercent());
+        try {
+            governor.setBand(applicationConfig.getGovernorMinSpeed(), applicationConfig.getGovernorMaxSpeed());
+        } catch (IllegalArgumentException e) {
+            java.util.logging.Logger.getLogger(MainApplication.class.getName()).warning(e.getMessage());
+        }
+        governor.setEnabled(applicationConfig.isGovernorEnabled());
+
+        // Slow down and deprioritize instances that are not on screen
+        BackgroundModeService backgroundMode = BackgroundModeService.getInstance();
+        try {
+            backgroundMode.setBackgroundSpeed(applicationConfig.getBackgroundSpeed());
+        } catch (IllegalArgumentException e) {
+            java.util.logging.Logger.getLogger(MainApplication.class.getName()).warning(e.getMessage());
+        }
+        backgroundMode.setEnabled(applicationConfig.isBackgroundModeEnabled());
+
+        // Hung-instance watchdog (off unless enabled in config); the instances
+        // panel installs the recovery handler
+        InstanceWatchdog watchdog = InstanceWatchdog.getInstance();
+        watchdog.setStallTimeoutSeconds(applicationConfig.getWatchdogStallTimeoutSeconds());
+        watchdog.setMaxRestartsPerHour(applicationConfig.getWatchdogMaxRestartsPerHour());
+        watchdog.setEnabled(applicationConfig.isWatchdogEnabled());
+        InstanceLifecycleManager.setSoftRestartEnabled(applicationConfig.isSoftRestartEnabled());
+        XThread.setVirtualThreadsEnabled(applicationConfig.isVirtualThreadsEnabled());
+        ConsoleDrainer.getInstance().configure(applicationConfig);
+        MediaService.getInstance().configure(applicationConfig);
+
+        // Keep the instance farm on disk; save once more on close so the
+        // latest speeds and flags are in it
+        sessionService.setAutosaveEnabled(applicationConfig.isSessionAutosaveEnabled());
+        sessionService.start();
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowOpened(java.awt.event.WindowEvent e) {
+                startupTimer.finish("shown");
+                preloadServices();
+            }
+
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                if (sessionService.isAutosaveEnabled()) {
+                    sessionService.save();
+                }
+                instancesPanel.closeWorkers();
+            }
+        });
+        if (applicationConfig.isSessionRestoreOnStartup()) {
+            SwingUtilities.invokeLater(() -> instancesPanel.restoreSession());
+        }
+
+        startupTimer.phase("services");
 
         initializeComponents();
     }
@@ -103,10 +203,12 @@ public class MainApplication extends JFrame {
         // Create tabbed pane
         JTabbedPane tabbedPane = new JTabbedPane();
 
+        // Placeholders until the tab is first selected
         tabbedPane.addTab(Messages.get("tab.applications"), applicationsPanel);
-        tabbedPane.addTab(Messages.get("tab.emulators"), emulatorsPanel);
+        tabbedPane.addTab(Messages.get("tab.emulators"), new JPanel());
         tabbedPane.addTab(Messages.get("tab.instances"), instancesPanel);
-        tabbedPane.addTab(Messages.get("tab.injection"), injectionPanel);
+        tabbedPane.addTab(Messages.get("tab.injection"), new JPanel());
+        tabbedPane.addChangeListener(e -> buildSelectedTab(tabbedPane));
 
         add(tabbedPane);
 
@@ -137,7 +239,12 @@ public class MainApplication extends JFrame {
         emulatorConfigRepository.addChangeListener(emulatorConfigChangeListener);
 
 
-        instanceChangeListener = () -> injectionPanel.refreshInstanceList();
+        instanceChangeListener = () -> {
+            if (injectionPanel != null) {
+                injectionPanel.refreshInstanceList();
+            }
+            sessionService.requestSave();
+        };
         emulatorInstanceManager.addInstanceChangeListener(instanceChangeListener);
     }
 
@@ -150,6 +257,7 @@ public class MainApplication extends JFrame {
         if (emulatorInstanceManager != null) {
             emulatorInstanceManager.clearAllInstances();
         }
+        instancesPanel.closeWorkers();
 
         // Remove old listeners to prevent duplicates
         if (appChangeListener != null) {
@@ -161,14 +269,16 @@ public class MainApplication extends JFrame {
         getContentPane().removeAll();
         setJMenuBar(null);
 
-        // Recreate panels
+        // Recreate panels, the lazy ones on their next selection
         applicationsPanel = new ApplicationsPanel(this, applicationConfig, applicationService);
-        emulatorsPanel = new EmulatorsPanel(this, applicationConfig, applicationService, emulatorConfigRepository);
+        emulatorsPanel = null;
         instancesPanel = new InstancesPanel(this, applicationConfig, applicationService);
-        injectionPanel = new InjectionPanel(this, applicationConfig, applicationService);
+        injectionPanel = null;
 
+        instancesPanel.setSessionService(sessionService);
         instancesPanel.setEmulatorConfigRepository(emulatorConfigRepository);
         emulatorInstanceManager = instancesPanel.emulatorInstanceManager;
+        InstanceManager.setActive(emulatorInstanceManager);
 
         // Rebuild UI
         setTitle(Messages.get("app.title"));
@@ -178,6 +288,30 @@ public class MainApplication extends JFrame {
         repaint();
     }
 
+    /**
+     * Build the selected tab's panel if it is still a placeholder.
+     */
+    private void buildSelectedTab(JTabbedPane tabbedPane) {
+        int index = tabbedPane.getSelectedIndex();
+        if (index == EMULATORS_TAB && emulatorsPanel == null) {
+            emulatorsPanel = new EmulatorsPanel(this, applicationConfig, applicationService, emulatorConfigRepository);
+            tabbedPane.setComponentAt(index, emulatorsPanel);
+        } else if (index == INJECTION_TAB && injectionPanel == null) {
+            injectionPanel = new InjectionPanel(this, applicationConfig, applicationService);
+            tabbedPane.setComponentAt(index, injectionPanel);
+        }
+    }
+
+    /**
+     * Load what the first launch or dialog would otherwise wait for, off the
+     * EDT once the window is up.
+     */
+    private void preloadServices() {
+        Thread preload = new Thread(NetworkService::getInstance, "startup-preload");
+        preload.setDaemon(true);
+        preload.start();
+    }
+
     /**
      * Load application icons for the window title bar and taskbar.
      */
@@ -195,13 +329,6 @@ public class MainApplication extends JFrame {
         }
     }
 
-    /**
-     * Delegate method for compatibility - removes an emulator instance tab
-     */
-    public void removeEmulatorInstanceTab(EmulatorInstance emulatorInstance) {
-        instancesPanel.removeEmulatorInstanceTab(emulatorInstance);
-    }
-
     /**
      * Get application configuration
      */
@@ -0,0 +1,43 @@
+package me.kitakeyos.j2me.application;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Logger;
+
+/**
+ * Durations of the launcher's startup phases, logged in one line once the
+ * main window is shown.
+ */
+final class StartupTimer {
+
+    private static final Logger logger = Logger.getLogger(StartupTimer.class.getName());
+
+    private final long startNanos = System.nanoTime();
+    private final StringBuilder phases = new StringBuilder();
+    private long phaseStartNanos = startNanos;
+    private boolean finished;
+
+    /**
+     * End the current phase, the next one starts now
+     */
+    void phase(String name) {
+        long now = System.nanoTime();
+        if (phases.length() > 0) {
+            phases.append(", ");
+        }
+        phases.append(name).append(' ').append((now - phaseStartNanos) / 1_000_000).append(" ms");
+        phaseStartNanos = now;
+    }
+
+    /**
+     * End the last phase and log all of them. Later calls do nothing.
+     */
+    void finish(String name) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        phase(name);
+        logger.info(String.format("Startup: %s; total %d ms, %d ms since JVM start", phases,
+                (System.nanoTime() - startNanos) / 1_000_000, ManagementFactory.getRuntimeMXBean().getUptime()));
+    }
+}
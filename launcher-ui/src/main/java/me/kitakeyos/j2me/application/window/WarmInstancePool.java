@@ -0,0 +1,257 @@
+package me.kitakeyos.j2me.application.window;
+
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a small number of pre-warmed emulator shells per emulator
+ * configuration (microemulator JAR + display size). Creating an instance then
+ * only has to bind the MIDlet instead of building classloader, device and
+ * Swing tree from scratch.
+ * <p>
+ * Shells are refilled on a single low-priority background thread, so warming
+ * never competes with instances that are already running.
+ * <p>
+ * Every shell holds an instance ID from the moment it is built. Before IDs
+ * are handed out by other means (restoring a session), the pool is
+ * {@link #pause paused}: queued shells are released, a shell still being
+ * built is discarded when it completes, and nothing is built until
+ * {@link #resume}.
+ */
+public class WarmInstancePool {
+
+    private static final Logger logger = Logger.getLogger(WarmInstancePool.class.getName());
+
+    /** Only the most recently used configurations are kept warm. */
+    private static final int MAX_WARM_CONFIGS = 2;
+
+    private final InstanceManager instanceManager;
+
+    // Access-ordered so the least recently used configuration is evicted first
+    private final LinkedHashMap<String, Deque<WarmShell>> shells = new LinkedHashMap<>(4, 0.75f, true);
+    private final Map<String, ShellConfig> configs = new LinkedHashMap<>();
+
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "warm-pool-refill");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private volatile int targetSize;
+    private volatile boolean paused;
+    // Bumped by clear(); a shell built under an older generation is discarded
+    private int generation;
+
+    public WarmInstancePool(InstanceManager instanceManager, int targetSize) {
+        this.instanceManager = instanceManager;
+        this.targetSize = Math.max(0, targetSize);
+    }
+
+    /**
+     * Number of warm shells kept ready for each configuration. 0 disables the
+     * pool and releases every shell.
+     */
+    public void setTargetSize(int targetSize) {
+        this.targetSize = Math.max(0, targetSize);
+        if (this.targetSize == 0) {
+            clear();
+        } else {
+            scheduleRefill();
+        }
+    }
+
+    public int getTargetSize() {
+        return targetSize;
+    }
+
+    /**
+     * Mark a configuration as in use so shells are prepared for it.
+     */
+    public void prime(String microemulatorPath, int displayWidth, int displayHeight) {
+        if (targetSize == 0 || microemulatorPath == null) {
+            return;
+        }
+        String key = key(microemulatorPath, displayWidth, displayHeight);
+        List<WarmShell> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (shells.get(key) == null) {
+                shells.put(key, new ArrayDeque<>());
+                configs.put(key, new ShellConfig(microemulatorPath, displayWidth, displayHeight));
+            }
+            while (shells.size() > MAX_WARM_CONFIGS) {
+                Iterator<Map.Entry<String, Deque<WarmShell>>> eldest = shells.entrySet().iterator();
+                Map.Entry<String, Deque<WarmShell>> entry = eldest.next();
+                evicted.addAll(entry.getValue());
+                configs.remove(entry.getKey());
+                eldest.remove();
+            }
+        }
+        discard(evicted);
+        scheduleRefill();
+    }
+
+    /**
+     * Take a warm shell matching the configuration, or null if none is ready.
+     * The shell's instance ID stays reserved and must be used by the caller.
+     */
+    public WarmShell acquire(String microemulatorPath, int displayWidth, int displayHeight) {
+        if (targetSize == 0) {
+            return null;
+        }
+        WarmShell shell;
+        synchronized (this) {
+            Deque<WarmShell> queue = shells.get(key(microemulatorPath, displayWidth, displayHeight));
+            shell = queue != null ? queue.pollFirst() : null;
+        }
+        scheduleRefill();
+        return shell;
+    }
+
+    /**
+     * Dispose every warm shell and release their reserved IDs. A shell being
+     * built right now is released once it completes.
+     */
+    public void clear() {
+        List<WarmShell> all = new ArrayList<>();
+        synchronized (this) {
+            generation++;
+            for (Deque<WarmShell> queue : shells.values()) {
+                all.addAll(queue);
+                queue.clear();
+            }
+        }
+        discard(all);
+    }
+
+    /**
+     * Stop building shells and release every one, including a shell being
+     * built right now.
+     *
+     * @return Completes once the refill thread is idle, when no shell holds
+     *         an instance ID any more
+     */
+    public CompletableFuture<Void> pause() {
+        paused = true;
+        clear();
+        // The refill thread is single, so this runs after any refill in flight
+        return CompletableFuture.runAsync(() -> {
+        }, refillExecutor);
+    }
+
+    /**
+     * Build shells again after {@link #pause()}.
+     */
+    public void resume() {
+        paused = false;
+        scheduleRefill();
+    }
+
+    /**
+     * Get the number of shells currently ready across all configurations.
+     */
+    public synchronized int getWarmCount() {
+        int count = 0;
+        for (Deque<WarmShell> queue : shells.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    private void scheduleRefill() {
+        if (targetSize > 0 && !paused) {
+            refillExecutor.execute(this::refill);
+        }
+    }
+
+    /**
+     * Top up every primed configuration to the target size. Runs on the
+     * refill thread only, one shell at a time.
+     */
+    private void refill() {
+        while (true) {
+            ShellConfig config = null;
+            int builtFor;
+            synchronized (this) {
+                if (paused) {
+                    return;
+                }
+                builtFor = generation;
+                for (Map.Entry<String, ShellConfig> entry : configs.entrySet()) {
+                    Deque<WarmShell> queue = shells.get(entry.getKey());
+                    if (queue != null && queue.size() < targetSize) {
+                        config = entry.getValue();
+                        break;
+                    }
+                }
+            }
+            if (config == null) {
+                return;
+            }
+
+            int instanceId = instanceManager.getNextInstanceId();
+            WarmShell shell;
+            try {
+                long start = System.currentTimeMillis();
+                shell = WindowedLauncher.prepareShell(instanceId, config.microemulatorPath,
+                        config.displayWidth, config.displayHeight);
+                logger.fine(String.format("Warm shell #%d prepared in %d ms", instanceId,
+                        System.currentTimeMillis() - start));
+            } catch (Exception e) {
+                instanceManager.releaseInstanceId(instanceId);
+                logger.log(Level.WARNING, "Failed to prepare warm shell: " + e.getMessage(), e);
+                return;
+            }
+
+            boolean kept = false;
+            synchronized (this) {
+                Deque<WarmShell> queue = shells.get(key(config.microemulatorPath,
+                        config.displayWidth, config.displayHeight));
+                if (!paused && builtFor == generation && queue != null && queue.size() < targetSize) {
+                    queue.addLast(shell);
+                    kept = true;
+                }
+            }
+            if (!kept) {
+                List<WarmShell> list = new ArrayList<>();
+                list.add(shell);
+                discard(list);
+            }
+        }
+    }
+
+    private void discard(List<WarmShell> list) {
+        for (WarmShell shell : list) {
+            shell.dispose();
+            instanceManager.releaseInstanceId(shell.getInstanceId());
+        }
+    }
+
+    private static String key(String microemulatorPath, int displayWidth, int displayHeight) {
+        return microemulatorPath + "|" + displayWidth + "x" + displayHeight;
+    }
+
+    private static class ShellConfig {
+        final String microemulatorPath;
+        final int displayWidth;
+        final int displayHeight;
+
+        ShellConfig(String microemulatorPath, int displayWidth, int displayHeight) {
+            this.microemulatorPath = microemulatorPath;
+            this.displayWidth = displayWidth;
+            this.displayHeight = displayHeight;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package me.kitakeyos.j2me.application.window;
+
+import me.kitakeyos.j2me.application.emulator.EmulatorLauncher;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.infrastructure.classloader.EmulatorClassLoader;
+
+import javax.swing.*;
+import java.util.logging.Logger;
+
+/**
+ * An idle emulator prepared ahead of time: its classloader, device and Swing
+ * tree are built, only the MIDlet is missing. The instance ID is reserved
+ * when the shell is created because it is baked into the instrumented
+ * bytecode, so the instance that binds the shell must reuse it.
+ */
+public class WarmShell implements EmulatorLauncher.PreparedEmulator {
+
+    private static final Logger logger = Logger.getLogger(WarmShell.class.getName());
+
+    private final int instanceId;
+    private final String microemulatorPath;
+    private final int displayWidth;
+    private final int displayHeight;
+    private final EmulatorClassLoader classLoader;
+    private final JFrame frame;
+    private final long createdAt;
+
+    WarmShell(int instanceId, String microemulatorPath, int displayWidth, int displayHeight,
+            EmulatorClassLoader classLoader, JFrame frame) {
+        this.instanceId = instanceId;
+        this.microemulatorPath = microemulatorPath;
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
+        this.classLoader = classLoader;
+        this.frame = frame;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public String getMicroemulatorPath() {
+        return microemulatorPath;
+    }
+
+    public int getDisplayWidth() {
+        return displayWidth;
+    }
+
+    public int getDisplayHeight() {
+        return displayHeight;
+    }
+
+    @Override
+    public EmulatorClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    JFrame getFrame() {
+        return frame;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Device and Swing tree are already built, only the MIDlet is missing
+     */
+    @Override
+    public void bind(EmulatorInstance instance) throws Exception {
+        WindowedLauncher.bindMIDlet(frame, instance.getJ2meFilePath());
+        WindowedLauncher.configureInstanceComponents(instance, frame, classLoader);
+    }
+
+    /**
+     * Close the shell's frame and classloader. The caller is responsible for
+     * the reserved instance ID: the pool returns it, an instance that took
+     * the shell keeps it.
+     */
+    @Override
+    public void dispose() {
+        SwingUtilities.invokeLater(frame::dispose);
+        try {
+            classLoader.close();
+        } catch (Exception e) {
+            logger.warning("Error closing warm shell classloader #" + instanceId + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package me.kitakeyos.j2me.application.window;
+
+import me.kitakeyos.j2me.application.emulator.EmulatorLauncher;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.infrastructure.classloader.EmulatorClassLoader;
+import me.kitakeyos.j2me.util.reflection.EmulatorReflectionHelper;
+import me.kitakeyos.j2me.util.reflection.ReflectionHelper;
+
+import javax.swing.*;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts windowed instances: builds MicroEmulator's Swing frame and device
+ * and hands its components to the instance. Registered with
+ * {@link EmulatorLauncher}, which does the rest of the startup.
+ */
+public class WindowedLauncher implements EmulatorLauncher.WindowedStarter {
+
+    @Override
+    public void start(EmulatorInstance instance, EmulatorClassLoader emulatorClassLoader) throws Exception {
+        JFrame frame = launchMicroEmulator(EmulatorLauncher.buildEmulatorParameters(instance), emulatorClassLoader);
+        configureInstanceComponents(instance, frame, emulatorClassLoader);
+    }
+
+    /**
+     * Configure instance components after successful launch
+     */
+    static void configureInstanceComponents(EmulatorInstance instance, JFrame frame,
+            EmulatorClassLoader emulatorClassLoader) throws Exception {
+        ActionListener exitListener = ReflectionHelper.getFieldValue(frame, "menuExitListener", ActionListener.class);
+        JPanel devicePanel = ReflectionHelper.getFieldValue(frame, "devicePanel", JPanel.class);
+
+        instance.setMenuExitListener(exitListener);
+
+        // Set emulator display based on display mode
+        if (instance.isFullDisplayMode()) {
+            instance.setEmulatorDisplay(frame.getRootPane());
+        } else {
+            instance.setEmulatorDisplay(devicePanel);
+        }
+        instance.setDevicePanel(devicePanel);
+
+        Class<?> mIDletResourceLoader = ReflectionHelper.loadClass(emulatorClassLoader,
+                "org.microemu.app.util.MIDletResourceLoader");
+        ClassLoader classLoader = (ClassLoader) ReflectionHelper.getStaticFieldValue(mIDletResourceLoader,
+                "classLoader");
+        instance.setAppClassLoader(classLoader);
+
+        frame.setResizable(false);
+        frame.setTitle("Instance " + instance.getInstanceId());
+    }
+
+    /**
+     * Launch MicroEmulator using reflection
+     * Refactored to use EmulatorReflectionHelper for cleaner code
+     *
+     * @param params      Launch parameters
+     * @param classLoader ClassLoader to use
+     * @return Configured JFrame
+     */
+    public static JFrame launchMicroEmulator(List<String> params, ClassLoader classLoader)
+            throws Exception {
+        JFrame app = createEmulatorFrame(params, classLoader);
+        initializeMIDletFrame(app);
+        return app;
+    }
+
+    /**
+     * Prepare an idle emulator shell: classloader, device and Swing tree are
+     * built, but no MIDlet is loaded yet.
+     *
+     * @param instanceId           Instance ID reserved for the shell
+     * @param microemulatorJarPath Path to microemulator JAR
+     * @param displayWidth         Display width
+     * @param displayHeight        Display height
+     * @return Prepared shell
+     */
+    public static WarmShell prepareShell(int instanceId, String microemulatorJarPath, int displayWidth,
+            int displayHeight) throws Exception {
+        EmulatorClassLoader emulatorClassLoader = EmulatorLauncher.initializeEmulatorClassLoader(instanceId,
+                microemulatorJarPath);
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(emulatorClassLoader);
+        try {
+            List<String> params = new ArrayList<>();
+            params.add("--resizableDevice");
+            params.add(String.valueOf(displayWidth));
+            params.add(String.valueOf(displayHeight));
+
+            JFrame frame = createEmulatorFrame(params, emulatorClassLoader);
+            return new WarmShell(instanceId, microemulatorJarPath, displayWidth, displayHeight,
+                    emulatorClassLoader, frame);
+        } catch (Exception e) {
+            emulatorClassLoader.close();
+            throw e;
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * Load a MIDlet into an emulator frame that was created without one.
+     *
+     * @param app          The Main application JFrame
+     * @param j2meFilePath Path to the (already transformed) MIDlet JAR
+     */
+    static void bindMIDlet(JFrame app, String j2meFilePath) throws Exception {
+        Object common = ReflectionHelper.getFieldValue(app, "common");
+        ReflectionHelper.setFieldValue(common, "midletClassOrUrl", j2meFilePath);
+        initializeMIDletFrame(app);
+    }
+
+    /**
+     * Create the MicroEmulator frame and device without starting a MIDlet.
+     */
+    private static JFrame createEmulatorFrame(List<String> params, ClassLoader classLoader) throws Exception {
+        // Create instance of Main class
+        JFrame app = (JFrame) ReflectionHelper.createInstance(classLoader, "org.microemu.app.Main");
+
+        // Initialize parameters
+        Object deviceEntry = EmulatorReflectionHelper.initializeEmulatorParams(app, params, classLoader);
+
+        // Configure display size
+        EmulatorReflectionHelper.configureDisplaySize(deviceEntry, classLoader);
+
+        // Update device
+        EmulatorReflectionHelper.updateDevice(app);
+
+        // Validate frame
+        app.validate();
+
+        return app;
+    }
+
+    /**
+     * Start the MIDlet configured on the frame's Common object.
+     */
+    private static void initializeMIDletFrame(JFrame app) throws Exception {
+        // Get common object for MIDlet initialization
+        Object common = ReflectionHelper.getFieldValue(app, "common");
+
+        // Initialize MIDlet
+        EmulatorReflectionHelper.initializeMIDlet(common);
+
+        // Setup component listener
+        EmulatorReflectionHelper.setupComponentListener(app);
+
+        // Notify state changed
+        EmulatorReflectionHelper.notifyStateChanged(app);
+    }
+}
@@ -127,7 +127,7 @@ public class InputSynchronizerImpl implements InputSynchronizer {
             return;
         }
 
-        JPanel devicePanel = instance.getDevicePanel();
+        Container devicePanel = instance.getDevicePanel();
         if (devicePanel == null) {
             return;
         }
@@ -150,7 +150,7 @@ public class InputSynchronizerImpl implements InputSynchronizer {
 
     @Override
     public void detachListenersFromInstance(EmulatorInstance instance) {
-        JPanel devicePanel = instance.getDevicePanel();
+        Container devicePanel = instance.getDevicePanel();
         if (devicePanel == null) {
             return;
         }
@@ -170,7 +170,7 @@ public class InputSynchronizerImpl implements InputSynchronizer {
             return;
         }
 
-        JPanel sourcePanel = sourceInstance.getDevicePanel();
+        Container sourcePanel = sourceInstance.getDevicePanel();
         if (sourcePanel == null) {
             return;
         }
@@ -192,7 +192,7 @@ public class InputSynchronizerImpl implements InputSynchronizer {
                 continue;
             }
 
-            JPanel targetPanel = target.getDevicePanel();
+            Container targetPanel = target.getDevicePanel();
             if (targetPanel == null) {
                 continue;
             }
@@ -250,7 +250,7 @@ public class InputSynchronizerImpl implements InputSynchronizer {
                 continue;
             }
 
-            JPanel targetPanel = target.getDevicePanel();
+            Container targetPanel = target.getDevicePanel();
             if (targetPanel == null) {
                 continue;
             }
@@ -275,7 +275,7 @@ public class InputSynchronizerImpl implements InputSynchronizer {
 
     // ======== Scaling ========
 
-    private Point scalePoint(Point source, JPanel sourcePanel, JPanel targetPanel) {
+    private Point scalePoint(Point source, Container sourcePanel, Container targetPanel) {
         int sw = sourcePanel.getWidth();
         int sh = sourcePanel.getHeight();
         if (sw == 0 || sh == 0) {
@@ -0,0 +1,139 @@
+package me.kitakeyos.j2me.presentation.console;
+
+import me.kitakeyos.j2me.infrastructure.console.ConsoleLine;
+import me.kitakeyos.j2me.infrastructure.console.InstanceConsole;
+import me.kitakeyos.j2me.presentation.common.i18n.Messages;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Shows the System.out and System.err output of one instance, starting with
+ * what its console buffer still holds. Polls the buffer with its own cursor,
+ * so an open dialog never slows the MIDlet down.
+ */
+public class ConsoleDialog extends JDialog {
+
+    private static final int POLL_INTERVAL_MS = 500;
+    private static final int MAX_LINES_PER_POLL = 2000;
+
+    private final InstanceConsole console;
+    private final Timer timer;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+    private final List<ConsoleLine> lines = new ArrayList<>();
+
+    private JTextArea textArea;
+    private JCheckBox autoScrollCheckBox;
+    private JLabel statusLabel;
+
+    private long cursor;
+    private long dropped;
+    private int shownLines;
+
+    public ConsoleDialog(Frame owner, InstanceConsole console) {
+        super(owner, Messages.get("console.title", console.getInstanceId()), false);
+        this.console = console;
+        this.cursor = Math.max(0, console.getLineCount() - console.getCapacity());
+        // Fires on the EDT, no extra thread per open dialog
+        this.timer = new Timer(POLL_INTERVAL_MS, e -> poll());
+
+        setSize(640, 420);
+        setLocationRelativeTo(owner);
+        setLayout(new BorderLayout());
+
+        initComponents();
+        timer.setInitialDelay(0);
+        timer.start();
+    }
+
+    private void initComponents() {
+        textArea = new JTextArea();
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+
+        JPanel footerPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        footerPanel.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, Color.LIGHT_GRAY));
+
+        autoScrollCheckBox = new JCheckBox(Messages.get("console.autoScroll"), true);
+        footerPanel.add(autoScrollCheckBox);
+
+        JButton clearButton = new JButton(Messages.get("console.clear"));
+        clearButton.addActionListener(e -> {
+            textArea.setText("");
+            shownLines = 0;
+            dropped = 0;
+            updateStatus();
+        });
+        footerPanel.add(clearButton);
+
+        statusLabel = new JLabel();
+        footerPanel.add(statusLabel);
+        add(footerPanel, BorderLayout.SOUTH);
+    }
+
+    private void poll() {
+        lines.clear();
+        long from = cursor;
+        cursor = console.read(from, lines, MAX_LINES_PER_POLL);
+        long missed = cursor - from - lines.size();
+        if (lines.isEmpty() && missed == 0) {
+            return;
+        }
+        dropped += missed;
+
+        StringBuilder text = new StringBuilder();
+        if (missed > 0) {
+            text.append(Messages.get("console.dropped", missed)).append('\n');
+            shownLines++;
+        }
+        for (ConsoleLine line : lines) {
+            text.append(timeFormat.format(new Date(line.getTimestamp())))
+                    .append(line.isError() ? " E " : "   ")
+                    .append(line.getText()).append('\n');
+        }
+        textArea.append(text.toString());
+        shownLines += lines.size();
+        trimToCapacity();
+
+        if (autoScrollCheckBox.isSelected()) {
+            textArea.setCaretPosition(textArea.getDocument().getLength());
+        }
+        updateStatus();
+    }
+
+    /**
+     * Keep no more lines on screen than the console buffer holds
+     */
+    private void trimToCapacity() {
+        int excess = shownLines - console.getCapacity();
+        if (excess <= 0) {
+            return;
+        }
+        try {
+            int end = textArea.getLineEndOffset(excess - 1);
+            Document document = textArea.getDocument();
+            document.remove(0, end);
+            shownLines -= excess;
+        } catch (BadLocationException e) {
+            textArea.setText("");
+            shownLines = 0;
+        }
+    }
+
+    private void updateStatus() {
+        statusLabel.setText(Messages.get("console.status", console.getLineCount(), console.getCapacity(), dropped));
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+        super.dispose();
+    }
+}
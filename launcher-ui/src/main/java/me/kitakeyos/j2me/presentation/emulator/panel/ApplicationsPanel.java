@@ -15,15 +15,23 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Panel for managing installed J2ME applications
  */
 public class ApplicationsPanel extends BaseTabPanel implements ApplicationService.ApplicationChangeListener {
+    private static final int ICON_SIZE = 48;
+
     private JPanel applicationsListPanel;
+    private ImageIcon defaultIcon;
+    // Decodes the icons of the listed applications, replaced on every refresh
+    private IconLoader iconLoader;
 
     public ApplicationsPanel(MainApplication mainApplication, ApplicationConfig applicationConfig, ApplicationService applicationManager) {
         super(mainApplication, applicationConfig, applicationManager);
@@ -67,7 +75,12 @@ public class ApplicationsPanel extends BaseTabPanel implements ApplicationServic
     }
 
     private void refreshApplicationsList() {
+        if (iconLoader != null) {
+            iconLoader.cancel(false);
+        }
         applicationsListPanel.removeAll();
+        List<IconEntry> icons = new ArrayList<>();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
 
         java.util.List<J2meApplication> apps = applicationManager.getApplications();
 
@@ -79,7 +92,7 @@ public class ApplicationsPanel extends BaseTabPanel implements ApplicationServic
             applicationsListPanel.add(emptyLabel);
         } else {
             for (J2meApplication app : apps) {
-                JPanel appPanel = createApplicationPanel(app);
+                JPanel appPanel = createApplicationPanel(app, dateFormat, icons);
                 applicationsListPanel.add(appPanel);
                 applicationsListPanel.add(Box.createVerticalStrut(4));
             }
@@ -88,9 +101,19 @@ public class ApplicationsPanel extends BaseTabPanel implements ApplicationServic
         updateStatus();
         applicationsListPanel.revalidate();
         applicationsListPanel.repaint();
+
+        if (!icons.isEmpty()) {
+            iconLoader = new IconLoader(icons);
+            iconLoader.execute();
+        }
     }
 
-    private JPanel createApplicationPanel(J2meApplication app) {
+    /**
+     * @param icons Receives the icon label if the application has an icon,
+     *              which is shown once decoded
+     */
+    private JPanel createApplicationPanel(J2meApplication app, SimpleDateFormat dateFormat,
+                                          List<IconEntry> icons) {
         JPanel panel = new JPanel(new BorderLayout(10, 5));
         panel.setBorder(BorderFactory.createCompoundBorder(
                 BorderFactory.createLineBorder(Color.LIGHT_GRAY),
@@ -99,14 +122,11 @@ public class ApplicationsPanel extends BaseTabPanel implements ApplicationServic
         panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 80));
 
         // Icon
-        JLabel iconLabel = new JLabel();
-        if (app.getIcon() != null) {
-            Image scaledIcon = app.getIcon().getScaledInstance(48, 48, Image.SCALE_SMOOTH);
-            iconLabel.setIcon(new ImageIcon(scaledIcon));
-        } else {
-            iconLabel.setIcon(createDefaultIcon());
+        JLabel iconLabel = new JLabel(getDefaultIcon());
+        if (app.getIcon() != null || app.getIconPath() != null) {
+            icons.add(new IconEntry(app, iconLabel));
         }
-        iconLabel.setPreferredSize(new Dimension(48, 48));
+        iconLabel.setPreferredSize(new Dimension(ICON_SIZE, ICON_SIZE));
         panel.add(iconLabel, BorderLayout.WEST);
 
         // Info panel
@@ -137,7 +157,6 @@ public class ApplicationsPanel extends BaseTabPanel implements ApplicationServic
         pathLabel.setForeground(Color.DARK_GRAY);
         infoPanel.add(pathLabel);
 
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
         JLabel dateLabel = new JLabel(Messages.get("apps.installed", dateFormat.format(new Date(app.getInstalledDate()))));
         dateLabel.setFont(dateLabel.getFont().deriveFont(Font.PLAIN, 10f));
         dateLabel.setForeground(Color.DARK_GRAY);
@@ -161,9 +180,16 @@ public class ApplicationsPanel extends BaseTabPanel implements ApplicationServic
         return panel;
     }
 
+    private ImageIcon getDefaultIcon() {
+        if (defaultIcon == null) {
+            defaultIcon = createDefaultIcon();
+        }
+        return defaultIcon;
+    }
+
     private ImageIcon createDefaultIcon() {
         // Create a simple default icon
-        int size = 48;
+        int size = ICON_SIZE;
         java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(size, size, java.awt.image.BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2d = image.createGraphics();
 
@@ -247,4 +273,65 @@ public class ApplicationsPanel extends BaseTabPanel implements ApplicationServic
     public ApplicationService getApplicationManager() {
         return applicationManager;
     }
+
+    /**
+     * Decodes and scales application icons off the EDT, showing each one as
+     * soon as it is ready.
+     */
+    private class IconLoader extends SwingWorker<Void, IconEntry> {
+        private final List<IconEntry> entries;
+
+        IconLoader(List<IconEntry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            for (IconEntry entry : entries) {
+                if (isCancelled()) {
+                    break;
+                }
+                applicationManager.loadIcon(entry.app);
+                Image image = entry.app.getIcon();
+                if (image != null) {
+                    entry.icon = scale(image);
+                    publish(entry);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected void process(List<IconEntry> ready) {
+            if (isCancelled()) {
+                return;
+            }
+            for (IconEntry entry : ready) {
+                entry.label.setIcon(entry.icon);
+            }
+        }
+
+        private ImageIcon scale(Image image) {
+            BufferedImage scaled = new BufferedImage(ICON_SIZE, ICON_SIZE, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = scaled.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(image, 0, 0, ICON_SIZE, ICON_SIZE, null);
+            g2d.dispose();
+            return new ImageIcon(scaled);
+        }
+    }
+
+    /**
+     * An application whose icon is shown by a label
+     */
+    private static class IconEntry {
+        private final J2meApplication app;
+        private final JLabel label;
+        private ImageIcon icon;
+
+        IconEntry(J2meApplication app, JLabel label) {
+            this.app = app;
+            this.label = label;
+        }
+    }
 }
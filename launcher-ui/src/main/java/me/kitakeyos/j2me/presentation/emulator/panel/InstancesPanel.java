@@ -0,0 +1,1693 @@
+package me.kitakeyos.j2me.presentation.emulator.panel;
+
+import me.kitakeyos.j2me.application.MainApplication;
+import me.kitakeyos.j2me.application.cli.WorkerInstanceHost;
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.application.model.J2meApplication;
+import me.kitakeyos.j2me.domain.application.service.ApplicationService;
+import me.kitakeyos.j2me.application.emulator.EmulatorLauncher;
+import me.kitakeyos.j2me.application.window.WarmInstancePool;
+import me.kitakeyos.j2me.application.window.WarmShell;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorConfig;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance;
+import me.kitakeyos.j2me.domain.emulator.model.EmulatorInstance.InstanceState;
+import me.kitakeyos.j2me.domain.emulator.model.SessionSnapshot;
+import me.kitakeyos.j2me.domain.emulator.repository.EmulatorConfigRepository;
+import me.kitakeyos.j2me.domain.emulator.service.BackgroundModeService;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceLifecycleManager;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceManager;
+import me.kitakeyos.j2me.domain.speed.service.CpuGovernor;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceShutdownCoordinator;
+import me.kitakeyos.j2me.domain.emulator.service.InstanceWatchdog;
+import me.kitakeyos.j2me.domain.emulator.service.SessionService;
+import me.kitakeyos.j2me.domain.graphics.service.PaintBudgetService;
+import me.kitakeyos.j2me.domain.media.model.MediaPolicy;
+import me.kitakeyos.j2me.domain.media.service.MediaService;
+import me.kitakeyos.j2me.infrastructure.input.InputSynchronizerImpl;
+import me.kitakeyos.j2me.infrastructure.monitoring.AdmissionDecision;
+import me.kitakeyos.j2me.infrastructure.monitoring.MemoryAdmissionController;
+import me.kitakeyos.j2me.infrastructure.thread.VirtualThreads;
+import me.kitakeyos.j2me.presentation.common.builder.ConfigurationPanelBuilder;
+import me.kitakeyos.j2me.presentation.common.component.BaseTabPanel;
+import me.kitakeyos.j2me.presentation.common.component.ScrollablePanel;
+import me.kitakeyos.j2me.presentation.common.component.ToastNotification;
+import me.kitakeyos.j2me.presentation.common.dialog.MessageDialog;
+import me.kitakeyos.j2me.presentation.common.i18n.Messages;
+import me.kitakeyos.j2me.presentation.console.ConsoleDialog;
+import me.kitakeyos.j2me.presentation.monitor.SystemMonitorDialog;
+import me.kitakeyos.j2me.presentation.network.NetworkMonitorDialog;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
+
+/**
+ * Instances tab panel for managing emulator instances.
+ * Allows users to create, configure, and manage multiple emulator instances.
+ */
+public class InstancesPanel extends BaseTabPanel {
+
+    private static final Logger logger = Logger.getLogger(InstancesPanel.class.getName());
+
+    // UI Components
+    private JComboBox<J2meApplication> applicationComboBox;
+    private JComboBox<EmulatorConfig> emulatorComboBox;
+    private JSpinner instanceCountSpinner;
+    private JSpinner displayWidthSpinner;
+    private JSpinner displayHeightSpinner;
+    private JButton syncInputButton;
+    private JCheckBox scaleInputBySizeCheckBox;
+    private JCheckBox fullDisplayModeCheckBox;
+    private JCheckBox disableGraphicsCheckBox; // New global toggle
+    private JCheckBox workersCheckBox;
+    private JComboBox<String> defaultSpeedComboBox;
+    private ScrollablePanel runningInstancesPanel;
+    private JLabel instancesEmptyLabel;
+
+    // Speed options
+    private static final String[] SPEED_OPTIONS = { "0.5x", "1x", "2x", "3x", "5x", "10x", "20x" };
+    private static final double[] SPEED_VALUES = { 0.5, 1.0, 2.0, 3.0, 5.0, 10.0, 20.0 };
+    private static final String[] PRIORITY_KEYS = { "inst.priority.low", "inst.priority.normal", "inst.priority.high" };
+    private static final double[] PRIORITY_WEIGHTS = { 0.5, 1.0, 2.0 };
+    private static final MediaPolicy[] MEDIA_POLICIES = { MediaPolicy.REAL, MediaPolicy.STUB, MediaPolicy.SHARED };
+    private static final String[] MEDIA_KEYS = { "inst.media.real", "inst.media.stub", "inst.media.shared" };
+    // null follows the instance's visibility
+    private static final Integer[] PAINT_FPS_OPTIONS = { null, 60, 30, 10, 1, PaintBudgetService.UNLIMITED };
+
+    // Services and managers
+    public InstanceManager emulatorInstanceManager;
+
+    // Emulator config repository
+    private EmulatorConfigRepository emulatorConfigRepository;
+
+    // Saved session, for bulk restore
+    private SessionService sessionService;
+
+    // Launch tasks mostly wait on I/O, virtual threads where available
+    private final ExecutorService instanceLauncherPool = VirtualThreads.newTaskExecutor("instance-launcher");
+
+    // Pre-warmed emulator shells for the selected emulator configuration
+    private WarmInstancePool warmInstancePool;
+
+    // Worker processes hosting instances outside this JVM, started on first use
+    private WorkerInstanceHost workerHost;
+    private final ExecutorService workerFramePool = VirtualThreads.newTaskExecutor("worker-frame");
+
+    // Polls instance visibility and focus for BackgroundModeService
+    private static final int VISIBILITY_POLL_MS = 500;
+    private final Timer visibilityTimer = new Timer(VISIBILITY_POLL_MS, e -> updateInstanceVisibility());
+
+    // Restarts instances the watchdog reports as hung
+    private final InstanceWatchdog.RecoveryHandler recoveryHandler = new InstanceWatchdog.RecoveryHandler() {
+        @Override
+        public void restart(EmulatorInstance instance, InstanceWatchdog.Reason reason, int attempt) {
+            restartHungInstance(instance, reason, attempt);
+        }
+
+        @Override
+        public void givenUp(EmulatorInstance instance, InstanceWatchdog.Reason reason) {
+            SwingUtilities.invokeLater(() -> showToast(Messages.get("inst.watchdog.givenUp",
+                    instance.getInstanceId(), describeHang(reason)), ToastNotification.ToastType.ERROR));
+        }
+    };
+
+    // Launches held back by MemoryAdmissionController or the start limit, oldest first
+    private static final int ADMISSION_RETRY_MS = 1000;
+    private static final int MAX_CONCURRENT_STARTS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private final Deque<Runnable> pendingLaunches = new ArrayDeque<>();
+    private final Timer admissionTimer = new Timer(ADMISSION_RETRY_MS, e -> drainLaunchQueue());
+
+    public InstancesPanel(MainApplication mainApplication, ApplicationConfig applicationConfig,
+            ApplicationService j2meApplicationManager) {
+        super(mainApplication, applicationConfig, j2meApplicationManager);
+    }
+
+    /**
+     * Set the emulator config repository and refresh the combo box.
+     * Called after construction since the repository may not be available at
+     * constructor time.
+     */
+    public void setEmulatorConfigRepository(EmulatorConfigRepository repository) {
+        this.emulatorConfigRepository = repository;
+        refreshEmulatorComboBox();
+        primeWarmPool();
+    }
+
+    /**
+     * Set the session service used by the restore action.
+     */
+    public void setSessionService(SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    @Override
+    protected JComponent createHeader() {
+        // Top panel: Horizontal layout with three sections
+        // WEST: Configuration (compact, no stretch)
+        // CENTER: Options panel
+        // EAST: Action buttons
+        JPanel topPanel = new JPanel(new BorderLayout(10, 0));
+
+        // Main Configuration (left side - compact)
+        applicationComboBox = new JComboBox<>();
+        applicationComboBox.setToolTipText(Messages.get("inst.app.tooltip"));
+        refreshApplicationComboBox();
+
+        // Emulator selector dropdown
+        emulatorComboBox = new JComboBox<>();
+        emulatorComboBox.setToolTipText(Messages.get("inst.emu.tooltip"));
+        emulatorComboBox.addActionListener(e -> onEmulatorSelectionChanged());
+
+        instanceCountSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 100, 1));
+        instanceCountSpinner.setToolTipText(Messages.get("inst.count.tooltip"));
+
+        // Display size spinners (default 240x320)
+        displayWidthSpinner = new JSpinner(new SpinnerNumberModel(240, 128, 800, 1));
+        displayWidthSpinner.setToolTipText(Messages.get("inst.width.tooltip"));
+        displayWidthSpinner.setPreferredSize(new Dimension(80, displayWidthSpinner.getPreferredSize().height));
+
+        displayHeightSpinner = new JSpinner(new SpinnerNumberModel(320, 128, 1000, 1));
+        displayHeightSpinner.setToolTipText(Messages.get("inst.height.tooltip"));
+        displayHeightSpinner.setPreferredSize(new Dimension(80, displayHeightSpinner.getPreferredSize().height));
+
+        // Default speed option
+        defaultSpeedComboBox = new JComboBox<>(SPEED_OPTIONS);
+        defaultSpeedComboBox.setSelectedIndex(1); // Default 1x
+        defaultSpeedComboBox.setToolTipText(Messages.get("inst.speed.tooltip"));
+
+        JPanel configurationPanel = ConfigurationPanelBuilder.createConfigurationPanel(
+                applicationComboBox, instanceCountSpinner, emulatorComboBox,
+                displayWidthSpinner, displayHeightSpinner, defaultSpeedComboBox);
+        topPanel.add(configurationPanel, BorderLayout.WEST);
+
+        // Options panel in center
+        JPanel optionsPanel = createOptionsPanel();
+        topPanel.add(optionsPanel, BorderLayout.CENTER);
+
+        // Action buttons on right
+        JPanel buttonPanel = createActionButtonsPanel();
+        topPanel.add(buttonPanel, BorderLayout.EAST);
+
+        return topPanel;
+    }
+
+    @Override
+    protected JComponent createContent() {
+        // Running instances panel in center (using WrapLayout for auto-wrapping)
+        // Use ScrollablePanel to ensure it tracks viewport width
+        runningInstancesPanel = new ScrollablePanel(
+                new me.kitakeyos.j2me.presentation.common.layout.WrapLayout(FlowLayout.LEFT, 10, 10));
+        emulatorInstanceManager = new InstanceManager(SwingUtilities::invokeLater);
+        emulatorInstanceManager.addExitListener(this::removeEmulatorInstanceTab);
+
+        // Create empty state label
+        instancesEmptyLabel = new JLabel(Messages.get("inst.empty"));
+        instancesEmptyLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        instancesEmptyLabel.setForeground(Color.GRAY);
+        runningInstancesPanel.add(instancesEmptyLabel);
+
+        // Resize empty label to full width whenever panel is laid out
+        runningInstancesPanel.addComponentListener(new java.awt.event.ComponentAdapter() {
+            @Override
+            public void componentResized(java.awt.event.ComponentEvent e) {
+                if (instancesEmptyLabel.isVisible()) {
+                    int w = runningInstancesPanel.getWidth() - 30;
+                    instancesEmptyLabel.setPreferredSize(new Dimension(Math.max(w, 100), 40));
+                    runningInstancesPanel.revalidate();
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(runningInstancesPanel);
+        scrollPane.setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createLineBorder(Color.LIGHT_GRAY),
+                Messages.get("inst.running.title"),
+                javax.swing.border.TitledBorder.LEFT,
+                javax.swing.border.TitledBorder.TOP));
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
+
+        return scrollPane;
+    }
+
+    @Override
+    protected void onInitialized() {
+        // Wire InputSynchronizer implementation
+        emulatorInstanceManager.setInputSynchronizer(new InputSynchronizerImpl(emulatorInstanceManager));
+        warmInstancePool = new WarmInstancePool(emulatorInstanceManager, applicationConfig.getWarmPoolSize());
+        if (applicationConfig.isSessionRestoreOnStartup()) {
+            // No shell may take an ID before the startup restore reserved its
+            // own; restoreSession() resumes the pool
+            warmInstancePool.pause();
+        }
+
+        updateInstancesEmptyState();
+    }
+
+    private JPanel createActionButtonsPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JButton createButton = new JButton(Messages.get("inst.createButton"));
+        createButton.setToolTipText(Messages.get("inst.createButton.tooltip"));
+        createButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        createButton.setPreferredSize(new Dimension(130, 30));
+        createButton.setMaximumSize(new Dimension(130, 30));
+        createButton.addActionListener(e -> createEmulatorInstances());
+
+        JButton stopAllButton = new JButton(Messages.get("inst.stopAllButton"));
+        stopAllButton.setToolTipText(Messages.get("inst.stopAllButton.tooltip"));
+        stopAllButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        stopAllButton.setPreferredSize(new Dimension(130, 30));
+        stopAllButton.setMaximumSize(new Dimension(130, 30));
+        stopAllButton.addActionListener(e -> stopAllInstances());
+
+        JButton restoreSessionButton = new JButton(Messages.get("inst.session.restore"));
+        restoreSessionButton.setToolTipText(Messages.get("inst.session.restore.tooltip"));
+        restoreSessionButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        restoreSessionButton.setPreferredSize(new Dimension(130, 30));
+        restoreSessionButton.setMaximumSize(new Dimension(130, 30));
+        restoreSessionButton.addActionListener(e -> restoreSession());
+
+        JButton networkMonitorButton = new JButton(Messages.get("inst.networkMonitor"));
+        networkMonitorButton.setToolTipText(Messages.get("inst.networkMonitor.tooltip"));
+        networkMonitorButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        networkMonitorButton.setPreferredSize(new Dimension(130, 30));
+        networkMonitorButton.setMaximumSize(new Dimension(130, 30));
+        networkMonitorButton.addActionListener(e -> openNetworkMonitor());
+
+        JButton systemMonitorButton = new JButton(Messages.get("inst.systemMonitor"));
+        systemMonitorButton.setToolTipText(Messages.get("inst.systemMonitor.tooltip"));
+        systemMonitorButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        systemMonitorButton.setPreferredSize(new Dimension(130, 30));
+        systemMonitorButton.setMaximumSize(new Dimension(130, 30));
+        systemMonitorButton.addActionListener(e -> openSystemMonitor());
+
+        panel.add(createButton);
+        panel.add(Box.createVerticalStrut(8));
+        panel.add(stopAllButton);
+        panel.add(Box.createVerticalStrut(8));
+        panel.add(restoreSessionButton);
+        panel.add(Box.createVerticalStrut(8));
+        panel.add(networkMonitorButton);
+        panel.add(Box.createVerticalStrut(8));
+        panel.add(systemMonitorButton);
+
+        return panel;
+    }
+
+    /**
+     * Create options panel
+     * Contains various runtime options like input synchronization
+     */
+    private JPanel createOptionsPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createTitledBorder(Messages.get("inst.options.title")),
+                BorderFactory.createEmptyBorder(10, 15, 10, 15)));
+
+        // Input synchronization button - opens selection dialog
+        syncInputButton = new JButton(Messages.get("inst.syncInput"));
+        syncInputButton.setToolTipText(Messages.get("inst.syncInput.tooltip"));
+        syncInputButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+        syncInputButton.addActionListener(e -> showSyncSelectionDialog());
+
+        // Scale input by size option
+        scaleInputBySizeCheckBox = new JCheckBox(Messages.get("inst.scaleInput"));
+        scaleInputBySizeCheckBox.setToolTipText(Messages.get("inst.scaleInput.tooltip"));
+        scaleInputBySizeCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+        scaleInputBySizeCheckBox.addActionListener(e -> {
+            boolean enabled = scaleInputBySizeCheckBox.isSelected();
+            if (emulatorInstanceManager != null) {
+                emulatorInstanceManager.setInputScaleBySize(enabled);
+                String message = Messages.get(enabled ? "inst.scaleInput.enabled" : "inst.scaleInput.disabled");
+                showToast(message, ToastNotification.ToastType.INFO);
+                statusBar.setInfo(message);
+            }
+        });
+
+        // Full display mode option
+        fullDisplayModeCheckBox = new JCheckBox(Messages.get("inst.fullDisplay"));
+        fullDisplayModeCheckBox.setToolTipText(Messages.get("inst.fullDisplay.tooltip"));
+        fullDisplayModeCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        // Worker processes - new instances run in separate JVMs
+        workersCheckBox = new JCheckBox(Messages.get("inst.workers"));
+        workersCheckBox.setToolTipText(Messages.get("inst.workers.tooltip"));
+        workersCheckBox.setSelected(applicationConfig.isWorkersEnabled());
+        workersCheckBox.addActionListener(e -> {
+            boolean enabled = workersCheckBox.isSelected();
+            applicationConfig.setWorkersEnabled(enabled);
+            applicationConfig.saveConfiguration();
+            statusBar.setInfo(Messages.get(enabled ? "inst.workers.enabled" : "inst.workers.disabled"));
+        });
+
+        // Disable Graphics Toggle
+        disableGraphicsCheckBox = new JCheckBox(Messages.get("inst.disableGraphics"));
+        disableGraphicsCheckBox.setToolTipText(Messages.get("inst.disableGraphics.tooltip"));
+        disableGraphicsCheckBox.addActionListener(e -> {
+            boolean disable = disableGraphicsCheckBox.isSelected();
+            if (emulatorInstanceManager != null) {
+                // !disable because service takes "enabled"
+                emulatorInstanceManager.setGlobalGraphicsEnabled(!disable);
+                statusBar.setInfo(Messages.get(disable ? "inst.graphicsDisabledAll" : "inst.graphicsEnabledAll"));
+            }
+        });
+
+        // Paint FPS spinner for visible, unfocused instances (caps SwingDisplayComponent.repaintRequest);
+        // focused and hidden rates are set in the config file
+        JLabel fpsLabel = new JLabel("Visible paint FPS: ");
+        int currentFps = Math.max(1, Math.min(60, applicationConfig.getPaintFps(EmulatorInstance.Visibility.VISIBLE)));
+        JSpinner fpsSpinner = new JSpinner(new SpinnerNumberModel(currentFps, 1, 60, 1));
+        fpsSpinner.setMaximumSize(new Dimension(80, 25));
+        fpsSpinner.setToolTipText("Cap the paint rate of instances on screen without focus. Game logic speed is unaffected.");
+        fpsSpinner.addChangeListener(e -> {
+            int fps = (Integer) fpsSpinner.getValue();
+            applicationConfig.setPaintFps(EmulatorInstance.Visibility.VISIBLE, fps);
+            applicationConfig.saveConfiguration();
+            PaintBudgetService.getInstance().setTierFps(EmulatorInstance.Visibility.VISIBLE, fps);
+        });
+        // Idle sleep spinner — drops paints entirely after N seconds idle.
+        JLabel idleLabel = new JLabel("  Idle sleep (sec): ");
+        int currentIdle = applicationConfig.getIdleSleepSeconds();
+        JSpinner idleSpinner = new JSpinner(new SpinnerNumberModel(currentIdle, 0, 3600, 10));
+        idleSpinner.setMaximumSize(new Dimension(80, 25));
+        idleSpinner.setToolTipText("After this many seconds without mouse/keyboard activity, stop rendering all MIDlet canvases. 0 disables.");
+        idleSpinner.addChangeListener(e -> {
+            int sec = (Integer) idleSpinner.getValue();
+            applicationConfig.setIdleSleepSeconds(sec);
+            applicationConfig.saveConfiguration();
+            me.kitakeyos.j2me.infrastructure.bytecode.PaintThrottleConfig.setIdleTimeoutSeconds(sec);
+        });
+        // Warm pool spinner - number of idle emulator shells kept ready
+        JLabel warmPoolLabel = new JLabel(Messages.get("inst.warmPool"));
+        JSpinner warmPoolSpinner = new JSpinner(new SpinnerNumberModel(applicationConfig.getWarmPoolSize(), 0, 10, 1));
+        warmPoolSpinner.setMaximumSize(new Dimension(60, 25));
+        warmPoolSpinner.setToolTipText(Messages.get("inst.warmPool.tooltip"));
+        warmPoolSpinner.addChangeListener(e -> {
+            int size = (Integer) warmPoolSpinner.getValue();
+            applicationConfig.setWarmPoolSize(size);
+            applicationConfig.saveConfiguration();
+            if (warmInstancePool != null) {
+                warmInstancePool.setTargetSize(size);
+                primeWarmPool();
+            }
+        });
+
+        // CPU governor - tunes instance speed to keep process CPU at a target
+        CpuGovernor governor = CpuGovernor.getInstance();
+        JCheckBox governorCheckBox = new JCheckBox(Messages.get("inst.governor"));
+        governorCheckBox.setToolTipText(Messages.get("inst.governor.tooltip"));
+        governorCheckBox.setSelected(governor.isEnabled());
+        governorCheckBox.addActionListener(e -> {
+            boolean enabled = governorCheckBox.isSelected();
+            governor.setEnabled(enabled);
+            applicationConfig.setGovernorEnabled(enabled);
+            applicationConfig.saveConfiguration();
+            statusBar.setInfo(Messages.get(enabled ? "inst.governor.enabled" : "inst.governor.disabled"));
+        });
+        JLabel governorTargetLabel = new JLabel(Messages.get("inst.governor.target"));
+        JSpinner governorTargetSpinner = new JSpinner(new SpinnerNumberModel(
+                (int) governor.getTargetCpuPercent(), 10, 100, 5));
+        governorTargetSpinner.setMaximumSize(new Dimension(60, 25));
+        governorTargetSpinner.addChangeListener(e -> {
+            int target = (Integer) governorTargetSpinner.getValue();
+            governor.setTargetCpuPercent(target);
+            applicationConfig.setGovernorTargetCpuPercent(target);
+            applicationConfig.saveConfiguration();
+        });
+        JLabel governorBandLabel = new JLabel(Messages.get("inst.governor.band"));
+        JSpinner governorMinSpinner = new JSpinner(new SpinnerNumberModel(governor.getMinMultiplier(), 0.05, 20.0, 0.05));
+        JSpinner governorMaxSpinner = new JSpinner(new SpinnerNumberModel(governor.getMaxMultiplier(), 0.05, 20.0, 0.05));
+        governorMinSpinner.setMaximumSize(new Dimension(65, 25));
+        governorMaxSpinner.setMaximumSize(new Dimension(65, 25));
+        javax.swing.event.ChangeListener bandListener = e -> {
+            double min = (Double) governorMinSpinner.getValue();
+            double max = (Double) governorMaxSpinner.getValue();
+            if (max < min) {
+                return; // transient while the user edits one end
+            }
+            governor.setBand(min, max);
+            applicationConfig.setGovernorMinSpeed(min);
+            applicationConfig.setGovernorMaxSpeed(max);
+            applicationConfig.saveConfiguration();
+        };
+        governorMinSpinner.addChangeListener(bandListener);
+        governorMaxSpinner.addChangeListener(bandListener);
+
+        // Background mode - slows down instances that are not on screen
+        BackgroundModeService backgroundMode = BackgroundModeService.getInstance();
+        JCheckBox backgroundCheckBox = new JCheckBox(Messages.get("inst.background"));
+        backgroundCheckBox.setToolTipText(Messages.get("inst.background.tooltip"));
+        backgroundCheckBox.setSelected(backgroundMode.isEnabled());
+        backgroundCheckBox.addActionListener(e -> {
+            boolean enabled = backgroundCheckBox.isSelected();
+            backgroundMode.setEnabled(enabled);
+            applicationConfig.setBackgroundModeEnabled(enabled);
+            applicationConfig.saveConfiguration();
+        });
+        // Hang watchdog - restarts instances that deadlock or stop making progress
+        InstanceWatchdog watchdog = InstanceWatchdog.getInstance();
+        JCheckBox watchdogCheckBox = new JCheckBox(Messages.get("inst.watchdog"));
+        watchdogCheckBox.setToolTipText(Messages.get("inst.watchdog.tooltip"));
+        watchdogCheckBox.setSelected(watchdog.isEnabled());
+        watchdogCheckBox.addActionListener(e -> {
+            boolean enabled = watchdogCheckBox.isSelected();
+            watchdog.setEnabled(enabled);
+            applicationConfig.setWatchdogEnabled(enabled);
+            applicationConfig.saveConfiguration();
+        });
+        JLabel watchdogTimeoutLabel = new JLabel(Messages.get("inst.watchdog.timeout"));
+        JSpinner watchdogTimeoutSpinner = new JSpinner(new SpinnerNumberModel(
+                watchdog.getStallTimeoutSeconds(), 30, 3600, 30));
+        watchdogTimeoutSpinner.setMaximumSize(new Dimension(70, 25));
+        watchdogTimeoutSpinner.addChangeListener(e -> {
+            int seconds = (Integer) watchdogTimeoutSpinner.getValue();
+            watchdog.setStallTimeoutSeconds(seconds);
+            applicationConfig.setWatchdogStallTimeoutSeconds(seconds);
+            applicationConfig.saveConfiguration();
+        });
+        JLabel backgroundSpeedLabel = new JLabel(Messages.get("inst.background.speed"));
+        JSpinner backgroundSpeedSpinner = new JSpinner(new SpinnerNumberModel(
+                backgroundMode.getBackgroundSpeed(), 0.05, 1.0, 0.05));
+        backgroundSpeedSpinner.setMaximumSize(new Dimension(65, 25));
+        backgroundSpeedSpinner.addChangeListener(e -> {
+            double speed = (Double) backgroundSpeedSpinner.getValue();
+            backgroundMode.setBackgroundSpeed(speed);
+            applicationConfig.setBackgroundSpeed(speed);
+            applicationConfig.saveConfiguration();
+        });
+
+        // Row 1: Sync Input button
+        syncInputButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        // Row 2: Scale Input + Full Display (two checkboxes side by side)
+        JPanel inputRow = new JPanel();
+        inputRow.setLayout(new BoxLayout(inputRow, BoxLayout.X_AXIS));
+        inputRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        inputRow.add(scaleInputBySizeCheckBox);
+        inputRow.add(Box.createHorizontalStrut(10));
+        inputRow.add(fullDisplayModeCheckBox);
+        inputRow.add(Box.createHorizontalStrut(10));
+        inputRow.add(workersCheckBox);
+        inputRow.add(Box.createHorizontalGlue());
+
+        // Row 3: Disable All Graphics (own row — long label)
+        disableGraphicsCheckBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        // Row 4: Performance — Max FPS + Idle sleep on one row
+        JPanel perfRow = new JPanel();
+        perfRow.setLayout(new BoxLayout(perfRow, BoxLayout.X_AXIS));
+        perfRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        perfRow.add(fpsLabel);
+        perfRow.add(fpsSpinner);
+        perfRow.add(idleLabel);
+        perfRow.add(idleSpinner);
+        perfRow.add(warmPoolLabel);
+        perfRow.add(warmPoolSpinner);
+        perfRow.add(Box.createHorizontalGlue());
+
+        // Row 5: CPU governor — enable, target and speed band
+        JPanel governorRow = new JPanel();
+        governorRow.setLayout(new BoxLayout(governorRow, BoxLayout.X_AXIS));
+        governorRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        governorRow.add(governorCheckBox);
+        governorRow.add(governorTargetLabel);
+        governorRow.add(governorTargetSpinner);
+        governorRow.add(governorBandLabel);
+        governorRow.add(governorMinSpinner);
+        governorRow.add(new JLabel(" - "));
+        governorRow.add(governorMaxSpinner);
+        governorRow.add(Box.createHorizontalGlue());
+
+        // Row 6: Background mode and hang watchdog
+        JPanel backgroundRow = new JPanel();
+        backgroundRow.setLayout(new BoxLayout(backgroundRow, BoxLayout.X_AXIS));
+        backgroundRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        backgroundRow.add(backgroundCheckBox);
+        backgroundRow.add(backgroundSpeedLabel);
+        backgroundRow.add(backgroundSpeedSpinner);
+        backgroundRow.add(Box.createHorizontalStrut(10));
+        backgroundRow.add(watchdogCheckBox);
+        backgroundRow.add(watchdogTimeoutLabel);
+        backgroundRow.add(watchdogTimeoutSpinner);
+        backgroundRow.add(Box.createHorizontalGlue());
+
+        panel.add(syncInputButton);
+        panel.add(Box.createVerticalStrut(6));
+        panel.add(inputRow);
+        panel.add(Box.createVerticalStrut(4));
+        panel.add(disableGraphicsCheckBox);
+        panel.add(Box.createVerticalStrut(6));
+        panel.add(perfRow);
+        panel.add(Box.createVerticalStrut(4));
+        panel.add(governorRow);
+        panel.add(Box.createVerticalStrut(4));
+        panel.add(backgroundRow);
+
+        return panel;
+    }
+
+    /**
+     * When emulator selection changes, auto-populate display size spinners
+     */
+    private void onEmulatorSelectionChanged() {
+        EmulatorConfig selected = (EmulatorConfig) emulatorComboBox.getSelectedItem();
+        if (selected != null) {
+            displayWidthSpinner.setValue(selected.getDefaultDisplayWidth());
+            displayHeightSpinner.setValue(selected.getDefaultDisplayHeight());
+            primeWarmPool();
+        }
+    }
+
+    /**
+     * Refresh the emulator combo box with latest emulator configs
+     */
+    public void refreshEmulatorComboBox() {
+        if (emulatorConfigRepository == null)
+            return;
+        EmulatorConfig previousSelection = (EmulatorConfig) emulatorComboBox.getSelectedItem();
+        emulatorComboBox.removeAllItems();
+        for (EmulatorConfig config : emulatorConfigRepository.getAll()) {
+            emulatorComboBox.addItem(config);
+        }
+        // Restore previous selection if still available
+        if (previousSelection != null) {
+            for (int i = 0; i < emulatorComboBox.getItemCount(); i++) {
+                if (emulatorComboBox.getItemAt(i).getId().equals(previousSelection.getId())) {
+                    emulatorComboBox.setSelectedIndex(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Refresh the application combo box with latest applications
+     */
+    public void refreshApplicationComboBox() {
+        applicationComboBox.removeAllItems();
+        for (J2meApplication app : applicationManager.getApplications()) {
+            applicationComboBox.addItem(app);
+        }
+    }
+
+    /**
+     * Create and automatically start instances
+     */
+    private void createEmulatorInstances() {
+        J2meApplication selectedApp = (J2meApplication) applicationComboBox.getSelectedItem();
+        if (selectedApp == null) {
+            showErrorMessage(Messages.get("inst.error.noApp"));
+            return;
+        }
+
+        EmulatorConfig selectedEmulator = (EmulatorConfig) emulatorComboBox.getSelectedItem();
+        if (selectedEmulator == null) {
+            showErrorMessage(Messages.get("inst.error.noEmulator"));
+            return;
+        }
+
+        if (!selectedEmulator.isValid()) {
+            showErrorMessage(Messages.get("inst.error.invalidEmulator", selectedEmulator.getJarPath()));
+            return;
+        }
+
+        int numberOfInstances = (Integer) instanceCountSpinner.getValue();
+        String microemulatorPath = selectedEmulator.getJarPath();
+        String j2meFilePath = selectedApp.getFilePath();
+        int displayWidth = (Integer) displayWidthSpinner.getValue();
+        int displayHeight = (Integer) displayHeightSpinner.getValue();
+        boolean fullDisplayMode = fullDisplayModeCheckBox.isSelected();
+
+        if (applicationConfig.isWorkersEnabled()) {
+            // Each worker applies admission control to its own heap
+            if (startWorkerHost()) {
+                for (int i = 0; i < numberOfInstances; i++) {
+                    launchWorkerInstance(microemulatorPath, j2meFilePath, displayWidth, displayHeight,
+                            fullDisplayMode);
+                }
+                String message = Messages.get("inst.worker.starting", numberOfInstances, selectedApp.getName());
+                showToast(message, ToastNotification.ToastType.SUCCESS);
+                statusBar.setSuccess(message);
+            }
+            return;
+        }
+
+        // Hold back launches the heap / Metaspace model says would not fit.
+        // New requests never overtake launches that are already queued.
+        AdmissionDecision decision = MemoryAdmissionController.getInstance().check(numberOfInstances);
+        int admitted = pendingLaunches.isEmpty() ? decision.getAdmitted() : 0;
+
+        for (int i = 0; i < admitted; i++) {
+            launchNewInstance(microemulatorPath, j2meFilePath, displayWidth, displayHeight, fullDisplayMode);
+        }
+        warmInstancePool.prime(microemulatorPath, displayWidth, displayHeight);
+
+        int held = numberOfInstances - admitted;
+        if (held > 0) {
+            String reason = decision.isFullyAdmitted()
+                    ? Messages.get("inst.admission.reason.queue", pendingLaunches.size())
+                    : describeAdmission(decision);
+            String message;
+            if (applicationConfig.isQueueLaunchesEnabled()) {
+                for (int i = 0; i < held; i++) {
+                    pendingLaunches.addLast(() -> launchNewInstance(microemulatorPath, j2meFilePath,
+                            displayWidth, displayHeight, fullDisplayMode));
+                }
+                admissionTimer.start();
+                message = Messages.get("inst.admission.queued", held, reason);
+            } else {
+                message = Messages.get("inst.admission.refused", held, reason);
+            }
+            logger.info(message);
+            showToast(message, ToastNotification.ToastType.WARNING);
+            statusBar.setWarning(message);
+            if (admitted == 0) {
+                return;
+            }
+        }
+
+        String message = Messages.get("inst.starting", admitted, selectedApp.getName());
+        showToast(message, ToastNotification.ToastType.SUCCESS);
+        statusBar.setSuccess(message);
+    }
+
+    /**
+     * Create a new instance and start it, reusing a warm shell when available
+     */
+    private void launchNewInstance(String microemulatorPath, String j2meFilePath, int displayWidth,
+            int displayHeight, boolean fullDisplayMode) {
+        // Reuse a warm shell when available; its instance ID is already reserved
+        WarmShell shell = warmInstancePool.acquire(microemulatorPath, displayWidth, displayHeight);
+        int instanceId = shell != null ? shell.getInstanceId() : emulatorInstanceManager.getNextInstanceId();
+        EmulatorInstance emulatorInstance = new EmulatorInstance(instanceId, microemulatorPath, j2meFilePath,
+                displayWidth, displayHeight, fullDisplayMode);
+
+        emulatorInstanceManager.addInstance(emulatorInstance);
+        // Automatically start the instance
+        runSingleInstance(emulatorInstance, shell);
+    }
+
+    /**
+     * Start the worker processes' host on first use
+     *
+     * @return false if it could not be started; the error was shown
+     */
+    private boolean startWorkerHost() {
+        if (workerHost == null) {
+            try {
+                workerHost = new WorkerInstanceHost(applicationConfig);
+            } catch (java.io.IOException e) {
+                logger.warning("Cannot start worker host: " + e.getMessage());
+                showErrorMessage(Messages.get("inst.worker.error", e.getMessage()));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start an instance in a worker process and show its frames once it runs.
+     * The ID is taken from this launcher's pool, so the instance keeps its
+     * RMS data whichever JVM hosts it.
+     */
+    private void launchWorkerInstance(String microemulatorPath, String j2meFilePath, int displayWidth,
+            int displayHeight, boolean fullDisplayMode) {
+        WorkerInstanceHost host = workerHost;
+        int instanceId = emulatorInstanceManager.getNextInstanceId();
+        double speed = getDefaultSpeed();
+        host.launch(instanceId, microemulatorPath, j2meFilePath, displayWidth, displayHeight, fullDisplayMode,
+                speed, !disableGraphicsCheckBox.isSelected(), applicationConfig.getMediaPolicy())
+                .whenComplete((ok, error) -> SwingUtilities.invokeLater(() -> {
+                    if (Boolean.TRUE.equals(ok) && host == workerHost) {
+                        addWorkerInstanceTab(host, instanceId, displayWidth, displayHeight, speed);
+                    } else {
+                        emulatorInstanceManager.releaseInstanceId(instanceId);
+                        showToast(Messages.get("inst.worker.failed", instanceId), ToastNotification.ToastType.ERROR);
+                    }
+                }));
+    }
+
+    /**
+     * Stop the worker processes and every instance they host, off the EDT.
+     * Called when the launcher closes or its panels are rebuilt.
+     */
+    public void closeWorkers() {
+        WorkerInstanceHost host = workerHost;
+        if (host == null) {
+            return;
+        }
+        workerHost = null;
+        for (Component component : runningInstancesPanel.getComponents()) {
+            WorkerInstanceView view = workerViewOf(component);
+            if (view != null) {
+                runningInstancesPanel.remove(component);
+                emulatorInstanceManager.releaseInstanceId(view.getInstanceId());
+            }
+        }
+        runningInstancesPanel.revalidate();
+        runningInstancesPanel.repaint();
+        updateInstancesEmptyState();
+        Thread closer = new Thread(host::close, "worker-shutdown");
+        closer.start();
+    }
+
+    /**
+     * Restore the saved session: every instance comes back under its previous
+     * ID (and so with its RMS data), emulator, application, size, speed,
+     * graphics, sync and priority settings. Launches go through the launch
+     * queue, so at most {@link #MAX_CONCURRENT_STARTS} start at once and only
+     * while the memory model has room.
+     */
+    public void restoreSession() {
+        SessionSnapshot snapshot = sessionService != null ? sessionService.load() : null;
+        if (snapshot == null || snapshot.isEmpty()) {
+            resumeWarmPool();
+            if (sessionService != null) {
+                showInfoMessage(Messages.get("inst.session.empty"));
+            }
+            return;
+        }
+
+        // Warm shells hold instance IDs the session may need; they are
+        // bound to their ID, so restored instances start cold from the
+        // shared bytecode and transformed JAR caches. IDs are reserved once
+        // the shell being built, if any, has been released too.
+        warmInstancePool.pause().thenRun(() -> SwingUtilities.invokeLater(() -> launchSession(snapshot)));
+    }
+
+    /**
+     * Reserve the IDs of a loaded session and queue its launches, then warm
+     * shells again. Runs on the EDT with the warm pool paused and idle.
+     */
+    private void launchSession(SessionSnapshot snapshot) {
+        java.util.List<SessionSnapshot.Entry> entries = sessionService.prepareRestore(snapshot);
+        for (SessionSnapshot.Entry entry : entries) {
+            pendingLaunches.addLast(() -> launchRestoredInstance(entry));
+        }
+        drainLaunchQueue();
+        resumeWarmPool();
+
+        int skipped = snapshot.getEntries().size() - entries.size();
+        String message = skipped > 0
+                ? Messages.get("inst.session.restoringSkipped", entries.size(), skipped)
+                : Messages.get("inst.session.restoring", entries.size());
+        logger.info(message);
+        showToast(message, skipped > 0 ? ToastNotification.ToastType.WARNING : ToastNotification.ToastType.SUCCESS);
+        statusBar.setInfo(message);
+    }
+
+    /**
+     * Register and start an instance from a restored session entry. Its ID
+     * was reserved by {@link SessionService#prepareRestore}.
+     */
+    private void launchRestoredInstance(SessionSnapshot.Entry entry) {
+        EmulatorInstance emulatorInstance = new EmulatorInstance(entry.getInstanceId(),
+                entry.getMicroemulatorPath(), entry.getJ2meFilePath(), entry.getDisplayWidth(),
+                entry.getDisplayHeight(), entry.isFullDisplayMode());
+        emulatorInstance.setGraphicsEnabled(entry.isGraphicsEnabled());
+
+        emulatorInstanceManager.addInstance(emulatorInstance);
+        sessionService.restoreLaunched(entry.getInstanceId());
+        runSingleInstance(emulatorInstance, null, entry.getSpeedMultiplier());
+    }
+
+    /**
+     * Start queued launches while fewer than {@link #MAX_CONCURRENT_STARTS}
+     * instances are starting and the memory model has room. Runs on every
+     * timer tick and whenever a launch completes. Launches made in this pass
+     * are added to the admission check; once their start begins they may be
+     * counted twice, which errs on the safe side.
+     */
+    private void drainLaunchQueue() {
+        if (pendingLaunches.isEmpty()) {
+            admissionTimer.stop();
+            return;
+        }
+        int inFlight = 0;
+        for (EmulatorInstance instance : emulatorInstanceManager.getInstances()) {
+            if (instance.getState() == InstanceState.CREATED || instance.getState() == InstanceState.STARTING) {
+                inFlight++;
+            }
+        }
+        int launched = 0;
+        while (!pendingLaunches.isEmpty() && inFlight + launched < MAX_CONCURRENT_STARTS
+                && MemoryAdmissionController.getInstance().check(launched + 1).isFullyAdmitted()) {
+            pendingLaunches.pollFirst().run();
+            launched++;
+        }
+        if (pendingLaunches.isEmpty()) {
+            admissionTimer.stop();
+            if (launched > 0) {
+                statusBar.setInfo(Messages.get("inst.admission.drained"));
+            }
+        } else {
+            admissionTimer.start();
+            if (launched > 0) {
+                statusBar.setInfo(Messages.get("inst.admission.pending", pendingLaunches.size()));
+            }
+        }
+    }
+
+    /**
+     * Restart an instance reported as hung under the same ID, with the speed,
+     * graphics mode and priority it had. Runs on the watchdog thread; the tab
+     * must be removed before shutdown clears the display reference.
+     */
+    private void restartHungInstance(EmulatorInstance instance, InstanceWatchdog.Reason reason, int attempt) {
+        // Captured like SessionService.capture: shutdown drops them
+        int instanceId = instance.getInstanceId();
+        double speed = instance.getSpeedMultiplier();
+        boolean graphicsEnabled = instance.isGraphicsEnabled();
+        double priorityWeight = CpuGovernor.getInstance().getPriorityWeight(instanceId);
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                removeEmulatorInstanceTab(instance);
+                showToast(Messages.get("inst.watchdog.restarting", instance.getInstanceId(),
+                        describeHang(reason), attempt), ToastNotification.ToastType.WARNING);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            logger.warning("Failed to remove tab of hung instance: " + e.getCause());
+        }
+        EmulatorInstance replacement = InstanceLifecycleManager.restart(instance);
+        if (replacement != null) {
+            replacement.setGraphicsEnabled(graphicsEnabled);
+            CpuGovernor.getInstance().setPriorityWeight(instanceId, priorityWeight);
+            SwingUtilities.invokeLater(() -> runSingleInstance(replacement, null, speed));
+        }
+    }
+
+    private static String describeHang(InstanceWatchdog.Reason reason) {
+        switch (reason) {
+            case DEADLOCK:
+                return Messages.get("inst.watchdog.reason.deadlock");
+            case BLOCKED:
+                return Messages.get("inst.watchdog.reason.blocked");
+            default:
+                return Messages.get("inst.watchdog.reason.stalled");
+        }
+    }
+
+    /**
+     * Human-readable reason for a limited admission decision
+     */
+    private String describeAdmission(AdmissionDecision decision) {
+        String key = decision.getLimit() == AdmissionDecision.Limit.METASPACE
+                ? "inst.admission.reason.metaspace"
+                : "inst.admission.reason.heap";
+        return Messages.get(key, decision.getProjectedBytes() >> 20, decision.getLimitBytes() >> 20,
+                decision.getPerInstanceBytes() >> 20);
+    }
+
+    /**
+     * Run a single instance
+     */
+    public void runSingleInstance(EmulatorInstance emulatorInstance) {
+        runSingleInstance(emulatorInstance, null);
+    }
+
+    /**
+     * Run a single instance at the default speed, binding it to a warm shell
+     * if one is given
+     */
+    private void runSingleInstance(EmulatorInstance emulatorInstance, WarmShell shell) {
+        runSingleInstance(emulatorInstance, shell, getDefaultSpeed());
+    }
+
+    /**
+     * Run a single instance at the given speed, binding it to a warm shell if
+     * one is given
+     */
+    private void runSingleInstance(EmulatorInstance emulatorInstance, WarmShell shell, double speed) {
+        if (!emulatorInstance.canRun()) {
+            if (shell != null) {
+                // The instance keeps the shell's ID, it is released when the instance is removed
+                shell.dispose();
+            }
+            showErrorMessage(Messages.get("inst.error.cannotRun", emulatorInstance.getInstanceId()));
+            return;
+        }
+
+        instanceLauncherPool.submit(() -> {
+            try {
+                EmulatorLauncher.startEmulatorInstance(
+                        emulatorInstance,
+                        shell,
+                        // onComplete callback
+                        () -> SwingUtilities.invokeLater(() -> {
+                            if (emulatorInstance.getState() == InstanceState.RUNNING) {
+                                emulatorInstance.setSpeedMultiplier(speed);
+                                if (!emulatorInstance.isGraphicsEnabled()) {
+                                    me.kitakeyos.j2me.domain.graphics.service.GraphicsOptimizationService
+                                            .getInstance().setGraphicsEnabled(emulatorInstance, false);
+                                }
+                                addEmulatorInstanceTab(emulatorInstance, speed);
+                            }
+                            // A finished start frees a slot for queued launches
+                            if (!pendingLaunches.isEmpty()) {
+                                drainLaunchQueue();
+                            }
+                        }));
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> showErrorMessage(e.getMessage()));
+                logger.severe(e.getMessage());
+            }
+        });
+    }
+
+    private void resumeWarmPool() {
+        if (warmInstancePool != null) {
+            warmInstancePool.resume();
+            primeWarmPool();
+        }
+    }
+
+    /**
+     * Keep warm shells ready for the currently selected emulator and size
+     */
+    private void primeWarmPool() {
+        if (warmInstancePool == null || emulatorComboBox == null) {
+            return;
+        }
+        EmulatorConfig selected = (EmulatorConfig) emulatorComboBox.getSelectedItem();
+        if (selected != null && selected.isValid()) {
+            warmInstancePool.prime(selected.getJarPath(),
+                    (Integer) displayWidthSpinner.getValue(),
+                    (Integer) displayHeightSpinner.getValue());
+        }
+    }
+
+    /**
+     * Get default speed from UI selection
+     */
+    private double getDefaultSpeed() {
+        int index = defaultSpeedComboBox.getSelectedIndex();
+        if (index >= 0 && index < SPEED_VALUES.length) {
+            return SPEED_VALUES[index];
+        }
+        return 1.0; // Default 1x
+    }
+
+    /**
+     * Stop all running instances.
+     * UI tabs are removed immediately on EDT, then shutdowns run as one batch on the shutdown coordinator.
+     */
+    private void stopAllInstances() {
+        // Queued launches belong to the batch being stopped
+        if (!pendingLaunches.isEmpty()) {
+            logger.info("Discarding " + pendingLaunches.size() + " queued launch(es)");
+            pendingLaunches.clear();
+            admissionTimer.stop();
+        }
+        if (sessionService != null) {
+            sessionService.cancelRestore();
+        }
+
+        java.util.List<EmulatorInstance> runningInstances = emulatorInstanceManager.getRunningInstances();
+        int workerCount = stopWorkerInstances();
+
+        if (runningInstances.isEmpty()) {
+            if (workerCount > 0) {
+                String message = Messages.get("inst.stopping", workerCount);
+                showToast(message, ToastNotification.ToastType.INFO);
+                statusBar.setInfo(message);
+                return;
+            }
+            showInfoMessage(Messages.get("inst.noRunning"));
+            statusBar.setInfo(Messages.get("inst.noRunningStatus"));
+            return;
+        }
+
+        // Remove UI tabs immediately so the user sees instant feedback
+        for (EmulatorInstance instance : runningInstances) {
+            removeEmulatorInstanceTab(instance);
+        }
+
+        String message = Messages.get("inst.stopping", runningInstances.size());
+        showToast(message, ToastNotification.ToastType.INFO);
+        statusBar.setInfo(message);
+
+        // Shutdown all instances as one batch; completion is reported on the EDT
+        int count = runningInstances.size();
+        InstanceShutdownCoordinator.getInstance().shutdownAll(runningInstances, () -> {
+            String doneMessage = Messages.get("inst.stopped", count);
+            showToast(doneMessage, ToastNotification.ToastType.INFO);
+            statusBar.setInfo(doneMessage);
+        });
+    }
+
+    /**
+     * Remove the views of all worker-hosted instances and stop the instances
+     *
+     * @return Number of instances stopped
+     */
+    private int stopWorkerInstances() {
+        int count = 0;
+        for (Component component : runningInstancesPanel.getComponents()) {
+            WorkerInstanceView view = workerViewOf(component);
+            if (view != null) {
+                stopWorkerInstance((JPanel) component, view);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Remove a worker-hosted instance's view and stop it; its ID is released
+     * once the worker answered
+     */
+    private void stopWorkerInstance(JPanel wrapperPanel, WorkerInstanceView view) {
+        runningInstancesPanel.remove(wrapperPanel);
+        runningInstancesPanel.revalidate();
+        runningInstancesPanel.repaint();
+        updateInstancesEmptyState();
+        int instanceId = view.getInstanceId();
+        WorkerInstanceHost host = workerHost;
+        if (host == null) {
+            emulatorInstanceManager.releaseInstanceId(instanceId);
+            return;
+        }
+        host.stopInstance(instanceId).whenComplete((ok, error) ->
+                emulatorInstanceManager.releaseInstanceId(instanceId));
+    }
+
+    /**
+     * @return The worker-hosted instance shown by a card of the running
+     *         instances panel, null for other cards
+     */
+    private static WorkerInstanceView workerViewOf(Component component) {
+        return component instanceof JComponent
+                ? (WorkerInstanceView) ((JComponent) component).getClientProperty("workerView")
+                : null;
+    }
+
+    /**
+     * Add the view of an instance running in a worker process, sorted by
+     * instanceId like the in-process ones
+     */
+    private void addWorkerInstanceTab(WorkerInstanceHost host, int instanceId, int displayWidth,
+            int displayHeight, double defaultSpeed) {
+        WorkerInstanceView view = new WorkerInstanceView(host, instanceId, displayWidth, displayHeight,
+                workerFramePool);
+        JPanel wrapperPanel = new JPanel(new BorderLayout());
+        wrapperPanel.add(createWorkerInstanceMenuBar(host, wrapperPanel, view, defaultSpeed), BorderLayout.NORTH);
+        wrapperPanel.add(view, BorderLayout.CENTER);
+        wrapperPanel.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1));
+        wrapperPanel.putClientProperty("instanceId", instanceId);
+        wrapperPanel.putClientProperty("workerView", view);
+
+        runningInstancesPanel.add(wrapperPanel, findInsertPosition(instanceId));
+        runningInstancesPanel.revalidate();
+        runningInstancesPanel.repaint();
+        updateInstancesEmptyState();
+    }
+
+    /**
+     * Menu bar of a worker-hosted instance: speed and stop, the controls the
+     * worker protocol carries
+     */
+    private JMenuBar createWorkerInstanceMenuBar(WorkerInstanceHost host, JPanel wrapperPanel,
+            WorkerInstanceView view, double defaultSpeed) {
+        int instanceId = view.getInstanceId();
+        JMenuBar menuBar = new JMenuBar();
+
+        JLabel titleLabel = new JLabel("  " + Messages.get("inst.worker.title", instanceId) + "  ");
+        titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD));
+        menuBar.add(titleLabel);
+        menuBar.add(Box.createHorizontalGlue());
+
+        JMenu actionsMenu = new JMenu(Messages.get("inst.actions"));
+        actionsMenu.setToolTipText(Messages.get("inst.actions.tooltip"));
+
+        JMenu speedSubmenu = new JMenu(Messages.get("inst.speed"));
+        speedSubmenu.setToolTipText(Messages.get("inst.speed.submenu.tooltip"));
+        ButtonGroup speedGroup = new ButtonGroup();
+        for (int i = 0; i < SPEED_OPTIONS.length; i++) {
+            final int index = i;
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(SPEED_OPTIONS[i]);
+            if (Math.abs(SPEED_VALUES[i] - defaultSpeed) < 0.01) {
+                item.setSelected(true);
+                speedSubmenu.setText(Messages.get("inst.speed.format", SPEED_OPTIONS[i]));
+            }
+            item.addActionListener(e -> {
+                host.setSpeed(instanceId, SPEED_VALUES[index]);
+                speedSubmenu.setText(Messages.get("inst.speed.format", SPEED_OPTIONS[index]));
+                showToast(Messages.get("inst.speed.set", instanceId, SPEED_OPTIONS[index]),
+                        ToastNotification.ToastType.INFO);
+            });
+            speedGroup.add(item);
+            speedSubmenu.add(item);
+        }
+        actionsMenu.add(speedSubmenu);
+        actionsMenu.addSeparator();
+
+        JMenuItem stopItem = new JMenuItem(Messages.get("inst.stopInstance"));
+        stopItem.addActionListener(e -> {
+            stopWorkerInstance(wrapperPanel, view);
+            showToast(Messages.get("inst.stoppedSingle", instanceId), ToastNotification.ToastType.INFO);
+        });
+        actionsMenu.add(stopItem);
+
+        menuBar.add(actionsMenu);
+        return menuBar;
+    }
+
+    /**
+     * Update empty state visibility based on number of running instances
+     */
+    private void updateInstancesEmptyState() {
+        boolean hasInstances = runningInstancesPanel.getComponentCount() > 1; // More than just the empty label
+        instancesEmptyLabel.setVisible(!hasInstances);
+        if (hasInstances) {
+            int count = runningInstancesPanel.getComponentCount() - 1; // Exclude empty label
+            statusBar.setInfo(Messages.get("inst.status.running", count));
+        } else {
+            statusBar.setInfo(Messages.get("inst.status.noRunning"));
+        }
+    }
+
+    /**
+     * Add emulator display to running instances panel
+     * Instances are arranged using SimpleFlowLayout with auto-wrapping
+     * Instances are sorted by instanceId in ascending order
+     * 
+     * @param defaultSpeed Default speed multiplier to show in menu
+     */
+    public void addEmulatorInstanceTab(EmulatorInstance emulatorInstance, double defaultSpeed) {
+        JComponent display = displayOf(emulatorInstance);
+        if (display != null) {
+            // Create wrapper panel with BorderLayout
+            JPanel wrapperPanel = new JPanel(new BorderLayout());
+
+            // Create menu bar for instance controls
+            JMenuBar menuBar = createInstanceMenuBar(emulatorInstance, defaultSpeed);
+
+            // Add menu bar and display to wrapper
+            wrapperPanel.add(menuBar, BorderLayout.NORTH);
+            wrapperPanel.add(display, BorderLayout.CENTER);
+            wrapperPanel.setBorder(BorderFactory.createLineBorder(Color.GRAY, 1));
+
+            // Store wrapper panel reference and instanceId for later removal and sorting
+            display.putClientProperty("wrapperPanel", wrapperPanel);
+            wrapperPanel.putClientProperty("instanceId", emulatorInstance.getInstanceId());
+
+            // Find correct position to insert based on instanceId (sorted in ascending
+            // order)
+            int insertIndex = findInsertPosition(emulatorInstance.getInstanceId());
+            runningInstancesPanel.add(wrapperPanel, insertIndex);
+
+            // Revalidate to trigger layout recalculation
+            runningInstancesPanel.revalidate();
+            runningInstancesPanel.repaint();
+
+            // Update empty state visibility
+            updateInstancesEmptyState();
+
+            // Notify instance manager that instance has been started (for input sync)
+            emulatorInstanceManager.notifyInstanceStarted(emulatorInstance);
+        }
+    }
+
+    /**
+     * Create menu bar for instance controls
+     * 
+     * @param defaultSpeed Default speed to show as selected
+     */
+    private JMenuBar createInstanceMenuBar(EmulatorInstance emulatorInstance, double defaultSpeed) {
+        JMenuBar menuBar = new JMenuBar() {
+            @Override
+            protected void paintComponent(java.awt.Graphics g) {
+                if (isOpaque() && getBackground() != null) {
+                    g.setColor(getBackground());
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                } else {
+                    super.paintComponent(g);
+                }
+            }
+        };
+
+        // Instance title/info as a non-clickable label
+        JLabel titleLabel = new JLabel("  " + Messages.get("inst.instance.title", emulatorInstance.getInstanceId()) + "  ");
+        titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD));
+        menuBar.add(titleLabel);
+
+        // Push Actions menu to the right
+        menuBar.add(Box.createHorizontalGlue());
+
+        // Actions menu (contains all instance controls)
+        JMenu actionsMenu = new JMenu(Messages.get("inst.actions"));
+        actionsMenu.setToolTipText(Messages.get("inst.actions.tooltip"));
+
+        // Speed submenu - find initial text based on defaultSpeed
+        String initialSpeedText = Messages.get("inst.speed");
+        for (int i = 0; i < SPEED_VALUES.length; i++) {
+            if (Math.abs(SPEED_VALUES[i] - defaultSpeed) < 0.01) {
+                initialSpeedText = Messages.get("inst.speed.format", SPEED_OPTIONS[i]);
+                break;
+            }
+        }
+        JMenu speedSubmenu = new JMenu(initialSpeedText);
+        speedSubmenu.setToolTipText(Messages.get("inst.speed.submenu.tooltip"));
+
+        ButtonGroup speedGroup = new ButtonGroup();
+        for (int i = 0; i < SPEED_OPTIONS.length; i++) {
+            final int index = i;
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(SPEED_OPTIONS[i]);
+            // Select based on defaultSpeed
+            if (Math.abs(SPEED_VALUES[i] - defaultSpeed) < 0.01) {
+                item.setSelected(true);
+            }
+
+            item.addActionListener(e -> {
+                double speed = SPEED_VALUES[index];
+                emulatorInstance.setSpeedMultiplier(speed);
+                speedSubmenu.setText(Messages.get("inst.speed.format", SPEED_OPTIONS[index]));
+                showToast(Messages.get("inst.speed.set", emulatorInstance.getInstanceId(), SPEED_OPTIONS[index]),
+                        ToastNotification.ToastType.INFO);
+            });
+
+            speedGroup.add(item);
+            speedSubmenu.add(item);
+        }
+        actionsMenu.add(speedSubmenu);
+
+        // Governor priority submenu - decides who is slowed first under load
+        JMenu prioritySubmenu = new JMenu(Messages.get("inst.priority"));
+        prioritySubmenu.setToolTipText(Messages.get("inst.priority.tooltip"));
+        ButtonGroup priorityGroup = new ButtonGroup();
+        double currentWeight = CpuGovernor.getInstance().getPriorityWeight(emulatorInstance.getInstanceId());
+        for (int i = 0; i < PRIORITY_KEYS.length; i++) {
+            final int index = i;
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(Messages.get(PRIORITY_KEYS[i]));
+            item.setSelected(Math.abs(PRIORITY_WEIGHTS[i] - currentWeight) < 0.01);
+            item.addActionListener(e -> CpuGovernor.getInstance()
+                    .setPriorityWeight(emulatorInstance.getInstanceId(), PRIORITY_WEIGHTS[index]));
+            priorityGroup.add(item);
+            prioritySubmenu.add(item);
+        }
+        actionsMenu.add(prioritySubmenu);
+
+        // Sound submenu - how the MIDlet's players are backed, for players created from now on
+        JMenu mediaSubmenu = new JMenu(Messages.get("inst.media"));
+        mediaSubmenu.setToolTipText(Messages.get("inst.media.tooltip"));
+        ButtonGroup mediaGroup = new ButtonGroup();
+        MediaPolicy currentPolicy = MediaService.getInstance().getPolicy(emulatorInstance.getInstanceId());
+        for (int i = 0; i < MEDIA_POLICIES.length; i++) {
+            final int index = i;
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(Messages.get(MEDIA_KEYS[i]));
+            item.setSelected(MEDIA_POLICIES[i] == currentPolicy);
+            item.addActionListener(e -> {
+                MediaService.getInstance().setPolicy(emulatorInstance.getInstanceId(), MEDIA_POLICIES[index]);
+                showToast(Messages.get("inst.media.set", emulatorInstance.getInstanceId(),
+                        Messages.get(MEDIA_KEYS[index])), ToastNotification.ToastType.INFO);
+            });
+            mediaGroup.add(item);
+            mediaSubmenu.add(item);
+        }
+        actionsMenu.add(mediaSubmenu);
+
+        // Paint rate submenu - a fixed FPS for this instance, or follow focus and visibility
+        JMenu paintFpsSubmenu = new JMenu(Messages.get("inst.paintFps"));
+        paintFpsSubmenu.setToolTipText(Messages.get("inst.paintFps.tooltip"));
+        ButtonGroup paintFpsGroup = new ButtonGroup();
+        Integer currentOverride = PaintBudgetService.getInstance().getFpsOverride(emulatorInstance.getInstanceId());
+        for (Integer fps : PAINT_FPS_OPTIONS) {
+            String label = paintFpsLabel(fps);
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(label);
+            item.setSelected(Objects.equals(fps, currentOverride));
+            item.addActionListener(e -> {
+                if (fps == null) {
+                    PaintBudgetService.getInstance().clearFpsOverride(emulatorInstance.getInstanceId());
+                } else {
+                    PaintBudgetService.getInstance().setFpsOverride(emulatorInstance.getInstanceId(), fps);
+                }
+                showToast(Messages.get("inst.paintFps.set", emulatorInstance.getInstanceId(), label),
+                        ToastNotification.ToastType.INFO);
+            });
+            paintFpsGroup.add(item);
+            paintFpsSubmenu.add(item);
+        }
+        actionsMenu.add(paintFpsSubmenu);
+
+        // Graphics optimization (Stop Painting)
+        JCheckBoxMenuItem graphicsItem = new JCheckBoxMenuItem(Messages.get("inst.disableGraphicsItem"));
+        graphicsItem.setSelected(!emulatorInstance.isGraphicsEnabled());
+        graphicsItem.setToolTipText(Messages.get("inst.disableGraphicsItem.tooltip"));
+        graphicsItem.addActionListener(e -> {
+            boolean disableGraphics = graphicsItem.isSelected();
+            me.kitakeyos.j2me.domain.graphics.service.GraphicsOptimizationService.getInstance()
+                    .setGraphicsEnabled(emulatorInstance, !disableGraphics);
+
+            String status = disableGraphics ? "DISABLED" : "ENABLED";
+            showToast(Messages.get("inst.graphics.status", status, emulatorInstance.getInstanceId()),
+                    ToastNotification.ToastType.INFO);
+        });
+        actionsMenu.add(graphicsItem);
+
+        // Packet capture toggle
+        JCheckBoxMenuItem packetCaptureItem = new JCheckBoxMenuItem(Messages.get("inst.packetCapture"));
+        packetCaptureItem.setToolTipText(Messages.get("inst.packetCapture.tooltip"));
+        packetCaptureItem.addActionListener(e -> {
+            me.kitakeyos.j2me.domain.network.service.NetworkService ns =
+                    me.kitakeyos.j2me.domain.network.service.NetworkService.getInstance();
+            if (packetCaptureItem.isSelected()) {
+                ns.enableTapping(emulatorInstance.getInstanceId());
+            } else {
+                ns.disableTapping(emulatorInstance.getInstanceId());
+            }
+            String status = packetCaptureItem.isSelected() ? "ON" : "OFF";
+            showToast(Messages.get("inst.packetCapture.status", status, emulatorInstance.getInstanceId()),
+                    ToastNotification.ToastType.INFO);
+        });
+        actionsMenu.add(packetCaptureItem);
+
+        // MIDlet console output
+        JMenuItem consoleItem = new JMenuItem(Messages.get("inst.console"));
+        consoleItem.setToolTipText(Messages.get("inst.console.tooltip"));
+        consoleItem.addActionListener(e -> openConsole(emulatorInstance));
+        actionsMenu.add(consoleItem);
+
+        // Suspend / resume (hibernate) toggle
+        JCheckBoxMenuItem suspendItem = new JCheckBoxMenuItem(Messages.get("inst.suspend"));
+        suspendItem.setToolTipText(Messages.get("inst.suspend.tooltip"));
+        suspendItem.addActionListener(e -> {
+            if (suspendItem.isSelected()) {
+                emulatorInstance.suspend(applicationConfig.isSuspendKeepAliveEnabled());
+            } else {
+                emulatorInstance.resume();
+            }
+            suspendItem.setSelected(emulatorInstance.isSuspended());
+            String key = emulatorInstance.isSuspended() ? "inst.suspended" : "inst.resumed";
+            showToast(Messages.get(key, emulatorInstance.getInstanceId()), ToastNotification.ToastType.INFO);
+        });
+        actionsMenu.add(suspendItem);
+
+        actionsMenu.addSeparator();
+
+        // Stop instance
+        JMenuItem stopItem = new JMenuItem(Messages.get("inst.stopInstance"));
+        stopItem.addActionListener(e -> {
+            removeEmulatorInstanceTab(emulatorInstance);
+            InstanceShutdownCoordinator.getInstance().shutdown(emulatorInstance, () ->
+                    showToast(Messages.get("inst.stoppedSingle", emulatorInstance.getInstanceId()),
+                            ToastNotification.ToastType.INFO));
+        });
+        actionsMenu.add(stopItem);
+
+        actionsMenu.addSeparator();
+
+        // Placeholder for future features
+        JMenuItem screenshotItem = new JMenuItem(Messages.get("inst.takeScreenshot"));
+        screenshotItem.setEnabled(false); // TODO: Implement
+        actionsMenu.add(screenshotItem);
+
+        menuBar.add(actionsMenu);
+
+        return menuBar;
+    }
+
+    /**
+     * Find the correct position to insert an instance based on instanceId
+     * Instances are sorted in ascending order by instanceId
+     */
+    private int findInsertPosition(int instanceId) {
+        Component[] components = runningInstancesPanel.getComponents();
+        for (int i = 0; i < components.length; i++) {
+            if (components[i] instanceof JPanel) {
+                JPanel panel = (JPanel) components[i];
+                Integer existingId = (Integer) panel.getClientProperty("instanceId");
+                if (existingId != null && existingId > instanceId) {
+                    return i; // Insert before this component
+                }
+            }
+        }
+        return components.length; // Insert at the end if not found
+    }
+
+    /**
+     * Remove emulator display from running instances panel
+     */
+    public void removeEmulatorInstanceTab(EmulatorInstance emulatorInstance) {
+        JComponent display = displayOf(emulatorInstance);
+        if (display != null) {
+            // Notify instance manager that instance is stopping (for input sync)
+            emulatorInstanceManager.notifyInstanceStopping(emulatorInstance);
+
+            // Get wrapper panel and remove it
+            JPanel wrapperPanel = (JPanel) display.getClientProperty("wrapperPanel");
+            display.putClientProperty("wrapperPanel", null);
+            if (wrapperPanel != null) {
+                runningInstancesPanel.remove(wrapperPanel);
+                // Revalidate to trigger layout recalculation
+                runningInstancesPanel.revalidate();
+                runningInstancesPanel.repaint();
+                // Update empty state visibility
+                updateInstancesEmptyState();
+            }
+        }
+    }
+
+    /**
+     * @return The Swing component showing a windowed instance, null if there
+     *         is none
+     */
+    private static JComponent displayOf(EmulatorInstance instance) {
+        return (JComponent) instance.getEmulatorDisplay();
+    }
+
+    // Utility methods for dialogs and toast notifications
+    private void showErrorMessage(String message) {
+        MessageDialog.showError(this, Messages.get("common.error"), message);
+    }
+
+    private void showInfoMessage(String message) {
+        MessageDialog.showInfo(this, Messages.get("common.info"), message);
+    }
+
+    private void showToast(String message, ToastNotification.ToastType type) {
+        switch (type) {
+            case SUCCESS:
+                ToastNotification.showSuccess(message);
+                break;
+            case ERROR:
+                ToastNotification.showError(message);
+                break;
+            case WARNING:
+                ToastNotification.showWarning(message);
+                break;
+            case INFO:
+            default:
+                ToastNotification.showInfo(message);
+                break;
+        }
+    }
+
+    /**
+     * Show dialog to select which instances participate in input sync.
+     */
+    private void showSyncSelectionDialog() {
+        java.util.List<EmulatorInstance> running = emulatorInstanceManager.getRunningInstances();
+        if (running.isEmpty()) {
+            showInfoMessage(Messages.get("inst.noRunning"));
+            return;
+        }
+
+        java.util.Set<Integer> currentSynced = emulatorInstanceManager.getSyncedInstanceIds();
+
+        // Build checkbox grid — scale columns with instance count so dialog
+        // stays compact when there are many instances.
+        int columns = running.size() > 60 ? 5 : running.size() > 20 ? 3 : 1;
+        JPanel listPanel = new JPanel(new java.awt.GridLayout(0, columns, 8, 2));
+
+        java.util.List<JCheckBox> checkBoxes = new java.util.ArrayList<>();
+        for (EmulatorInstance instance : running) {
+            JCheckBox cb = new JCheckBox(
+                    Messages.get("inst.instance.title", instance.getInstanceId()),
+                    currentSynced.contains(instance.getInstanceId()));
+            checkBoxes.add(cb);
+            listPanel.add(cb);
+        }
+
+        // Cap the dialog height; scroll when it overflows.
+        JScrollPane scrollPane = new JScrollPane(listPanel,
+                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        int rowHeight = 24;
+        int preferredRows = Math.min((int) Math.ceil(running.size() / (double) columns), 18);
+        scrollPane.setPreferredSize(new Dimension(
+                columns * 130 + 24,
+                preferredRows * rowHeight + 8));
+
+        // Select All / Deselect All buttons
+        JPanel buttonRow = new JPanel(new java.awt.FlowLayout(java.awt.FlowLayout.LEFT, 5, 0));
+        JButton selectAllBtn = new JButton(Messages.get("inst.sync.selectAll"));
+        selectAllBtn.addActionListener(e -> checkBoxes.forEach(cb -> cb.setSelected(true)));
+        JButton deselectAllBtn = new JButton(Messages.get("inst.sync.deselectAll"));
+        deselectAllBtn.addActionListener(e -> checkBoxes.forEach(cb -> cb.setSelected(false)));
+        buttonRow.add(selectAllBtn);
+        buttonRow.add(deselectAllBtn);
+
+        JPanel dialogPanel = new JPanel(new BorderLayout(0, 10));
+        dialogPanel.add(buttonRow, BorderLayout.NORTH);
+        dialogPanel.add(scrollPane, BorderLayout.CENTER);
+
+        int result = JOptionPane.showConfirmDialog(
+                this, dialogPanel, Messages.get("inst.syncInput"),
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            java.util.Set<Integer> selected = new java.util.HashSet<>();
+            for (int i = 0; i < checkBoxes.size(); i++) {
+                if (checkBoxes.get(i).isSelected()) {
+                    selected.add(running.get(i).getInstanceId());
+                }
+            }
+
+            emulatorInstanceManager.setSyncedInstanceIds(selected);
+
+            if (selected.isEmpty()) {
+                emulatorInstanceManager.setInputSynchronizationEnabled(false);
+                statusBar.setInfo(Messages.get("inst.syncInput.disabled"));
+            } else {
+                emulatorInstanceManager.setInputSynchronizationEnabled(true);
+                statusBar.setInfo(Messages.get("inst.sync.selected", selected.size()));
+            }
+
+            updateSyncHighlights(selected);
+        }
+    }
+
+    private static final Color SYNC_BG = new Color(0, 120, 215);
+    private static final Color SYNC_FG = Color.WHITE;
+
+    /**
+     * Update menu bar background to show which instances are synced.
+     * Custom paintComponent on JMenuBar allows overriding LAF background.
+     */
+    private void updateSyncHighlights(java.util.Set<Integer> syncedIds) {
+        for (Component comp : runningInstancesPanel.getComponents()) {
+            if (!(comp instanceof JPanel)) continue;
+            JPanel panel = (JPanel) comp;
+            Integer id = (Integer) panel.getClientProperty("instanceId");
+            if (id == null) continue;
+
+            Component first = panel.getComponent(0);
+            if (!(first instanceof JMenuBar)) continue;
+            JMenuBar menuBar = (JMenuBar) first;
+
+            boolean synced = syncedIds.contains(id);
+            menuBar.setOpaque(synced);
+            menuBar.setBackground(synced ? SYNC_BG : null);
+
+            for (Component child : menuBar.getComponents()) {
+                if (child instanceof JLabel) {
+                    ((JLabel) child).setForeground(synced ? SYNC_FG : null);
+                } else if (child instanceof JMenu) {
+                    ((JMenu) child).setForeground(synced ? SYNC_FG : null);
+                }
+            }
+        }
+        runningInstancesPanel.repaint();
+    }
+
+    /**
+     * Open the Network Monitor dialog
+     */
+    private void openNetworkMonitor() {
+        Frame owner = (Frame) SwingUtilities.getWindowAncestor(this);
+        NetworkMonitorDialog dialog = new NetworkMonitorDialog(owner);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Open the console of an instance. The console outlives restarts, so the
+     * dialog keeps showing the instance's output after one.
+     */
+    private void openConsole(EmulatorInstance emulatorInstance) {
+        Frame owner = (Frame) SwingUtilities.getWindowAncestor(this);
+        ConsoleDialog dialog = new ConsoleDialog(owner, emulatorInstance.getConsole());
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Open the System Monitor dialog
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        InstanceWatchdog.getInstance().setRecoveryHandler(recoveryHandler);
+        visibilityTimer.start();
+        if (!pendingLaunches.isEmpty()) {
+            admissionTimer.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        visibilityTimer.stop();
+        admissionTimer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Classify every running instance as focused, visible or hidden and hand
+     * the result to BackgroundModeService. An instance is hidden when its
+     * display is scrolled out of view, on another tab, or the launcher is
+     * minimized; it is focused when keyboard focus is inside its wrapper.
+     */
+    private void updateInstanceVisibility() {
+        if (emulatorInstanceManager == null) {
+            return;
+        }
+        Window window = SwingUtilities.getWindowAncestor(this);
+        Component focusOwner = window != null && window.isActive()
+                ? KeyboardFocusManager.getCurrentKeyboardFocusManager().getPermanentFocusOwner()
+                : null;
+        boolean minimized = me.kitakeyos.j2me.infrastructure.bytecode.PaintThrottleConfig.windowMinimized;
+        BackgroundModeService backgroundMode = BackgroundModeService.getInstance();
+
+        for (EmulatorInstance instance : emulatorInstanceManager.getRunningInstances()) {
+            JComponent display = displayOf(instance);
+            EmulatorInstance.Visibility visibility;
+            if (display == null || minimized || !display.isShowing() || display.getVisibleRect().isEmpty()) {
+                visibility = EmulatorInstance.Visibility.HIDDEN;
+            } else {
+                Component wrapper = (Component) display.getClientProperty("wrapperPanel");
+                boolean focused = focusOwner != null && wrapper != null
+                        && SwingUtilities.isDescendingFrom(focusOwner, wrapper);
+                visibility = focused ? EmulatorInstance.Visibility.FOCUSED : EmulatorInstance.Visibility.VISIBLE;
+            }
+            backgroundMode.applyVisibility(instance, visibility);
+        }
+    }
+
+    private static String paintFpsLabel(Integer fps) {
+        if (fps == null) {
+            return Messages.get("inst.paintFps.auto");
+        }
+        if (fps == PaintBudgetService.UNLIMITED) {
+            return Messages.get("inst.paintFps.unlimited");
+        }
+        return Messages.get("inst.paintFps.value", fps);
+    }
+
+    private void openSystemMonitor() {
+        Frame owner = (Frame) SwingUtilities.getWindowAncestor(this);
+        SystemMonitorDialog dialog = new SystemMonitorDialog(owner);
+        dialog.setVisible(true);
+    }
+}
@@ -0,0 +1,180 @@
+package me.kitakeyos.j2me.presentation.emulator.panel;
+
+import me.kitakeyos.j2me.application.cli.WorkerInstanceHost;
+import me.kitakeyos.j2me.presentation.common.i18n.Messages;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Display of an instance hosted by a worker process. Polls the worker for
+ * the current frame while the view is on screen and forwards keys and
+ * pointer events over the worker protocol.
+ */
+class WorkerInstanceView extends JComponent {
+
+    private static final int FRAME_POLL_MS = 200;
+
+    private final WorkerInstanceHost host;
+    private final int instanceId;
+    private final Executor frameExecutor;
+    private final Timer pollTimer = new Timer(FRAME_POLL_MS, e -> requestFrame());
+    // One frame request in flight at a time; a slow worker lowers the rate
+    private final AtomicBoolean fetching = new AtomicBoolean();
+    private BufferedImage frame;
+    private String status;
+
+    /**
+     * @param frameExecutor Runs the blocking frame requests
+     */
+    WorkerInstanceView(WorkerInstanceHost host, int instanceId, int width, int height, Executor frameExecutor) {
+        this.host = host;
+        this.instanceId = instanceId;
+        this.frameExecutor = frameExecutor;
+        this.status = Messages.get("inst.worker.waiting");
+        setPreferredSize(new Dimension(width, height));
+        setFocusable(true);
+        setOpaque(true);
+        setBackground(Color.BLACK);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                host.pressPointer(instanceId, e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                host.releasePointer(instanceId, e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                host.dragPointer(instanceId, e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int code = midpKeyCode(e);
+                if (code != 0) {
+                    host.pressKey(instanceId, code);
+                }
+            }
+
+            @Override
+            public void keyReleased(KeyEvent e) {
+                int code = midpKeyCode(e);
+                if (code != 0) {
+                    host.releaseKey(instanceId, code);
+                }
+            }
+        });
+    }
+
+    int getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        pollTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        pollTimer.stop();
+        super.removeNotify();
+    }
+
+    private void requestFrame() {
+        if (!isShowing() || getVisibleRect().isEmpty() || !fetching.compareAndSet(false, true)) {
+            return;
+        }
+        frameExecutor.execute(() -> {
+            BufferedImage image = null;
+            String error = null;
+            try {
+                image = host.captureFrame(instanceId);
+            } catch (IOException e) {
+                error = host.isWorkerAlive(instanceId)
+                        ? Messages.get("inst.worker.noFrame")
+                        : Messages.get("inst.worker.lost");
+            } finally {
+                fetching.set(false);
+            }
+            BufferedImage received = image;
+            String message = error;
+            SwingUtilities.invokeLater(() -> {
+                if (received != null) {
+                    frame = received;
+                }
+                status = message;
+                repaint();
+            });
+        });
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (frame != null) {
+            g.drawImage(frame, 0, 0, null);
+        }
+        if (status != null) {
+            g.setColor(Color.LIGHT_GRAY);
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(status, Math.max(4, (getWidth() - metrics.stringWidth(status)) / 2), getHeight() / 2);
+        }
+    }
+
+    /**
+     * @return The MIDP key code of a key, in MicroEmulator's default device
+     *         layout, or 0 if the key has none
+     */
+    static int midpKeyCode(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_UP:
+                return -1;
+            case KeyEvent.VK_DOWN:
+                return -2;
+            case KeyEvent.VK_LEFT:
+                return -3;
+            case KeyEvent.VK_RIGHT:
+                return -4;
+            case KeyEvent.VK_ENTER:
+                return -5;
+            case KeyEvent.VK_F1:
+                return -6;
+            case KeyEvent.VK_F2:
+                return -7;
+            case KeyEvent.VK_BACK_SPACE:
+                return -8;
+            case KeyEvent.VK_MULTIPLY:
+                return '*';
+            default:
+                break;
+        }
+        if (e.getKeyCode() >= KeyEvent.VK_NUMPAD0 && e.getKeyCode() <= KeyEvent.VK_NUMPAD9) {
+            return '0' + e.getKeyCode() - KeyEvent.VK_NUMPAD0;
+        }
+        char c = e.getKeyChar();
+        if ((c >= '0' && c <= '9') || c == '*' || c == '#') {
+            return c;
+        }
+        return 0;
+    }
+}
@@ -1,13 +1,19 @@
 package me.kitakeyos.j2me.presentation.monitor;
 
+import me.kitakeyos.j2me.application.MainApplication;
+import me.kitakeyos.j2me.application.config.ApplicationConfig;
+import me.kitakeyos.j2me.domain.emulator.service.BackgroundModeService;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceAllocationRate;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuMonitor;
+import me.kitakeyos.j2me.infrastructure.monitoring.InstanceCpuUsage;
+import me.kitakeyos.j2me.infrastructure.monitoring.MemoryAdmissionController;
 import me.kitakeyos.j2me.infrastructure.monitoring.SystemMonitorService;
 import me.kitakeyos.j2me.presentation.common.i18n.Messages;
 
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.text.DecimalFormat;
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class SystemMonitorDialog extends JDialog {
 
@@ -19,20 +25,24 @@ public class SystemMonitorDialog extends JDialog {
     private JLabel threadLabel;
     private JLabel cpuLabel;
     private JLabel physicalMemLabel;
+    private JLabel backgroundLabel;
+    private JLabel footprintLabel;
 
     private JProgressBar heapBar;
     private JProgressBar cpuBar;
 
+    private DefaultTableModel cpuTableModel;
+
     private final DecimalFormat df = new DecimalFormat("#.##");
 
     public SystemMonitorDialog(Frame owner) {
         super(owner, Messages.get("sysmon.title"), false);
-        setResizable(false);
         this.monitorService = new SystemMonitorService();
-        this.timer = new Timer(true);
+        // Fires on the EDT, no extra thread per open dialog
+        this.timer = new Timer(1000, e -> updateMetrics());
 
-        // Compact size
-        setSize(350, 280);
+        // Compact metrics on top, per-instance CPU table below
+        setSize(440, 560);
         setLocationRelativeTo(owner);
         setLayout(new BorderLayout());
 
@@ -90,10 +100,32 @@ public class SystemMonitorDialog extends JDialog {
         physicalMemLabel = new JLabel(Messages.get("common.loading"));
         addControl(contentPanel, physicalMemLabel, gbc, 1, 6);
 
-        // Footer: GC Button
+        // Row 7: Background mode
+        addLabel(contentPanel, Messages.get("sysmon.background"), gbc, 0, 7);
+        backgroundLabel = new JLabel(Messages.get("common.loading"));
+        addControl(contentPanel, backgroundLabel, gbc, 1, 7);
+
+        // Row 8: Modelled per-instance footprint used for launch admission
+        addLabel(contentPanel, Messages.get("sysmon.footprint"), gbc, 0, 8);
+        footprintLabel = new JLabel(Messages.get("common.loading"));
+        addControl(contentPanel, footprintLabel, gbc, 1, 8);
+
+        // Footer: CPU budget + GC Button
         JPanel footerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         footerPanel.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, Color.LIGHT_GRAY));
 
+        ApplicationConfig config = MainApplication.INSTANCE.getApplicationConfig();
+        JSpinner budgetSpinner = new JSpinner(new SpinnerNumberModel(config.getCpuBudgetPercent(), 0, 800, 5));
+        budgetSpinner.setToolTipText(Messages.get("sysmon.cpu.budget.tooltip"));
+        budgetSpinner.addChangeListener(e -> {
+            int budget = (Integer) budgetSpinner.getValue();
+            InstanceCpuMonitor.getInstance().setCpuBudgetPercent(budget);
+            config.setCpuBudgetPercent(budget);
+            config.saveConfiguration();
+        });
+        footerPanel.add(new JLabel(Messages.get("sysmon.cpu.budget")));
+        footerPanel.add(budgetSpinner);
+
         JButton gcButton = new JButton(Messages.get("sysmon.gcButton"));
         gcButton.addActionListener(e -> {
             System.gc();
@@ -102,10 +134,80 @@ public class SystemMonitorDialog extends JDialog {
         });
         footerPanel.add(gcButton);
 
-        add(contentPanel, BorderLayout.CENTER);
+        add(contentPanel, BorderLayout.NORTH);
+        add(createCpuTablePanel(), BorderLayout.CENTER);
         add(footerPanel, BorderLayout.SOUTH);
     }
 
+    private JPanel createCpuTablePanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(0, 10, 10, 10),
+                BorderFactory.createTitledBorder(Messages.get("sysmon.cpu.title"))));
+
+        if (!InstanceCpuMonitor.getInstance().isSupported()) {
+            panel.add(new JLabel(Messages.get("sysmon.cpu.unsupported"), SwingConstants.CENTER), BorderLayout.CENTER);
+            return panel;
+        }
+
+        String[] columns = { Messages.get("sysmon.cpu.col.instance"), Messages.get("sysmon.cpu.col.cpu"),
+                Messages.get("sysmon.cpu.col.time"), Messages.get("sysmon.cpu.col.alloc"),
+                Messages.get("sysmon.cpu.col.threads"), Messages.get("sysmon.cpu.col.status") };
+        cpuTableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                switch (columnIndex) {
+                    case 0:
+                    case 4:
+                        return Integer.class;
+                    case 1:
+                    case 2:
+                    case 3:
+                        return Double.class;
+                    default:
+                        return String.class;
+                }
+            }
+        };
+        JTable cpuTable = new JTable(cpuTableModel);
+        cpuTable.setAutoCreateRowSorter(true);
+        cpuTable.getRowSorter().setSortKeys(java.util.Collections.singletonList(
+                new RowSorter.SortKey(1, SortOrder.DESCENDING)));
+        cpuTable.getColumnModel().getColumn(0).setPreferredWidth(60);
+        cpuTable.getColumnModel().getColumn(5).setPreferredWidth(100);
+
+        panel.add(new JScrollPane(cpuTable), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void updateCpuTable() {
+        if (cpuTableModel == null) {
+            return;
+        }
+        // Rows are rebuilt every tick; the row sorter keeps its sort keys
+        cpuTableModel.setRowCount(0);
+        java.util.Map<Integer, Double> allocMbPerSecond = new java.util.HashMap<>();
+        for (InstanceAllocationRate rate : monitorService.getInstanceAllocationRates()) {
+            allocMbPerSecond.put(rate.getInstanceId(), rate.getBytesPerSecond() / 1024 / 1024);
+        }
+        for (InstanceCpuUsage usage : InstanceCpuMonitor.getInstance().getUsage()) {
+            Double alloc = allocMbPerSecond.get(usage.getInstanceId());
+            cpuTableModel.addRow(new Object[] {
+                    usage.getInstanceId(),
+                    Math.round(usage.getWindowPercent() * 10) / 10.0,
+                    Math.round(usage.getTotalCpuNanos() / 1_000_000.0) / 1000.0,
+                    alloc != null ? Math.round(alloc * 100) / 100.0 : null,
+                    usage.getThreadCount(),
+                    usage.isOverBudget() ? Messages.get("sysmon.cpu.overBudgetStatus") : ""
+            });
+        }
+    }
+
     private void addLabel(JPanel panel, String text, GridBagConstraints gbc, int x, int y) {
         gbc.gridx = x;
         gbc.gridy = y;
@@ -123,12 +225,8 @@ public class SystemMonitorDialog extends JDialog {
     }
 
     private void startMonitoring() {
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> updateMetrics());
-            }
-        }, 0, 1000); // 1s
+        timer.setInitialDelay(0);
+        timer.start();
     }
 
     private void updateMetrics() {
@@ -174,11 +272,23 @@ public class SystemMonitorDialog extends JDialog {
         } else {
             physicalMemLabel.setText(Messages.get("common.na"));
         }
+
+        // Background mode
+        BackgroundModeService backgroundMode = BackgroundModeService.getInstance();
+        backgroundLabel.setText(Messages.get("sysmon.background.value", backgroundMode.getHiddenCount(),
+                backgroundMode.getTransitionCount(), df.format(backgroundMode.getEstimatedSavedCpuMs() / 1000.0)));
+
+        // Per-instance footprint
+        MemoryAdmissionController admission = MemoryAdmissionController.getInstance();
+        footprintLabel.setText(Messages.get(admission.isMeasured() ? "sysmon.footprint.value" : "sysmon.footprint.estimated",
+                admission.getHeapPerInstance() >> 20, admission.getMetaspacePerInstance() >> 20));
+
+        updateCpuTable();
     }
 
     @Override
     public void dispose() {
-        timer.cancel();
+        timer.stop();
         super.dispose();
     }
 }